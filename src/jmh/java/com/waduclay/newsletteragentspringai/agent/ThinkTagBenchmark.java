@@ -0,0 +1,95 @@
+package com.waduclay.newsletteragentspringai.agent;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the former {@code <think>} removal in {@link SectionFormatConverter} and the topic converter, a lazy
+ * {@link String#replaceAll} that compiled its pattern on every call, with a precompiled pattern and with
+ * {@link ThinkTagFilter} on a whole response and on the same response streamed in small chunks.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThinkTagBenchmark {
+
+    private static final String THINK_REGEX = "(?s)<think>.*?</think>";
+    private static final Pattern THINK_PATTERN = Pattern.compile(THINK_REGEX);
+    private static final int CHUNK_LENGTH = 16;
+    private static final String REASONING = """
+            The research covers agentic steps in CI, small models for tool calling and evaluation in production. \
+            The strongest angle is what changed for teams this week, so lead with the CI announcement and keep \
+            the benchmark numbers brief.
+            """;
+    private static final String SECTION = """
+            <h2>Agents move into CI</h2>
+            <p>Workflows can now delegate steps to coding agents that open pull requests, respond to review \
+            comments and retry failed checks. Every tool call is recorded in the run log, so reviewers can follow \
+            what the agent did. <a href="https://github.com/blog">Read more</a></p>
+            """;
+
+    @Param({"2", "16", "128"})
+    int outputKb;
+
+    @Param({"0", "1", "8"})
+    int thinkBlocks;
+
+    private String output;
+    private List<String> chunks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < thinkBlocks; i++) {
+            builder.append("<think>").append(REASONING).append("</think>\n");
+        }
+        while (builder.length() < outputKb * 1024) {
+            builder.append(SECTION);
+        }
+        output = builder.toString();
+        chunks = new ArrayList<>();
+        for (int start = 0; start < output.length(); start += CHUNK_LENGTH) {
+            chunks.add(output.substring(start, Math.min(output.length(), start + CHUNK_LENGTH)));
+        }
+    }
+
+    @Benchmark
+    public String stringReplaceAll() {
+        return output.replaceAll(THINK_REGEX, "");
+    }
+
+    @Benchmark
+    public String precompiledPattern() {
+        return THINK_PATTERN.matcher(output).replaceAll("");
+    }
+
+    @Benchmark
+    public String thinkTagFilter() {
+        return ThinkTagFilter.strip(output);
+    }
+
+    @Benchmark
+    public String thinkTagFilterStreamed() {
+        ThinkTagFilter filter = new ThinkTagFilter();
+        StringBuilder visible = new StringBuilder(output.length());
+        for (String chunk : chunks) {
+            visible.append(filter.accept(chunk));
+        }
+        return visible.append(filter.finish()).toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.waduclay.newsletteragentspringai.prompt;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former read-and-replace prompt rendering, which re-read the {@code .st} resources on every call and
+ * chained {@link String#replace}, with rendering a {@link CompiledTemplate} at realistic research sizes.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptTemplateBenchmark {
+
+    private static final String RESULT_JSON = """
+            {"score":0.82,"raw_content":"Agents coordinate through a shared task graph. Each node declares its tools, \
+            inputs and expected outputs, and the planner schedules nodes once their dependencies resolve.",\
+            "title":"Building multi-agent workflows with a task graph","url":"https://github.com/example/agent-graph",\
+            "content":"A practical walkthrough of multi-agent orchestration with tool calling and retries."}
+            """;
+
+    @Param({"10", "100", "500"})
+    int researchKb;
+
+    private String research;
+    private String sections;
+    private Resource sectionWriterResource;
+    private Resource editorSystemResource;
+    private Resource editorPromptResource;
+    private CompiledTemplate sectionWriterTemplate;
+    private CompiledTemplate editorSystemTemplate;
+    private CompiledTemplate editorPromptTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        research = repeatToSize(RESULT_JSON + "\n\n", researchKb * 1024);
+        sections = repeatToSize("<h2>Section</h2><p>Agents coordinate through a shared task graph.</p>\n\n\n", researchKb * 1024);
+        sectionWriterResource = new ClassPathResource("prompts/section-writer-prompt-template.st");
+        editorSystemResource = new ClassPathResource("prompts/editor-agent-system-message.st");
+        editorPromptResource = new ClassPathResource("prompts/editor-agent-prompt-template.st");
+        PromptTemplates templates = new PromptTemplates();
+        sectionWriterTemplate = templates.get("section-writer-prompt-template");
+        editorSystemTemplate = templates.get("editor-agent-system-message");
+        editorPromptTemplate = templates.get("editor-agent-prompt-template");
+    }
+
+    @Benchmark
+    public String sectionWriterReadAndReplace() throws IOException {
+        return sectionWriterResource.getContentAsString(StandardCharsets.UTF_8)
+                .replace("{research}", research)
+                .replace("{topic}", "Multi-agent orchestration");
+    }
+
+    @Benchmark
+    public String sectionWriterCompiled() {
+        return sectionWriterTemplate.render(Map.of("research", research, "topic", "Multi-agent orchestration"));
+    }
+
+    @Benchmark
+    public String editorReadAndReplace() throws IOException {
+        String system = editorSystemResource.getContentAsString(StandardCharsets.UTF_8)
+                .replace("{date}", "October 16, 2026");
+        String user = editorPromptResource.getContentAsString(StandardCharsets.UTF_8)
+                .replace("{title}", "Weekly Agent Digest")
+                .replace("{sections}", sections);
+        return system + user;
+    }
+
+    @Benchmark
+    public String editorCompiled() {
+        String system = editorSystemTemplate.render(Map.of("date", "October 16, 2026"));
+        String user = editorPromptTemplate.render(Map.of("title", "Weekly Agent Digest", "sections", sections));
+        return system + user;
+    }
+
+    private static String repeatToSize(String unit, int size) {
+        StringBuilder builder = new StringBuilder(size + unit.length());
+        while (builder.length() < size) {
+            builder.append(unit);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waduclay.newsletteragentspringai.tavily.ResearchFixtures;
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of turning search results into prompt research: the former {@code serializeResults}, which serialized the
+ * items on a {@code parallelStream}, the same work on a sequential stream, and packing with {@link ResearchPacker}
+ * into the default section writer budget.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResearchSerializationBenchmark {
+
+    private static final String RESULTS_SEPARATOR = "\n\n";
+    private static final String FOCUS = "Agentic workflows and tool calling";
+
+    @Param({"5", "20", "50"})
+    int resultCount;
+
+    @Param({"0", "4", "32"})
+    int rawContentKb;
+
+    private List<ResultsItem> results;
+    private ObjectMapper objectMapper;
+    private ResearchPacker packer;
+    private int writerBudget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        results = ResearchFixtures.results(resultCount, rawContentKb);
+        objectMapper = ResearchFixtures.objectMapper();
+        ResearchPackingProperties properties = new ResearchPackingProperties(6000, 8000, 200);
+        packer = new ResearchPacker(objectMapper, properties);
+        writerBudget = properties.writerBudget();
+    }
+
+    @Benchmark
+    public String parallelStreamSerialize() {
+        return results.parallelStream()
+                .filter(Objects::nonNull)
+                .map(this::serialize)
+                .collect(Collectors.joining(RESULTS_SEPARATOR));
+    }
+
+    @Benchmark
+    public String sequentialSerialize() {
+        return results.stream()
+                .filter(Objects::nonNull)
+                .map(this::serialize)
+                .collect(Collectors.joining(RESULTS_SEPARATOR));
+    }
+
+    @Benchmark
+    public PackedResearch pack() {
+        return packer.pack(results, FOCUS, writerBudget);
+    }
+
+    private String serialize(ResultsItem item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search results for benchmarks, built from a recorded Tavily response in {@code fixtures/tavily-search-response.json}.
+ * <p>
+ * The recorded results are cycled to reach the requested result count, and each {@code raw_content} is repeated
+ * paragraph by paragraph until it reaches the requested size, so the text keeps the shape of real articles.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class ResearchFixtures {
+
+    private static final String FIXTURE = "/fixtures/tavily-search-response.json";
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private ResearchFixtures() {
+    }
+
+    /**
+     * @return the shared object mapper, configured with Spring's defaults, which ignore unknown fields
+     */
+    public static ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * @return the recorded response, unchanged
+     */
+    public static TavilyResponse recorded() {
+        try (InputStream fixture = ResearchFixtures.class.getResourceAsStream(FIXTURE)) {
+            if (fixture == null) {
+                throw new IllegalStateException("Missing benchmark fixture " + FIXTURE);
+            }
+            return OBJECT_MAPPER.readValue(fixture, TavilyResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds search results from the recorded ones.
+     *
+     * @param count        number of results
+     * @param rawContentKb approximate size of each {@code raw_content}, in KiB; {@code 0} leaves it unset
+     * @return new, independent results
+     */
+    public static List<ResultsItem> results(int count, int rawContentKb) {
+        List<ResultsItem> recorded = recorded().getResults();
+        List<ResultsItem> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ResultsItem source = recorded.get(i % recorded.size());
+            ResultsItem item = new ResultsItem();
+            item.setScore(source.getScore());
+            item.setTitle(source.getTitle());
+            item.setUrl(source.getUrl() + "?page=" + i);
+            item.setContent(source.getContent());
+            item.setRawContent(rawContentKb == 0 ? null : grow(source.getRawContent(), rawContentKb * 1024));
+            results.add(item);
+        }
+        return results;
+    }
+
+    /**
+     * Builds a serialized search response, as returned by the Tavily API.
+     *
+     * @param count        number of results
+     * @param rawContentKb approximate size of each {@code raw_content}, in KiB
+     * @return the UTF-8 JSON body
+     */
+    public static byte[] responseBody(int count, int rawContentKb) {
+        TavilyResponse response = new TavilyResponse();
+        response.setQuery(recorded().getQuery());
+        response.setResults(results(count, rawContentKb));
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String grow(String text, int size) {
+        StringBuilder builder = new StringBuilder(size + text.length());
+        while (builder.length() < size) {
+            builder.append(text).append('\n');
+        }
+        return builder.toString();
+    }
+}
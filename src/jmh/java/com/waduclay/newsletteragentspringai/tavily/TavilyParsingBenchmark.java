@@ -0,0 +1,63 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former parsing of Tavily responses, which buffered the body into a {@link String}, serialized it
+ * again for a debug log statement and bound it with {@link ObjectMapper}, with the streaming
+ * {@link TavilyResponseParser} that retains only a prefix of each {@code raw_content}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TavilyParsingBenchmark {
+
+    private static final int MAX_RAW_CONTENT_LENGTH = 50_000;
+
+    @Param({"5", "20"})
+    int resultCount;
+
+    @Param({"4", "64", "512"})
+    int rawContentKb;
+
+    private byte[] body;
+    private ObjectMapper objectMapper;
+    private TavilyResponseParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        body = ResearchFixtures.responseBody(resultCount, rawContentKb);
+        objectMapper = ResearchFixtures.objectMapper();
+        parser = new TavilyResponseParser(objectMapper.getFactory(), MAX_RAW_CONTENT_LENGTH);
+    }
+
+    @Benchmark
+    public TavilyResponse bufferedObjectMapper() throws JsonProcessingException {
+        String text = new String(body, StandardCharsets.UTF_8);
+        objectMapper.writeValueAsString(text);
+        return objectMapper.readValue(text, TavilyResponse.class);
+    }
+
+    @Benchmark
+    public TavilyResponse streamingParser() throws IOException {
+        return parser.parse(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,96 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Wall-clock time of the per-topic stages of a run against stubbed Tavily and LLM calls, comparing the former
+ * {@code parallelStream} fan-out with {@link TopicPipeline#researchThenWrite}, which the orchestrator uses.
+ * <p>
+ * The stubs only sleep, so the numbers reflect how much blocking work each strategy keeps in flight. The batched
+ * research stub searches four topics at a time, as the batched Tavily search does.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TopicPipelineBenchmark {
+
+    private static final long SEARCH_LATENCY_MS = 20;
+    private static final long WRITE_LATENCY_MS = 80;
+    private static final int TAVILY_CONCURRENCY = 4;
+
+    @Param({"3", "6", "12", "24"})
+    int topicCount;
+
+    @Param({"2", "8"})
+    int writeConcurrency;
+
+    private List<String> topics;
+    private TopicPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topics = IntStream.range(0, topicCount).mapToObj(i -> "topic " + i).toList();
+        pipeline = new TopicPipeline(
+                new WorkflowProperties(4, writeConcurrency, EditorMode.STRUCTURED, false));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.destroy();
+    }
+
+    @Benchmark
+    public String parallelStream() {
+        return topics.parallelStream()
+                .map(TopicPipelineBenchmark::search)
+                .map(TopicPipelineBenchmark::write)
+                .collect(Collectors.joining("\n\n\n"));
+    }
+
+    @Benchmark
+    public String topicPipeline() {
+        return String.join("\n\n\n", pipeline.researchThenWrite(topics, TopicPipelineBenchmark::searchAll,
+                TopicPipelineBenchmark::write));
+    }
+
+    private static String search(String topic) {
+        sleep(SEARCH_LATENCY_MS);
+        return topic;
+    }
+
+    private static List<String> searchAll(List<String> topics) {
+        sleep(SEARCH_LATENCY_MS * ((topics.size() + TAVILY_CONCURRENCY - 1) / TAVILY_CONCURRENCY));
+        return topics;
+    }
+
+    private static String write(String research) {
+        sleep(WRITE_LATENCY_MS);
+        return "<h2>" + research + "</h2>";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,7 +1,23 @@
 package com.waduclay.newsletteragentspringai;
 
+import com.waduclay.newsletteragentspringai.email.BulkMailProperties;
+import com.waduclay.newsletteragentspringai.email.MailOutboxProperties;
+import com.waduclay.newsletteragentspringai.journal.RunJournalProperties;
+import com.waduclay.newsletteragentspringai.llm.HedgingProperties;
+import com.waduclay.newsletteragentspringai.llm.LlmCacheProperties;
+import com.waduclay.newsletteragentspringai.llm.ModelRoutingProperties;
+import com.waduclay.newsletteragentspringai.newsletter.NewsletterProperties;
+import com.waduclay.newsletteragentspringai.research.CondensingProperties;
+import com.waduclay.newsletteragentspringai.research.DeduplicationProperties;
+import com.waduclay.newsletteragentspringai.research.ResearchPackingProperties;
+import com.waduclay.newsletteragentspringai.tavily.TavilyCacheProperties;
 import com.waduclay.newsletteragentspringai.tavily.TavilyProperties;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimitProperties;
+import com.waduclay.newsletteragentspringai.workflow.DeadlineProperties;
+import com.waduclay.newsletteragentspringai.workflow.HierarchicalEditingProperties;
+import com.waduclay.newsletteragentspringai.workflow.ReactivePipelineProperties;
 import com.waduclay.newsletteragentspringai.workflow.WorkflowOrchestrator;
+import com.waduclay.newsletteragentspringai.workflow.WorkflowProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
@@ -37,7 +53,25 @@ import org.springframework.context.annotation.Bean;
  */
 @Slf4j
 @SpringBootApplication
-@EnableConfigurationProperties(TavilyProperties.class)
+@EnableConfigurationProperties({
+        TavilyProperties.class,
+        TavilyCacheProperties.class,
+        WorkflowProperties.class,
+        HierarchicalEditingProperties.class,
+        ReactivePipelineProperties.class,
+        DeadlineProperties.class,
+        ResearchPackingProperties.class,
+        DeduplicationProperties.class,
+        CondensingProperties.class,
+        UpstreamLimitProperties.class,
+        RunJournalProperties.class,
+        LlmCacheProperties.class,
+        ModelRoutingProperties.class,
+        HedgingProperties.class,
+        NewsletterProperties.class,
+        BulkMailProperties.class,
+        MailOutboxProperties.class
+})
 public class NewsletterAgentSpringAiApplication {
 
     /**
@@ -0,0 +1,18 @@
+package com.waduclay.newsletteragentspringai.agent;
+
+
+import com.waduclay.newsletteragentspringai.llm.LlmCacheMode;
+
+/**
+ * Per-call options of the agents, set for a whole newsletter run by the orchestrator.
+ *
+ * @param cacheMode how the call uses the LLM response cache
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record CallOptions(LlmCacheMode cacheMode) {
+
+    /**
+     * Options of calls that do not specify any.
+     */
+    public static final CallOptions DEFAULT = new CallOptions(LlmCacheMode.USE);
+}
@@ -0,0 +1,118 @@
+package com.waduclay.newsletteragentspringai.agent;
+
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Incrementally removes {@code <think>...</think>} reasoning blocks from model output.
+ * <p>
+ * Reasoning models emit their chain of thought inside {@code <think>} tags before the actual answer. This filter
+ * is a small state machine that can be fed the output chunk by chunk, as it arrives from a streaming call, and
+ * handles tags that are split across chunk boundaries by holding back the few characters that could still turn
+ * into a tag. Blocks may be nested, in which case everything up to the closing tag of the outermost block is
+ * removed. Text inside an unterminated {@code <think>} block is dropped, and a stray closing tag outside any
+ * block is kept as text.
+ * <p>
+ * Instances are stateful and not thread-safe; use one per response.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class ThinkTagFilter {
+
+    private static final String OPEN_TAG = "<think>";
+    private static final String CLOSE_TAG = "</think>";
+
+    private final StringBuilder pending = new StringBuilder();
+    private int depth;
+
+    /**
+     * Removes every reasoning block from a complete response.
+     *
+     * @param text the full model output
+     * @return the output without reasoning blocks
+     */
+    public static String strip(String text) {
+        ThinkTagFilter filter = new ThinkTagFilter();
+        return filter.accept(text) + filter.finish();
+    }
+
+    /**
+     * Removes reasoning blocks from a stream of output chunks, emitting visible text as soon as it is known not
+     * to be part of a tag.
+     *
+     * @param chunks the streamed model output
+     * @return the visible text, without empty chunks
+     */
+    public static Flux<String> strip(Flux<String> chunks) {
+        return Flux.defer(() -> {
+            ThinkTagFilter filter = new ThinkTagFilter();
+            return chunks.map(filter::accept)
+                    .concatWith(Mono.fromSupplier(filter::finish))
+                    .filter(text -> !text.isEmpty());
+        });
+    }
+
+    /**
+     * Feeds the next chunk of output into the filter.
+     *
+     * @param chunk the next chunk
+     * @return the text of this chunk (and any previously held back characters) that is visible
+     */
+    public String accept(String chunk) {
+        String buffer = pending.isEmpty() ? chunk : pending.append(chunk).toString();
+        pending.setLength(0);
+        StringBuilder visible = new StringBuilder(buffer.length());
+        int position = 0;
+        while (position < buffer.length()) {
+            int open = buffer.indexOf(OPEN_TAG, position);
+            int close = depth == 0 ? -1 : buffer.indexOf(CLOSE_TAG, position);
+            if (open >= 0 && (close < 0 || open < close)) {
+                if (depth == 0) {
+                    visible.append(buffer, position, open);
+                }
+                position = open + OPEN_TAG.length();
+                depth++;
+                continue;
+            }
+            if (close >= 0) {
+                position = close + CLOSE_TAG.length();
+                depth--;
+                continue;
+            }
+            int heldBack = Math.max(partialTagLength(buffer, position, OPEN_TAG),
+                    depth == 0 ? 0 : partialTagLength(buffer, position, CLOSE_TAG));
+            if (depth == 0) {
+                visible.append(buffer, position, buffer.length() - heldBack);
+            }
+            pending.append(buffer, buffer.length() - heldBack, buffer.length());
+            break;
+        }
+        return visible.toString();
+    }
+
+    /**
+     * Signals the end of the output and releases any held back text.
+     *
+     * @return the remaining visible text
+     */
+    public String finish() {
+        String remainder = depth > 0 ? "" : pending.toString();
+        pending.setLength(0);
+        return remainder;
+    }
+
+    /**
+     * Length of the longest suffix of {@code buffer}, starting at or after {@code from}, that is a proper prefix
+     * of {@code tag} and could therefore be completed by the next chunk.
+     */
+    private static int partialTagLength(String buffer, int from, String tag) {
+        int max = Math.min(tag.length() - 1, buffer.length() - from);
+        for (int length = max; length > 0; length--) {
+            if (buffer.startsWith(tag.substring(0, length), buffer.length() - length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+/**
+ * The finished newsletter produced by {@link EditorAgent#compose(String, String)}, ready to be sent.
+ *
+ * @param subject subject line of the email
+ * @param html    HTML body of the email
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record EditedNewsletter(
+        String subject,
+        String html
+) {
+}
@@ -0,0 +1,73 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
+import org.springframework.ai.converter.StructuredOutputConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the editor's response into an {@link EditedNewsletter}.
+ * <p>
+ * The response is a {@code Subject:} line followed by the HTML body after a {@code Content:} line. Unlike a JSON
+ * object, this format needs no escaping of the HTML, so the model cannot break it with an unescaped quote. A
+ * missing subject is left {@code null}; without a {@code Content:} line, everything after the subject is the body.
+ * Only the leading lines, before the first other non-blank line, are read as the header, so a line of the body that
+ * starts with {@code Subject:} or {@code Content:} stays in the body.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class EditedNewsletterConverter implements StructuredOutputConverter<EditedNewsletter> {
+
+    private static final Pattern SUBJECT = Pattern.compile("^[*#\\s]*Subject[*\\s]*:[*\\s]*(.*)$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONTENT = Pattern.compile("^[*#\\s]*Content[*\\s]*:[*\\s]*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CODE_FENCE = Pattern.compile("^```[a-z]*\\s*|\\s*```$");
+    private static final Pattern FENCE_LINE = Pattern.compile("\\s*```[a-z]*\\s*");
+
+    @Override
+    public String getFormat() {
+        return """
+                Respond with the finished newsletter in exactly this format:
+                Subject: <compelling subject line of at most 80 characters>
+
+                Content:
+                <complete HTML newsletter body>
+
+                CRITICAL RULES:
+                    1. Output nothing before the Subject line and nothing after the HTML body
+                    2. If reasoning is needed, wrap it in <think> tags BEFORE the Subject line
+                    3. Do not wrap the HTML in markdown code fences
+                """;
+    }
+
+    @Override
+    public EditedNewsletter convert(String source) {
+        String text = ThinkTagFilter.strip(source).strip();
+        String subject = null;
+        int bodyStart = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            int next = lineEnd < 0 ? text.length() : lineEnd + 1;
+            String line = text.substring(lineStart, lineEnd < 0 ? text.length() : lineEnd).stripTrailing();
+            Matcher subjectMatcher = SUBJECT.matcher(line);
+            if (subject == null && subjectMatcher.matches()) {
+                subject = subjectMatcher.group(1).strip();
+                bodyStart = next;
+            } else if (CONTENT.matcher(line).matches()) {
+                bodyStart = next;
+                break;
+            } else if (!line.isBlank() && !FENCE_LINE.matcher(line).matches()) {
+                break;
+            }
+            lineStart = next;
+        }
+        String html = CODE_FENCE.matcher(text.substring(bodyStart).strip()).replaceAll("");
+        return new EditedNewsletter(subject == null || subject.isEmpty() ? null : subject, html);
+    }
+}
@@ -1,27 +1,36 @@
 package com.waduclay.newsletteragentspringai.agent.editor;
 
 
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
 import com.waduclay.newsletteragentspringai.agent.writer.SectionFormatConverter;
 import com.waduclay.newsletteragentspringai.email.EmailService;
+import com.waduclay.newsletteragentspringai.llm.LlmUsageAdvisor;
+import com.waduclay.newsletteragentspringai.llm.ModelRouter;
+import com.waduclay.newsletteragentspringai.prompt.CompiledTemplate;
+import com.waduclay.newsletteragentspringai.prompt.PromptTemplates;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * AI agent responsible for editing and finalizing newsletter content before distribution.
  * <p>
  * This agent serves as the final step in the newsletter creation workflow, taking all generated
- * sections and performing comprehensive editing tasks. The agent integrates with {@link EmailService}
- * as a Spring AI tool, enabling it to automatically distribute the finalized newsletter via email.
+ * sections and performing comprehensive editing tasks. In tool mode ({@link #edit}) the agent
+ * integrates with {@link EmailService} as a Spring AI tool, enabling it to automatically distribute the finalized
+ * newsletter via email. In structured mode ({@link #compose}) it only returns the subject and HTML body, and the
+ * caller sends the email, which avoids the model repeating the whole newsletter as tool-call arguments and the
+ * extra model round-trip after the tool call.
  * 
  * <p><strong>Key Responsibilities:</strong>
  * <ul>
@@ -50,13 +59,21 @@ import java.util.Objects;
 @Component
 public class EditorAgent {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH);
+
     private final ChatClient chatClient;
     private final EmailService emailService;
     private final SectionFormatConverter sectionFormatConverter;
-    @Value("classpath:prompts/editor-agent-system-message.st")
-    Resource editorAgentSystemMessage;
-    @Value("classpath:prompts/editor-agent-prompt-template.st")
-    Resource editorAgentPromptTemplate;
+    private final EditedNewsletterConverter editedNewsletterConverter;
+    private final EditorialFrameConverter editorialFrameConverter;
+    private final CompiledTemplate systemMessageTemplate;
+    private final String toolInstructions;
+    private final CompiledTemplate promptTemplate;
+    private final String partSystemMessage;
+    private final CompiledTemplate partPromptTemplate;
+    private final CompiledTemplate frameSystemMessageTemplate;
+    private final CompiledTemplate framePromptTemplate;
+    private final CompiledTemplate droppedTopicsTemplate;
 
 
     /**
@@ -66,15 +83,34 @@ public class EditorAgent {
      * The EmailService is registered as a tool with the chat client, enabling the AI
      * to automatically send emails as part of the editing workflow.
      *
-     * @param chatClientBuilder builder for creating the Spring AI chat client
+     * @param modelRouter router providing the chat client, which calls the models configured for this agent
      * @param emailService service for sending newsletters via email (registered as AI tool)
      * @param sectionFormatConverter converter for formatting the AI response output
+     * @param editedNewsletterConverter converter parsing the subject and HTML body in structured mode
+     * @param editorialFrameConverter converter parsing the frame of a hierarchically edited newsletter
+     * @param promptTemplates registry of the compiled system message and prompt templates
+     * @param meterRegistry registry the latency and token usage of model calls are published to
      */
-    public EditorAgent(ChatClient.Builder chatClientBuilder,
-                       EmailService emailService, SectionFormatConverter sectionFormatConverter) {
-        this.chatClient = chatClientBuilder.build();
+    public EditorAgent(ModelRouter modelRouter,
+                       EmailService emailService, SectionFormatConverter sectionFormatConverter,
+                       EditedNewsletterConverter editedNewsletterConverter,
+                       EditorialFrameConverter editorialFrameConverter, PromptTemplates promptTemplates,
+                       MeterRegistry meterRegistry) {
+        this.chatClient = modelRouter.chatClientBuilder("editor")
+                .defaultAdvisors(new LlmUsageAdvisor("editor", meterRegistry))
+                .build();
         this.emailService = emailService;
         this.sectionFormatConverter = sectionFormatConverter;
+        this.editedNewsletterConverter = editedNewsletterConverter;
+        this.editorialFrameConverter = editorialFrameConverter;
+        this.systemMessageTemplate = promptTemplates.get("editor-agent-system-message");
+        this.toolInstructions = promptTemplates.get("editor-agent-tool-instructions").render();
+        this.promptTemplate = promptTemplates.get("editor-agent-prompt-template");
+        this.partSystemMessage = promptTemplates.get("editor-agent-part-system-message").render();
+        this.partPromptTemplate = promptTemplates.get("editor-agent-part-prompt-template");
+        this.frameSystemMessageTemplate = promptTemplates.get("editor-agent-frame-system-message");
+        this.framePromptTemplate = promptTemplates.get("editor-agent-frame-prompt-template");
+        this.droppedTopicsTemplate = promptTemplates.get("editor-agent-dropped-topics");
     }
 
     /**
@@ -83,7 +119,7 @@ public class EditorAgent {
      * This method performs comprehensive editing of newsletter sections and can automatically
      * distribute the final newsletter via email. The process includes:
      * <ol>
-     *   <li>Loading and formatting system message template with current date</li>
+     *   <li>Rendering the compiled system message template with current date</li>
      *   <li>Creating user message with newsletter title and section content</li>
      *   <li>Processing content through AI chat client with EmailService tool integration</li>
      *   <li>Returning formatted final newsletter content</li>
@@ -99,21 +135,111 @@ public class EditorAgent {
      * @param formattedMessage the aggregated newsletter sections to be edited
      * @param topic the main title/topic of the newsletter
      * @return finalized newsletter content after AI editing
-     * @throws IOException if template loading fails
      */
-    public String edit(String formattedMessage, String topic) throws IOException {
-        String editorMessage = editorAgentSystemMessage.getContentAsString(StandardCharsets.UTF_8)
-                .replace("{date}", LocalDate.now().toString());
-        String userTemplate = editorAgentPromptTemplate.getContentAsString(StandardCharsets.UTF_8)
-                .replace("{title}", topic)
-                .replace("{sections}", formattedMessage);
-        SystemMessage systemMessage = new SystemMessage(editorMessage);
-        UserMessage userMessage = new UserMessage(userTemplate);
-        Prompt prompt = new Prompt(systemMessage, userMessage);
+    public String edit(String formattedMessage, String topic) {
+        return edit(formattedMessage, topic, List.of());
+    }
+
+    /**
+     * Edits and finalizes newsletter content like {@link #edit(String, String)}, sending it to the given recipients.
+     *
+     * @param formattedMessage the aggregated newsletter sections to be edited
+     * @param topic the main title/topic of the newsletter
+     * @param recipients addresses the newsletter is sent to; when empty, {@code spring.mail.recipient} is used
+     * @return finalized newsletter content after AI editing
+     */
+    public String edit(String formattedMessage, String topic, List<String> recipients) {
+        Prompt prompt = createPrompt(formattedMessage, topic, toolInstructions);
         return Objects.requireNonNull(chatClient.prompt(prompt)
                 .tools(emailService)
+                .toolContext(Map.of(EmailService.RECIPIENTS, recipients))
+                .call()
+                .entity(sectionFormatConverter)
+        );
+    }
+
+    /**
+     * Edits and finalizes newsletter content without sending it.
+     * <p>
+     * The model has no tools and answers in the format of {@link EditedNewsletterConverter}, so the newsletter is
+     * generated once and the response is final. A missing subject line falls back to the newsletter title.
+     *
+     * @param formattedMessage the aggregated newsletter sections to be edited
+     * @param topic the main title/topic of the newsletter
+     * @return the subject and HTML body of the finalized newsletter
+     */
+    public EditedNewsletter compose(String formattedMessage, String topic) {
+        Prompt prompt = createPrompt(formattedMessage, topic, null);
+        EditedNewsletter edited = Objects.requireNonNull(chatClient.prompt(prompt)
+                .call()
+                .entity(editedNewsletterConverter)
+        );
+        return edited.subject() == null ? new EditedNewsletter(topic, edited.html()) : edited;
+    }
+
+    /**
+     * Edits one part of a newsletter that is too large to be edited in a single call.
+     * <p>
+     * The sections are polished in place, keeping their headings, order and citations; no introduction,
+     * conclusion or source list is written, as those are added once for the whole newsletter by
+     * {@link #frame(String, String)}. Parts of the same newsletter can be edited concurrently.
+     *
+     * @param sections the sections of this part
+     * @param topic the main title/topic of the newsletter
+     * @param part number of this part, starting at 1
+     * @param parts number of parts of the newsletter
+     * @return the HTML of the edited sections
+     */
+    public String editPart(String sections, String topic, int part, int parts) {
+        UserMessage userMessage = new UserMessage(partPromptTemplate.render(Map.of("title", topic,
+                "part", String.valueOf(part), "parts", String.valueOf(parts), "sections", sections)));
+        return Objects.requireNonNull(chatClient.prompt(new Prompt(new SystemMessage(partSystemMessage), userMessage))
                 .call()
                 .entity(sectionFormatConverter)
         );
     }
+
+    /**
+     * Writes the frame of a newsletter whose parts were edited separately: subject, introduction, section order,
+     * transitions and conclusion. The model only sees an outline of the sections, so the prompt stays small
+     * however large the newsletter is.
+     *
+     * @param outline the numbered heading and opening of every section
+     * @param topic the main title/topic of the newsletter
+     * @return the frame of the newsletter
+     */
+    public EditorialFrame frame(String outline, String topic) {
+        SystemMessage systemMessage = new SystemMessage(
+                frameSystemMessageTemplate.render(Map.of("date", LocalDate.now().format(DATE_FORMAT))));
+        UserMessage userMessage = new UserMessage(framePromptTemplate.render(Map.of("title", topic, "outline", outline)));
+        return Objects.requireNonNull(chatClient.prompt(new Prompt(systemMessage, userMessage))
+                .call()
+                .entity(editorialFrameConverter)
+        );
+    }
+
+    /**
+     * Tells the editor which planned topics were dropped from the run, so it neither covers them nor invents
+     * content for them. The note is appended to the sections the editor receives.
+     *
+     * @param droppedTopics the topics that could not be researched or written, in planned order
+     * @return the note, or an empty string if no topic was dropped
+     */
+    public String droppedTopicsNote(List<String> droppedTopics) {
+        if (droppedTopics.isEmpty()) {
+            return "";
+        }
+        return "\n\n\n" + droppedTopicsTemplate.render(Map.of("topics", String.join("; ", droppedTopics)));
+    }
+
+    private Prompt createPrompt(String formattedMessage, String topic, String instructions) {
+        String editorMessage = systemMessageTemplate.render(Map.of("date", LocalDate.now().format(DATE_FORMAT)));
+        if (instructions != null) {
+            editorMessage = editorMessage + "\n" + instructions;
+        }
+        String userTemplate = promptTemplate.render(Map.of("title", topic, "sections", formattedMessage));
+        SystemMessage systemMessage = new SystemMessage(editorMessage);
+        UserMessage userMessage = new UserMessage(userTemplate);
+        return new Prompt(systemMessage, userMessage);
+    }
 }
@@ -0,0 +1,23 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+import java.util.List;
+
+/**
+ * The frame written around separately edited sections by {@link EditorAgent#frame(String, String)}: everything the
+ * final newsletter needs besides the sections themselves.
+ *
+ * @param subject      subject line of the email
+ * @param introduction HTML introduction placed before the first section
+ * @param sectionOrder numbers of the outlined sections, starting at 1, in reading order
+ * @param transitions  sentence leading into each section of {@code sectionOrder}, in the same order; may be empty
+ * @param conclusion   HTML conclusion placed after the last section
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record EditorialFrame(
+        String subject,
+        String introduction,
+        List<Integer> sectionOrder,
+        List<String> transitions,
+        String conclusion
+) {
+}
@@ -0,0 +1,30 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.converter.StructuredOutputConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parses the editor's frame of a hierarchically edited newsletter, removing reasoning blocks before the JSON.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class EditorialFrameConverter implements StructuredOutputConverter<EditorialFrame> {
+    private final BeanOutputConverter<EditorialFrame> outputConverter = new BeanOutputConverter<>(EditorialFrame.class);
+
+    @Override
+    public String getFormat() {
+        return outputConverter.getFormat() + """
+
+                If reasoning is needed, wrap it in <think> tags BEFORE the JSON.
+                """;
+    }
+
+    @Override
+    public EditorialFrame convert(String source) {
+        return outputConverter.convert(ThinkTagFilter.strip(source));
+    }
+}
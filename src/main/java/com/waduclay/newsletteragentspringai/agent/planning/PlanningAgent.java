@@ -1,21 +1,30 @@
 package com.waduclay.newsletteragentspringai.agent.planning;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.waduclay.newsletteragentspringai.agent.CallOptions;
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
+import com.waduclay.newsletteragentspringai.llm.LlmCacheAdvisor;
+import com.waduclay.newsletteragentspringai.llm.LlmResponseCache;
+import com.waduclay.newsletteragentspringai.llm.LlmUsageAdvisor;
+import com.waduclay.newsletteragentspringai.llm.ModelRouter;
+import com.waduclay.newsletteragentspringai.prompt.PromptTemplates;
+import com.waduclay.newsletteragentspringai.research.ResearchPacker;
+import com.waduclay.newsletteragentspringai.research.ResearchPackingProperties;
 import com.waduclay.newsletteragentspringai.tavily.TavilyResponse;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
 
-import java.util.List;
+import java.io.IOException;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Agent responsible for planning newsletter topics based on web search results.
@@ -26,22 +35,25 @@ import java.util.stream.Collectors;
 @Component
 public class PlanningAgent {
 
-    private static final String RESULTS_SEPARATOR = "\n\n";
-
     private final ChatClient chatClient;
-    private final ObjectMapper objectMapper;
+    private final ResearchPacker researchPacker;
+    private final ResearchPackingProperties packingProperties;
     private final SystemMessage systemMessage;
     private final TopicFormatConverter topicFormatConverter;
+    private final JsonFactory jsonFactory = new JsonFactory();
 
-
-    public PlanningAgent(ChatClient.Builder chatClientBuilder,
-                         ObjectMapper objectMapper,
-                         @Value("classpath:prompts/planning-agent-system-message.st")
-                         Resource planningAgentSystemMessage, TopicFormatConverter topicFormatConverter
+    public PlanningAgent(ModelRouter modelRouter,
+                         ResearchPacker researchPacker, ResearchPackingProperties packingProperties,
+                         PromptTemplates promptTemplates, TopicFormatConverter topicFormatConverter,
+                         LlmResponseCache llmResponseCache, MeterRegistry meterRegistry
     ) {
-        this.chatClient = chatClientBuilder.build();
-        this.objectMapper = objectMapper;
-        this.systemMessage = new SystemMessage(planningAgentSystemMessage);
+        this.chatClient = modelRouter.chatClientBuilder("planning")
+                .defaultAdvisors(new LlmCacheAdvisor("planning", modelRouter, llmResponseCache),
+                        new LlmUsageAdvisor("planning", meterRegistry))
+                .build();
+        this.researchPacker = researchPacker;
+        this.packingProperties = packingProperties;
+        this.systemMessage = new SystemMessage(promptTemplates.get("planning-agent-system-message").render());
         this.topicFormatConverter = topicFormatConverter;
     }
 
@@ -53,16 +65,55 @@ public class PlanningAgent {
      * @throws PlanningException if planning fails due to processing errors
      */
     public TopicFormat plan(TavilyResponse searchResponse) {
+        return plan(searchResponse, CallOptions.DEFAULT);
+    }
+
+    /**
+     * Plan newsletter topics based on the provided search response.
+     *
+     * @param searchResponse the search response containing results to analyse
+     * @param options        per-call options, such as how the LLM response cache is used
+     * @return formatted topics for newsletter planning
+     * @throws PlanningException if planning fails due to processing errors
+     */
+    public TopicFormat plan(TavilyResponse searchResponse, CallOptions options) {
         validateInput(searchResponse);
         try {
-            String serializedResults = serializeResults(searchResponse.getResults());
-            return generateTopics(serializedResults);
+            String serializedResults = researchPacker.pack(searchResponse.getResults(), searchResponse.getQuery(),
+                    packingProperties.planningBudget()).text();
+            return generateTopics(serializedResults, options);
         } catch (Exception e) {
             log.error("Failed to plan topics for search response: {}", searchResponse.getQuery(), e);
             throw new PlanningException("Failed to plan topics", e);
         }
     }
 
+    /**
+     * Plan newsletter topics based on the provided search response, streaming the plan from the model.
+     * <p>
+     * Every topic is handed to {@code onTopic} on the calling thread as soon as the model has generated it, so
+     * the caller can start researching it while the remaining topics are still being generated. If the streamed
+     * plan cannot be parsed incrementally, for example because the model wrapped it in unexpected text, the
+     * complete response is parsed as by {@link #plan(TavilyResponse, CallOptions)} once the stream ends, and
+     * {@code onTopic} may not have been called for every topic.
+     *
+     * @param searchResponse the search response containing results to analyse
+     * @param options        per-call options, such as how the LLM response cache is used
+     * @param onTopic        listener called with every planned topic as soon as it is generated
+     * @return formatted topics for newsletter planning
+     * @throws PlanningException if planning fails due to processing errors
+     */
+    public TopicFormat plan(TavilyResponse searchResponse, CallOptions options, Consumer<String> onTopic) {
+        validateInput(searchResponse);
+        try {
+            String serializedResults = researchPacker.pack(searchResponse.getResults(), searchResponse.getQuery(),
+                    packingProperties.planningBudget()).text();
+            return streamTopics(serializedResults, options, onTopic);
+        } catch (Exception e) {
+            log.error("Failed to plan topics for search response: {}", searchResponse.getQuery(), e);
+            throw new PlanningException("Failed to plan topics", e);
+        }
+    }
 
     private void validateInput(TavilyResponse searchResponse) {
         if (searchResponse == null) {
@@ -73,31 +124,32 @@ public class PlanningAgent {
         }
     }
 
-    private String serializeResults(List<ResultsItem> results) {
-        return results.parallelStream()
-                .filter(Objects::nonNull)
-                .map(this::safeSerialize)
-                .filter(Objects::nonNull)
-                .collect(Collectors.joining(RESULTS_SEPARATOR));
-    }
-
-    private String safeSerialize(ResultsItem item) {
-        try {
-            return objectMapper.writeValueAsString(item);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize result item: {}", item, e);
-            return null; // Skip problematic items rather than failing entire operation
-        }
-    }
-
-    private TopicFormat generateTopics(String serializedResults) {
+    private TopicFormat generateTopics(String serializedResults, CallOptions options) {
         UserMessage userMessage = new UserMessage(serializedResults);
         Prompt prompt = new Prompt(systemMessage, userMessage);
 
         return Objects.requireNonNull(chatClient.prompt(prompt)
+                .advisors(advisor -> advisor.param(LlmCacheAdvisor.CACHE_MODE, options.cacheMode()))
                 .call()
                 .entity(topicFormatConverter)
         );
 
     }
+
+    /**
+     * Streams the plan, parsing the topics as they arrive. The chunks are consumed on the calling thread, so the
+     * listener runs as the current tenant.
+     */
+    private TopicFormat streamTopics(String serializedResults, CallOptions options, Consumer<String> onTopic)
+            throws IOException {
+        UserMessage userMessage = new UserMessage(serializedResults + "\n\n" + topicFormatConverter.getFormat());
+        Prompt prompt = new Prompt(systemMessage, userMessage);
+        Flux<String> chunks = ThinkTagFilter.strip(chatClient.prompt(prompt)
+                        .advisors(advisor -> advisor.param(LlmCacheAdvisor.CACHE_MODE, options.cacheMode()))
+                        .stream()
+                        .content())
+                .contextWrite(Context.of(TenantContext.REACTOR_KEY, TenantContext.current()));
+
+        return TopicStreamParser.parse(chunks.toIterable(), jsonFactory, onTopic, topicFormatConverter::convert);
+    }
 }
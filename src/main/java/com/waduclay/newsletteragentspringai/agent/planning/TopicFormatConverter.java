@@ -1,6 +1,7 @@
 package com.waduclay.newsletteragentspringai.agent.planning;
 
 
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
 import org.springframework.ai.converter.BeanOutputConverter;
 import org.springframework.ai.converter.StructuredOutputConverter;
 import org.springframework.stereotype.Component;
@@ -31,7 +32,7 @@ public class TopicFormatConverter implements StructuredOutputConverter<TopicForm
 
     @Override
     public TopicFormat convert(String source) {
-        String formattedText = source.replaceAll("(?s)<think>.*?</think>", "");
+        String formattedText = ThinkTagFilter.strip(source);
         return outputConverter.convert(formattedText);
     }
 }
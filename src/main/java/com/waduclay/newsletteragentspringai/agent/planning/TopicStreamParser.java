@@ -0,0 +1,174 @@
+package com.waduclay.newsletteragentspringai.agent.planning;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Incremental parser of the planner's {@link TopicFormat} JSON, fed chunk by chunk as the model streams it.
+ * <p>
+ * Each topic is handed to a listener as soon as its array element is complete, so work on the first topics can
+ * start while the model is still generating the rest. Text before the opening brace of the JSON object, such as
+ * a markdown code fence, and anything after its closing brace is ignored. Reasoning blocks must already be
+ * removed, for example by {@link com.waduclay.newsletteragentspringai.agent.ThinkTagFilter}.
+ * <p>
+ * Instances are stateful and not thread-safe; use one per response.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+public final class TopicStreamParser {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Consumer<String> onTopic;
+    private final List<String> topics = new ArrayList<>();
+    private String title;
+    private boolean started;
+    private boolean complete;
+    private int depth;
+    private String field;
+    private boolean inTopics;
+    private char pendingHighSurrogate;
+
+    /**
+     * @param jsonFactory factory of the non-blocking parser
+     * @param onTopic     listener called with every topic as soon as it is parsed
+     * @throws IOException if the parser cannot be created
+     */
+    public TopicStreamParser(JsonFactory jsonFactory, Consumer<String> onTopic) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.onTopic = onTopic;
+    }
+
+    /**
+     * Parses a streamed plan, handing every topic to {@code onTopic} as soon as it is parsed.
+     * <p>
+     * If the stream cannot be parsed incrementally, for example because the model wrapped the plan in unexpected
+     * text, or it ends before the JSON object is closed, the complete response is parsed by {@code fallback} once
+     * the stream ends, and {@code onTopic} may not have been called for every topic.
+     *
+     * @param chunks      the streamed response, with reasoning blocks removed
+     * @param jsonFactory factory of the non-blocking parser
+     * @param onTopic     listener called with every topic as soon as it is parsed
+     * @param fallback    parses the complete response when incremental parsing fails
+     * @return the parsed plan
+     * @throws IOException if the parser cannot be created
+     */
+    public static TopicFormat parse(Iterable<String> chunks, JsonFactory jsonFactory, Consumer<String> onTopic,
+                                    Function<String, TopicFormat> fallback) throws IOException {
+        TopicStreamParser parser = new TopicStreamParser(jsonFactory, onTopic);
+        StringBuilder response = new StringBuilder();
+        boolean parsing = true;
+        for (String chunk : chunks) {
+            response.append(chunk);
+            if (parsing) {
+                try {
+                    parser.accept(chunk);
+                } catch (IOException e) {
+                    log.warn("Could not parse the streamed plan incrementally, parsing it once complete", e);
+                    parsing = false;
+                }
+            }
+        }
+        if (parsing && parser.isComplete()) {
+            return parser.result();
+        }
+        return fallback.apply(response.toString());
+    }
+
+    /**
+     * Feeds the next chunk of the response.
+     *
+     * @param chunk the next chunk
+     * @throws IOException if the response is not valid JSON
+     */
+    public void accept(String chunk) throws IOException {
+        if (complete || chunk.isEmpty()) {
+            return;
+        }
+        String text = pendingHighSurrogate == 0 ? chunk : pendingHighSurrogate + chunk;
+        pendingHighSurrogate = 0;
+        if (Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+            pendingHighSurrogate = text.charAt(text.length() - 1);
+            text = text.substring(0, text.length() - 1);
+        }
+        if (!started) {
+            int start = text.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            started = true;
+            text = text.substring(start);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            onToken(token);
+        }
+    }
+
+    /**
+     * @return whether the JSON object has been closed
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the parsed plan
+     * @throws IllegalStateException if the JSON object has not been closed
+     */
+    public TopicFormat result() {
+        if (!complete) {
+            throw new IllegalStateException("The planner response ended before the JSON object was closed");
+        }
+        return new TopicFormat(title, List.copyOf(topics));
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> {
+                depth++;
+                if (token == JsonToken.START_ARRAY && depth == 2 && "topics".equals(field)) {
+                    inTopics = true;
+                }
+            }
+            case END_OBJECT, END_ARRAY -> {
+                depth--;
+                if (depth == 1) {
+                    inTopics = false;
+                }
+                complete = depth == 0;
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    field = parser.currentName();
+                }
+            }
+            case VALUE_STRING -> {
+                if (inTopics && depth == 2) {
+                    String topic = parser.getText();
+                    topics.add(topic);
+                    onTopic.accept(topic);
+                } else if (depth == 1 && "title".equals(field)) {
+                    title = parser.getText();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
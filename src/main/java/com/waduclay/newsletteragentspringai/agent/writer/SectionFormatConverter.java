@@ -1,6 +1,7 @@
 package com.waduclay.newsletteragentspringai.agent.writer;
 
 
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
 import org.springframework.ai.converter.StructuredOutputConverter;
 import org.springframework.stereotype.Component;
 
@@ -17,6 +18,6 @@ public class SectionFormatConverter implements StructuredOutputConverter<String>
 
     @Override
     public String convert(String source) {
-        return source.replaceAll("(?s)<think>.*?</think>", "");
+        return ThinkTagFilter.strip(source);
     }
 }
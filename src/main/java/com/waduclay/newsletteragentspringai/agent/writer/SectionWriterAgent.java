@@ -1,24 +1,28 @@
 package com.waduclay.newsletteragentspringai.agent.writer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.waduclay.newsletteragentspringai.agent.planning.PlanningException;
-import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import com.waduclay.newsletteragentspringai.agent.CallOptions;
+import com.waduclay.newsletteragentspringai.agent.ThinkTagFilter;
+import com.waduclay.newsletteragentspringai.llm.LlmCacheAdvisor;
+import com.waduclay.newsletteragentspringai.llm.LlmResponseCache;
+import com.waduclay.newsletteragentspringai.llm.LlmUsageAdvisor;
+import com.waduclay.newsletteragentspringai.llm.ModelRouter;
+import com.waduclay.newsletteragentspringai.prompt.CompiledTemplate;
+import com.waduclay.newsletteragentspringai.prompt.PromptTemplates;
+import com.waduclay.newsletteragentspringai.research.ContentCondenser;
+import com.waduclay.newsletteragentspringai.research.ResearchPacker;
+import com.waduclay.newsletteragentspringai.research.ResearchPackingProperties;
 import com.waduclay.newsletteragentspringai.tavily.TavilyResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * AI agent responsible for writing individual newsletter sections based on research and topics.
@@ -31,16 +35,19 @@ import java.util.stream.Collectors;
  * <p><strong>Key Features:</strong>
  * <ul>
  *   <li>AI-powered content generation using OpenAI models via OpenRouter</li>
- *   <li>Configurable prompt templates for consistent writing style</li>
+ *   <li>Configurable prompt templates, compiled once by {@link PromptTemplates}, for consistent writing style</li>
  *   <li>Robust error handling with graceful degradation for failed items</li>
- *   <li>JSON serialization of search results for AI processing</li>
+ *   <li>Raw content of search results condensed to its most relevant passages by {@link ContentCondenser}</li>
+ *   <li>JSON serialization of search results, packed into a token budget by {@link ResearchPacker}</li>
  *   <li>Template-based message formatting with placeholder replacement</li>
+ *   <li>Optional reuse of responses to identical prompts via {@link LlmResponseCache}</li>
  * </ul>
  * 
  * <p><strong>Workflow:</strong>
  * <ol>
  *   <li>Validates input search response and topic</li>
- *   <li>Serializes search results to JSON format</li>
+ *   <li>Condenses the raw content of the search results to the passages most relevant to the topic</li>
+ *   <li>Packs the most relevant search results into the token budget as JSON</li>
  *   <li>Formats prompt template with research data and topic</li>
  *   <li>Generates content using AI chat client</li>
  *   <li>Returns formatted section content</li>
@@ -53,36 +60,44 @@ import java.util.stream.Collectors;
 @Component
 public class SectionWriterAgent {
 
-    private static final String RESULTS_SEPARATOR = "\n\n";
-
     private final ChatClient chatClient;
-    private final ObjectMapper objectMapper;
+    private final ContentCondenser contentCondenser;
+    private final ResearchPacker researchPacker;
+    private final ResearchPackingProperties packingProperties;
     private final SystemMessage systemMessage;
     private final SectionFormatConverter sectionFormatConverter;
-    @Value("classpath:prompts/section-writer-prompt-template.st")
-    private Resource sectionWriterAgentPromptTemplate;
+    private final CompiledTemplate promptTemplate;
 
     /**
      * Constructs a new SectionWriterAgent with the required dependencies.
      * <p>
      * All dependencies are injected via Spring's dependency injection mechanism.
-     * The system message template is loaded from the classpath and used to configure
-     * the AI agent's behavior and writing style.
+     * The system message and prompt templates are compiled once by {@link PromptTemplates} and used to
+     * configure the AI agent's behavior and writing style.
      *
-     * @param chatClientBuilder builder for creating the Spring AI chat client
-     * @param objectMapper JSON object mapper for serializing search results
-     * @param sectionWriterAgentSystemMessage system message template resource for AI prompting
+     * @param modelRouter router providing the chat client, which calls the models configured for this agent
+     * @param contentCondenser condenses the raw content of search results to the passages relevant to the topic
+     * @param researchPacker packs search results into the prompt within the writer token budget
+     * @param packingProperties token budgets for packed research
+     * @param promptTemplates registry of the compiled system message and prompt templates
      * @param sectionFormatConverter converter for formatting the AI response output
+     * @param llmResponseCache cache of responses to identical prompts
+     * @param meterRegistry registry the latency and token usage of model calls are published to
      */
-    public SectionWriterAgent(ChatClient.Builder chatClientBuilder,
-                              ObjectMapper objectMapper,
-                              @Value("classpath:prompts/section-writer-agent-system-message.st")
-                              Resource sectionWriterAgentSystemMessage, SectionFormatConverter sectionFormatConverter
-
+    public SectionWriterAgent(ModelRouter modelRouter, ContentCondenser contentCondenser,
+                              ResearchPacker researchPacker, ResearchPackingProperties packingProperties,
+                              PromptTemplates promptTemplates, SectionFormatConverter sectionFormatConverter,
+                              LlmResponseCache llmResponseCache, MeterRegistry meterRegistry
     ) {
-        this.chatClient = chatClientBuilder.build();
-        this.objectMapper = objectMapper;
-        this.systemMessage = new SystemMessage(sectionWriterAgentSystemMessage);
+        this.chatClient = modelRouter.chatClientBuilder("section-writer")
+                .defaultAdvisors(new LlmCacheAdvisor("section-writer", modelRouter, llmResponseCache),
+                        new LlmUsageAdvisor("section-writer", meterRegistry))
+                .build();
+        this.contentCondenser = contentCondenser;
+        this.researchPacker = researchPacker;
+        this.packingProperties = packingProperties;
+        this.systemMessage = new SystemMessage(promptTemplates.get("section-writer-agent-system-message").render());
+        this.promptTemplate = promptTemplates.get("section-writer-prompt-template");
         this.sectionFormatConverter = sectionFormatConverter;
     }
 
@@ -93,8 +108,8 @@ public class SectionWriterAgent {
      * for a specific topic. The process involves:
      * <ol>
      *   <li>Validating the input search response</li>
-     *   <li>Serializing search results to JSON format for AI processing</li>
-     *   <li>Loading and formatting the prompt template with research data and topic</li>
+     *   <li>Packing the most relevant search results into the writer token budget</li>
+     *   <li>Rendering the compiled prompt template with research data and topic</li>
      *   <li>Using the AI chat client to generate section content</li>
      *   <li>Converting the response using the section format converter</li>
      * </ol>
@@ -102,18 +117,26 @@ public class SectionWriterAgent {
      * @param searchResponse the Tavily search response containing relevant web results
      * @param topic the specific topic for which to write the newsletter section
      * @return formatted newsletter section content as a string
-     * @throws IOException if template loading or processing fails
      * @throws IllegalArgumentException if the search response is null or empty
      */
-    public String write(TavilyResponse searchResponse, String topic) throws IOException {
-        validateInput(searchResponse);
-        String serializedResults = serializeResults(searchResponse.getResults());
-        String userMessageTemplate = sectionWriterAgentPromptTemplate.getContentAsString(StandardCharsets.UTF_8);
-        String formattedMessage = userMessageTemplate.replace("{research}", serializedResults)
-                .replace("{topic}", topic);
-        UserMessage userMessage = new UserMessage(formattedMessage);
-        Prompt prompt = new Prompt(systemMessage, userMessage);
+    public String write(TavilyResponse searchResponse, String topic) {
+        return write(searchResponse, topic, CallOptions.DEFAULT);
+    }
+
+    /**
+     * Writes a newsletter section based on the provided search response and topic.
+     *
+     * @param searchResponse the Tavily search response containing relevant web results
+     * @param topic the specific topic for which to write the newsletter section
+     * @param options per-call options, such as how the LLM response cache is used
+     * @return formatted newsletter section content as a string
+     * @throws IllegalArgumentException if the search response is null or empty
+     * @see #write(TavilyResponse, String)
+     */
+    public String write(TavilyResponse searchResponse, String topic, CallOptions options) {
+        Prompt prompt = createPrompt(searchResponse, topic);
         return Objects.requireNonNull(chatClient.prompt(prompt)
+                .advisors(advisor -> advisor.param(LlmCacheAdvisor.CACHE_MODE, options.cacheMode()))
                 .call()
                 .entity(sectionFormatConverter)
         );
@@ -121,40 +144,55 @@ public class SectionWriterAgent {
     }
 
     /**
-     * Serializes a list of search result items into a formatted string for AI processing.
+     * Streams a newsletter section based on the provided search response and topic.
      * <p>
-     * This method processes search results in parallel for performance, filtering out null items
-     * and gracefully handling serialization failures. Failed items are logged and skipped
-     * rather than causing the entire operation to fail.
+     * Uses the same prompt as {@link #write(TavilyResponse, String)}, but emits the section as it is generated.
+     * Reasoning blocks are removed incrementally by {@link ThinkTagFilter}, so a caller can consume the section
+     * chunk by chunk. The workflow collects the whole section before editing, since the editor needs every
+     * complete section.
+     *
+     * @param searchResponse the Tavily search response containing relevant web results
+     * @param topic the specific topic for which to write the newsletter section
+     * @return the visible section content, chunk by chunk
+     * @throws IllegalArgumentException if the search response is null or empty
+     */
+    public Flux<String> stream(TavilyResponse searchResponse, String topic) {
+        return stream(searchResponse, topic, CallOptions.DEFAULT);
+    }
+
+    /**
+     * Streams a newsletter section based on the provided search response and topic.
      *
-     * @param results the list of search result items to serialize
-     * @return concatenated JSON strings separated by double newlines
+     * @param searchResponse the Tavily search response containing relevant web results
+     * @param topic the specific topic for which to write the newsletter section
+     * @param options per-call options, such as how the LLM response cache is used
+     * @return the visible section content, chunk by chunk
+     * @throws IllegalArgumentException if the search response is null or empty
+     * @see #stream(TavilyResponse, String)
      */
-    private String serializeResults(List<ResultsItem> results) {
-        return results.parallelStream()
-                .filter(Objects::nonNull)
-                .map(this::safeSerialize)
-                .filter(Objects::nonNull)
-                .collect(Collectors.joining(RESULTS_SEPARATOR));
+    public Flux<String> stream(TavilyResponse searchResponse, String topic, CallOptions options) {
+        Prompt prompt = createPrompt(searchResponse, topic);
+        return ThinkTagFilter.strip(chatClient.prompt(prompt)
+                .advisors(advisor -> advisor.param(LlmCacheAdvisor.CACHE_MODE, options.cacheMode()))
+                .stream()
+                .content()
+        );
     }
 
     /**
-     * Safely serializes a single result item to JSON string with error handling.
-     * <p>
-     * This method provides fault tolerance by catching JSON processing exceptions
-     * and returning null for problematic items, allowing the overall process to continue.
-     * Failed serialization attempts are logged for debugging purposes.
+     * Builds the prompt for a section from the system message and the formatted research template.
      *
-     * @param item the result item to serialize
-     * @return JSON string representation of the item, or null if serialization fails
+     * @param searchResponse the search response to validate and serialize
+     * @param topic the topic of the section
+     * @return prompt ready to be sent to the chat client
      */
-    private String safeSerialize(ResultsItem item) {
-        try {
-            return objectMapper.writeValueAsString(item);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize result item: {}", item, e);
-            return null; // Skip problematic items rather than failing entire operation
-        }
+    private Prompt createPrompt(TavilyResponse searchResponse, String topic) {
+        validateInput(searchResponse);
+        String serializedResults = researchPacker.pack(contentCondenser.condense(searchResponse.getResults(), topic),
+                topic, packingProperties.writerBudget()).text();
+        String formattedMessage = promptTemplate.render(Map.of("research", serializedResults, "topic", topic));
+        UserMessage userMessage = new UserMessage(formattedMessage);
+        return new Prompt(systemMessage, userMessage);
     }
 
     /**
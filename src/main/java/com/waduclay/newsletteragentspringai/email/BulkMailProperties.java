@@ -0,0 +1,34 @@
+package com.waduclay.newsletteragentspringai.email;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the {@link BulkMailer}.
+ *
+ * @param poolSize              number of SMTP connections kept open and used in parallel
+ * @param recipientsPerMessage  maximum number of envelope recipients sent with one message; most servers accept
+ *                              at least 100 {@code RCPT TO} commands per transaction
+ * @param messagesPerConnection number of messages sent over one connection before it is reopened
+ * @param maxMessagesPerSecond  maximum number of messages sent per second across all connections
+ * @param maxAttempts           attempts per batch of recipients before it is reported as failed
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "mail.bulk")
+public record BulkMailProperties(
+        @DefaultValue("2") int poolSize,
+        @DefaultValue("50") int recipientsPerMessage,
+        @DefaultValue("100") int messagesPerConnection,
+        @DefaultValue("5") double maxMessagesPerSecond,
+        @DefaultValue("3") int maxAttempts
+) {
+    public BulkMailProperties {
+        if (poolSize < 1 || recipientsPerMessage < 1 || messagesPerConnection < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Bulk mail pool size, batch sizes and attempts must be positive");
+        }
+        if (maxMessagesPerSecond <= 0) {
+            throw new IllegalArgumentException("mail.bulk.max-messages-per-second must be positive");
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.waduclay.newsletteragentspringai.email;
+
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers one HTML message to a large list of recipients over a small pool of long-lived SMTP connections.
+ * <p>
+ * The MIME message is rendered once per delivery and parsed once per connection worker. Recipients are sent in
+ * batches of {@link BulkMailProperties#recipientsPerMessage()} envelope recipients per SMTP transaction, so the
+ * body crosses the wire once per batch instead of once per recipient. Connections are reused across batches and
+ * deliveries, checked before use and reopened after {@link BulkMailProperties#messagesPerConnection()} messages.
+ * A shared token bucket caps the messages sent per second to the server.
+ * <p>
+ * Partial sends are enabled, so a recipient rejected by the server does not fail the rest of its batch. Every
+ * recipient is reported as {@link DeliveryStatus#SENT sent}, {@link DeliveryStatus#REJECTED rejected} or, after
+ * {@link BulkMailProperties#maxAttempts()} failed attempts, {@link DeliveryStatus#FAILED failed}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class BulkMailer implements DisposableBean {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BulkMailProperties properties;
+    private final Session session;
+    private final String protocol;
+    private final BlockingQueue<PooledTransport> transports;
+    private final ExecutorService executor;
+    private final Throttle throttle;
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+
+    public BulkMailer(JavaMailSenderImpl mailSender, BulkMailProperties properties) {
+        this.mailSender = mailSender;
+        this.properties = properties;
+        Properties sessionProperties = new Properties();
+        sessionProperties.putAll(mailSender.getJavaMailProperties());
+        this.protocol = protocol(mailSender, sessionProperties);
+        sessionProperties.setProperty("mail." + protocol + ".sendpartial", "true");
+        this.session = Session.getInstance(sessionProperties);
+        this.transports = new ArrayBlockingQueue<>(properties.poolSize());
+        for (int i = 0; i < properties.poolSize(); i++) {
+            transports.add(new PooledTransport());
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.poolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-mail-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.throttle = new Throttle(properties.maxMessagesPerSecond());
+    }
+
+    /**
+     * Sends an HTML message to every recipient and waits until each one has been delivered or given up on.
+     * <p>
+     * Duplicate addresses are sent once. Addresses that are not valid RFC 822 addresses are rejected without
+     * contacting the server. A single recipient appears in the {@code To} header; with several recipients the
+     * header names the sender and the recipients are only part of the SMTP envelope.
+     *
+     * @param from       sender address
+     * @param subject    subject of the message
+     * @param html       HTML body of the message
+     * @param recipients recipient addresses
+     * @return the outcome for every distinct recipient
+     */
+    public DeliveryReport send(String from, String subject, String html, List<String> recipients) {
+        long start = System.nanoTime();
+        Queue<RecipientResult> results = new ConcurrentLinkedQueue<>();
+        List<InternetAddress> addresses = parse(recipients, results);
+        if (addresses.isEmpty()) {
+            return new DeliveryReport(List.copyOf(results), Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        byte[] message;
+        try {
+            message = render(from, subject, html, addresses.size() == 1 ? addresses.get(0).toString() : from);
+        } catch (MessagingException | IOException e) {
+            log.error("Cannot build the message '{}'", subject, e);
+            addresses.forEach(address -> results.add(RecipientResult.failed(address, e)));
+            return new DeliveryReport(List.copyOf(results), Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        Queue<List<InternetAddress>> batches = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < addresses.size(); i += properties.recipientsPerMessage()) {
+            batches.add(addresses.subList(i, Math.min(addresses.size(), i + properties.recipientsPerMessage())));
+        }
+        int workers = Math.min(properties.poolSize(), batches.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> deliver(message, batches, results)));
+        }
+        await(futures, batches, results);
+
+        DeliveryReport report = new DeliveryReport(List.copyOf(results), Duration.ofNanos(System.nanoTime() - start));
+        log.info("Delivered '{}' to {} recipients: {} sent, {} rejected, {} failed in {} ms", subject,
+                report.results().size(), report.count(DeliveryStatus.SENT), report.count(DeliveryStatus.REJECTED),
+                report.count(DeliveryStatus.FAILED), report.elapsed().toMillis());
+        return report;
+    }
+
+    /**
+     * @return number of SMTP connections opened since startup
+     */
+    public int connectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Resolves the protocol the way {@link JavaMailSenderImpl} does: its own setting, then the session's
+     * {@code mail.transport.protocol}, then SMTP.
+     */
+    private static String protocol(JavaMailSenderImpl mailSender, Properties sessionProperties) {
+        if (mailSender.getProtocol() != null) {
+            return mailSender.getProtocol();
+        }
+        return sessionProperties.getProperty("mail.transport.protocol", JavaMailSenderImpl.DEFAULT_PROTOCOL);
+    }
+
+    private List<InternetAddress> parse(List<String> recipients, Queue<RecipientResult> results) {
+        Set<String> seen = new HashSet<>();
+        List<InternetAddress> addresses = new ArrayList<>(recipients.size());
+        for (String recipient : recipients) {
+            if (recipient == null || recipient.isBlank() || !seen.add(recipient.trim().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            try {
+                InternetAddress address = new InternetAddress(recipient.trim(), true);
+                address.validate();
+                addresses.add(address);
+            } catch (AddressException e) {
+                results.add(new RecipientResult(recipient.trim(), DeliveryStatus.REJECTED, e.getMessage()));
+            }
+        }
+        return addresses;
+    }
+
+    private byte[] render(String from, String subject, String html, String to) throws MessagingException, IOException {
+        MimeMessage mimeMessage = new MimeMessage(session);
+        MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, MimeMessageHelper.MULTIPART_MODE_RELATED,
+                StandardCharsets.UTF_8.name());
+        messageHelper.setFrom(from);
+        messageHelper.setTo(to);
+        messageHelper.setSubject(subject);
+        messageHelper.setText(html, true);
+        mimeMessage.saveChanges();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mimeMessage.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private void deliver(byte[] rendered, Queue<List<InternetAddress>> batches, Queue<RecipientResult> results) {
+        MimeMessage message;
+        try {
+            message = new MimeMessage(session, new ByteArrayInputStream(rendered));
+        } catch (MessagingException e) {
+            throw new IllegalStateException("Cannot parse the rendered message", e);
+        }
+        List<InternetAddress> batch;
+        while ((batch = batches.poll()) != null) {
+            sendBatch(message, batch, results);
+        }
+    }
+
+    private void sendBatch(MimeMessage message, List<InternetAddress> batch, Queue<RecipientResult> results) {
+        List<InternetAddress> pending = batch;
+        MessagingException lastFailure = null;
+        for (int attempt = 1; attempt <= properties.maxAttempts() && !pending.isEmpty(); attempt++) {
+            PooledTransport transport;
+            try {
+                throttle.acquire();
+                transport = transports.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                transport.send(message, pending);
+                pending.forEach(address -> results.add(RecipientResult.sent(address)));
+                pending = List.of();
+            } catch (SendFailedException e) {
+                lastFailure = e;
+                addAll(results, e.getValidSentAddresses(), DeliveryStatus.SENT, null);
+                addAll(results, e.getInvalidAddresses(), DeliveryStatus.REJECTED, e.getMessage());
+                pending = e.getValidUnsentAddresses() == null ? List.of() : Arrays.stream(e.getValidUnsentAddresses())
+                        .map(InternetAddress.class::cast)
+                        .toList();
+            } catch (MessagingException e) {
+                lastFailure = e;
+                transport.close();
+                log.warn("Attempt {} to send a batch of {} recipients failed", attempt, pending.size(), e);
+            } finally {
+                transports.add(transport);
+            }
+        }
+        Exception cause = lastFailure;
+        pending.forEach(address -> results.add(RecipientResult.failed(address, cause)));
+    }
+
+    private static void addAll(Queue<RecipientResult> results, Address[] addresses, DeliveryStatus status,
+                               String detail) {
+        if (addresses != null) {
+            for (Address address : addresses) {
+                results.add(new RecipientResult(((InternetAddress) address).getAddress(), status, detail));
+            }
+        }
+    }
+
+    private void await(List<Future<?>> futures, Queue<List<InternetAddress>> batches,
+                       Queue<RecipientResult> results) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("Bulk mail delivery worker failed", e.getCause());
+            }
+        }
+        List<InternetAddress> batch;
+        while ((batch = batches.poll()) != null) {
+            batch.forEach(address -> results.add(RecipientResult.failed(address, null)));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        transports.forEach(PooledTransport::close);
+    }
+
+    /**
+     * An SMTP connection of the pool, opened on first use and reopened when it dropped or reached its message
+     * limit.
+     */
+    private final class PooledTransport {
+        private Transport transport;
+        private int messages;
+
+        void send(MimeMessage message, List<InternetAddress> recipients) throws MessagingException {
+            if (transport == null || messages >= properties.messagesPerConnection() || !transport.isConnected()) {
+                reconnect();
+            }
+            messages++;
+            transport.sendMessage(message, recipients.toArray(Address[]::new));
+        }
+
+        private void reconnect() throws MessagingException {
+            close();
+            transport = session.getTransport(protocol);
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(),
+                    mailSender.getPassword());
+            messages = 0;
+            connectionsOpened.incrementAndGet();
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection", e);
+            }
+            transport = null;
+        }
+    }
+
+    /**
+     * Token bucket holding a single token, spacing messages evenly at the configured rate.
+     */
+    private static final class Throttle {
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Throttle(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                next = Math.max(next, now);
+                wait = next - now;
+                next += intervalNanos;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * Outcome of delivering to one recipient.
+     */
+    public enum DeliveryStatus {
+        /**
+         * Accepted by the SMTP server.
+         */
+        SENT,
+        /**
+         * Refused because the address is invalid or was rejected by the server; retrying will not help.
+         */
+        REJECTED,
+        /**
+         * Not delivered because sending kept failing, for example because the server was unreachable.
+         */
+        FAILED
+    }
+
+    /**
+     * @param address the recipient address
+     * @param status  outcome of the delivery
+     * @param detail  reason of a rejection or failure, {@code null} when sent
+     */
+    public record RecipientResult(String address, DeliveryStatus status, String detail) {
+
+        static RecipientResult sent(InternetAddress address) {
+            return new RecipientResult(address.getAddress(), DeliveryStatus.SENT, null);
+        }
+
+        static RecipientResult failed(InternetAddress address, Exception cause) {
+            return new RecipientResult(address.getAddress(), DeliveryStatus.FAILED,
+                    cause == null ? "Delivery was interrupted" : cause.getMessage());
+        }
+    }
+
+    /**
+     * @param results outcome for every distinct recipient, in no particular order
+     * @param elapsed time taken by the delivery
+     */
+    public record DeliveryReport(List<RecipientResult> results, Duration elapsed) {
+
+        /**
+         * @param status a delivery status
+         * @return number of recipients with that status
+         */
+        public long count(DeliveryStatus status) {
+            return results.stream().filter(result -> result.status() == status).count();
+        }
+
+        /**
+         * @param status a delivery status
+         * @return the recipients with that status
+         */
+        public List<RecipientResult> withStatus(DeliveryStatus status) {
+            return results.stream().filter(result -> result.status() == status).toList();
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package com.waduclay.newsletteragentspringai.email;
 
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.waduclay.newsletteragentspringai.email.MailOutbox.OutboxMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * Service for sending newsletters via email with Spring AI tool integration.
@@ -26,6 +24,8 @@ import java.nio.charset.StandardCharsets;
  *   <li>HTML email support with MIME message handling</li>
  *   <li>Configurable sender and recipient via application properties</li>
  *   <li>UTF-8 encoding support for international content</li>
+ *   <li>Durable, asynchronous delivery through the {@link MailOutbox}, retried by the {@link OutboxDispatcher}</li>
+ *   <li>Delivery to large recipient lists over pooled SMTP connections via {@link BulkMailer}</li>
  *   <li>Comprehensive error handling with graceful degradation</li>
  *   <li>Detailed logging for monitoring email delivery</li>
  * </ul>
@@ -34,7 +34,7 @@ import java.nio.charset.StandardCharsets;
  * Email configuration is managed through Spring Boot's mail properties:
  * <ul>
  *   <li>{@code spring.mail.username} - Sender email address</li>
- *   <li>{@code spring.mail.recipient} - Recipient email address</li>
+ *   <li>{@code spring.mail.recipient} - Recipient email address, used when the caller passes no recipients</li>
  *   <li>SMTP configuration via standard Spring Boot mail properties</li>
  * </ul>
  * 
@@ -50,7 +50,13 @@ import java.nio.charset.StandardCharsets;
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
+
+    /**
+     * Key of the {@link ToolContext} entry holding the {@code List<String>} of addresses a newsletter is sent to.
+     */
+    public static final String RECIPIENTS = "recipients";
+
+    private final OutboxDispatcher outboxDispatcher;
     @Value("${spring.mail.username}")
     private String emailSender;
     @Value("${spring.mail.recipient}")
@@ -68,14 +74,15 @@ public class EmailService {
      * <ul>
      *   <li>HTML content support for rich newsletter formatting</li>
      *   <li>UTF-8 encoding for international character support</li>
-     *   <li>MIME multipart message handling</li>
+     *   <li>MIME multipart message handling, rendered once for all recipients</li>
      *   <li>Configurable sender and recipient addresses</li>
+     *   <li>Per-newsletter recipients passed by the caller in the {@link ToolContext}, hidden from the model</li>
      * </ul>
      * 
      * <p><strong>Error Handling:</strong>
-     * The method uses defensive programming with try-catch blocks to handle messaging
-     * exceptions gracefully. Failed email attempts are logged but do not throw exceptions
-     * to prevent disrupting the AI workflow.
+     * The message is written to the durable {@link MailOutbox} and the method returns without waiting for
+     * delivery, so the editor's tool call is not held up by SMTP. Recipients whose delivery fails are retried
+     * in the background with backoff instead of being lost.
      * 
      * <p><strong>Spring AI Tool Integration:</strong>
      * The {@code @Tool} annotation exposes this method to Spring AI agents with:
@@ -87,27 +94,37 @@ public class EmailService {
      *
      * @param subject the email subject line
      * @param content the email body content (supports HTML formatting)
-     * @throws MessagingException if critical email configuration or sending fails
+     * @param toolContext context of the calling agent; its {@link #RECIPIENTS} entry overrides
+     *                    {@code spring.mail.recipient}
      */
     @Tool(name = "sendEmail", description = "Pass the subject and the content to send an email")
     public void sendEmail(
             String subject,
-            String content
-    ) throws MessagingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, MimeMessageHelper.MULTIPART_MODE_RELATED, StandardCharsets.UTF_8.name());
-        messageHelper.setFrom(emailSender);
+            String content,
+            ToolContext toolContext
+    ) {
+        send(subject, content, recipientsOf(toolContext));
+    }
 
-        messageHelper.setSubject(subject);
+    /**
+     * Queues an HTML email for delivery in the {@link MailOutbox} and returns without waiting for it to be sent.
+     *
+     * @param subject the email subject line
+     * @param content the HTML body
+     * @param recipients addresses to send to; when empty, {@code spring.mail.recipient} is used
+     * @return the queued message
+     */
+    public OutboxMessage send(String subject, String content, List<String> recipients) {
+        List<String> to = recipients == null || recipients.isEmpty() ? List.of(emailRecipient) : recipients;
+        OutboxMessage message = outboxDispatcher.submit(emailSender, subject, content, to);
+        log.info("Email {} queued for {} recipients", message.id(), to.size());
+        return message;
+    }
 
-        try {
-            messageHelper.setText(content, true);
-            messageHelper.setTo(emailRecipient);
-            mailSender.send(mimeMessage);
-            log.info("Email sent successfully to: {}", emailRecipient);
-        } catch (MessagingException e) {
-            log.warn("Cannot send email to: {}", emailRecipient);
-        }
+    @SuppressWarnings("unchecked")
+    private static List<String> recipientsOf(ToolContext toolContext) {
+        Object recipients = toolContext == null ? null : toolContext.getContext().get(RECIPIENTS);
+        return recipients instanceof List<?> list ? (List<String>) list : List.of();
     }
 
 }
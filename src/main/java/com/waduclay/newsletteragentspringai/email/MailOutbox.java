@@ -0,0 +1,252 @@
+package com.waduclay.newsletteragentspringai.email;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable queue of outgoing emails, stored as an append-only log of JSON lines.
+ * <p>
+ * Enqueueing a message, every failed attempt and the final outcome are each appended as one line and forced to
+ * disk before the call returns, so a message accepted by the outbox survives a crash or restart. On startup the
+ * log is replayed to rebuild the pending messages, skipping a line torn by a crash, and rewritten with only those
+ * messages. The log is rewritten the same way after {@link MailOutboxProperties#compactAfter()} appends.
+ * <p>
+ * Messages are enqueued on the caller's thread, which may be interrupted, for example by the deadline of the
+ * editor sending the newsletter through its email tool. The log is therefore written through a
+ * {@link FileOutputStream} rather than an interruptible {@link java.nio.channels.FileChannel}, which an interrupt
+ * would close for every later append.
+ * <p>
+ * Delivery is done by the {@link OutboxDispatcher}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class MailOutbox implements DisposableBean {
+
+    private final MailOutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Map<String, OutboxMessage> pending = new LinkedHashMap<>();
+    private FileOutputStream output;
+    private int appended;
+
+    public MailOutbox(MailOutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        Path directory = Path.of(properties.directory());
+        Files.createDirectories(directory);
+        this.file = directory.resolve("outbox.jsonl");
+        replay();
+        compact();
+        if (!pending.isEmpty()) {
+            log.info("Mail outbox holds {} undelivered messages", pending.size());
+        }
+    }
+
+    /**
+     * Durably queues a message for delivery.
+     *
+     * @param from       sender address
+     * @param subject    subject of the message
+     * @param html       HTML body of the message
+     * @param recipients recipient addresses
+     * @return the queued message
+     */
+    public synchronized OutboxMessage enqueue(String from, String subject, String html, List<String> recipients) {
+        Instant now = Instant.now();
+        OutboxMessage message = new OutboxMessage(UUID.randomUUID().toString(), from, subject, html,
+                List.copyOf(recipients), now, 0, now);
+        pending.put(message.id(), message);
+        try {
+            append(new OutboxEvent(EventType.ENQUEUED, message.id(), message, null));
+        } catch (UncheckedIOException e) {
+            pending.remove(message.id());
+            throw e;
+        }
+        return message;
+    }
+
+    /**
+     * @param now the current time
+     * @return the pending messages due for an attempt, earliest first
+     */
+    public synchronized List<OutboxMessage> due(Instant now) {
+        return pending.values().stream()
+                .filter(message -> !message.nextAttemptAt().isAfter(now))
+                .sorted(Comparator.comparing(OutboxMessage::nextAttemptAt))
+                .toList();
+    }
+
+    /**
+     * Records that a message was delivered, or rejected, for all its recipients and removes it from the outbox.
+     *
+     * @param id id of the message
+     */
+    public synchronized void delivered(String id) {
+        if (pending.remove(id) != null) {
+            append(new OutboxEvent(EventType.DELIVERED, id, null, null));
+        }
+    }
+
+    /**
+     * Records a failed attempt and schedules the next one for the recipients that are still undelivered.
+     *
+     * @param id            id of the message
+     * @param recipients    recipients that still have to be delivered to
+     * @param nextAttemptAt when to try again
+     * @param error         reason of the failure
+     * @return the updated message
+     */
+    public synchronized OutboxMessage retryLater(String id, List<String> recipients, Instant nextAttemptAt,
+                                                 String error) {
+        OutboxMessage message = pending.get(id);
+        if (message == null) {
+            throw new IllegalArgumentException("No pending outbox message " + id);
+        }
+        OutboxMessage retried = message.retry(recipients, nextAttemptAt);
+        pending.put(id, retried);
+        append(new OutboxEvent(EventType.RETRY, id, retried, error));
+        return retried;
+    }
+
+    /**
+     * Gives up on a message after its last failed attempt and removes it from the outbox.
+     *
+     * @param id    id of the message
+     * @param error reason of the last failure
+     */
+    public synchronized void dead(String id, String error) {
+        if (pending.remove(id) != null) {
+            append(new OutboxEvent(EventType.DEAD, id, null, error));
+        }
+    }
+
+    /**
+     * @return number of messages waiting for delivery
+     */
+    public synchronized int depth() {
+        return pending.size();
+    }
+
+    /**
+     * @return the time the earliest pending message is due, if any
+     */
+    public synchronized Optional<Instant> nextAttemptAt() {
+        return pending.values().stream().map(OutboxMessage::nextAttemptAt).min(Comparator.naturalOrder());
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            OutboxEvent event;
+            try {
+                event = objectMapper.readValue(lines.get(i), OutboxEvent.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable line {} of the mail outbox {}", i + 1, file, e);
+                continue;
+            }
+            switch (event.type()) {
+                case ENQUEUED, RETRY -> pending.put(event.id(), event.message());
+                case DELIVERED, DEAD -> pending.remove(event.id());
+            }
+        }
+    }
+
+    private void append(OutboxEvent event) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(event) + "\n").getBytes(StandardCharsets.UTF_8);
+            output.write(line);
+            output.getFD().sync();
+            if (++appended >= properties.compactAfter()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to the mail outbox " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites the log with one entry per pending message and reopens it for appending. Callers update
+     * {@link #pending} before appending, so the snapshot already reflects the event that triggered it.
+     */
+    private void compact() throws IOException {
+        if (output != null) {
+            output.close();
+        }
+        Path temp = Files.createTempFile(file.getParent(), "outbox", ".tmp");
+        StringBuilder snapshot = new StringBuilder();
+        for (OutboxMessage message : pending.values()) {
+            snapshot.append(objectMapper.writeValueAsString(
+                    new OutboxEvent(EventType.ENQUEUED, message.id(), message, null))).append('\n');
+        }
+        Files.writeString(temp, snapshot, StandardCharsets.UTF_8, StandardOpenOption.SYNC);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        output = new FileOutputStream(file.toFile(), true);
+        appended = 0;
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        output.close();
+    }
+
+    /**
+     * A queued email.
+     *
+     * @param id            id of the message
+     * @param from          sender address
+     * @param subject       subject of the message
+     * @param html          HTML body of the message
+     * @param recipients    recipients still to be delivered to
+     * @param enqueuedAt    when the message was queued
+     * @param attempts      number of failed delivery attempts so far
+     * @param nextAttemptAt when the message is due for its next attempt
+     */
+    public record OutboxMessage(String id, String from, String subject, String html, List<String> recipients,
+                                Instant enqueuedAt, int attempts, Instant nextAttemptAt) {
+
+        OutboxMessage retry(List<String> remaining, Instant next) {
+            return new OutboxMessage(id, from, subject, html, List.copyOf(remaining), enqueuedAt, attempts + 1, next);
+        }
+    }
+
+    enum EventType {ENQUEUED, RETRY, DELIVERED, DEAD}
+
+    /**
+     * One line of the outbox log.
+     *
+     * @param type    what happened to the message
+     * @param id      id of the message
+     * @param message state of the message after the event, for {@code ENQUEUED} and {@code RETRY}
+     * @param error   reason of a failure, for {@code RETRY} and {@code DEAD}
+     */
+    record OutboxEvent(EventType type, String id, OutboxMessage message, String error) {
+    }
+}
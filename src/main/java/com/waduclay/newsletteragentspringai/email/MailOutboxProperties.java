@@ -0,0 +1,29 @@
+package com.waduclay.newsletteragentspringai.email;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the {@link MailOutbox} and its {@link OutboxDispatcher}.
+ *
+ * @param directory      directory holding the outbox log
+ * @param pollInterval   how often the dispatcher checks for messages that are due
+ * @param maxAttempts    delivery attempts before a message is given up on
+ * @param initialBackoff delay before the first retry; doubled on every further retry
+ * @param maxBackoff     maximum delay between retries
+ * @param compactAfter   number of log entries appended before the log is rewritten with only pending messages
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "mail.outbox")
+public record MailOutboxProperties(
+        @DefaultValue(".outbox") String directory,
+        @DefaultValue("5s") Duration pollInterval,
+        @DefaultValue("8") int maxAttempts,
+        @DefaultValue("30s") Duration initialBackoff,
+        @DefaultValue("30m") Duration maxBackoff,
+        @DefaultValue("1000") int compactAfter
+) {
+}
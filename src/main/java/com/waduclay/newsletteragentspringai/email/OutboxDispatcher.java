@@ -0,0 +1,156 @@
+package com.waduclay.newsletteragentspringai.email;
+
+
+import com.waduclay.newsletteragentspringai.email.BulkMailer.DeliveryReport;
+import com.waduclay.newsletteragentspringai.email.BulkMailer.DeliveryStatus;
+import com.waduclay.newsletteragentspringai.email.BulkMailer.RecipientResult;
+import com.waduclay.newsletteragentspringai.email.MailOutbox.OutboxMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the messages of the {@link MailOutbox} in the background.
+ * <p>
+ * {@link #submit} returns as soon as a message is durably queued. A single dispatcher thread then sends it with
+ * the {@link BulkMailer}, right away and again every {@link MailOutboxProperties#pollInterval()} for messages
+ * waiting on a retry. Recipients that failed are retried with exponential backoff until
+ * {@link MailOutboxProperties#maxAttempts()} is reached; rejected recipients are not retried. A send that throws
+ * counts as a failed attempt for all remaining recipients, and a message whose outcome cannot be recorded does not
+ * hold up the messages after it.
+ * <p>
+ * Metrics: {@code mail.outbox.depth} (queued messages), {@code mail.outbox.delivery.latency} (time from queueing
+ * to delivery), {@code mail.outbox.retries} and {@code mail.outbox.dead} (messages given up on).
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher implements DisposableBean {
+
+    private final MailOutbox outbox;
+    private final BulkMailer bulkMailer;
+    private final MailOutboxProperties properties;
+    private final ScheduledExecutorService executor;
+    private final Timer deliveryLatency;
+    private final Counter retries;
+    private final Counter dead;
+
+    public OutboxDispatcher(MailOutbox outbox, BulkMailer bulkMailer, MailOutboxProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.bulkMailer = bulkMailer;
+        this.properties = properties;
+        Gauge.builder("mail.outbox.depth", outbox, MailOutbox::depth)
+                .description("Messages waiting for delivery")
+                .register(meterRegistry);
+        this.deliveryLatency = Timer.builder("mail.outbox.delivery.latency")
+                .description("Time from queueing a message to its delivery")
+                .register(meterRegistry);
+        this.retries = Counter.builder("mail.outbox.retries")
+                .description("Failed delivery attempts that were scheduled for a retry")
+                .register(meterRegistry);
+        this.dead = Counter.builder("mail.outbox.dead")
+                .description("Messages given up on after the last attempt")
+                .register(meterRegistry);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long poll = properties.pollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::dispatch, 0, poll, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a message for delivery and returns without waiting for it to be sent.
+     *
+     * @param from       sender address
+     * @param subject    subject of the message
+     * @param html       HTML body of the message
+     * @param recipients recipient addresses
+     * @return the queued message
+     */
+    public OutboxMessage submit(String from, String subject, String html, List<String> recipients) {
+        OutboxMessage message = outbox.enqueue(from, subject, html, recipients);
+        executor.execute(this::dispatch);
+        return message;
+    }
+
+    private void dispatch() {
+        try {
+            for (OutboxMessage message : outbox.due(Instant.now())) {
+                try {
+                    deliver(message);
+                } catch (RuntimeException e) {
+                    // the outbox could not record the outcome; the next message may still go through
+                    log.error("Failed to record the delivery attempt of '{}'", message.subject(), e);
+                }
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic dispatch
+            log.error("Mail outbox dispatch failed", e);
+        }
+    }
+
+    private void deliver(OutboxMessage message) {
+        DeliveryReport report;
+        try {
+            report = bulkMailer.send(message.from(), message.subject(), message.html(), message.recipients());
+        } catch (RuntimeException e) {
+            log.warn("Sending '{}' failed", message.subject(), e);
+            attemptFailed(message, message.recipients(), e.toString());
+            return;
+        }
+        report.withStatus(DeliveryStatus.REJECTED).forEach(result ->
+                log.warn("Recipient {} of '{}' was rejected: {}", result.address(), message.subject(), result.detail()));
+
+        List<RecipientResult> failed = report.withStatus(DeliveryStatus.FAILED);
+        if (failed.isEmpty()) {
+            outbox.delivered(message.id());
+            deliveryLatency.record(Duration.between(message.enqueuedAt(), Instant.now()));
+            return;
+        }
+        attemptFailed(message, failed.stream().map(RecipientResult::address).toList(), failed.get(0).detail());
+    }
+
+    /**
+     * Schedules a retry for the recipients not delivered to, or gives up on the message after its last attempt.
+     */
+    private void attemptFailed(OutboxMessage message, List<String> failed, String error) {
+        if (message.attempts() + 1 >= properties.maxAttempts()) {
+            outbox.dead(message.id(), error);
+            dead.increment();
+            log.error("Giving up on '{}' after {} attempts; {} recipients were not delivered to: {}",
+                    message.subject(), message.attempts() + 1, failed.size(), error);
+            return;
+        }
+        Duration backoff = backoff(message.attempts());
+        outbox.retryLater(message.id(), failed, Instant.now().plus(backoff), error);
+        retries.increment();
+        log.warn("Delivery of '{}' failed for {} recipients, retrying in {}: {}", message.subject(), failed.size(),
+                backoff, error);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.initialBackoff().multipliedBy(1L << Math.min(attempts, 20));
+        return backoff.compareTo(properties.maxBackoff()) > 0 ? properties.maxBackoff() : backoff;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,268 @@
+package com.waduclay.newsletteragentspringai.journal;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * Local journal of newsletter runs, checkpointing the output of every workflow stage.
+ * <p>
+ * Each run has a directory {@code <directory>/<newsletterId>/<runId>} holding one JSON file per completed stage
+ * and a {@code STARTED} file with the instant the run was opened. New run ids are the start time followed by a
+ * random suffix, so runs started within the same second do not share a directory.
+ * A retried run reads completed stages back instead of recomputing them, so a failure late in the workflow only
+ * costs the stages that did not complete. A run is marked complete once the newsletter has been edited; unfinished
+ * runs younger than {@link RunJournalProperties#resumeWindow()} are resumed by the next run of the same
+ * newsletter.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class RunJournal {
+
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String COMPLETE_MARKER = "COMPLETE";
+    private static final String STARTED_MARKER = "STARTED";
+
+    private final RunJournalProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    public RunJournal(RunJournalProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(properties.directory());
+    }
+
+    /**
+     * Opens the most recent unfinished run of a newsletter within the resume window, or a new run if there is none.
+     *
+     * @param newsletterId id of the newsletter
+     * @return the run to continue
+     */
+    public Run resumeOrStart(String newsletterId) {
+        Optional<String> unfinished = latestUnfinishedRun(newsletterId);
+        if (unfinished.isPresent()) {
+            log.info("Resuming unfinished run {} of newsletter {}", unfinished.get(), newsletterId);
+            return open(newsletterId, unfinished.get());
+        }
+        return open(newsletterId, newRunId());
+    }
+
+    private static String newRunId() {
+        return LocalDateTime.now().format(RUN_ID_FORMAT) + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Opens a run of a newsletter, creating it if it does not exist yet.
+     *
+     * @param newsletterId id of the newsletter; only letters, digits, {@code -} and {@code _} are allowed
+     * @param runId        id of the run; only letters, digits, {@code -} and {@code _} are allowed
+     * @return the run
+     */
+    public Run open(String newsletterId, String runId) {
+        if (!newsletterId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid newsletter id: " + newsletterId);
+        }
+        if (!runId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid run id: " + runId);
+        }
+        if (!properties.enabled()) {
+            return new Run(runId, null);
+        }
+        Path runDirectory = directory.resolve(newsletterId).resolve(runId);
+        markStarted(runDirectory);
+        return new Run(runId, runDirectory);
+    }
+
+    /**
+     * Records when a run was started, unless it was started before.
+     */
+    private static void markStarted(Path runDirectory) {
+        try {
+            Files.createDirectories(runDirectory);
+            Files.writeString(runDirectory.resolve(STARTED_MARKER), Instant.now().toString(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException e) {
+            // an existing run keeps its start time
+        } catch (IOException e) {
+            log.warn("Failed to record the start of run {}", runDirectory, e);
+        }
+    }
+
+    private Optional<String> latestUnfinishedRun(String newsletterId) {
+        Path newsletterDirectory = directory.resolve(newsletterId);
+        if (!properties.enabled() || !Files.isDirectory(newsletterDirectory)) {
+            return Optional.empty();
+        }
+        Instant cutoff = Instant.now().minus(properties.resumeWindow());
+        try (Stream<Path> runs = Files.list(newsletterDirectory)) {
+            return runs.filter(Files::isDirectory)
+                    .filter(run -> !Files.exists(run.resolve(COMPLETE_MARKER)))
+                    .filter(run -> startedAt(run).isAfter(cutoff))
+                    .max(Comparator.comparing(RunJournal::startedAt))
+                    .map(run -> run.getFileName().toString());
+        } catch (IOException e) {
+            log.warn("Failed to list newsletter runs in {}", newsletterDirectory, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return when the run was started, or {@link Instant#EPOCH} if that was not recorded, so it is not resumed
+     */
+    private static Instant startedAt(Path run) {
+        try {
+            return Instant.parse(Files.readString(run.resolve(STARTED_MARKER)).strip());
+        } catch (IOException | DateTimeParseException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    /**
+     * Builds a file name for a per-topic entry that is stable for the same topic text and safe on any file system.
+     *
+     * @param topic the topic
+     * @param stage the stage the entry belongs to
+     * @return the entry name
+     */
+    public static String topicEntry(String topic, String stage) {
+        String slug = topic.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        slug = slug.length() > 40 ? slug.substring(0, 40) : slug;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(topic.getBytes(StandardCharsets.UTF_8));
+            return "topics/" + slug + "-" + HexFormat.of().formatHex(digest, 0, 4) + "." + stage;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A single newsletter run and its checkpointed stage outputs.
+     */
+    public final class Run {
+        private final String id;
+        private final Path runDirectory;
+
+        private Run(String id, Path runDirectory) {
+            this.id = id;
+            this.runDirectory = runDirectory;
+        }
+
+        /**
+         * @return id of the run
+         */
+        public String id() {
+            return id;
+        }
+
+        /**
+         * Returns the checkpointed output of a stage, or computes and checkpoints it.
+         * <p>
+         * A checkpoint that cannot be read is discarded and the stage is recomputed. Failing to write a checkpoint
+         * is logged and does not fail the stage.
+         *
+         * @param entry   name of the stage entry, such as {@code plan} or a {@link #topicEntry topic entry}
+         * @param type    type of the stage output
+         * @param compute computes the stage output when there is no checkpoint
+         * @param <T>     type of the stage output
+         * @return the stage output
+         * @throws Exception if computing the stage fails
+         */
+        public <T> T stage(String entry, Class<T> type, Callable<T> compute) throws Exception {
+            Optional<T> checkpoint = read(entry, type);
+            if (checkpoint.isPresent()) {
+                log.info("Run {}: reusing checkpointed {}", id, entry);
+                return checkpoint.get();
+            }
+            T output = compute.call();
+            write(entry, output);
+            return output;
+        }
+
+        /**
+         * @param entry name of the stage entry
+         * @param type  type of the stage output
+         * @param <T>   type of the stage output
+         * @return the checkpointed output of the stage, if any
+         */
+        public <T> Optional<T> read(String entry, Class<T> type) {
+            if (runDirectory == null) {
+                return Optional.empty();
+            }
+            Path file = fileFor(entry);
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.ofNullable(objectMapper.readValue(file.toFile(), type));
+            } catch (IOException e) {
+                log.warn("Run {}: discarding unreadable checkpoint {}", id, file, e);
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * Checkpoints the output of a stage, replacing an earlier checkpoint atomically.
+         *
+         * @param entry  name of the stage entry
+         * @param output the stage output
+         */
+        public void write(String entry, Object output) {
+            if (runDirectory == null || output == null) {
+                return;
+            }
+            Path file = fileFor(entry);
+            try {
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), "checkpoint", ".tmp");
+                objectMapper.writeValue(temp.toFile(), output);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Run {}: failed to checkpoint {}", id, file, e);
+            }
+        }
+
+        /**
+         * Marks the run as complete, so it is no longer resumed.
+         */
+        public void complete() {
+            if (runDirectory == null) {
+                return;
+            }
+            try {
+                Files.createDirectories(runDirectory);
+                Files.writeString(runDirectory.resolve(COMPLETE_MARKER), Instant.now().toString());
+            } catch (IOException e) {
+                log.warn("Run {}: failed to mark the run complete", id, e);
+            }
+        }
+
+        private Path fileFor(String entry) {
+            return runDirectory.resolve(entry + ".json");
+        }
+    }
+}
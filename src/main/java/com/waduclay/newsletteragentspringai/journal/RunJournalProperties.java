@@ -0,0 +1,23 @@
+package com.waduclay.newsletteragentspringai.journal;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the {@link RunJournal}.
+ *
+ * @param enabled      whether stage outputs are checkpointed and reused by retried runs
+ * @param directory    directory holding one sub-directory per run
+ * @param resumeWindow how long after it started an unfinished run is resumed instead of starting a new one
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "workflow.journal")
+public record RunJournalProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue(".runs") String directory,
+        @DefaultValue("1d") Duration resumeWindow
+) {
+}
@@ -0,0 +1,37 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of the {@link RequestHedger}.
+ *
+ * @param enabled        whether model calls are hedged at all; off by default
+ * @param agents         agents whose calls are hedged
+ * @param percentile     percentile of the recent latencies of an agent's calls after which a call is hedged
+ * @param minDelay       shortest time a call runs before it is hedged
+ * @param minSamples     number of recorded calls of an agent before its calls are hedged
+ * @param window         number of most recent calls per agent the percentile is computed over
+ * @param budget         hedges allowed per call, for example {@code 0.1} for at most one hedge every ten calls
+ * @param burst          hedges that may be sent in a row once the budget has been saved up
+ * @param alternateModel whether the hedge is sent to the next model of the agent's chain rather than the same
+ *                       model, when the chain has more than one model
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "llm.hedging")
+public record HedgingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("section-writer") List<String> agents,
+        @DefaultValue("0.9") double percentile,
+        @DefaultValue("2s") Duration minDelay,
+        @DefaultValue("20") int minSamples,
+        @DefaultValue("100") int window,
+        @DefaultValue("0.1") double budget,
+        @DefaultValue("2") double burst,
+        @DefaultValue("true") boolean alternateModel
+) {
+}
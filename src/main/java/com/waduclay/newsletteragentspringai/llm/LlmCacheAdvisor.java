@@ -0,0 +1,137 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Advisor serving an agent's calls from the {@link LlmResponseCache}.
+ * <p>
+ * The {@link LlmCacheMode} of a call is read from the advisor parameter {@link #CACHE_MODE} and defaults to
+ * {@link LlmCacheMode#USE}. Only plain text responses are cached; responses requesting tool calls always go to
+ * the model. Streamed calls are cached once the stream completes, and a hit is replayed as a single chunk.
+ * <p>
+ * The advisor runs above the {@link RoutingChatModel}, so its prompts carry the default model rather than the
+ * model that answers. Keys therefore include the agent's chain of models: a response of any model of the chain
+ * is served for the chain, and changing the chain does not serve responses of the previous one.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class LlmCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * Advisor parameter holding the {@link LlmCacheMode} of a call.
+     */
+    public static final String CACHE_MODE = "llm_cache_mode";
+
+    private final String agent;
+    private final List<String> models;
+    private final LlmResponseCache cache;
+
+    /**
+     * @param agent       name of the agent whose calls are cached, used for its hit-rate stats
+     * @param modelRouter router whose chain of models for the agent is part of the cache keys
+     * @param cache       the response cache
+     */
+    public LlmCacheAdvisor(String agent, ModelRouter modelRouter, LlmResponseCache cache) {
+        this.agent = agent;
+        this.models = modelRouter.chain(agent);
+        this.cache = cache;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        LlmCacheMode mode = modeOf(request);
+        if (!cache.isEnabled()) {
+            return chain.nextCall(request);
+        }
+        if (mode != LlmCacheMode.USE) {
+            cache.recordBypass(agent);
+            ChatClientResponse response = chain.nextCall(request);
+            if (mode == LlmCacheMode.REFRESH) {
+                store(cache.keyOf(request.prompt(), models), response);
+            }
+            return response;
+        }
+        String key = cache.keyOf(request.prompt(), models);
+        Optional<String> cached = cache.get(agent, key);
+        if (cached.isPresent()) {
+            return cachedResponse(request, cached.get());
+        }
+        ChatClientResponse response = chain.nextCall(request);
+        store(key, response);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        LlmCacheMode mode = modeOf(request);
+        if (!cache.isEnabled()) {
+            return chain.nextStream(request);
+        }
+        String key = cache.keyOf(request.prompt(), models);
+        if (mode == LlmCacheMode.USE) {
+            Optional<String> cached = cache.get(agent, key);
+            if (cached.isPresent()) {
+                return Flux.just(cachedResponse(request, cached.get()));
+            }
+        } else {
+            cache.recordBypass(agent);
+        }
+        Flux<ChatClientResponse> responses = chain.nextStream(request);
+        if (mode == LlmCacheMode.BYPASS) {
+            return responses;
+        }
+        return new ChatClientMessageAggregator().aggregateChatClientResponse(responses,
+                aggregated -> store(key, aggregated));
+    }
+
+    @Override
+    public String getName() {
+        return "LlmCacheAdvisor-" + agent;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1000;
+    }
+
+    private void store(String key, ChatClientResponse response) {
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse == null || chatResponse.getResult() == null) {
+            return;
+        }
+        AssistantMessage output = chatResponse.getResult().getOutput();
+        if (output.hasToolCalls() || output.getText() == null || output.getText().isBlank()) {
+            return;
+        }
+        String model = chatResponse.getMetadata() == null ? null : chatResponse.getMetadata().getModel();
+        cache.put(key, model, output.getText());
+    }
+
+    private static ChatClientResponse cachedResponse(ChatClientRequest request, String text) {
+        ChatResponse chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        return ChatClientResponse.builder()
+                .chatResponse(chatResponse)
+                .context(request.context())
+                .build();
+    }
+
+    private static LlmCacheMode modeOf(ChatClientRequest request) {
+        Object mode = request.context().get(CACHE_MODE);
+        return mode instanceof LlmCacheMode cacheMode ? cacheMode : LlmCacheMode.USE;
+    }
+}
@@ -0,0 +1,21 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+/**
+ * How a single agent call uses the {@link LlmResponseCache}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public enum LlmCacheMode {
+    /**
+     * Serve a cached response if there is one, otherwise call the model and cache its response.
+     */
+    USE,
+    /**
+     * Call the model without reading or writing the cache.
+     */
+    BYPASS,
+    /**
+     * Call the model and replace any cached response, invalidating it.
+     */
+    REFRESH
+}
@@ -0,0 +1,22 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration of the {@link LlmResponseCache}.
+ *
+ * @param enabled   whether agent responses are cached at all; off by default
+ * @param directory directory holding one file per cached response
+ * @param maxSize   total size of the cached responses above which the least recently used are evicted
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "llm.cache")
+public record LlmCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue(".cache/llm") String directory,
+        @DefaultValue("200MB") DataSize maxSize
+) {
+}
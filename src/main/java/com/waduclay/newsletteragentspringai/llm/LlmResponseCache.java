@@ -0,0 +1,367 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed, size-bounded on-disk cache of agent responses.
+ * <p>
+ * A response is keyed on the SHA-256 of the model, the chat options and the rendered messages of its prompt;
+ * options the prompt does not set are taken from the chat model's defaults, so a change of the configured model
+ * or temperature never serves a stale response. Prompts of agents routed over a chain of models are keyed on that
+ * chain as well, since any model of it may answer. Each response is one file; when their total size exceeds
+ * {@link LlmCacheProperties#maxSize()}, the least recently used are deleted. Access order survives restarts
+ * through the files' modification times.
+ * <p>
+ * Hits, misses and bypassed calls are counted per agent and published as {@code llm.cache.requests}, tagged with
+ * {@code agent} and {@code result}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class LlmResponseCache implements MeterBinder {
+
+    private final LlmCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ChatOptions defaultOptions;
+    private final Path directory;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private volatile MeterRegistry meterRegistry;
+
+    public LlmResponseCache(LlmCacheProperties properties, ObjectMapper objectMapper, ChatModel chatModel) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.defaultOptions = chatModel.getDefaultOptions();
+        this.directory = Path.of(properties.directory());
+        if (properties.enabled()) {
+            loadIndex();
+        }
+    }
+
+    /**
+     * @return whether responses are cached at all
+     */
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Computes the cache key of a prompt.
+     *
+     * @param prompt the prompt sent to the model
+     * @return hex SHA-256 of the model, effective options and messages
+     */
+    public String keyOf(Prompt prompt) {
+        return keyOf(prompt, List.of());
+    }
+
+    /**
+     * Computes the cache key of a prompt sent over a chain of models.
+     *
+     * @param prompt the prompt sent to the model
+     * @param models the chain of models the prompt is routed over, empty for the model of the chat options
+     * @return hex SHA-256 of the model, chain, effective options and messages
+     */
+    public String keyOf(Prompt prompt, List<String> models) {
+        ChatOptions options = prompt.getOptions();
+        Map<String, Object> canonical = new TreeMap<>();
+        if (!models.isEmpty()) {
+            canonical.put("models", models);
+        }
+        canonical.put("model", option(options, ChatOptions::getModel));
+        canonical.put("temperature", option(options, ChatOptions::getTemperature));
+        canonical.put("topP", option(options, ChatOptions::getTopP));
+        canonical.put("topK", option(options, ChatOptions::getTopK));
+        canonical.put("maxTokens", option(options, ChatOptions::getMaxTokens));
+        canonical.put("frequencyPenalty", option(options, ChatOptions::getFrequencyPenalty));
+        canonical.put("presencePenalty", option(options, ChatOptions::getPresencePenalty));
+        canonical.put("stopSequences", option(options, ChatOptions::getStopSequences));
+        canonical.put("messages", prompt.getInstructions().stream()
+                .map(message -> List.of(message.getMessageType().getValue(), textOf(message)))
+                .toList());
+        try {
+            return sha256(objectMapper.writeValueAsString(canonical));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to build LLM cache key", e);
+        }
+    }
+
+    /**
+     * Looks up a cached response and counts the lookup for the agent.
+     *
+     * @param agent name of the agent making the call
+     * @param key   the cache key of the prompt
+     * @return the cached response text, if any
+     */
+    public Optional<String> get(String agent, String key) {
+        Counters agentCounters = countersOf(agent);
+        Path file = fileFor(key);
+        synchronized (index) {
+            if (index.get(key) == null) {
+                agentCounters.misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+        try {
+            CachedResponse cached = objectMapper.readValue(file.toFile(), CachedResponse.class);
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            agentCounters.hits.incrementAndGet();
+            log.info("LLM cache hit for {} agent", agent);
+            return Optional.of(cached.text());
+        } catch (IOException e) {
+            log.warn("Discarding unreadable LLM cache entry: {}", file, e);
+            remove(key);
+            agentCounters.misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a response, evicting the least recently used responses beyond the size limit.
+     *
+     * @param key   the cache key of the prompt
+     * @param model the model that produced the response
+     * @param text  the response text
+     */
+    public void put(String key, String model, String text) {
+        Path file = fileFor(key);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            objectMapper.writeValue(temp.toFile(), new CachedResponse(model, Instant.now(), text));
+            long size = Files.size(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (index) {
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist LLM cache entry: {}", file, e);
+        }
+    }
+
+    /**
+     * Counts a call of the agent that bypassed the cache.
+     *
+     * @param agent name of the agent making the call
+     */
+    public void recordBypass(String agent) {
+        countersOf(agent).bypassed.incrementAndGet();
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void clear() {
+        synchronized (index) {
+            index.keySet().forEach(key -> deleteQuietly(fileFor(key)));
+            index.clear();
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * @return a snapshot of the counters of every agent that used the cache
+     */
+    public Map<String, Stats> stats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        counters.forEach((agent, agentCounters) -> stats.put(agent, agentCounters.snapshot()));
+        return stats;
+    }
+
+    /**
+     * @return total size in bytes of the cached responses
+     */
+    public long sizeInBytes() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > properties.maxSize().toBytes() && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            deleteQuietly(fileFor(entry.getKey()));
+            eldest.remove();
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (index) {
+            Long size = index.remove(key);
+            totalBytes -= size == null ? 0 : size;
+        }
+        deleteQuietly(fileFor(key));
+    }
+
+    private void loadIndex() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .sorted(Comparator.comparing(LlmResponseCache::lastModified))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long size = size(file);
+                        index.put(name.substring(0, name.length() - ".json".length()), size);
+                        totalBytes += size;
+                    });
+            evict();
+        } catch (IOException e) {
+            log.warn("Failed to load LLM cache directory: {}", directory, e);
+        }
+    }
+
+    private <T> T option(ChatOptions options, Function<ChatOptions, T> getter) {
+        T value = options == null ? null : getter.apply(options);
+        return value != null || defaultOptions == null ? value : getter.apply(defaultOptions);
+    }
+
+    private static String textOf(Message message) {
+        return message.getText() == null ? "" : message.getText();
+    }
+
+    private Counters countersOf(String agent) {
+        return counters.computeIfAbsent(agent, name -> {
+            Counters agentCounters = new Counters();
+            if (meterRegistry != null) {
+                agentCounters.bindTo(name, meterRegistry);
+            }
+            return agentCounters;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        counters.forEach((agent, agentCounters) -> agentCounters.bindTo(agent, registry));
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete LLM cache entry: {}", file, e);
+        }
+    }
+
+    /**
+     * A cached response.
+     *
+     * @param model     the model that produced it
+     * @param createdAt when it was produced
+     * @param text      the response text
+     */
+    record CachedResponse(String model, Instant createdAt, String text) {
+    }
+
+    private static final class Counters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong bypassed = new AtomicLong();
+
+        private Stats snapshot() {
+            return new Stats(hits.get(), misses.get(), bypassed.get());
+        }
+
+        private void bindTo(String agent, MeterRegistry registry) {
+            bind(registry, agent, "hit", hits);
+            bind(registry, agent, "miss", misses);
+            bind(registry, agent, "bypass", bypassed);
+        }
+
+        private static void bind(MeterRegistry registry, String agent, String result, AtomicLong counter) {
+            FunctionCounter.builder("llm.cache.requests", counter, AtomicLong::get)
+                    .tag("agent", agent)
+                    .tag("result", result)
+                    .description("Agent calls by LLM response cache outcome")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters of one agent.
+     *
+     * @param hits     calls served from the cache
+     * @param misses   calls that had to go to the model
+     * @param bypassed calls made with {@link LlmCacheMode#BYPASS} or {@link LlmCacheMode#REFRESH}
+     */
+    public record Stats(long hits, long misses, long bypassed) {
+
+        /**
+         * @return share of cache lookups that were hits, or {@code 0} before the first lookup
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import com.waduclay.newsletteragentspringai.research.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Advisor recording the latency, prompt size and token usage of an agent's model calls.
+ * <p>
+ * Metrics, all tagged with {@code agent}:
+ * <ul>
+ *   <li>{@code llm.call} - latency of each call until the response, or the last streamed chunk, arrived; also
+ *   tagged with {@code outcome} {@code success}, {@code error} or, for a stream cancelled by its subscriber,
+ *   {@code cancelled}</li>
+ *   <li>{@code llm.prompt.bytes} - UTF-8 size of the prompt messages</li>
+ *   <li>{@code llm.tokens.estimated} - prompt tokens estimated locally by {@link TokenEstimator}</li>
+ *   <li>{@code llm.tokens} - tokens reported in the response usage metadata, tagged with {@code type}
+ *   {@code prompt} or {@code completion}; not recorded when the provider reports no usage</li>
+ * </ul>
+ * The advisor runs after the {@link LlmCacheAdvisor}, so responses served from the cache are not counted.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class LlmUsageAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final String agent;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary promptBytes;
+    private final DistributionSummary estimatedTokens;
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary completionTokens;
+
+    /**
+     * @param agent         name of the agent whose calls are measured
+     * @param meterRegistry registry the metrics are published to
+     */
+    public LlmUsageAdvisor(String agent, MeterRegistry meterRegistry) {
+        this.agent = agent;
+        this.meterRegistry = meterRegistry;
+        this.promptBytes = DistributionSummary.builder("llm.prompt.bytes")
+                .tag("agent", agent)
+                .baseUnit("bytes")
+                .description("UTF-8 size of the prompt messages")
+                .register(meterRegistry);
+        this.estimatedTokens = DistributionSummary.builder("llm.tokens.estimated")
+                .tag("agent", agent)
+                .baseUnit("tokens")
+                .description("Locally estimated prompt tokens")
+                .register(meterRegistry);
+        this.promptTokens = tokens("prompt");
+        this.completionTokens = tokens("completion");
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        recordPrompt(request);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            sample.stop(timer("success"));
+            recordUsage(response.chatResponse());
+            return response;
+        } catch (RuntimeException e) {
+            sample.stop(timer("error"));
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        recordPrompt(request);
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean stopped = new AtomicBoolean();
+            Consumer<String> stop = outcome -> {
+                if (stopped.compareAndSet(false, true)) {
+                    sample.stop(timer(outcome));
+                }
+            };
+            Flux<ChatClientResponse> responses = chain.nextStream(request)
+                    .doOnError(e -> stop.accept("error"));
+            return new ChatClientMessageAggregator().aggregateChatClientResponse(responses, aggregated -> {
+                stop.accept("success");
+                recordUsage(aggregated.chatResponse());
+            }).doOnCancel(() -> stop.accept("cancelled"));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "LlmUsageAdvisor-" + agent;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 2000;
+    }
+
+    private void recordPrompt(ChatClientRequest request) {
+        long bytes = 0;
+        long tokens = 0;
+        for (Message message : request.prompt().getInstructions()) {
+            String text = message.getText();
+            if (text != null) {
+                bytes += text.getBytes(StandardCharsets.UTF_8).length;
+                tokens += TokenEstimator.estimate(text);
+            }
+        }
+        promptBytes.record(bytes);
+        estimatedTokens.record(tokens);
+    }
+
+    private void recordUsage(ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getMetadata() == null) {
+            return;
+        }
+        Usage usage = chatResponse.getMetadata().getUsage();
+        if (usage == null || usage.getTotalTokens() == null || usage.getTotalTokens() == 0) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            promptTokens.record(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            completionTokens.record(usage.getCompletionTokens());
+        }
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("llm.call")
+                .tag("agent", agent)
+                .tag("outcome", outcome)
+                .description("Latency of model calls")
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokens(String type) {
+        return DistributionSummary.builder("llm.tokens")
+                .tag("agent", agent)
+                .tag("type", type)
+                .baseUnit("tokens")
+                .description("Tokens reported in the response usage metadata")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,262 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes the model calls of each agent over its own ordered chain of models, skipping models that are degraded.
+ * <p>
+ * Agents build their {@link ChatClient} from {@link #chatClientBuilder(String)}. Every call of that client is
+ * sent to the first model of the agent's chain that is not degraded; if it fails, the next model is tried. A model
+ * is degraded once the p95 latency or the error rate of its last {@link ModelRoutingProperties#window()} calls,
+ * across all agents, exceeds the configured limits. Degraded models are only tried after every healthy model of
+ * the chain failed, except for a single probe call once per {@link ModelRoutingProperties#probeInterval()}. Only a
+ * probe that succeeds within {@link ModelRoutingProperties#maxP95Latency()} clears the model's window, so a model
+ * that recovered is used again, while slow calls still in flight when it was degraded do not clear it.
+ * <p>
+ * Calls that offer the model tools are never retried on another model, since the first model may already have
+ * invoked a tool, such as sending the newsletter. Streamed calls fall back only until the first chunk arrived.
+ * Slow calls of the agents configured in {@link HedgingProperties} are additionally hedged by the
+ * {@link RequestHedger}.
+ * <p>
+ * Metrics: {@code llm.fallbacks}, tagged with {@code agent} and the {@code model} that failed.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    private final ChatModel chatModel;
+    private final ObservationRegistry observationRegistry;
+    private final ObjectProvider<ChatClientCustomizer> customizers;
+    private final ModelRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RequestHedger requestHedger;
+    private final Map<String, List<String>> chains;
+    private final Map<String, ModelStats> stats = new ConcurrentHashMap<>();
+
+    public ModelRouter(ChatModel chatModel, ObjectProvider<ObservationRegistry> observationRegistry,
+                       ObjectProvider<ChatClientCustomizer> customizers, ModelRoutingProperties properties,
+                       MeterRegistry meterRegistry, RequestHedger requestHedger) {
+        this.chatModel = chatModel;
+        this.observationRegistry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+        this.customizers = customizers;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.requestHedger = requestHedger;
+        this.chains = properties.models() == null ? Map.of() : Map.copyOf(properties.models());
+        this.chains.forEach((agent, chain) -> log.info("Models of agent {}: {}", agent, chain));
+    }
+
+    /**
+     * Creates a chat client builder whose calls are routed over the agent's chain of models, with the same
+     * observation registry and customizers as the auto-configured builder.
+     *
+     * @param agent name of the agent
+     * @return a new builder
+     */
+    public ChatClient.Builder chatClientBuilder(String agent) {
+        ChatClient.Builder builder = ChatClient.builder(new RoutingChatModel(agent, chatModel, this, requestHedger),
+                observationRegistry, null);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return builder;
+    }
+
+    /**
+     * @param agent name of the agent
+     * @return the configured chain of models of the agent, empty if the agent uses the default model
+     */
+    public List<String> chain(String agent) {
+        return chains.getOrDefault(agent, List.of());
+    }
+
+    /**
+     * Orders the agent's chain for a call: healthy models and degraded models due for a probe first, then the
+     * remaining degraded models, each in chain order.
+     *
+     * @param agent name of the agent
+     * @return the models to try, never empty, and which of them the call probes
+     */
+    Candidates candidates(String agent) {
+        List<String> chain = chains.get(agent);
+        if (chain == null || chain.isEmpty()) {
+            return new Candidates(Arrays.asList((String) null), Set.of());
+        }
+        List<String> healthy = new ArrayList<>(chain.size());
+        List<String> degraded = new ArrayList<>();
+        Set<String> probes = new HashSet<>();
+        long now = System.nanoTime();
+        for (String model : chain) {
+            ModelStats modelStats = stats(model);
+            if (!modelStats.isDegraded()) {
+                healthy.add(model);
+            } else if (modelStats.tryProbe(now, properties.probeInterval())) {
+                healthy.add(model);
+                probes.add(model);
+            } else {
+                degraded.add(model);
+            }
+        }
+        healthy.addAll(degraded);
+        return new Candidates(healthy, probes);
+    }
+
+    /**
+     * Records the outcome of a call to a model.
+     *
+     * @param model   the model, or {@code null} for the default model
+     * @param latency time until the response, or the first streamed chunk, arrived or the call failed
+     * @param success whether the call succeeded
+     * @param probe   whether the call was the probe of the degraded model; only a probe that succeeds within
+     *                {@link ModelRoutingProperties#maxP95Latency()} clears the model's window
+     */
+    void record(String model, Duration latency, boolean success, boolean probe) {
+        if (model == null) {
+            return;
+        }
+        ModelStats modelStats = stats(model);
+        boolean wasDegraded = modelStats.isDegraded();
+        boolean degraded = modelStats.record(latency.toNanos(), success, probe, properties);
+        if (degraded && !wasDegraded) {
+            log.warn("Model {} is degraded: {}", model, modelStats);
+        } else if (!degraded && wasDegraded) {
+            log.info("Model {} recovered", model);
+        }
+    }
+
+    /**
+     * Records that a call of the agent falls back from a failed model to the next one.
+     */
+    void fallback(String agent, String model, String next, Throwable error) {
+        log.warn("Model {} failed for agent {}, falling back to {}: {}", model, agent, next, error.toString());
+        Counter.builder("llm.fallbacks")
+                .tag("agent", agent)
+                .tag("model", model == null ? "default" : model)
+                .description("Model calls retried on the next model of the agent's chain")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private ModelStats stats(String model) {
+        return stats.computeIfAbsent(model, ignored -> new ModelStats(properties.window()));
+    }
+
+    /**
+     * The models to try for one call, in order.
+     *
+     * @param models the models; {@code null} stands for the default model of the chat options
+     * @param probes degraded models the call tries as their probe
+     */
+    record Candidates(List<String> models, Set<String> probes) {
+
+        /**
+         * @return whether a call to the model is the probe of the degraded model
+         */
+        boolean isProbe(String model) {
+            return model != null && probes.contains(model);
+        }
+
+        /**
+         * @return the same models starting at the second one, with the same probes
+         */
+        Candidates rotated() {
+            if (models.size() < 2) {
+                return this;
+            }
+            List<String> rotated = new ArrayList<>(models.subList(1, models.size()));
+            rotated.add(models.get(0));
+            return new Candidates(rotated, probes);
+        }
+    }
+
+    /**
+     * Latencies and outcomes of the most recent calls to one model.
+     */
+    private static final class ModelStats {
+        private final long[] latencies;
+        private final boolean[] failures;
+        private int next;
+        private int count;
+        private volatile boolean degraded;
+        private volatile long lastProbe;
+
+        private ModelStats(int window) {
+            this.latencies = new long[Math.max(1, window)];
+            this.failures = new boolean[latencies.length];
+        }
+
+        boolean isDegraded() {
+            return degraded;
+        }
+
+        /**
+         * Claims the probe of a degraded model if the interval since the last one has passed.
+         */
+        synchronized boolean tryProbe(long now, Duration interval) {
+            if (lastProbe != 0 && now - lastProbe < interval.toNanos()) {
+                return false;
+            }
+            lastProbe = now;
+            return true;
+        }
+
+        synchronized boolean record(long latency, boolean success, boolean probe, ModelRoutingProperties properties) {
+            if (probe && degraded && success && latency <= properties.maxP95Latency().toNanos()) {
+                count = 0;
+                next = 0;
+                lastProbe = 0;
+            }
+            latencies[next] = latency;
+            failures[next] = !success;
+            next = (next + 1) % latencies.length;
+            count = Math.min(count + 1, latencies.length);
+            degraded = count >= properties.minCalls()
+                    && (errorRate() > properties.maxErrorRate()
+                    || p95() > properties.maxP95Latency().toNanos());
+            if (degraded && lastProbe == 0) {
+                lastProbe = System.nanoTime();
+            }
+            return degraded;
+        }
+
+        private double errorRate() {
+            int failed = 0;
+            for (int i = 0; i < count; i++) {
+                if (failures[i]) {
+                    failed++;
+                }
+            }
+            return (double) failed / count;
+        }
+
+        private long p95() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(count * 0.95) - 1)];
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "p95 " + Duration.ofNanos(p95()).toMillis() + " ms, error rate "
+                    + Math.round(errorRate() * 100) + "% over " + count + " calls";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the {@link ModelRouter}.
+ *
+ * @param models        ordered fallback chain of models per agent ({@code planning}, {@code section-writer},
+ *                      {@code editor}); an agent without a chain uses {@code spring.ai.openai.chat.options.model}
+ * @param window        number of most recent calls per model the latency and error rate are computed over
+ * @param minCalls      number of calls in the window before a model can be considered degraded
+ * @param maxP95Latency p95 latency above which a model is degraded
+ * @param maxErrorRate  share of failed calls above which a model is degraded
+ * @param probeInterval time after which a degraded model is tried again by a single call; a probe that succeeds
+ *                      within {@code maxP95Latency} clears its window
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "llm.routing")
+public record ModelRoutingProperties(
+        Map<String, List<String>> models,
+        @DefaultValue("50") int window,
+        @DefaultValue("5") int minCalls,
+        @DefaultValue("90s") Duration maxP95Latency,
+        @DefaultValue("0.5") double maxErrorRate,
+        @DefaultValue("5m") Duration probeInterval
+) {
+}
@@ -0,0 +1,180 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow model calls: when a call has not produced its response, or its first streamed chunk, within the
+ * usual latency of the agent's calls, a duplicate is sent and whichever produces a value first is used.
+ * <p>
+ * The delay is the {@link HedgingProperties#percentile()} of the latency of the agent's recent calls, but at least
+ * {@link HedgingProperties#minDelay()}. Hedges are paid from a budget: every call saves up
+ * {@link HedgingProperties#budget()} of a hedge, up to {@link HedgingProperties#burst()}, and a hedge is only sent
+ * when a whole one has been saved, which caps the extra model spend. The call that loses is cancelled. Hedging
+ * only covers slowness: a call that fails before its hedge was sent fails at once and the hedge is not sent. Once
+ * the hedge is in flight, the call fails only when the hedge fails as well.
+ * <p>
+ * Metrics: {@code llm.hedges}, tagged with {@code agent} and {@code outcome} {@code sent} or {@code over-budget}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class RequestHedger {
+
+    private final HedgingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AgentStats> stats = new ConcurrentHashMap<>();
+
+    public RequestHedger(HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param agent name of the agent
+     * @return whether the agent's calls are hedged
+     */
+    boolean isHedged(String agent) {
+        return properties.enabled() && properties.agents().contains(agent);
+    }
+
+    /**
+     * @return whether hedges are sent to the next model of the agent's chain
+     */
+    boolean alternatesModel() {
+        return properties.alternateModel();
+    }
+
+    /**
+     * Records the latency of a successful call of the agent.
+     *
+     * @param agent   name of the agent
+     * @param latency time until the response, or the first streamed chunk, arrived
+     */
+    void record(String agent, Duration latency) {
+        if (isHedged(agent)) {
+            stats(agent).record(latency.toNanos());
+        }
+    }
+
+    /**
+     * Runs a call, hedging it if it is slow and the budget allows.
+     *
+     * @param agent   name of the agent
+     * @param primary the call
+     * @param hedge   supplier of the duplicate call, only invoked when the hedge is sent
+     * @param <T>     type of the emitted values
+     * @return the values of whichever of the call and the hedge emits first
+     */
+    <T> Flux<T> hedge(String agent, Flux<T> primary, Supplier<Flux<T>> hedge) {
+        if (!isHedged(agent)) {
+            return primary;
+        }
+        return Flux.defer(() -> {
+            AgentStats agentStats = stats(agent);
+            agentStats.save(properties);
+            Optional<Duration> delay = agentStats.delay(properties);
+            if (delay.isEmpty()) {
+                return primary;
+            }
+            Sinks.One<Throwable> primaryFailed = Sinks.one();
+            Flux<T> watchedPrimary = primary.doOnError(primaryFailed::tryEmitValue);
+            Mono<Long> hedgeDue = Mono.delay(delay.get()).takeUntilOther(primaryFailed.asMono());
+            Flux<T> delayedHedge = hedgeDue.flatMapMany(ignored -> {
+                if (!agentStats.trySpend()) {
+                    count(agent, "over-budget");
+                    return Flux.empty();
+                }
+                log.debug("Hedging call of agent {} after {} ms", agent, delay.get().toMillis());
+                count(agent, "sent");
+                return hedge.get();
+            });
+            return Flux.firstWithValue(watchedPrimary, delayedHedge).onErrorMap(RequestHedger::unwrap);
+        });
+    }
+
+    /**
+     * Unwraps the error of the first failed call from the error raised when neither source emitted a value.
+     */
+    private static Throwable unwrap(Throwable error) {
+        if (!(error instanceof NoSuchElementException) || error.getCause() == null) {
+            return error;
+        }
+        return Exceptions.unwrapMultiple(error.getCause()).stream()
+                .filter(cause -> !(cause instanceof NoSuchElementException))
+                .findFirst()
+                .orElse(error);
+    }
+
+    private void count(String agent, String outcome) {
+        Counter.builder("llm.hedges")
+                .tag("agent", agent)
+                .tag("outcome", outcome)
+                .description("Slow model calls for which a hedge was sent or the budget was exhausted")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private AgentStats stats(String agent) {
+        return stats.computeIfAbsent(agent, ignored -> new AgentStats(properties.window()));
+    }
+
+    /**
+     * Recent latencies and the saved hedge budget of one agent.
+     */
+    private static final class AgentStats {
+        private final long[] latencies;
+        private int next;
+        private int count;
+        private double budget;
+
+        private AgentStats(int window) {
+            this.latencies = new long[Math.max(1, window)];
+        }
+
+        synchronized void record(long latency) {
+            latencies[next] = latency;
+            next = (next + 1) % latencies.length;
+            count = Math.min(count + 1, latencies.length);
+        }
+
+        synchronized Optional<Duration> delay(HedgingProperties properties) {
+            if (count < Math.max(1, properties.minSamples())) {
+                return Optional.empty();
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long percentile = sorted[Math.max(0, (int) Math.ceil(count * properties.percentile()) - 1)];
+            Duration delay = Duration.ofNanos(percentile);
+            return Optional.of(delay.compareTo(properties.minDelay()) < 0 ? properties.minDelay() : delay);
+        }
+
+        synchronized void save(HedgingProperties properties) {
+            budget = Math.min(properties.burst(), budget + properties.budget());
+        }
+
+        synchronized boolean trySpend() {
+            if (budget < 1) {
+                return false;
+            }
+            budget -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+
+import com.waduclay.newsletteragentspringai.llm.ModelRouter.Candidates;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.workflow.Deadline;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chat model of one agent, sending each call over the models chosen by the {@link ModelRouter}.
+ * <p>
+ * The model is set on a copy of the call's OpenAI chat options; calls with other options are passed through
+ * unchanged, as the model cannot be chosen for them. Calls without tools are hedged by the {@link RequestHedger};
+ * a hedged blocking call runs on the bounded elastic scheduler as the current tenant, and the call that loses is
+ * interrupted. Calls made within a {@link Deadline} of a workflow stage time out at that deadline: a blocking call
+ * then runs on the bounded elastic scheduler as well, so the caller is released at the deadline even if the HTTP
+ * client does not give up the request when interrupted.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+class RoutingChatModel implements ChatModel {
+
+    private final String agent;
+    private final ChatModel delegate;
+    private final ModelRouter router;
+    private final RequestHedger hedger;
+
+    RoutingChatModel(String agent, ChatModel delegate, ModelRouter router, RequestHedger hedger) {
+        this.agent = agent;
+        this.delegate = delegate;
+        this.router = router;
+        this.hedger = hedger;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (!isRoutable(prompt)) {
+            return delegate.call(prompt);
+        }
+        Candidates candidates = router.candidates(agent);
+        boolean fallback = !usesTools(prompt);
+        boolean hedged = fallback && hedger.isHedged(agent);
+        Deadline deadline = Deadline.current();
+        if (!hedged && !deadline.isBounded()) {
+            return call(prompt, candidates, fallback);
+        }
+        Flux<ChatResponse> response = hedged
+                ? hedger.hedge(agent, callAsync(prompt, candidates, true),
+                () -> callAsync(prompt, hedgeModels(candidates), true))
+                : callAsync(prompt, candidates, fallback);
+        return deadline.timeout(response).blockLast();
+    }
+
+    private Flux<ChatResponse> callAsync(Prompt prompt, Candidates candidates, boolean fallback) {
+        return Mono.fromSupplier(TenantContext.wrap(() -> call(prompt, candidates, fallback)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flux();
+    }
+
+    private ChatResponse call(Prompt prompt, Candidates candidates, boolean fallback) {
+        List<String> models = candidates.models();
+        for (int i = 0; ; i++) {
+            String model = models.get(i);
+            boolean probe = candidates.isProbe(model);
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = delegate.call(withModel(prompt, model));
+                succeeded(model, probe, Duration.ofNanos(System.nanoTime() - start));
+                return response;
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                router.record(model, Duration.ofNanos(System.nanoTime() - start), false, probe);
+                if (!fallback || i + 1 == models.size()) {
+                    throw e;
+                }
+                router.fallback(agent, model, models.get(i + 1), e);
+            }
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        if (!isRoutable(prompt)) {
+            return delegate.stream(prompt);
+        }
+        Deadline deadline = Deadline.current();
+        return deadline.timeout(Flux.defer(() -> {
+            Candidates candidates = router.candidates(agent);
+            if (usesTools(prompt)) {
+                return stream(prompt, candidates, 0, false);
+            }
+            return hedger.hedge(agent, stream(prompt, candidates, 0, true),
+                    () -> stream(prompt, hedgeModels(candidates), 0, true));
+        }));
+    }
+
+    private Flux<ChatResponse> stream(Prompt prompt, Candidates candidates, int index, boolean fallback) {
+        List<String> models = candidates.models();
+        String model = models.get(index);
+        boolean probe = candidates.isProbe(model);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean started = new AtomicBoolean();
+            return delegate.stream(withModel(prompt, model))
+                    .doOnNext(response -> {
+                        if (started.compareAndSet(false, true)) {
+                            succeeded(model, probe, Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        router.record(model, Duration.ofNanos(System.nanoTime() - start), false, probe);
+                        if (started.get() || !fallback || index + 1 == models.size()) {
+                            return Flux.error(error);
+                        }
+                        router.fallback(agent, model, models.get(index + 1), error);
+                        return stream(prompt, candidates, index + 1, true);
+                    });
+        });
+    }
+
+    private void succeeded(String model, boolean probe, Duration latency) {
+        router.record(model, latency, true, probe);
+        hedger.record(agent, latency);
+    }
+
+    /**
+     * The models a hedge tries: the chain starting at its second model when hedges alternate models, so the hedge
+     * does not wait on the same slow model.
+     */
+    private Candidates hedgeModels(Candidates candidates) {
+        return hedger.alternatesModel() ? candidates.rotated() : candidates;
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private static boolean isRoutable(Prompt prompt) {
+        return prompt.getOptions() == null || prompt.getOptions() instanceof OpenAiChatOptions;
+    }
+
+    private static boolean usesTools(Prompt prompt) {
+        return prompt.getOptions() instanceof ToolCallingChatOptions options
+                && (options.getToolCallbacks() != null && !options.getToolCallbacks().isEmpty()
+                || options.getToolNames() != null && !options.getToolNames().isEmpty());
+    }
+
+    private static Prompt withModel(Prompt prompt, String model) {
+        if (model == null) {
+            return prompt;
+        }
+        OpenAiChatOptions options = prompt.getOptions() instanceof OpenAiChatOptions openAiOptions
+                ? openAiOptions.copy() : new OpenAiChatOptions();
+        options.setModel(model);
+        return new Prompt(prompt.getInstructions(), options);
+    }
+}
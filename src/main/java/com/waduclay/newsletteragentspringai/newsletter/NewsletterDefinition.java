@@ -0,0 +1,45 @@
+package com.waduclay.newsletteragentspringai.newsletter;
+
+
+import com.waduclay.newsletteragentspringai.tavily.TimeRange;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Definition of one newsletter: what it researches, who receives it and when it is sent.
+ *
+ * @param id             unique id of the newsletter; letters, digits, {@code -} and {@code _} only. Also used as the
+ *                       tenant when sharing resource pools with other newsletters
+ * @param seedQuery      query of the initial search the topics are planned from
+ * @param seedTimeRange  time range of the initial search
+ * @param topicTimeRange time range of the per-topic searches
+ * @param includeDomains domains searches are restricted to; {@code null} keeps the default domains of
+ *                       {@link com.waduclay.newsletteragentspringai.tavily.TavilySearch}, an empty list searches
+ *                       the whole web
+ * @param recipients     addresses the newsletter is sent to; when empty, {@code spring.mail.recipient} is used
+ * @param cron           Spring cron expression of when the newsletter is created
+ * @param enabled        whether the newsletter is scheduled
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record NewsletterDefinition(
+        String id,
+        String seedQuery,
+        @DefaultValue("week") TimeRange seedTimeRange,
+        @DefaultValue("month") TimeRange topicTimeRange,
+        List<String> includeDomains,
+        List<String> recipients,
+        @DefaultValue("0 0 1 * * SUN") String cron,
+        @DefaultValue("true") boolean enabled
+) {
+    public NewsletterDefinition {
+        if (id == null || !id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid newsletter id: " + id);
+        }
+        if (seedQuery == null || seedQuery.isBlank()) {
+            throw new IllegalArgumentException("Newsletter " + id + " must have a seed query");
+        }
+        includeDomains = includeDomains == null ? null : List.copyOf(includeDomains);
+        recipients = recipients == null ? List.of() : List.copyOf(recipients);
+    }
+}
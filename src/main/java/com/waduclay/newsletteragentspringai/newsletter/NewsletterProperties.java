@@ -0,0 +1,22 @@
+package com.waduclay.newsletteragentspringai.newsletter;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * The newsletters served by this deployment.
+ *
+ * @param definitions       the newsletter definitions; when none are configured, a single {@code default}
+ *                          newsletter on AI agent workflows is created
+ * @param maxConcurrentRuns maximum number of newsletters created at the same time
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "newsletters")
+public record NewsletterProperties(
+        List<NewsletterDefinition> definitions,
+        @DefaultValue("4") int maxConcurrentRuns
+) {
+}
@@ -0,0 +1,72 @@
+package com.waduclay.newsletteragentspringai.newsletter;
+
+
+import com.waduclay.newsletteragentspringai.tavily.TimeRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registry of the {@link NewsletterDefinition}s configured under {@code newsletters.definitions}.
+ * <p>
+ * Without any configured definition, the registry holds a single {@value #DEFAULT_ID} newsletter matching the
+ * original single-newsletter setup: a weekly search for AI agent workflow project ideas every Sunday at 1:00 AM.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class NewsletterRegistry {
+
+    /**
+     * Id of the newsletter created when none is configured.
+     */
+    public static final String DEFAULT_ID = "default";
+
+    private final Map<String, NewsletterDefinition> definitions = new LinkedHashMap<>();
+
+    public NewsletterRegistry(NewsletterProperties properties) {
+        List<NewsletterDefinition> configured = properties.definitions() == null || properties.definitions().isEmpty()
+                ? List.of(defaultDefinition())
+                : properties.definitions();
+        for (NewsletterDefinition definition : configured) {
+            if (definitions.putIfAbsent(definition.id(), definition) != null) {
+                throw new IllegalStateException("Duplicate newsletter id: " + definition.id());
+            }
+        }
+        log.info("Registered newsletters: {}", definitions.keySet());
+    }
+
+    /**
+     * @return all newsletter definitions, in configuration order
+     */
+    public Collection<NewsletterDefinition> all() {
+        return Collections.unmodifiableCollection(definitions.values());
+    }
+
+    /**
+     * @param id id of a newsletter
+     * @return its definition, if registered
+     */
+    public Optional<NewsletterDefinition> get(String id) {
+        return Optional.ofNullable(definitions.get(id));
+    }
+
+    /**
+     * @return the first registered newsletter, used where no newsletter is specified
+     */
+    public NewsletterDefinition primary() {
+        return definitions.values().iterator().next();
+    }
+
+    private static NewsletterDefinition defaultDefinition() {
+        return new NewsletterDefinition(DEFAULT_ID, "AI agent workflows project ideas", TimeRange.week,
+                TimeRange.month, null, List.of(), "0 0 1 * * SUN", true);
+    }
+}
@@ -0,0 +1,91 @@
+package com.waduclay.newsletteragentspringai.newsletter;
+
+
+import com.waduclay.newsletteragentspringai.workflow.WorkflowOrchestrator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Creates every enabled newsletter on its own cron schedule.
+ * <p>
+ * Runs execute on a pool of {@link NewsletterProperties#maxConcurrentRuns()} threads, so several newsletters are
+ * created at the same time while sharing the bounded topic pipeline and upstream limiters, which serve them
+ * round-robin. A newsletter whose previous run is still in progress is skipped rather than started twice.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class NewsletterScheduler implements DisposableBean {
+
+    private final NewsletterRegistry registry;
+    private final WorkflowOrchestrator workflowOrchestrator;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public NewsletterScheduler(NewsletterRegistry registry, WorkflowOrchestrator workflowOrchestrator,
+                               NewsletterProperties properties) {
+        this.registry = registry;
+        this.workflowOrchestrator = workflowOrchestrator;
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(properties.maxConcurrentRuns());
+        this.scheduler.setThreadNamePrefix("newsletter-");
+        this.scheduler.setDaemon(true);
+        this.scheduler.initialize();
+    }
+
+    /**
+     * Schedules every enabled newsletter once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleAll() {
+        for (NewsletterDefinition definition : registry.all()) {
+            if (!definition.enabled()) {
+                continue;
+            }
+            scheduler.schedule(() -> runIfIdle(definition), new CronTrigger(definition.cron()));
+            log.info("Scheduled newsletter {} with cron '{}'", definition.id(), definition.cron());
+        }
+    }
+
+    /**
+     * Creates a newsletter now, on the scheduler's pool.
+     *
+     * @param id id of the newsletter
+     * @return the pending run
+     * @throws IllegalArgumentException if no newsletter has that id
+     */
+    public Future<?> runNow(String id) {
+        NewsletterDefinition definition = registry.get(id)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown newsletter: " + id));
+        return scheduler.submit(() -> runIfIdle(definition));
+    }
+
+    private void runIfIdle(NewsletterDefinition definition) {
+        if (!running.add(definition.id())) {
+            log.warn("Skipping newsletter {}: the previous run is still in progress", definition.id());
+            return;
+        }
+        try {
+            workflowOrchestrator.createNewsletter(definition);
+        } catch (Exception e) {
+            log.error("Failed to create newsletter {}", definition.id(), e);
+        } finally {
+            running.remove(definition.id());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+}
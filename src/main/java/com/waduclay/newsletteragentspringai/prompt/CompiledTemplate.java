@@ -0,0 +1,140 @@
+package com.waduclay.newsletteragentspringai.prompt;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A prompt template parsed once into alternating literal and placeholder segments.
+ * <p>
+ * Placeholders use the {@code {name}} syntax, where the name starts with a letter and consists of letters,
+ * digits, {@code -} and {@code _}. Any other brace is kept as literal text, so JSON or template snippets inside a
+ * prompt do not need escaping. Rendering validates that every placeholder is bound and writes the result in a
+ * single pass into a builder sized up front, so large bindings such as serialized research are copied only once.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class CompiledTemplate {
+
+    private final String name;
+    /**
+     * Literal text around the placeholders; always one element longer than {@link #placeholders}.
+     */
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private CompiledTemplate(String name, List<String> literals, List<String> placeholders) {
+        this.name = name;
+        this.literals = literals.toArray(String[]::new);
+        this.placeholders = placeholders.toArray(String[]::new);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Parses a template source.
+     *
+     * @param name   name of the template, used in error messages
+     * @param source the template text
+     * @return the compiled template
+     */
+    public static CompiledTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            char current = source.charAt(position);
+            int end = current == '{' ? placeholderEnd(source, position) : -1;
+            if (end < 0) {
+                literal.append(current);
+                position++;
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            placeholders.add(source.substring(position + 1, end));
+            position = end + 1;
+        }
+        literals.add(literal.toString());
+        return new CompiledTemplate(name, literals, placeholders);
+    }
+
+    /**
+     * Renders the template with the given bindings.
+     *
+     * @param bindings placeholder values by name; bindings without a matching placeholder are ignored
+     * @return the rendered text
+     * @throws IllegalArgumentException if a placeholder of the template has no binding
+     */
+    public String render(Map<String, ? extends CharSequence> bindings) {
+        CharSequence[] values = new CharSequence[placeholders.length];
+        Set<String> unbound = new LinkedHashSet<>();
+        int length = literalLength;
+        for (int i = 0; i < placeholders.length; i++) {
+            CharSequence value = bindings.get(placeholders[i]);
+            if (value == null) {
+                unbound.add(placeholders[i]);
+                continue;
+            }
+            values[i] = value;
+            length += value.length();
+        }
+        if (!unbound.isEmpty()) {
+            throw new IllegalArgumentException("Unbound placeholders " + unbound + " in template: " + name);
+        }
+
+        StringBuilder rendered = new StringBuilder(length);
+        rendered.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            rendered.append(values[i]).append(literals[i + 1]);
+        }
+        return rendered.toString();
+    }
+
+    /**
+     * Renders a template that has no placeholders.
+     *
+     * @return the template text
+     * @throws IllegalArgumentException if the template has placeholders
+     */
+    public String render() {
+        return render(Collections.emptyMap());
+    }
+
+    /**
+     * @return the name of the template
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the distinct placeholder names of the template, in order of first appearance
+     */
+    public Set<String> placeholders() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(List.of(placeholders)));
+    }
+
+    private static int placeholderEnd(String source, int open) {
+        int position = open + 1;
+        if (position >= source.length() || !Character.isLetter(source.charAt(position))) {
+            return -1;
+        }
+        while (position < source.length()) {
+            char current = source.charAt(position);
+            if (current == '}') {
+                return position;
+            }
+            if (!Character.isLetterOrDigit(current) && current != '-' && current != '_') {
+                return -1;
+            }
+            position++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.waduclay.newsletteragentspringai.prompt;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the prompt templates under {@code classpath:prompts/*.st}, compiled once at startup.
+ * <p>
+ * Templates are looked up by file name without the {@code .st} extension, for example
+ * {@code section-writer-prompt-template}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class PromptTemplates {
+
+    private static final String LOCATION_PATTERN = "classpath:prompts/*.st";
+    private static final String EXTENSION = ".st";
+
+    private final Map<String, CompiledTemplate> templates = new HashMap<>();
+
+    public PromptTemplates() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION_PATTERN);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null || !filename.endsWith(EXTENSION)) {
+                continue;
+            }
+            String name = filename.substring(0, filename.length() - EXTENSION.length());
+            CompiledTemplate template = CompiledTemplate.compile(name, resource.getContentAsString(StandardCharsets.UTF_8));
+            templates.put(name, template);
+            log.debug("Compiled prompt template {} with placeholders {}", name, template.placeholders());
+        }
+    }
+
+    /**
+     * Returns a compiled template by name.
+     *
+     * @param name the template file name without extension
+     * @return the compiled template
+     * @throws IllegalArgumentException if no such template exists
+     */
+    public CompiledTemplate get(String name) {
+        CompiledTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown prompt template: " + name);
+        }
+        return template;
+    }
+}
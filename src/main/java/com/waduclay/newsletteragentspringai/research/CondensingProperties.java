@@ -0,0 +1,23 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the {@link ContentCondenser}.
+ *
+ * @param enabled          whether the raw content of search results is condensed before it is packed into the
+ *                         section writer prompt
+ * @param maxTokens        estimated tokens the raw content of a single result is condensed to; shorter raw content
+ *                         is only stripped of boilerplate
+ * @param minSentenceWords fewest words a sentence needs to be kept, shorter ones are mostly headings and captions
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "research.condensing")
+public record CondensingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("600") int maxTokens,
+        @DefaultValue("5") int minSentenceWords
+) {
+}
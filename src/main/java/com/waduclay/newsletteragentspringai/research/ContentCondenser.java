@@ -0,0 +1,256 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Condenses the {@code raw_content} of search results to the passages most relevant to a topic, locally and
+ * without a model call.
+ * <p>
+ * Raw page text is mostly navigation, sharing and cookie notices, code listings and tables. These are stripped
+ * line by line first: code fences, lines dense in code symbols, lines of fewer than
+ * {@link CondensingProperties#minSentenceWords()} words, short lines of common boilerplate phrases and lines
+ * repeated within the page. If the rest still exceeds {@link CondensingProperties#maxTokens()}, it is split into
+ * sentences with a {@link BreakIterator}, every sentence is scored against the topic with BM25, using the
+ * sentences of the page as the corpus, and the best sentences that fit the budget are kept in page order. Gaps
+ * between kept sentences are marked, so the model does not read them as continuous text. When no sentence
+ * mentions the topic, the opening of the page is kept.
+ * <p>
+ * Results are condensed in parallel. The work is CPU-bound and never blocks, so it runs on the common
+ * {@link java.util.concurrent.ForkJoinPool}. Results are copied before they are condensed; the input items are
+ * never modified. The estimated tokens removed are published as {@code research.condensing.removed.tokens}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class ContentCondenser implements MeterBinder {
+
+    private static final Pattern CODE_FENCE = Pattern.compile("(?s)```.*?(?:```|$)");
+    private static final Pattern LINE_BREAK = Pattern.compile("\\R");
+    private static final Pattern BOILERPLATE = Pattern.compile("(?i)\\b(?:cookies?|subscribe|sign (?:in|up)|log ?in"
+            + "|privacy policy|terms of (?:use|service)|all rights reserved|copyright|share (?:on|this)|follow us"
+            + "|advertisement|skip to (?:main )?content|read more|related (?:posts|articles)|newsletter sign)\\b");
+    private static final String CODE_SYMBOLS = "{}[]();=<>|\\$#@*_`";
+    private static final double MAX_CODE_SYMBOL_SHARE = 0.12;
+    private static final int BOILERPLATE_MAX_WORDS = 15;
+    private static final String GAP = " [...] ";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final CondensingProperties properties;
+    private final AtomicLong resultsCondensed = new AtomicLong();
+    private final AtomicLong tokensRemoved = new AtomicLong();
+
+    public ContentCondenser(CondensingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Condenses the raw content of every result to the passages most relevant to the topic.
+     *
+     * @param results the search results, may be {@code null}
+     * @param topic   the topic the passages are scored against
+     * @return the results with condensed raw content, in the same order as {@code results}
+     */
+    public List<ResultsItem> condense(List<ResultsItem> results, String topic) {
+        if (!properties.enabled() || results == null) {
+            return results;
+        }
+        Set<String> topicTerms = Relevance.terms(topic);
+        return results.parallelStream()
+                .map(item -> item == null || item.getRawContent() == null ? item : condense(item, topicTerms))
+                .toList();
+    }
+
+    private ResultsItem condense(ResultsItem item, Set<String> topicTerms) {
+        String rawContent = item.getRawContent();
+        List<String> paragraphs = stripBoilerplate(rawContent);
+        String stripped = String.join("\n", paragraphs);
+        String condensed = TokenEstimator.estimate(stripped) <= properties.maxTokens()
+                ? stripped : bestSentences(sentences(paragraphs), topicTerms);
+        int removed = TokenEstimator.estimate(rawContent) - TokenEstimator.estimate(condensed);
+        resultsCondensed.incrementAndGet();
+        tokensRemoved.addAndGet(Math.max(0, removed));
+        log.debug("Condensed raw content of {} by ~{} tokens", item.getUrl(), removed);
+        return ResearchPacker.copy(item, condensed.isEmpty() ? null : condensed);
+    }
+
+    /**
+     * Removes code, navigation and other boilerplate lines.
+     *
+     * @return the remaining lines, in page order
+     */
+    private List<String> stripBoilerplate(String rawContent) {
+        List<String> lines = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String line : LINE_BREAK.split(CODE_FENCE.matcher(rawContent).replaceAll("\n"))) {
+            String text = line.strip();
+            int words = text.isEmpty() ? 0 : text.split("\\s+").length;
+            if (words < properties.minSentenceWords()
+                    || isCode(text)
+                    || words <= BOILERPLATE_MAX_WORDS && BOILERPLATE.matcher(text).find()
+                    || !seen.add(text.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            lines.add(text);
+        }
+        return lines;
+    }
+
+    private static boolean isCode(String line) {
+        int symbols = 0;
+        int chars = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                chars++;
+                if (CODE_SYMBOLS.indexOf(c) >= 0) {
+                    symbols++;
+                }
+            }
+        }
+        return chars > 0 && (double) symbols / chars > MAX_CODE_SYMBOL_SHARE;
+    }
+
+    /**
+     * Splits every paragraph into sentences, dropping repeated sentences and those too short to carry content.
+     */
+    private List<Sentence> sentences(List<String> paragraphs) {
+        List<Sentence> sentences = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ENGLISH);
+        for (String paragraph : paragraphs) {
+            iterator.setText(paragraph);
+            int start = iterator.first();
+            for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+                String text = paragraph.substring(start, end).strip();
+                if (text.split("\\s+").length >= properties.minSentenceWords()
+                        && seen.add(text.toLowerCase(Locale.ROOT))) {
+                    sentences.add(new Sentence(sentences.size(), text, Relevance.words(text)));
+                }
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * Keeps the sentences scoring highest against the topic that fit the token budget, in page order. Every kept
+     * sentence is charged the gap marker that may precede it, and one more is reserved for the trailing marker.
+     */
+    private String bestSentences(List<Sentence> sentences, Set<String> topicTerms) {
+        double[] scores = bm25(sentences, topicTerms);
+        List<Sentence> ranked = sentences.stream()
+                .sorted(Comparator.comparingDouble((Sentence sentence) -> -scores[sentence.index()])
+                        .thenComparingInt(Sentence::index))
+                .toList();
+        int budget = properties.maxTokens() - TokenEstimator.estimate(GAP);
+        boolean[] kept = new boolean[sentences.size()];
+        for (Sentence sentence : ranked) {
+            int tokens = TokenEstimator.estimate(sentence.text()) + TokenEstimator.estimate(GAP);
+            if (tokens <= budget) {
+                kept[sentence.index()] = true;
+                budget -= tokens;
+            } else if (scores[sentence.index()] == 0) {
+                break;
+            }
+        }
+
+        StringBuilder condensed = new StringBuilder();
+        int previous = -1;
+        for (Sentence sentence : sentences) {
+            if (!kept[sentence.index()]) {
+                continue;
+            }
+            if (sentence.index() != previous + 1) {
+                condensed.append(condensed.isEmpty() ? GAP.stripLeading() : GAP);
+            } else if (!condensed.isEmpty()) {
+                condensed.append(' ');
+            }
+            condensed.append(sentence.text());
+            previous = sentence.index();
+        }
+        if (previous >= 0 && previous < sentences.size() - 1) {
+            condensed.append(GAP.stripTrailing());
+        }
+        return condensed.toString();
+    }
+
+    /**
+     * Scores every sentence with Okapi BM25, treating the topic terms as the query and the sentences of the page
+     * as the corpus.
+     */
+    private static double[] bm25(List<Sentence> sentences, Set<String> topicTerms) {
+        double[] scores = new double[sentences.size()];
+        if (sentences.isEmpty() || topicTerms.isEmpty()) {
+            return scores;
+        }
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        double totalLength = 0;
+        for (Sentence sentence : sentences) {
+            totalLength += sentence.words().size();
+            for (String term : new HashSet<>(sentence.words())) {
+                if (topicTerms.contains(term)) {
+                    documentFrequencies.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        double averageLength = Math.max(1, totalLength / sentences.size());
+        int count = sentences.size();
+        for (Sentence sentence : sentences) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String word : sentence.words()) {
+                if (topicTerms.contains(word)) {
+                    frequencies.merge(word, 1, Integer::sum);
+                }
+            }
+            double normalization = K1 * (1 - B + B * sentence.words().size() / averageLength);
+            double score = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                int documentFrequency = documentFrequencies.get(frequency.getKey());
+                double idf = Math.log(1 + (count - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                score += idf * frequency.getValue() * (K1 + 1) / (frequency.getValue() + normalization);
+            }
+            scores[sentence.index()] = score;
+        }
+        return scores;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("research.condensing.results", resultsCondensed, AtomicLong::get)
+                .description("Search results whose raw content was condensed")
+                .register(registry);
+        FunctionCounter.builder("research.condensing.removed.tokens", tokensRemoved, AtomicLong::get)
+                .baseUnit("tokens")
+                .description("Estimated prompt tokens saved by condensing raw content")
+                .register(registry);
+    }
+
+    /**
+     * A sentence of the page.
+     *
+     * @param index position of the sentence among the kept sentences of the page
+     * @param text  the sentence
+     * @param words the terms of the sentence, see {@link Relevance#words(String)}
+     */
+    private record Sentence(int index, String text, List<String> words) {
+    }
+}
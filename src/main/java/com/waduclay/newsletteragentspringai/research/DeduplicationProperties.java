@@ -0,0 +1,22 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the cross-topic {@link ResultDeduplicator}.
+ *
+ * @param enabled            whether results are deduplicated across topics before writing
+ * @param maxHammingDistance maximum number of differing SimHash bits for two results to count as near-duplicates
+ * @param minWords           minimum number of words of at least three characters a result needs before its
+ *                           fingerprint is compared, short snippets are only deduplicated by URL
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "research.dedup")
+public record DeduplicationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("6") int maxHammingDistance,
+        @DefaultValue("40") int minWords
+) {
+}
@@ -0,0 +1,30 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+/**
+ * Research serialized for a prompt within a token budget.
+ *
+ * @param text              the serialized results, followed by a note on what was cut if anything was
+ * @param estimatedTokens   estimated token count of {@code text}
+ * @param included          number of results included in the prompt
+ * @param dropped           number of results left out entirely
+ * @param truncated         number of included results whose raw content was shortened
+ * @param rawContentRemoved number of included results whose raw content was removed
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record PackedResearch(
+        String text,
+        int estimatedTokens,
+        int included,
+        int dropped,
+        int truncated,
+        int rawContentRemoved
+) {
+
+    /**
+     * @return whether anything was left out or shortened to fit the budget
+     */
+    public boolean isCut() {
+        return dropped > 0 || truncated > 0 || rawContentRemoved > 0;
+    }
+}
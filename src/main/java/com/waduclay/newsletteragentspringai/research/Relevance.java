@@ -0,0 +1,68 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Scores how relevant a search result is to a topic, combining the Tavily {@code score} with the share of topic
+ * terms mentioned in the result's title and content.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+final class Relevance {
+
+    private static final double SCORE_WEIGHT = 0.7;
+    private static final double TERM_WEIGHT = 0.3;
+
+    private Relevance() {
+    }
+
+    /**
+     * @param item       the search result
+     * @param focusTerms the terms of the topic, see {@link #terms(String)}
+     * @return the relevance of the result, higher is better
+     */
+    static double of(ResultsItem item, Set<String> focusTerms) {
+        BigDecimal score = item.getScore();
+        double scoreValue = score == null ? 0 : score.doubleValue();
+        if (focusTerms.isEmpty()) {
+            return scoreValue;
+        }
+        Set<String> itemTerms = terms(item.getTitle());
+        itemTerms.addAll(terms(item.getContent()));
+        long matched = focusTerms.stream().filter(itemTerms::contains).count();
+        return SCORE_WEIGHT * scoreValue + TERM_WEIGHT * matched / focusTerms.size();
+    }
+
+    /**
+     * Splits a text into its distinct, lower-cased terms of at least three characters.
+     *
+     * @param text the text, may be {@code null}
+     * @return the terms of the text, as a modifiable set
+     */
+    static Set<String> terms(String text) {
+        return new HashSet<>(words(text));
+    }
+
+    /**
+     * Splits a text into its lower-cased terms of at least three characters, in order and with repetitions.
+     *
+     * @param text the text, may be {@code null}
+     * @return the terms of the text
+     */
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> term.length() > 2)
+                .toList();
+    }
+}
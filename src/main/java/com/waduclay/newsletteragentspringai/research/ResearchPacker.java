@@ -0,0 +1,154 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Packs search results into a prompt without exceeding a token budget.
+ * <p>
+ * Results are ranked by their Tavily {@code score} and by how many terms of the focus (the topic or query) they
+ * mention. The ranked results are first included without their {@code raw_content}, most relevant first, for as
+ * long as they fit. The remaining budget is then spent on raw content in rank order, truncating the first one
+ * that no longer fits and removing it from the rest. Whatever was cut is stated at the end of the packed text,
+ * so the model knows the research is partial.
+ * <p>
+ * Results are copied before they are shortened; the input items are never modified.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class ResearchPacker {
+
+    private static final String RESULTS_SEPARATOR = "\n\n";
+    private static final String TRUNCATION_MARKER = " [truncated]";
+    private static final int SEPARATOR_TOKENS = TokenEstimator.estimate(RESULTS_SEPARATOR);
+    /**
+     * Estimated cost of the {@code "raw_content":"..."} field wrapper around the raw content itself.
+     */
+    private static final int RAW_CONTENT_FIELD_TOKENS = 8;
+
+    private final ObjectMapper objectMapper;
+    private final ResearchPackingProperties properties;
+
+    public ResearchPacker(ObjectMapper objectMapper, ResearchPackingProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Serializes the most relevant results that fit into the token budget.
+     *
+     * @param results     the search results
+     * @param focus       the topic or query the results are ranked against, may be {@code null}
+     * @param tokenBudget estimated number of tokens the packed research may use
+     * @return the packed research
+     */
+    public PackedResearch pack(List<ResultsItem> results, String focus, int tokenBudget) {
+        Set<String> focusTerms = Relevance.terms(focus);
+        List<ResultsItem> ranked = results.stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble((ResultsItem item) -> Relevance.of(item, focusTerms)).reversed())
+                .toList();
+
+        List<ResultsItem> originals = new ArrayList<>();
+        List<ResultsItem> included = new ArrayList<>();
+        int used = 0;
+        int dropped = 0;
+        for (ResultsItem item : ranked) {
+            ResultsItem withoutRawContent = copy(item, null);
+            int cost = TokenEstimator.estimate(serialize(withoutRawContent)) + SEPARATOR_TOKENS;
+            if (used + cost > tokenBudget) {
+                dropped++;
+                continue;
+            }
+            used += cost;
+            originals.add(item);
+            included.add(withoutRawContent);
+        }
+
+        int truncated = 0;
+        int rawContentRemoved = 0;
+        for (int i = 0; i < included.size(); i++) {
+            String rawContent = originals.get(i).getRawContent();
+            if (rawContent == null || rawContent.isEmpty()) {
+                continue;
+            }
+            int available = tokenBudget - used - RAW_CONTENT_FIELD_TOKENS;
+            int rawTokens = TokenEstimator.estimate(rawContent);
+            if (rawTokens <= available) {
+                included.set(i, copy(included.get(i), rawContent));
+                used += rawTokens + RAW_CONTENT_FIELD_TOKENS;
+            } else if (available >= properties.minRawContentTokens()) {
+                int chars = TokenEstimator.charsFor(rawContent, available - TokenEstimator.estimate(TRUNCATION_MARKER));
+                included.set(i, copy(included.get(i), rawContent.substring(0, chars) + TRUNCATION_MARKER));
+                used += available + RAW_CONTENT_FIELD_TOKENS;
+                truncated++;
+            } else {
+                rawContentRemoved++;
+            }
+        }
+
+        String serialized = included.stream()
+                .map(this::serialize)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(RESULTS_SEPARATOR));
+        PackedResearch packed = new PackedResearch(serialized, used, included.size(), dropped, truncated, rawContentRemoved);
+        if (packed.isCut()) {
+            String note = cutNote(packed, ranked.size(), tokenBudget);
+            serialized = serialized + RESULTS_SEPARATOR + note;
+            packed = new PackedResearch(serialized, used + TokenEstimator.estimate(note), included.size(),
+                    dropped, truncated, rawContentRemoved);
+            log.info("Packed research for '{}' into ~{} tokens: {}", focus, packed.estimatedTokens(), note);
+        }
+        return packed;
+    }
+
+    private static String cutNote(PackedResearch packed, int total, int tokenBudget) {
+        List<String> cuts = new ArrayList<>();
+        if (packed.dropped() > 0) {
+            cuts.add(packed.dropped() + " of " + total + " results were omitted");
+        }
+        if (packed.truncated() > 0) {
+            cuts.add(packed.truncated() + " raw_content fields were truncated (marked" + TRUNCATION_MARKER + ")");
+        }
+        if (packed.rawContentRemoved() > 0) {
+            cuts.add(packed.rawContentRemoved() + " raw_content fields were removed");
+        }
+        return "[Research note: to fit a budget of ~" + tokenBudget + " tokens, " + String.join(", ", cuts)
+                + ". Results are ordered by relevance.]";
+    }
+
+    /**
+     * Copies a result, replacing its raw content.
+     */
+    static ResultsItem copy(ResultsItem item, String rawContent) {
+        ResultsItem copy = new ResultsItem();
+        copy.setScore(item.getScore());
+        copy.setTitle(item.getTitle());
+        copy.setUrl(item.getUrl());
+        copy.setContent(item.getContent());
+        copy.setRawContent(rawContent);
+        return copy;
+    }
+
+    private String serialize(ResultsItem item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize result item: {}", item, e);
+            return null; // Skip problematic items rather than failing entire operation
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Token budgets for the research packed into agent prompts by {@link ResearchPacker}.
+ *
+ * @param planningBudget        estimated token budget for the research in the planning prompt
+ * @param writerBudget          estimated token budget for the research in each section writer prompt
+ * @param minRawContentTokens   smallest useful excerpt of a result's raw content; if less budget is left the raw
+ *                              content is removed rather than truncated
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "research.packing")
+public record ResearchPackingProperties(
+        @DefaultValue("6000") int planningBudget,
+        @DefaultValue("8000") int writerBudget,
+        @DefaultValue("200") int minRawContentTokens
+) {
+}
@@ -0,0 +1,275 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Removes duplicate sources across the research of all topics of a newsletter.
+ * <p>
+ * Planned topics overlap, so their searches often return the same URL or a mirrored copy of the same article.
+ * Results are grouped when their normalized URLs are equal or when their content fingerprints ({@link SimHash}
+ * over {@code content} and {@code raw_content}) are within {@link DeduplicationProperties#maxHammingDistance()}
+ * bits. Each group is then kept once, in the research of the topic it is most relevant to. A topic whose results
+ * were all claimed by other topics keeps its own best result, so every topic can still be written.
+ * <p>
+ * What was removed is published as {@code research.dedup.removed.results}, {@code research.dedup.removed.bytes}
+ * and {@code research.dedup.removed.tokens}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class ResultDeduplicator implements MeterBinder {
+
+    private static final Set<String> TRACKING_PARAMETERS = Set.of("fbclid", "gclid", "ref", "source", "sk");
+    private static final int FINGERPRINT_CHAR_LIMIT = 20_000;
+
+    private final DeduplicationProperties properties;
+    private final AtomicLong resultsRemoved = new AtomicLong();
+    private final AtomicLong bytesRemoved = new AtomicLong();
+    private final AtomicLong tokensRemoved = new AtomicLong();
+
+    public ResultDeduplicator(DeduplicationProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Deduplicates the research of a newsletter across its topics.
+     *
+     * @param topics           the planned topics
+     * @param resultsPerTopic  the search results of each topic, in the same order as {@code topics}
+     * @return the deduplicated results per topic, in the same order, and what was removed
+     */
+    public DeduplicationResult deduplicate(List<String> topics, List<List<ResultsItem>> resultsPerTopic) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int topic = 0; topic < topics.size(); topic++) {
+            Set<String> topicTerms = Relevance.terms(topics.get(topic));
+            for (ResultsItem item : resultsPerTopic.get(topic)) {
+                if (item != null) {
+                    candidates.add(new Candidate(topic, item, Relevance.of(item, topicTerms)));
+                }
+            }
+        }
+
+        int[] groups = group(candidates);
+        boolean[] kept = new boolean[candidates.size()];
+        for (int group : Arrays.stream(groups).distinct().toArray()) {
+            int best = -1;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (groups[i] == group && (best < 0 || candidates.get(i).relevance() > candidates.get(best).relevance())) {
+                    best = i;
+                }
+            }
+            kept[best] = true;
+        }
+        keepBestOfEmptyTopics(topics.size(), candidates, kept);
+
+        List<List<ResultsItem>> deduplicated = new ArrayList<>();
+        topics.forEach(topic -> deduplicated.add(new ArrayList<>()));
+        int removed = 0;
+        long bytes = 0;
+        long tokens = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (kept[i]) {
+                deduplicated.get(candidate.topic()).add(candidate.item());
+                continue;
+            }
+            removed++;
+            String text = text(candidate.item());
+            bytes += text.getBytes(StandardCharsets.UTF_8).length;
+            tokens += TokenEstimator.estimate(text);
+        }
+
+        resultsRemoved.addAndGet(removed);
+        bytesRemoved.addAndGet(bytes);
+        tokensRemoved.addAndGet(tokens);
+        log.info("Deduplicated research across {} topics: removed {} of {} results (~{} bytes, ~{} tokens)",
+                topics.size(), removed, candidates.size(), bytes, tokens);
+        return new DeduplicationResult(deduplicated, removed, bytes, tokens);
+    }
+
+    /**
+     * @return total number of results removed since startup
+     */
+    public long resultsRemoved() {
+        return resultsRemoved.get();
+    }
+
+    /**
+     * @return total UTF-8 bytes of content and raw content removed since startup
+     */
+    public long bytesRemoved() {
+        return bytesRemoved.get();
+    }
+
+    /**
+     * @return total estimated prompt tokens removed since startup
+     */
+    public long tokensRemoved() {
+        return tokensRemoved.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("research.dedup.removed.results", resultsRemoved, AtomicLong::get)
+                .description("Duplicate search results removed across topics")
+                .register(registry);
+        FunctionCounter.builder("research.dedup.removed.bytes", bytesRemoved, AtomicLong::get)
+                .baseUnit("bytes")
+                .description("Content of duplicate search results removed across topics")
+                .register(registry);
+        FunctionCounter.builder("research.dedup.removed.tokens", tokensRemoved, AtomicLong::get)
+                .baseUnit("tokens")
+                .description("Estimated prompt tokens saved by removing duplicate search results")
+                .register(registry);
+    }
+
+    /**
+     * Assigns each candidate to a group of duplicates using union-find over URL and fingerprint matches.
+     *
+     * @return the group (root candidate index) of every candidate
+     */
+    private int[] group(List<Candidate> candidates) {
+        int[] parents = new int[candidates.size()];
+        String[] urls = new String[candidates.size()];
+        long[] fingerprints = new long[candidates.size()];
+        boolean[] comparable = new boolean[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            parents[i] = i;
+            ResultsItem item = candidates.get(i).item();
+            urls[i] = normalizeUrl(item.getUrl());
+            String text = text(item);
+            List<String> words = Relevance.words(text.length() > FINGERPRINT_CHAR_LIMIT
+                    ? text.substring(0, FINGERPRINT_CHAR_LIMIT) : text);
+            comparable[i] = words.size() >= properties.minWords();
+            fingerprints[i] = comparable[i] ? SimHash.fingerprint(words) : 0;
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            for (int j = i + 1; j < candidates.size(); j++) {
+                boolean sameUrl = urls[i] != null && urls[i].equals(urls[j]);
+                boolean nearDuplicate = comparable[i] && comparable[j]
+                        && SimHash.distance(fingerprints[i], fingerprints[j]) <= properties.maxHammingDistance();
+                if (sameUrl || nearDuplicate) {
+                    parents[root(parents, j)] = root(parents, i);
+                }
+            }
+        }
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = root(parents, i);
+        }
+        return parents;
+    }
+
+    private static int root(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private static void keepBestOfEmptyTopics(int topicCount, List<Candidate> candidates, boolean[] kept) {
+        for (int topic = 0; topic < topicCount; topic++) {
+            boolean hasResults = false;
+            for (int i = 0; i < candidates.size(); i++) {
+                hasResults |= kept[i] && candidates.get(i).topic() == topic;
+            }
+            if (hasResults) {
+                continue;
+            }
+            int best = -1;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (candidates.get(i).topic() == topic
+                        && (best < 0 || candidates.get(i).relevance() > candidates.get(best).relevance())) {
+                    best = i;
+                }
+            }
+            if (best >= 0) {
+                kept[best] = true;
+            }
+        }
+    }
+
+    /**
+     * Normalizes a URL for exact duplicate detection: lower-cased host without {@code www.} or {@code m.},
+     * no fragment, no tracking parameters and no trailing slash.
+     */
+    static String normalizeUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        try {
+            URI uri = new URI(url.trim());
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            } else if (host.startsWith("m.")) {
+                host = host.substring(2);
+            }
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String query = uri.getRawQuery() == null ? "" : Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(parameter -> !isTrackingParameter(parameter))
+                    .sorted()
+                    .collect(Collectors.joining("&"));
+            return host + path + (query.isEmpty() ? "" : "?" + query);
+        } catch (URISyntaxException e) {
+            return url.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static boolean isTrackingParameter(String parameter) {
+        String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+        return name.startsWith("utm_") || TRACKING_PARAMETERS.contains(name);
+    }
+
+    private static String text(ResultsItem item) {
+        String content = item.getContent() == null ? "" : item.getContent();
+        return item.getRawContent() == null ? content : content + " " + item.getRawContent();
+    }
+
+    private record Candidate(int topic, ResultsItem item, double relevance) {
+    }
+
+    /**
+     * The research of each topic after deduplication.
+     *
+     * @param resultsPerTopic the remaining results of each topic, in topic order
+     * @param removed         number of results removed
+     * @param bytesRemoved    UTF-8 bytes of content and raw content removed
+     * @param tokensRemoved   estimated prompt tokens removed
+     */
+    public record DeduplicationResult(List<List<ResultsItem>> resultsPerTopic, int removed,
+                                      long bytesRemoved, long tokensRemoved) {
+        public DeduplicationResult {
+            resultsPerTopic = resultsPerTopic.stream().map(List::copyOf).toList();
+        }
+
+        /**
+         * @param topic index of the topic
+         * @return the remaining results of that topic
+         */
+        public List<ResultsItem> resultsFor(int topic) {
+            return resultsPerTopic.get(topic);
+        }
+    }
+}
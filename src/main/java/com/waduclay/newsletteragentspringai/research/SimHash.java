@@ -0,0 +1,65 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+import java.util.List;
+
+/**
+ * 64-bit SimHash content fingerprints over word trigrams.
+ * <p>
+ * Texts that share most of their wording produce fingerprints that differ in only a few bits, so mirrored or
+ * lightly edited copies of an article can be found by comparing the Hamming distance of their fingerprints.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+final class SimHash {
+
+    private static final int SHINGLE_SIZE = 3;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * Computes the fingerprint of a sequence of words.
+     *
+     * @param words the words of the text, see {@link Relevance#words(String)}
+     * @return the 64-bit fingerprint
+     */
+    static long fingerprint(List<String> words) {
+        int[] weights = new int[Long.SIZE];
+        int shingles = Math.max(1, words.size() - SHINGLE_SIZE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long hash = FNV_OFFSET_BASIS;
+            for (int i = start; i < Math.min(words.size(), start + SHINGLE_SIZE); i++) {
+                hash = fnv1a(hash, words.get(i));
+                hash = fnv1a(hash, " ");
+            }
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of bits in which the two fingerprints differ
+     */
+    static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private static long fnv1a(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,67 @@
+package com.waduclay.newsletteragentspringai.research;
+
+
+/**
+ * Fast, local approximation of the number of tokens a text will cost in a prompt.
+ * <p>
+ * Mirrors the behaviour of common BPE tokenizers closely enough for budgeting: short words are a single token,
+ * longer words are split roughly every four characters, every punctuation or symbol character is a token of its
+ * own and whitespace is folded into the following token. The estimate is computed in a single pass without
+ * allocating.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * Estimates the token count of a text.
+     *
+     * @param text the text, may be {@code null}
+     * @return the estimated number of tokens
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int tokens = 0;
+        int wordLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char current = text.charAt(i);
+            if (Character.isLetterOrDigit(current)) {
+                wordLength++;
+                continue;
+            }
+            tokens += wordTokens(wordLength);
+            wordLength = 0;
+            if (!Character.isWhitespace(current)) {
+                tokens++;
+            }
+        }
+        return tokens + wordTokens(wordLength);
+    }
+
+    /**
+     * Estimates how many characters of a text fit into the given number of tokens, based on the text's own
+     * characters-per-token ratio.
+     *
+     * @param text   the text to cut
+     * @param tokens the number of tokens available
+     * @return the number of leading characters of {@code text} that fit
+     */
+    public static int charsFor(CharSequence text, int tokens) {
+        int textTokens = estimate(text);
+        if (textTokens <= tokens) {
+            return text.length();
+        }
+        return (int) Math.max(0, (long) text.length() * tokens / textTokens);
+    }
+
+    private static int wordTokens(int wordLength) {
+        return wordLength == 0 ? 0 : 1 + (wordLength - 1) / CHARS_PER_TOKEN;
+    }
+}
@@ -0,0 +1,54 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the {@link TavilySearchCache}.
+ * <p>
+ * Entries expire according to the {@link TimeRange} of the search they belong to: a search limited to the past
+ * day goes stale much sooner than one spanning the past year.
+ *
+ * @param enabled     whether searches are served from the cache at all
+ * @param maxEntries  maximum number of responses held in the in-memory tier before the least recently used is evicted
+ * @param directory   directory of the on-disk tier, survives application restarts
+ * @param dayTtl      time to live of {@link TimeRange#day} searches
+ * @param weekTtl     time to live of {@link TimeRange#week} searches
+ * @param monthTtl    time to live of {@link TimeRange#month} searches
+ * @param yearTtl     time to live of {@link TimeRange#year} searches
+ * @param defaultTtl  time to live of searches without a time range
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "tavily.cache")
+public record TavilyCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("256") int maxEntries,
+        @DefaultValue(".cache/tavily") String directory,
+        @DefaultValue("1h") Duration dayTtl,
+        @DefaultValue("6h") Duration weekTtl,
+        @DefaultValue("1d") Duration monthTtl,
+        @DefaultValue("7d") Duration yearTtl,
+        @DefaultValue("6h") Duration defaultTtl
+) {
+
+    /**
+     * Resolves the time to live of a search with the given time range.
+     *
+     * @param timeRange the time range of the search, may be {@code null}
+     * @return how long the response of such a search stays fresh
+     */
+    public Duration ttlFor(TimeRange timeRange) {
+        if (timeRange == null) {
+            return defaultTtl;
+        }
+        return switch (timeRange) {
+            case day -> dayTtl;
+            case week -> weekTtl;
+            case month -> monthTtl;
+            case year -> yearTtl;
+        };
+    }
+}
@@ -2,13 +2,28 @@ package com.waduclay.newsletteragentspringai.tavily;
 
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
 
 /**
+ * @param apiKey         Tavily API key
+ * @param baseUrl        URL of the Tavily search endpoint
+ * @param maxConcurrency maximum number of searches sent to Tavily at the same time
+ * @param connectTimeout timeout for establishing a connection to Tavily
+ * @param readTimeout    timeout for reading a search response
+ * @param maxRawContentLength maximum number of characters of {@code raw_content} kept per search result;
+ *                       longer raw content is cut when the response is parsed, so the parsed response
+ *                       retains at most this much
  * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
  */
 @ConfigurationProperties(prefix = "tavily")
 public record TavilyProperties(
         String apiKey,
-        String baseUrl
+        String baseUrl,
+        @DefaultValue("4") int maxConcurrency,
+        @DefaultValue("10s") Duration connectTimeout,
+        @DefaultValue("60s") Duration readTimeout,
+        @DefaultValue("50000") int maxRawContentLength
 ) {
 }
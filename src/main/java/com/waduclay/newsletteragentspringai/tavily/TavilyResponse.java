@@ -8,4 +8,34 @@ import java.util.List;
 public class TavilyResponse {
     private String query;
     private List<ResultsItem> results;
+
+    /**
+     * @return total UTF-8 size of the {@code raw_content} of all results, computed without encoding it
+     */
+    public long rawContentBytes() {
+        if (results == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (ResultsItem item : results) {
+            if (item == null || item.getRawContent() == null) {
+                continue;
+            }
+            String text = item.getRawContent();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+        }
+        return bytes;
+    }
 }
@@ -0,0 +1,157 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of Tavily search responses.
+ * <p>
+ * Reads a {@link TavilyResponse} token by token straight from the response body, without first buffering the body
+ * into a {@link String}. {@code raw_content} fields, which can be megabytes long when raw content is requested, are
+ * cut to {@code maxRawContentLength} characters before they are stored, so only that prefix is retained by the
+ * response. Jackson still reads each value whole into its internal text buffer, so a single oversized value is
+ * held in memory while it is parsed, up to Jackson's maximum string length. Unknown fields are skipped.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class TavilyResponseParser {
+
+    private final JsonFactory jsonFactory;
+    private final int maxRawContentLength;
+
+    /**
+     * @param jsonFactory         factory creating the streaming parsers
+     * @param maxRawContentLength maximum number of characters of {@code raw_content} kept per result
+     */
+    public TavilyResponseParser(JsonFactory jsonFactory, int maxRawContentLength) {
+        this.jsonFactory = jsonFactory;
+        this.maxRawContentLength = maxRawContentLength;
+    }
+
+    /**
+     * Parses a Tavily search response.
+     *
+     * @param body the response body; not closed by this method
+     * @return the parsed response
+     * @throws IOException if the body cannot be read or is not a valid search response
+     */
+    public TavilyResponse parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a Tavily response object");
+            }
+            TavilyResponse response = new TavilyResponse();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "query" -> response.setQuery(parser.getValueAsString());
+                    case "results" -> response.setResults(parseResults(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    private List<ResultsItem> parseResults(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array of results");
+        }
+        List<ResultsItem> results = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            results.add(parseItem(parser));
+        }
+        return results;
+    }
+
+    private ResultsItem parseItem(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a result object");
+        }
+        ResultsItem item = new ResultsItem();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "score" -> item.setScore(value == JsonToken.VALUE_NULL ? null : parser.getDecimalValue());
+                case "raw_content" -> item.setRawContent(readCapped(parser));
+                case "title" -> item.setTitle(parser.getValueAsString());
+                case "url" -> item.setUrl(parser.getValueAsString());
+                case "content" -> item.setContent(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Copies the current string value into a writer that keeps only its prefix, without creating a {@link String}
+     * of the whole value.
+     */
+    private String readCapped(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        CappedWriter writer = new CappedWriter(maxRawContentLength);
+        parser.getText(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writer that keeps only the first {@code capacity} characters written to it and discards the rest.
+     */
+    private static final class CappedWriter extends Writer {
+        private final StringBuilder retained;
+        private final int capacity;
+
+        private CappedWriter(int capacity) {
+            this.capacity = capacity;
+            this.retained = new StringBuilder(Math.min(capacity, 8192));
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            int remaining = capacity - retained.length();
+            if (remaining > 0) {
+                retained.append(buffer, offset, Math.min(length, remaining));
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            int remaining = capacity - retained.length();
+            if (remaining > 0) {
+                retained.append(text, offset, offset + Math.min(length, remaining));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return retained.toString();
+        }
+    }
+}
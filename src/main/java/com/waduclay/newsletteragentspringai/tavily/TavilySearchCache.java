@@ -0,0 +1,328 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two tier, TTL aware cache of Tavily search responses.
+ * <p>
+ * Responses are keyed on the canonical JSON of the {@link TavilySearch} parameters that influence the result set,
+ * so two searches that only differ in field or domain ordering share an entry. The in-memory tier is bounded by
+ * {@link TavilyCacheProperties#maxEntries()} and evicts the least recently used entry; the on-disk tier keeps one
+ * JSON file per entry so responses survive restarts. Entries expire after {@link TavilyCacheProperties#ttlFor(TimeRange)}.
+ * Expired and unreadable files, and temporary files of interrupted writes, are removed from disk at startup, so
+ * entries that are never looked up again do not pile up across restarts.
+ *
+ * <p>Cached responses are shared between callers and must be treated as read-only. Lookups are published as
+ * {@code tavily.cache.requests}, tagged with {@code result} {@code memory_hit}, {@code disk_hit} or {@code miss}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class TavilySearchCache implements MeterBinder {
+
+    private final TavilyCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Map<String, CacheEntry> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+
+    public TavilySearchCache(TavilyCacheProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(properties.directory());
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+        if (properties.enabled()) {
+            sweep();
+        }
+    }
+
+    /**
+     * Looks up a fresh response for the given search, first in memory and then on disk.
+     *
+     * @param search the search to look up
+     * @return the cached response, or empty if there is none or it has expired
+     */
+    public Optional<TavilyResponse> get(TavilySearch search) {
+        if (!properties.enabled()) {
+            return Optional.empty();
+        }
+        String key = canonicalKey(search);
+        Instant now = Instant.now();
+
+        CacheEntry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && entry.isExpired(now)) {
+                memory.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            log.info("Tavily cache hit (memory) for query: {}", search.getQuery());
+            return Optional.of(entry.response());
+        }
+
+        entry = readFromDisk(key, now);
+        if (entry != null) {
+            synchronized (memory) {
+                memory.put(key, entry);
+            }
+            diskHits.incrementAndGet();
+            log.info("Tavily cache hit (disk) for query: {}", search.getQuery());
+            return Optional.of(entry.response());
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a freshly fetched response in both tiers.
+     *
+     * @param search       the search the response belongs to
+     * @param response     the response returned by Tavily
+     * @param fetchLatency how long the upstream call took, used to estimate the latency saved by later hits
+     */
+    public void put(TavilySearch search, TavilyResponse response, Duration fetchLatency) {
+        fetches.incrementAndGet();
+        fetchNanos.addAndGet(fetchLatency.toNanos());
+        if (!properties.enabled() || response == null) {
+            return;
+        }
+        String key = canonicalKey(search);
+        CacheEntry entry = new CacheEntry(key, Instant.now().plus(properties.ttlFor(search.getTimeRange())), response);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeToDisk(entry);
+    }
+
+    /**
+     * Drops every entry from both tiers.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (var files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Failed to clear Tavily cache directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the hit/miss counters.
+     *
+     * @return the current cache statistics
+     */
+    public Stats stats() {
+        long fetchCount = fetches.get();
+        Duration averageFetch = fetchCount == 0 ? Duration.ZERO : Duration.ofNanos(fetchNanos.get() / fetchCount);
+        long hits = memoryHits.get() + diskHits.get();
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(), averageFetch, averageFetch.multipliedBy(hits));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "memory_hit", memoryHits);
+        bind(registry, "disk_hit", diskHits);
+        bind(registry, "miss", misses);
+    }
+
+    private static void bind(MeterRegistry registry, String result, AtomicLong counter) {
+        FunctionCounter.builder("tavily.cache.requests", counter, AtomicLong::get)
+                .tag("result", result)
+                .description("Tavily searches by cache outcome")
+                .register(registry);
+    }
+
+    /**
+     * Builds the canonical cache key of a search: the JSON of its result-shaping parameters with keys and
+     * domains sorted, so equivalent searches map to the same entry.
+     */
+    String canonicalKey(TavilySearch search) {
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("query", search.getQuery() == null ? null : search.getQuery().trim());
+        canonical.put("time_range", search.getTimeRange());
+        canonical.put("topic", search.getTopic());
+        canonical.put("max_results", search.getMaxResults());
+        canonical.put("include_raw_content", search.getIncludeRawContent());
+        canonical.put("include_domains", search.getIncludeDomains() == null ? null
+                : search.getIncludeDomains().stream().sorted().toList());
+        try {
+            return objectMapper.writeValueAsString(canonical);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to build cache key for query: " + search.getQuery(), e);
+        }
+    }
+
+    private CacheEntry readFromDisk(String key, Instant now) {
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            CacheEntry entry = objectMapper.readValue(file.toFile(), CacheEntry.class);
+            if (!key.equals(entry.key())) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                deleteQuietly(file);
+                return null;
+            }
+            return entry;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable Tavily cache entry: {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the expired and unreadable entries and the leftover temporary files of the on-disk tier. Only the
+     * expiry of each entry is parsed, the cached response is skipped.
+     */
+    private void sweep() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant now = Instant.now();
+        int removed = 0;
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp") || name.endsWith(".json") && isStale(file, now)) {
+                    deleteQuietly(file);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep Tavily cache directory: {}", directory, e);
+        }
+        if (removed > 0) {
+            log.info("Removed {} stale Tavily cache files from {}", removed, directory);
+        }
+    }
+
+    private boolean isStale(Path file, Instant now) {
+        try {
+            Expiry expiry = objectMapper.readValue(file.toFile(), Expiry.class);
+            return expiry.expiresAt() == null || !now.isBefore(expiry.expiresAt());
+        } catch (IOException e) {
+            log.debug("Unreadable Tavily cache entry: {}", file, e);
+            return true;
+        }
+    }
+
+    private void writeToDisk(CacheEntry entry) {
+        Path file = fileFor(entry.key());
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            objectMapper.writeValue(temp.toFile(), entry);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist Tavily cache entry: {}", file, e);
+        }
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete Tavily cache entry: {}", file, e);
+        }
+    }
+
+    /**
+     * A cached response together with the canonical key it was stored under and its expiry.
+     *
+     * @param key       canonical key of the search, guards against file name collisions
+     * @param expiresAt instant after which the entry is stale
+     * @param response  the cached response
+     */
+    record CacheEntry(String key, Instant expiresAt, TavilyResponse response) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    /**
+     * The expiry of a stored {@link CacheEntry}, read without binding its response.
+     *
+     * @param expiresAt instant after which the entry is stale
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Expiry(Instant expiresAt) {
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     *
+     * @param memoryHits          lookups served by the in-memory tier
+     * @param diskHits            lookups served by the on-disk tier
+     * @param misses              lookups that had to go to Tavily
+     * @param averageFetchLatency average latency of an upstream Tavily call
+     * @param estimatedTimeSaved  upstream latency avoided by cache hits, based on the average fetch latency
+     */
+    public record Stats(long memoryHits, long diskHits, long misses,
+                        Duration averageFetchLatency, Duration estimatedTimeSaved) {
+
+        /**
+         * @return number of upstream API calls the cache avoided
+         */
+        public long hits() {
+            return memoryHits + diskHits;
+        }
+    }
+}
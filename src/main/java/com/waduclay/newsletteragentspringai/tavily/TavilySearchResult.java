@@ -0,0 +1,34 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+
+/**
+ * Outcome of a single search of a {@link TavilyService#searchAll(java.util.List)} batch.
+ * <p>
+ * Exactly one of {@code response} and {@code error} is set, so one failed search does not affect the others.
+ *
+ * @param request  the search that was requested
+ * @param response the search response, or {@code null} if the search failed
+ * @param error    the failure, or {@code null} if the search succeeded
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public record TavilySearchResult(
+        TavilySearch request,
+        TavilyResponse response,
+        Throwable error
+) {
+
+    public static TavilySearchResult success(TavilySearch request, TavilyResponse response) {
+        return new TavilySearchResult(request, response, null);
+    }
+
+    public static TavilySearchResult failure(TavilySearch request, Throwable error) {
+        return new TavilySearchResult(request, null, error);
+    }
+
+    /**
+     * @return whether the search succeeded
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -3,9 +3,54 @@ package com.waduclay.newsletteragentspringai.tavily;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.upstream.LimitingExchangeFilter;
+import com.waduclay.newsletteragentspringai.upstream.LimitingRequestInterceptor;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimiters;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for interacting with the Tavily web search API.
@@ -18,9 +63,17 @@ import org.springframework.web.client.RestClient;
  * <ul>
  *   <li>RESTful API integration with Tavily search service</li>
  *   <li>Bearer token authentication for secure access</li>
- *   <li>JSON request/response processing with comprehensive logging</li>
+ *   <li>Responses parsed as a stream via {@link TavilyResponseParser}, capping {@code raw_content} while reading</li>
  *   <li>Configurable search parameters via {@link TavilySearch}</li>
  *   <li>Structured response mapping to {@link TavilyResponse}</li>
+ *   <li>Responses cached per search in memory and on disk via {@link TavilySearchCache}</li>
+ *   <li>Identical concurrent searches coalesced into a single upstream request</li>
+ *   <li>Batched searches via {@link #searchAll(List)} over a shared, bounded pool of connections</li>
+ *   <li>Non-blocking searches via {@link #searchReactive(TavilySearch)} over the same HTTP client</li>
+ *   <li>Rate and adaptive concurrency limiting, with retries of throttled searches, via
+ *   {@link UpstreamLimiters#tavily()}</li>
+ *   <li>Metrics of every upstream search: {@code tavily.search} latency tagged with {@code outcome}, and the
+ *   {@code tavily.results} and {@code tavily.raw.content.bytes} of each response</li>
  * </ul>
  * 
  * <p><strong>Configuration:</strong>
@@ -39,9 +92,27 @@ import org.springframework.web.client.RestClient;
  */
 @Slf4j
 @Service
-public class TavilyService {
+public class TavilyService implements DisposableBean {
+    /**
+     * Maximum number of bytes of an error response body kept for the raised exception.
+     */
+    private static final int ERROR_BODY_LIMIT = 4096;
+    /**
+     * Number of response body buffers requested ahead of the parser on the non-blocking path.
+     */
+    private static final int BODY_PREFETCH = 4;
+
     private final ObjectMapper objectMapper;
     private final RestClient restClient;
+    private final WebClient webClient;
+    private final Duration readTimeout;
+    private final TavilyResponseParser responseParser;
+    private final TavilySearchCache searchCache;
+    private final ExecutorService executor;
+    private final Map<String, InFlightSearch> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary resultCounts;
+    private final DistributionSummary rawContentBytes;
 
     /**
      * Constructs a new TavilyService with the required dependencies.
@@ -49,16 +120,47 @@ public class TavilyService {
      * Initializes the REST client with Tavily API configuration including base URL and
      * Bearer token authentication. All configuration is provided via {@link TavilyProperties}
      * which should be configured through application properties and environment variables.
+     * Searches run on a pool of {@link TavilyProperties#maxConcurrency()} threads sharing one
+     * HTTP client, so connections to Tavily are reused across searches.
      *
      * @param tavilyProperties configuration properties containing API base URL and key
-     * @param objectMapper JSON object mapper for request/response serialization
+     * @param objectMapper JSON object mapper for request serialization; its factory parses responses
+     * @param searchCache cache consulted before and populated after every upstream search
+     * @param upstreamLimiters limiters whose Tavily limiter every upstream search goes through
+     * @param meterRegistry registry the latency and size of upstream searches are published to
      */
-    public TavilyService(TavilyProperties tavilyProperties, ObjectMapper objectMapper) {
+    public TavilyService(TavilyProperties tavilyProperties, ObjectMapper objectMapper, TavilySearchCache searchCache,
+                         UpstreamLimiters upstreamLimiters, MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.resultCounts = DistributionSummary.builder("tavily.results")
+                .description("Results returned by an upstream Tavily search")
+                .register(meterRegistry);
+        this.rawContentBytes = DistributionSummary.builder("tavily.raw.content.bytes")
+                .baseUnit("bytes")
+                .description("UTF-8 size of the raw content returned by an upstream Tavily search")
+                .register(meterRegistry);
+        this.searchCache = searchCache;
+        this.responseParser = new TavilyResponseParser(objectMapper.getFactory(), tavilyProperties.maxRawContentLength());
+        this.executor = Executors.newFixedThreadPool(tavilyProperties.maxConcurrency(), new SearchThreadFactory());
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(tavilyProperties.connectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(tavilyProperties.readTimeout());
         this.restClient = RestClient.builder()
                 .baseUrl(tavilyProperties.baseUrl())
+                .requestFactory(requestFactory)
+                .requestInterceptor(new LimitingRequestInterceptor(upstreamLimiters.tavily()))
+                .defaultHeader("Authorization", "Bearer " + tavilyProperties.apiKey())
+                .build();
+        this.webClient = WebClient.builder()
+                .baseUrl(tavilyProperties.baseUrl())
+                .clientConnector(new JdkClientHttpConnector(httpClient))
+                .filter(new LimitingExchangeFilter(upstreamLimiters.tavily()))
                 .defaultHeader("Authorization", "Bearer " + tavilyProperties.apiKey())
                 .build();
+        this.readTimeout = tavilyProperties.readTimeout();
     }
 
     /**
@@ -66,29 +168,469 @@ public class TavilyService {
      * <p>
      * This method sends a search request to the Tavily API and returns structured search results.
      * The method includes comprehensive logging for both requests and responses to aid in
-     * debugging and monitoring API interactions.
+     * debugging and monitoring API interactions. If an identical search is already in flight,
+     * its result is shared instead of sending a second request.
      * 
      * <p><strong>Process:</strong>
      * <ol>
+     *   <li>Returns a fresh cached response if {@link TavilySearchCache} holds one</li>
+     *   <li>Joins an identical search that is already in flight, if any</li>
      *   <li>Serializes the search request to JSON for logging</li>
      *   <li>Sends POST request to Tavily API with search parameters</li>
-     *   <li>Logs the raw response for debugging purposes</li>
-     *   <li>Deserializes response to {@link TavilyResponse} object</li>
+     *   <li>Parses the response body as it is read, keeping at most
+     *   {@link TavilyProperties#maxRawContentLength()} characters of each {@code raw_content}</li>
+     *   <li>Logs a summary of the response for debugging purposes and caches it</li>
      * </ol>
      *
      * @param request the search request containing query parameters and configuration
      * @return structured search response containing results and metadata
      * @throws JsonProcessingException if JSON serialization/deserialization fails
+     * @throws RestClientResponseException if Tavily responds with an error status
      */
     public TavilyResponse search(TavilySearch request) throws JsonProcessingException {
+        try {
+            return searchAsync(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Performs a web search as {@link #search(TavilySearch)}, giving up on it once {@code timeout} has passed.
+     * <p>
+     * A search that times out is cancelled for this caller; its upstream request is abandoned once no other
+     * caller is waiting for it.
+     *
+     * @param request the search request containing query parameters and configuration
+     * @param timeout time to wait for the response
+     * @return structured search response containing results and metadata
+     * @throws JsonProcessingException if JSON serialization/deserialization fails
+     * @throws TimeoutException if the search did not complete within {@code timeout}
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     * @throws RestClientResponseException if Tavily responds with an error status
+     */
+    public TavilyResponse search(TavilySearch request, Duration timeout)
+            throws JsonProcessingException, TimeoutException, InterruptedException {
+        CompletableFuture<TavilyResponse> response = searchAsync(request);
+        try {
+            return response.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            response.cancel(false);
+            log.warn("Gave up on Tavily search for query: {}", request.getQuery());
+            throw e;
+        }
+    }
+
+    /**
+     * Performs a batch of web searches concurrently.
+     * <p>
+     * Identical searches, within the batch or already in flight from other callers, are coalesced into a
+     * single upstream request. The remaining searches run over the shared, bounded search pool. A failing
+     * search is reported in its own result and does not affect the others.
+     *
+     * @param requests the searches to perform
+     * @return one result per request, in the same order as {@code requests}
+     */
+    public List<TavilySearchResult> searchAll(List<TavilySearch> requests) {
+        List<CompletableFuture<TavilyResponse>> responses = requests.stream()
+                .map(this::searchAsync)
+                .toList();
+        List<TavilySearchResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TavilySearch request = requests.get(i);
+            try {
+                results.add(TavilySearchResult.success(request, responses.get(i).join()));
+            } catch (CompletionException e) {
+                log.warn("Tavily search failed for query: {}", request.getQuery(), e.getCause());
+                results.add(TavilySearchResult.failure(request, e.getCause()));
+            } catch (CancellationException e) {
+                results.add(TavilySearchResult.failure(request, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Performs a batch of web searches concurrently, giving up on the searches that have not completed within
+     * {@code timeout}.
+     * <p>
+     * Behaves as {@link #searchAll(List)}, except that a search still running when the timeout passes is cancelled
+     * for this caller and reported as a failure with a {@link TimeoutException}.
+     *
+     * @param requests the searches to perform
+     * @param timeout  time to wait for the whole batch
+     * @return one result per request, in the same order as {@code requests}
+     */
+    public List<TavilySearchResult> searchAll(List<TavilySearch> requests, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<CompletableFuture<TavilyResponse>> responses = requests.stream()
+                .map(this::searchAsync)
+                .toList();
+        List<TavilySearchResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(await(requests.get(i), responses.get(i), deadline - System.nanoTime()));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for a pending search started by {@link #searchAsync(TavilySearch)} for at most {@code timeout}.
+     *
+     * @param request  the search
+     * @param response the pending response; cancelled if it does not complete in time
+     * @param timeout  time to wait
+     * @return the result of the search, a failure with a {@link TimeoutException} if it did not complete in time
+     */
+    public TavilySearchResult await(TavilySearch request, CompletableFuture<TavilyResponse> response,
+                                    Duration timeout) {
+        return await(request, response, timeout.toNanos());
+    }
+
+    private TavilySearchResult await(TavilySearch request, CompletableFuture<TavilyResponse> response,
+                                     long timeoutNanos) {
+        try {
+            return TavilySearchResult.success(request, response.get(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            log.warn("Tavily search failed for query: {}", request.getQuery(), e.getCause());
+            return TavilySearchResult.failure(request, e.getCause());
+        } catch (TimeoutException e) {
+            response.cancel(false);
+            log.warn("Tavily search timed out for query: {}", request.getQuery());
+            return TavilySearchResult.failure(request, e);
+        } catch (CancellationException e) {
+            return TavilySearchResult.failure(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(false);
+            return TavilySearchResult.failure(request, e);
+        }
+    }
+
+    /**
+     * Starts a search on the search pool, or joins an identical search that is already in flight, without waiting
+     * for it, for example to research a topic while the rest of the plan is still being generated.
+     *
+     * @param request the search to perform
+     * @return the pending response; each caller gets its own future, so cancelling it does not affect others, and
+     * the upstream request is interrupted once every caller cancelled
+     */
+    public CompletableFuture<TavilyResponse> searchAsync(TavilySearch request) {
+        Optional<TavilyResponse> cached = searchCache.get(request);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        Caller caller = join(request);
+        if (caller.leader()) {
+            InFlightSearch search = caller.search();
+            try {
+                Future<?> task = executor.submit(TenantContext.wrap(() -> {
+                    try {
+                        search.complete(fetch(request));
+                    } catch (Exception e) {
+                        search.fail(e);
+                    } finally {
+                        inFlight.remove(caller.key(), search);
+                    }
+                }));
+                search.started(() -> task.cancel(true));
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(caller.key(), search);
+                search.fail(e);
+            }
+        }
+        return caller.response();
+    }
+
+    /**
+     * Performs a web search without blocking a thread while the search is in flight.
+     * <p>
+     * The search goes through the same cache, in-flight coalescing, upstream limiter and metrics as
+     * {@link #search(TavilySearch)}, but is sent over a {@link WebClient} sharing the JDK HTTP client, so it
+     * does not hold a thread of the search pool. The response body is parsed as it arrives, on the bounded elastic
+     * scheduler, with {@code raw_content} cut as on the blocking path. The cache is consulted and
+     * populated on the same scheduler, since it may read and write files. Each subscription performs or joins the
+     * search; the upstream request is cancelled only once every caller that joined it has cancelled.
+     *
+     * @param request the search to perform
+     * @return the search response
+     */
+    public Mono<TavilyResponse> searchReactive(TavilySearch request) {
+        return Mono.fromCallable(() -> searchCache.get(request))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached.map(Mono::just).orElseGet(() -> Mono.deferContextual(context -> {
+                    Caller caller = join(request);
+                    if (caller.leader()) {
+                        caller.search().start(exchange(request)
+                                .doFinally(signal -> inFlight.remove(caller.key(), caller.search()))
+                                .contextWrite(context));
+                    }
+                    return Mono.fromFuture(caller.response());
+                })));
+    }
+
+    /**
+     * Joins the identical search in flight, or registers a new one that the caller has to start.
+     */
+    private Caller join(TavilySearch request) {
+        String key = searchCache.canonicalKey(request);
+        while (true) {
+            InFlightSearch search = new InFlightSearch();
+            InFlightSearch existing = inFlight.putIfAbsent(key, search);
+            if (existing == null) {
+                return new Caller(key, search, search.join(), true);
+            }
+            CompletableFuture<TavilyResponse> response = existing.join();
+            if (response != null) {
+                log.info("Coalescing Tavily search with identical in-flight request: {}", request.getQuery());
+                return new Caller(key, existing, response, false);
+            }
+            // every caller of the existing search gave up and it is being cancelled
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /**
+     * @return number of callers waiting for the identical search in flight, or 0 if none is in flight
+     */
+    int inFlightCallers(TavilySearch request) {
+        InFlightSearch search = inFlight.get(searchCache.canonicalKey(request));
+        return search == null ? 0 : search.callers();
+    }
+
+    private Mono<TavilyResponse> exchange(TavilySearch request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            log.info("Tavily Request: {}", request.getQuery());
+            return webClient.post()
+                    .bodyValue(request)
+                    .exchangeToMono(response -> response.statusCode().isError()
+                            ? response.createException().flatMap(Mono::<TavilyResponse>error)
+                            : Mono.using(
+                                    () -> DataBufferUtils.subscriberInputStream(
+                                            response.body(BodyExtractors.toDataBuffers()), BODY_PREFETCH),
+                                    body -> Mono.fromCallable(() -> responseParser.parse(body))
+                                            .subscribeOn(Schedulers.boundedElastic()),
+                                    TavilyService::closeQuietly))
+                    .timeout(readTimeout)
+                    .doOnEach(signal -> {
+                        if (signal.isOnNext() || signal.isOnError()) {
+                            sample.stop(Timer.builder("tavily.search")
+                                    .tag("outcome", signal.isOnNext() ? "success" : "error")
+                                    .description("Latency of upstream Tavily searches")
+                                    .register(meterRegistry));
+                        }
+                    })
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(response -> {
+                        recordSize(response);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Tavily Response for '{}': {}", request.getQuery(), summarize(response));
+                        }
+                        searchCache.put(request, response, Duration.ofNanos(System.nanoTime() - start));
+                    });
+        });
+    }
+
+    /**
+     * Closes a response body, which also cancels reading it and wakes a parser blocked on it.
+     */
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("Failed to close a Tavily response body", e);
+        }
+    }
+
+    private TavilyResponse fetch(TavilySearch request) throws JsonProcessingException {
+        long start = System.nanoTime();
         String cleanedUpRequest = objectMapper.writeValueAsString(request);
         log.info("Tavily Request: {}", cleanedUpRequest);
 
-        String body = restClient.post()
-                .body(request)
-                .retrieve()
-                .body(String.class);
-        log.debug("Tavily Response: {}", objectMapper.writeValueAsString(body));
-        return objectMapper.readValue(body, TavilyResponse.class);
+        TavilyResponse response;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            response = restClient.post()
+                    .body(request)
+                    .exchange((httpRequest, httpResponse) -> {
+                        if (httpResponse.getStatusCode().isError()) {
+                            throw errorFor(httpResponse);
+                        }
+                        try (InputStream body = httpResponse.getBody()) {
+                            return responseParser.parse(body);
+                        }
+                    });
+            outcome = "success";
+        } catch (ResourceAccessException e) {
+            if (e.getCause() instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("tavily.search")
+                    .tag("outcome", outcome)
+                    .description("Latency of upstream Tavily searches")
+                    .register(meterRegistry));
+        }
+        recordSize(response);
+        if (log.isDebugEnabled()) {
+            log.debug("Tavily Response for '{}': {}", request.getQuery(), summarize(response));
+        }
+        searchCache.put(request, response, Duration.ofNanos(System.nanoTime() - start));
+        return response;
+    }
+
+    /**
+     * Builds the exception {@code retrieve()} would have raised for an error response, keeping at most
+     * {@value #ERROR_BODY_LIMIT} bytes of its body.
+     */
+    private static RestClientResponseException errorFor(ClientHttpResponse response) throws IOException {
+        HttpStatusCode status = response.getStatusCode();
+        byte[] body;
+        try (InputStream stream = response.getBody()) {
+            body = stream.readNBytes(ERROR_BODY_LIMIT);
+        }
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, response.getStatusText(), response.getHeaders(), body,
+                    StandardCharsets.UTF_8);
+        }
+        return HttpServerErrorException.create(status, response.getStatusText(), response.getHeaders(), body,
+                StandardCharsets.UTF_8);
+    }
+
+    private void recordSize(TavilyResponse response) {
+        resultCounts.record(response.getResults() == null ? 0 : response.getResults().size());
+        rawContentBytes.record(response.rawContentBytes());
+    }
+
+    private static String summarize(TavilyResponse response) {
+        List<ResultsItem> results = response.getResults() == null ? List.of() : response.getResults();
+        long rawContentChars = results.stream()
+                .filter(item -> item != null && item.getRawContent() != null)
+                .mapToLong(item -> item.getRawContent().length())
+                .sum();
+        return results.size() + " results, " + rawContentChars + " chars of raw content";
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A search in flight, shared by every caller of an identical search.
+     * <p>
+     * Each caller gets its own copy of the response, so a caller cancelling its copy does not fail the others.
+     * A search started by {@link #start} or registered with {@link #started} is cancelled upstream once every
+     * caller has cancelled; after that it can no longer be joined. When every caller cancels before the upstream
+     * request is registered, the search is abandoned at once and the request is cancelled as soon as it is.
+     */
+    private static final class InFlightSearch {
+        private final CompletableFuture<TavilyResponse> response = new CompletableFuture<>();
+        private int callers;
+        private boolean abandoned;
+        private Disposable upstream;
+
+        /**
+         * @return the response for a new caller, or {@code null} if every earlier caller gave up on the search
+         */
+        synchronized CompletableFuture<TavilyResponse> join() {
+            if (abandoned) {
+                return null;
+            }
+            callers++;
+            CompletableFuture<TavilyResponse> copy = response.copy();
+            copy.whenComplete((result, error) -> {
+                if (copy.isCancelled()) {
+                    leave();
+                }
+            });
+            return copy;
+        }
+
+        synchronized int callers() {
+            return callers;
+        }
+
+        synchronized void start(Mono<TavilyResponse> search) {
+            started(search.subscribe(this::complete, this::fail));
+        }
+
+        /**
+         * @param upstream cancels the upstream request of a search started on the search pool; disposed at once if
+         *                 every caller already gave up on the search
+         */
+        void started(Disposable upstream) {
+            synchronized (this) {
+                if (!abandoned) {
+                    this.upstream = upstream;
+                    return;
+                }
+            }
+            upstream.dispose();
+        }
+
+        void complete(TavilyResponse result) {
+            response.complete(result);
+        }
+
+        void fail(Throwable error) {
+            response.completeExceptionally(error);
+        }
+
+        private void leave() {
+            Disposable cancelled;
+            synchronized (this) {
+                if (--callers > 0 || response.isDone()) {
+                    return;
+                }
+                abandoned = true;
+                cancelled = upstream;
+            }
+            if (cancelled != null) {
+                cancelled.dispose();
+            }
+            response.cancel(false);
+        }
+    }
+
+    /**
+     * A caller of a search in flight.
+     *
+     * @param key      canonical key of the search
+     * @param search   the shared search
+     * @param response the caller's own copy of the response
+     * @param leader   whether the caller registered the search and has to start it
+     */
+    private record Caller(String key, InFlightSearch search, CompletableFuture<TavilyResponse> response,
+                          boolean leader) {
+    }
+
+    private static final class SearchThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "tavily-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
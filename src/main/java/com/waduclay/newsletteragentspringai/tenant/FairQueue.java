@@ -0,0 +1,75 @@
+package com.waduclay.newsletteragentspringai.tenant;
+
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Queue serving its tenants round-robin: one element of the tenant at the front is taken, then that tenant moves
+ * to the back. Elements of the same tenant stay in FIFO order, and a tenant with many queued elements cannot
+ * delay the others by more than one element each.
+ * <p>
+ * Not thread-safe; callers guard it with their own lock.
+ *
+ * @param <T> type of the queued elements
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class FairQueue<T> {
+
+    private final LinkedHashMap<String, Deque<T>> queues = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * @param tenant  the tenant the element belongs to
+     * @param element the element to enqueue
+     */
+    public void add(String tenant, T element) {
+        queues.computeIfAbsent(tenant, key -> new ArrayDeque<>()).add(element);
+        size++;
+    }
+
+    /**
+     * @return the element that {@link #poll()} would return, or {@code null} if the queue is empty
+     */
+    public T peek() {
+        Iterator<Deque<T>> tenants = queues.values().iterator();
+        return tenants.hasNext() ? tenants.next().peek() : null;
+    }
+
+    /**
+     * Removes the next element of the tenant at the front and moves that tenant to the back.
+     *
+     * @return the removed element, or {@code null} if the queue is empty
+     */
+    public T poll() {
+        Iterator<Map.Entry<String, Deque<T>>> tenants = queues.entrySet().iterator();
+        if (!tenants.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Deque<T>> first = tenants.next();
+        T element = first.getValue().poll();
+        tenants.remove();
+        if (!first.getValue().isEmpty()) {
+            queues.put(first.getKey(), first.getValue());
+        }
+        size--;
+        return element;
+    }
+
+    /**
+     * @return number of queued elements across all tenants
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether no element is queued
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.waduclay.newsletteragentspringai.tenant;
+
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Counting semaphore handing out released permits to waiting tenants round-robin through a {@link FairQueue}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class FairSemaphore {
+
+    private final FairQueue<CompletableFuture<Void>> waiters = new FairQueue<>();
+    private int available;
+
+    /**
+     * @param permits number of permits
+     */
+    public FairSemaphore(int permits) {
+        this.available = permits;
+    }
+
+    /**
+     * Requests a permit on behalf of a tenant without blocking.
+     * <p>
+     * Cancelling the returned future gives up the place in the queue; if it cannot be cancelled because the
+     * permit was already granted, the permit must be released.
+     *
+     * @param tenant the tenant
+     * @return a future completed once the permit is granted
+     */
+    public CompletableFuture<Void> acquireAsync(String tenant) {
+        synchronized (this) {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(tenant, waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Returns a permit, handing it to the next waiting tenant if there is one.
+     */
+    public void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return number of requests waiting for a permit, including ones that gave up but were not yet skipped
+     */
+    public synchronized int queued() {
+        return waiters.size();
+    }
+}
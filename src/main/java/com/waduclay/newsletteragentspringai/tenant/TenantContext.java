@@ -0,0 +1,107 @@
+package com.waduclay.newsletteragentspringai.tenant;
+
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Tracks which newsletter (tenant) the current work is done for, so shared resource pools can schedule
+ * tenants fairly.
+ * <p>
+ * The tenant is held in a thread local. Work handed to another thread must be wrapped with {@link #wrap(Runnable)}
+ * or {@link #wrap(Supplier)} to carry it over. Reactive pipelines carry it in their context under
+ * {@link #REACTOR_KEY}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class TenantContext {
+
+    /**
+     * Tenant of work not started on behalf of any newsletter.
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    /**
+     * Key of the tenant in a Reactor context.
+     */
+    public static final String REACTOR_KEY = TenantContext.class.getName();
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * @return the tenant of the current thread, or {@link #DEFAULT_TENANT}
+     */
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    /**
+     * Runs work on behalf of a tenant on the current thread.
+     *
+     * @param tenant   the tenant
+     * @param callable the work
+     * @param <T>      type of the result
+     * @return the result of the work
+     * @throws Exception if the work fails
+     */
+    public static <T> T callAs(String tenant, Callable<T> callable) throws Exception {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return callable.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wraps work so it runs on behalf of the current tenant on whichever thread executes it.
+     *
+     * @param runnable the work
+     * @return the wrapped work
+     */
+    public static Runnable wrap(Runnable runnable) {
+        String tenant = current();
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(tenant);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps work so it runs on behalf of the current tenant on whichever thread executes it.
+     *
+     * @param supplier the work
+     * @param <T>      type of the result
+     * @return the wrapped work
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        String tenant = current();
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(tenant);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
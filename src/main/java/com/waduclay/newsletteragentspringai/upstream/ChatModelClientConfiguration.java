@@ -0,0 +1,79 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.chat.observation.ChatModelObservationConvention;
+import org.springframework.ai.model.SimpleApiKey;
+import org.springframework.ai.model.openai.autoconfigure.OpenAIAutoConfigurationUtil;
+import org.springframework.ai.model.openai.autoconfigure.OpenAiChatProperties;
+import org.springframework.ai.model.openai.autoconfigure.OpenAiConnectionProperties;
+import org.springframework.ai.model.tool.DefaultToolExecutionEligibilityPredicate;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionEligibilityPredicate;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Builds the OpenAI chat model on HTTP clients of its own that send every request through the
+ * {@link UpstreamLimiters#llm() chat model limiter}.
+ * <p>
+ * Limiting at the HTTP layer covers the calls of all agents, and a retry repeats a single request to the
+ * provider rather than a whole {@code ChatClient} call, so tools the model already invoked are not invoked again.
+ * The limiter is added only to the builders handed to {@link OpenAiApi}; Boot's client builders are prototypes,
+ * so other clients of the application are not throttled as chat model calls.
+ * <p>
+ * Replaces the chat model of Spring AI's auto-configuration and is built from the same
+ * {@code spring.ai.openai.*} properties.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.ai.model.chat", havingValue = "openai", matchIfMissing = true)
+public class ChatModelClientConfiguration {
+
+    @Bean
+    public OpenAiChatModel openAiChatModel(OpenAiConnectionProperties connectionProperties,
+                                           OpenAiChatProperties chatProperties,
+                                           ObjectProvider<RestClient.Builder> restClientBuilder,
+                                           ObjectProvider<WebClient.Builder> webClientBuilder,
+                                           ToolCallingManager toolCallingManager, RetryTemplate retryTemplate,
+                                           ResponseErrorHandler responseErrorHandler,
+                                           ObjectProvider<ObservationRegistry> observationRegistry,
+                                           ObjectProvider<ChatModelObservationConvention> observationConvention,
+                                           ObjectProvider<ToolExecutionEligibilityPredicate> eligibilityPredicate,
+                                           UpstreamLimiters upstreamLimiters) {
+        UpstreamLimiter limiter = upstreamLimiters.llm();
+        OpenAIAutoConfigurationUtil.ResolvedConnectionProperties connection =
+                OpenAIAutoConfigurationUtil.resolveConnectionProperties(connectionProperties, chatProperties, "chat");
+        OpenAiApi openAiApi = OpenAiApi.builder()
+                .baseUrl(connection.baseUrl())
+                .apiKey(new SimpleApiKey(connection.apiKey()))
+                .headers(connection.headers())
+                .completionsPath(chatProperties.getCompletionsPath())
+                .restClientBuilder(restClientBuilder.getIfAvailable(RestClient::builder)
+                        .requestInterceptor(new LimitingRequestInterceptor(limiter)))
+                .webClientBuilder(webClientBuilder.getIfAvailable(WebClient::builder)
+                        .filter(new LimitingExchangeFilter(limiter)))
+                .responseErrorHandler(responseErrorHandler)
+                .build();
+        OpenAiChatModel chatModel = OpenAiChatModel.builder()
+                .openAiApi(openAiApi)
+                .defaultOptions(chatProperties.getOptions())
+                .toolCallingManager(toolCallingManager)
+                .toolExecutionEligibilityPredicate(
+                        eligibilityPredicate.getIfUnique(DefaultToolExecutionEligibilityPredicate::new))
+                .retryTemplate(retryTemplate)
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .build();
+        observationConvention.ifAvailable(chatModel::setObservationConvention);
+        return chatModel;
+    }
+}
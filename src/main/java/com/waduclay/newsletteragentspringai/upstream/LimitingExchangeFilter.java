@@ -0,0 +1,69 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimiter.Permit;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * {@link org.springframework.web.reactive.function.client.WebClient} filter sending every exchange through an
+ * {@link UpstreamLimiter}, the non-blocking counterpart of {@link LimitingRequestInterceptor}.
+ * <p>
+ * Waiting for a permit does not block a thread. The tenant is taken from the Reactor context under
+ * {@link TenantContext#REACTOR_KEY}, falling back to the subscribing thread's tenant. The permit is held until the
+ * response body has been consumed or cancelled, so a streamed response counts against the concurrency limit for as
+ * long as it streams. An exchange cancelled while it waits, for example by a timeout, gives up its place in the
+ * queue, and releases a permit granted at the same moment.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class LimitingExchangeFilter implements ExchangeFilterFunction {
+
+    private final UpstreamLimiter limiter;
+
+    public LimitingExchangeFilter(UpstreamLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return exchange(request, next, 0);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> limiter.acquireAsync(
+                        context.getOrDefault(TenantContext.REACTOR_KEY, TenantContext.current())))
+                        .doOnDiscard(Permit.class, Permit::release))
+                .flatMap(permit -> next.exchange(request)
+                        .doOnError(error -> {
+                            permit.onFailure();
+                            permit.release();
+                        })
+                        .doOnCancel(permit::release)
+                        .flatMap(response -> {
+                            permit.onResponse(response.statusCode(), response.headers().asHttpHeaders());
+                            Optional<Duration> retryDelay = limiter.retryDelay(response.statusCode(),
+                                    response.headers().asHttpHeaders(), attempt);
+                            if (retryDelay.isPresent()) {
+                                return response.releaseBody()
+                                        .doFinally(signal -> permit.release())
+                                        .then(Mono.delay(retryDelay.get()))
+                                        .then(exchange(request, next, attempt + 1));
+                            }
+                            return Mono.just(releaseOnCompletion(response, permit));
+                        }));
+    }
+
+    private static ClientResponse releaseOnCompletion(ClientResponse response, Permit permit) {
+        return response.mutate()
+                .body(body -> body.doFinally(signal -> permit.release()))
+                .build();
+    }
+}
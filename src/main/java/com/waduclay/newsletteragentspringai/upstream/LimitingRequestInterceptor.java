@@ -0,0 +1,117 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimiter.Permit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * {@link org.springframework.web.client.RestClient} interceptor sending every request through an
+ * {@link UpstreamLimiter}.
+ * <p>
+ * The permit is held until the response is closed, so a response body still being read counts against the
+ * concurrency limit. Throttled responses are retried as decided by {@link UpstreamLimiter#retryDelay}; the last
+ * throttled response is returned unchanged so the client's usual error handling applies.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class LimitingRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamLimiter limiter;
+
+    public LimitingRequestInterceptor(UpstreamLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            Permit permit = acquire();
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException | RuntimeException e) {
+                permit.onFailure();
+                permit.release();
+                throw e;
+            }
+            HttpStatusCode status = response.getStatusCode();
+            permit.onResponse(status, response.getHeaders());
+            Optional<Duration> retryDelay = limiter.retryDelay(status, response.getHeaders(), attempt);
+            if (retryDelay.isEmpty()) {
+                return new PermitReleasingResponse(response, permit);
+            }
+            response.close();
+            permit.release();
+            sleep(retryDelay.get());
+        }
+    }
+
+    private Permit acquire() throws InterruptedIOException {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to call " + limiter.name());
+        }
+    }
+
+    private void sleep(Duration delay) throws InterruptedIOException {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off from " + limiter.name());
+        }
+    }
+
+    private static final class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Permit permit;
+
+        private PermitReleasingResponse(ClientHttpResponse delegate, Permit permit) {
+            this.delegate = delegate;
+            this.permit = permit;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                permit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Client-side limits of the upstream services the newsletter workflow calls.
+ *
+ * @param llm    limits of the chat model provider (OpenRouter)
+ * @param tavily limits of the Tavily search API
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "upstream")
+public record UpstreamLimitProperties(
+        @DefaultValue Limit llm,
+        @DefaultValue Limit tavily
+) {
+
+    /**
+     * Rate and adaptive concurrency limit of one upstream.
+     *
+     * @param permitsPerSecond   sustained number of requests started per second
+     * @param burst              number of requests that may be started at once after an idle period
+     * @param initialConcurrency concurrency limit before any feedback from the upstream
+     * @param minConcurrency     lowest concurrency limit backoff may reach
+     * @param maxConcurrency     highest concurrency limit additive increase may reach
+     * @param latencyThreshold   time to response headers above which a request counts as a latency spike
+     * @param maxRetries         number of times a throttled request (429 or 5xx) is retried
+     * @param initialBackoff     wait before the first retry when the upstream sends no {@code Retry-After}
+     * @param maxBackoff         longest wait before a retry; a longer {@code Retry-After} fails the request instead
+     */
+    public record Limit(
+            @DefaultValue("1") double permitsPerSecond,
+            @DefaultValue("2") int burst,
+            @DefaultValue("2") int initialConcurrency,
+            @DefaultValue("1") int minConcurrency,
+            @DefaultValue("8") int maxConcurrency,
+            @DefaultValue("60s") Duration latencyThreshold,
+            @DefaultValue("4") int maxRetries,
+            @DefaultValue("2s") Duration initialBackoff,
+            @DefaultValue("60s") Duration maxBackoff
+    ) {
+    }
+}
@@ -0,0 +1,405 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import com.waduclay.newsletteragentspringai.tenant.FairQueue;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimitProperties.Limit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side rate and concurrency limiter of one upstream service.
+ * <p>
+ * A request needs a {@link Permit} before it is sent. Waiting requests are served round-robin across tenants
+ * (newsletters, see {@link TenantContext}) and in request order within a tenant, when both
+ * <ul>
+ *   <li>a token is available in a token bucket refilled at {@link Limit#permitsPerSecond()} up to
+ *   {@link Limit#burst()} tokens, and</li>
+ *   <li>fewer requests are in flight than the current concurrency limit.</li>
+ * </ul>
+ * The concurrency limit adapts AIMD-style: every fast successful response raises it by {@code 1 / limit} up to
+ * {@link Limit#maxConcurrency()}, a latency spike lowers it by 10% and a throttled response (429 or 5xx) halves
+ * it, never below {@link Limit#minConcurrency()}. Other client errors, such as a 401 from a bad key, say nothing
+ * about the upstream's capacity and leave the limit unchanged. A {@code Retry-After} sent with a throttled response pauses all
+ * permits until it has passed.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+public class UpstreamLimiter {
+
+    private static final double THROTTLE_DECREASE = 0.5;
+    private static final double LATENCY_DECREASE = 0.9;
+
+    private final String name;
+    private final Limit limit;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService wakeups;
+    private final FairQueue<CompletableFuture<Permit>> waiters = new FairQueue<>();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong errorResponses = new AtomicLong();
+    private final AtomicLong transportFailures = new AtomicLong();
+
+    private double concurrencyLimit;
+    private int inFlight;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private long wakeupAt;
+
+    /**
+     * @param name  name of the upstream, used in logs, metrics and thread names
+     * @param limit the rate and concurrency limits
+     */
+    public UpstreamLimiter(String name, Limit limit) {
+        this(name, limit, System::nanoTime);
+    }
+
+    /**
+     * @param name  name of the upstream, used in logs, metrics and thread names
+     * @param limit the rate and concurrency limits
+     * @param clock source of {@link System#nanoTime()}-like timestamps the limiter measures time with
+     */
+    UpstreamLimiter(String name, Limit limit, LongSupplier clock) {
+        this.name = name;
+        this.limit = limit;
+        this.clock = clock;
+        this.concurrencyLimit = Math.max(limit.minConcurrency(), Math.min(limit.initialConcurrency(), limit.maxConcurrency()));
+        this.tokens = limit.burst();
+        this.lastRefill = clock.getAsLong();
+        this.pausedUntil = lastRefill;
+        this.wakeups = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upstream-limiter-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a permit for the {@link TenantContext#current() current tenant} without blocking.
+     *
+     * @return a future completed with the permit once it is granted
+     * @see #acquireAsync(String)
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        return acquireAsync(TenantContext.current());
+    }
+
+    /**
+     * Requests a permit for a tenant without blocking.
+     * <p>
+     * Cancelling the returned future gives up the place in the queue.
+     *
+     * @param tenant the tenant the request is made for
+     * @return a future completed with the permit once it is granted
+     */
+    public CompletableFuture<Permit> acquireAsync(String tenant) {
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            waiters.add(tenant, waiter);
+        }
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Waits for a permit for the {@link TenantContext#current() current tenant}.
+     *
+     * @return the granted permit
+     * @throws InterruptedException if the thread is interrupted while waiting; the place in the queue is given up,
+     *                              and a permit granted at the same time is released
+     */
+    public Permit acquire() throws InterruptedException {
+        CompletableFuture<Permit> waiter = acquireAsync();
+        try {
+            return waiter.get();
+        } catch (InterruptedException e) {
+            giveUp(waiter);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Permit acquisition failed for upstream " + name, e.getCause());
+        }
+    }
+
+    /**
+     * Gives up a requested permit: cancels the request if it is still waiting, or releases the permit if it was
+     * granted before the request could be cancelled.
+     *
+     * @param waiter the future returned by {@link #acquireAsync()}
+     */
+    private static void giveUp(CompletableFuture<Permit> waiter) {
+        if (!waiter.cancel(false) && !waiter.isCompletedExceptionally()) {
+            waiter.join().release();
+        }
+    }
+
+    /**
+     * Decides whether a response should be retried and how long to wait before retrying.
+     * <p>
+     * Only throttled responses are retried, at most {@link Limit#maxRetries()} times. The wait is the response's
+     * {@code Retry-After}, or exponential backoff with jitter starting at {@link Limit#initialBackoff()} when it
+     * has none. A wait longer than {@link Limit#maxBackoff()} is not retried.
+     *
+     * @param status  status of the response
+     * @param headers headers of the response
+     * @param attempt number of retries already made
+     * @return the wait before the retry, or empty if the response should be returned as is
+     */
+    public Optional<Duration> retryDelay(HttpStatusCode status, HttpHeaders headers, int attempt) {
+        if (!isThrottled(status) || attempt >= limit.maxRetries()) {
+            return Optional.empty();
+        }
+        Optional<Duration> retryAfter = retryAfter(headers);
+        if (retryAfter.isPresent()) {
+            return retryAfter.get().compareTo(limit.maxBackoff()) <= 0 ? retryAfter : Optional.empty();
+        }
+        long backoff = Math.min(limit.maxBackoff().toMillis(), limit.initialBackoff().toMillis() << Math.min(attempt, 20));
+        return Optional.of(Duration.ofMillis(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1)));
+    }
+
+    /**
+     * @param status status of a response
+     * @return whether the response means the upstream is overloaded or rate limiting
+     */
+    public static boolean isThrottled(HttpStatusCode status) {
+        return status.value() == 429 || status.is5xxServerError();
+    }
+
+    /**
+     * Parses a {@code Retry-After} header given either in seconds or as an HTTP date.
+     *
+     * @param headers headers of a response
+     * @return the wait requested by the upstream, if any
+     */
+    static Optional<Duration> retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))));
+        } catch (NumberFormatException e) {
+            try {
+                Duration wait = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return Optional.of(wait.isNegative() ? Duration.ZERO : wait);
+            } catch (DateTimeParseException ignored) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * @return name of the upstream
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the current adaptive concurrency limit
+     */
+    public synchronized double concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * @return number of permits currently held
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return number of requests waiting for a permit
+     */
+    public synchronized int queued() {
+        return waiters.size();
+    }
+
+    /**
+     * @return the configured sustained rate in requests per second
+     */
+    public double permitsPerSecond() {
+        return limit.permitsPerSecond();
+    }
+
+    /**
+     * @return total number of throttled responses since startup
+     */
+    public long throttled() {
+        return throttled.get();
+    }
+
+    /**
+     * @return total number of responses with a 4xx or 5xx status since startup, including throttled ones
+     */
+    public long errorResponses() {
+        return errorResponses.get();
+    }
+
+    /**
+     * @return total number of requests that failed without a response since startup
+     */
+    public long transportFailures() {
+        return transportFailures.get();
+    }
+
+    /**
+     * Stops the timer that wakes up waiting requests.
+     */
+    void shutdown() {
+        wakeups.shutdownNow();
+    }
+
+    /**
+     * Grants permits to waiting requests while the pause, the token bucket and the concurrency limit allow it.
+     * Futures are completed outside the lock, so their dependents never run while it is held.
+     */
+    private void drain() {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            refill(now);
+            while (!waiters.isEmpty()) {
+                if (waiters.peek().isDone()) {
+                    waiters.poll();
+                    continue;
+                }
+                if (now < pausedUntil) {
+                    scheduleWakeup(pausedUntil);
+                    break;
+                }
+                if (inFlight >= (int) concurrencyLimit) {
+                    break;
+                }
+                if (tokens < 1) {
+                    scheduleWakeup(now + (long) ((1 - tokens) / limit.permitsPerSecond() * 1_000_000_000L));
+                    break;
+                }
+                tokens -= 1;
+                inFlight++;
+                granted.add(waiters.poll());
+            }
+        }
+        for (CompletableFuture<Permit> waiter : granted) {
+            Permit permit = new Permit();
+            if (!waiter.complete(permit)) {
+                permit.release();
+            }
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(limit.burst(), tokens + (now - lastRefill) / 1_000_000_000.0 * limit.permitsPerSecond());
+        lastRefill = now;
+    }
+
+    private void scheduleWakeup(long at) {
+        long now = clock.getAsLong();
+        if (wakeupAt > now && wakeupAt <= at) {
+            return;
+        }
+        wakeupAt = at;
+        wakeups.schedule(this::drain, Math.max(0, at - now), TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void onResponse(Duration latency) {
+        if (latency.compareTo(limit.latencyThreshold()) > 0) {
+            decrease(LATENCY_DECREASE, "latency of " + latency.toMillis() + " ms");
+        } else {
+            concurrencyLimit = Math.min(limit.maxConcurrency(), concurrencyLimit + 1 / concurrencyLimit);
+        }
+    }
+
+    private synchronized void onThrottled(HttpStatusCode status, Duration retryAfter) {
+        throttled.incrementAndGet();
+        decrease(THROTTLE_DECREASE, "status " + status.value());
+        if (retryAfter != null) {
+            pausedUntil = Math.max(pausedUntil, clock.getAsLong() + retryAfter.toNanos());
+            log.info("Pausing requests to {} for {} s as requested by Retry-After", name, retryAfter.toSeconds());
+        }
+    }
+
+    private void decrease(double factor, String reason) {
+        double previous = concurrencyLimit;
+        concurrencyLimit = Math.max(limit.minConcurrency(), concurrencyLimit * factor);
+        if ((int) previous != (int) concurrencyLimit) {
+            log.info("Lowered concurrency limit of {} from {} to {} after {}", name, (int) previous,
+                    (int) concurrencyLimit, reason);
+        }
+    }
+
+    /**
+     * Permission to send one request. The request's outcome should be reported through {@link #onResponse} before
+     * the permit is released.
+     */
+    public final class Permit {
+        private final long start = clock.getAsLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        /**
+         * Reports the response of the request, adapting the concurrency limit to its status and latency. A client
+         * error other than 429 leaves the limit unchanged.
+         *
+         * @param status  status of the response
+         * @param headers headers of the response, checked for {@code Retry-After} when it is throttled
+         */
+        public void onResponse(HttpStatusCode status, HttpHeaders headers) {
+            if (status.isError()) {
+                errorResponses.incrementAndGet();
+            }
+            if (isThrottled(status)) {
+                Duration retryAfter = retryAfter(headers).filter(wait -> wait.compareTo(limit.maxBackoff()) <= 0)
+                        .orElse(null);
+                onThrottled(status, retryAfter);
+            } else if (!status.is4xxClientError()) {
+                UpstreamLimiter.this.onResponse(Duration.ofNanos(clock.getAsLong() - start));
+            }
+        }
+
+        /**
+         * Reports that the request failed without a response, such as after a timeout, which counts as a
+         * latency spike.
+         */
+        public void onFailure() {
+            transportFailures.incrementAndGet();
+            synchronized (UpstreamLimiter.this) {
+                decrease(LATENCY_DECREASE, "a failed request");
+            }
+        }
+
+        /**
+         * Returns the permit, letting the next waiting request start. Releasing more than once has no effect.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                synchronized (UpstreamLimiter.this) {
+                    inFlight--;
+                }
+                drain();
+            }
+        }
+    }
+}
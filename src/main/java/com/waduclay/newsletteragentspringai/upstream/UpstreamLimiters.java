@@ -0,0 +1,85 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@link UpstreamLimiter}s of the chat model provider and of Tavily.
+ * <p>
+ * The current limits of each upstream are published as metrics tagged with {@code upstream}:
+ * {@code upstream.concurrency.limit}, {@code upstream.in.flight}, {@code upstream.queued},
+ * {@code upstream.rate.limit}, {@code upstream.throttled} and {@code upstream.failures}, the latter tagged with
+ * {@code kind} {@code response} for 4xx and 5xx responses or {@code transport} for requests without a response.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class UpstreamLimiters implements DisposableBean {
+
+    private final UpstreamLimiter llm;
+    private final UpstreamLimiter tavily;
+
+    public UpstreamLimiters(UpstreamLimitProperties properties, MeterRegistry meterRegistry) {
+        this.llm = new UpstreamLimiter("llm", properties.llm());
+        this.tavily = new UpstreamLimiter("tavily", properties.tavily());
+        bindMetrics(llm, meterRegistry);
+        bindMetrics(tavily, meterRegistry);
+    }
+
+    /**
+     * @return the limiter of the chat model provider
+     */
+    public UpstreamLimiter llm() {
+        return llm;
+    }
+
+    /**
+     * @return the limiter of the Tavily search API
+     */
+    public UpstreamLimiter tavily() {
+        return tavily;
+    }
+
+    private static void bindMetrics(UpstreamLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("upstream.concurrency.limit", limiter, UpstreamLimiter::concurrencyLimit)
+                .tag("upstream", limiter.name())
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("upstream.in.flight", limiter, UpstreamLimiter::inFlight)
+                .tag("upstream", limiter.name())
+                .description("Requests currently holding a permit")
+                .register(meterRegistry);
+        Gauge.builder("upstream.queued", limiter, UpstreamLimiter::queued)
+                .tag("upstream", limiter.name())
+                .description("Requests waiting for a permit")
+                .register(meterRegistry);
+        Gauge.builder("upstream.rate.limit", limiter, UpstreamLimiter::permitsPerSecond)
+                .tag("upstream", limiter.name())
+                .description("Configured requests per second")
+                .register(meterRegistry);
+        FunctionCounter.builder("upstream.throttled", limiter, UpstreamLimiter::throttled)
+                .tag("upstream", limiter.name())
+                .description("Responses with status 429 or 5xx")
+                .register(meterRegistry);
+        FunctionCounter.builder("upstream.failures", limiter, UpstreamLimiter::errorResponses)
+                .tag("upstream", limiter.name())
+                .tag("kind", "response")
+                .description("Responses with status 4xx or 5xx")
+                .register(meterRegistry);
+        FunctionCounter.builder("upstream.failures", limiter, UpstreamLimiter::transportFailures)
+                .tag("upstream", limiter.name())
+                .tag("kind", "transport")
+                .description("Requests that failed without a response")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        llm.shutdown();
+        tavily.shutdown();
+    }
+}
@@ -0,0 +1,232 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The point in time by which a stage of a run must complete.
+ * <p>
+ * {@link #call(String, Callable)} enforces the deadline on blocking work by interrupting the calling thread when
+ * it passes. The interrupt reaches the calls the stage is blocked in, such as waiting for an upstream limiter
+ * permit, which then fail. Since not every HTTP client gives up a request when interrupted, the deadline of the
+ * running task is also available as {@link #current()}, and upstream calls pass its remaining time on as their
+ * own timeout, so a stuck upstream is abandoned at the deadline. Work the task hands to another thread must be
+ * wrapped with {@link #wrap(Runnable)} to carry the deadline over. Reactive stages apply
+ * {@link #remainingOr(Duration)} or {@link #timeout(Flux)} instead.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(null, 0);
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final ScheduledExecutorService timer;
+    private final long expiresAt;
+
+    private Deadline(ScheduledExecutorService timer, long expiresAt) {
+        this.timer = timer;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @param expiresAt {@link System#nanoTime()} at which the deadline passes
+     * @param timer     scheduler interrupting the stages that are still running when the deadline passes
+     */
+    static Deadline at(long expiresAt, ScheduledExecutorService timer) {
+        return new Deadline(timer, expiresAt);
+    }
+
+    /**
+     * @return a deadline that never passes
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * @return the deadline of the task {@link #call(String, Callable)} runs on the current thread, or
+     * {@link #none()}
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline == null ? NONE : deadline;
+    }
+
+    /**
+     * Wraps work so it runs with the current deadline as the {@link #current()} one on whichever thread executes
+     * it. The work is not interrupted when the deadline passes, but the upstream calls it makes time out.
+     *
+     * @param runnable the work
+     * @return the wrapped work
+     */
+    public static Runnable wrap(Runnable runnable) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return runnable;
+        }
+        return () -> {
+            Deadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Gives one of several tasks sharing the time left until this deadline its own, earlier deadline.
+     * <p>
+     * {@code pending} tasks, run {@code parallel} at a time, each get an equal share of the remaining time, so
+     * the last tasks to start are not left with whatever the first ones did not use. Once no more tasks are
+     * pending than run in parallel, a task gets all of the remaining time.
+     *
+     * @param parallel number of the tasks that run at the same time
+     * @param pending  number of the tasks that have not completed yet, including the one starting now
+     * @return the deadline of the task starting now
+     */
+    public Deadline share(int parallel, int pending) {
+        if (!isBounded() || pending <= parallel) {
+            return this;
+        }
+        long remaining = Math.max(0, expiresAt - System.nanoTime());
+        return new Deadline(timer, System.nanoTime() + remaining / pending * Math.max(1, parallel));
+    }
+
+    /**
+     * @return whether the deadline ever passes
+     */
+    public boolean isBounded() {
+        return timer != null;
+    }
+
+    /**
+     * @return whether the deadline has passed
+     */
+    public boolean isExpired() {
+        return isBounded() && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * @return the time left until the deadline, zero once it has passed
+     * @throws IllegalStateException if the deadline is not bounded
+     */
+    public Duration remaining() {
+        if (!isBounded()) {
+            throw new IllegalStateException("An unbounded deadline has no remaining time");
+        }
+        return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * @param limit longest time to return
+     * @return the time left until the deadline, but at most {@code limit}
+     */
+    public Duration remainingOr(Duration limit) {
+        if (!isBounded()) {
+            return limit;
+        }
+        Duration remaining = remaining();
+        return remaining.compareTo(limit) < 0 ? remaining : limit;
+    }
+
+    /**
+     * Fails a reactive call with a {@link TimeoutException} once the deadline passes, cancelling it.
+     *
+     * @param source the call
+     * @param <T>    type of the emitted values
+     * @return the values of the call, until the deadline
+     */
+    public <T> Flux<T> timeout(Flux<T> source) {
+        if (!isBounded()) {
+            return source;
+        }
+        return Flux.defer(() -> source.timeout(Mono.delay(remaining()), ignored -> Mono.delay(remaining())));
+    }
+
+    /**
+     * Runs a blocking task on the calling thread, interrupting it if the deadline passes first. While it runs,
+     * the deadline is the {@link #current()} one.
+     *
+     * @param description what the task does, for the exception message
+     * @param task        the task
+     * @param <T>         type of the task output
+     * @return the task output
+     * @throws DeadlineExceededException if the deadline passed before or while the task ran, including when the
+     *                                   task timed out at the deadline itself
+     * @throws Exception                 if the task fails before the deadline
+     */
+    public <T> T call(String description, Callable<T> task) throws Exception {
+        if (!isBounded()) {
+            return task.call();
+        }
+        long remaining = expiresAt - System.nanoTime();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(description + " did not start before its deadline", null);
+        }
+        Alarm alarm = new Alarm(Thread.currentThread());
+        ScheduledFuture<?> scheduled = timer.schedule(alarm, remaining, TimeUnit.NANOSECONDS);
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } catch (Exception e) {
+            if (alarm.disarm() || isExpired()) {
+                throw new DeadlineExceededException(description + " did not complete before its deadline", e);
+            }
+            throw e;
+        } finally {
+            scheduled.cancel(false);
+            alarm.disarm();
+            restore(previous);
+        }
+    }
+
+    private static void restore(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Interrupts a thread unless it finished its task first. Disarming clears an interrupt the alarm caused, so
+     * it does not leak into the next task of a pooled thread.
+     */
+    private static final class Alarm implements Runnable {
+        private final Thread thread;
+        private boolean armed = true;
+        private boolean fired;
+
+        private Alarm(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (armed) {
+                fired = true;
+                thread.interrupt();
+            }
+        }
+
+        synchronized boolean disarm() {
+            if (armed && fired) {
+                Thread.interrupted();
+            }
+            armed = false;
+            return fired;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+/**
+ * Thrown when a stage of a run does not complete before its {@link Deadline}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * The time a run may take and how it is split across the stages by {@link RunDeadlines}.
+ * <p>
+ * Each share is the part of {@code run} a stage gets; the editor gets what is left of the whole run. Deadlines
+ * are cumulative, so time a stage does not use is left to the later stages.
+ *
+ * @param enabled  whether runs have a deadline; when enabled, topics that fail or miss their deadline are dropped
+ *                 instead of failing the run
+ * @param run      the time a run may take
+ * @param search   share of the run for the initial search
+ * @param plan     share of the run for planning the topics
+ * @param research share of the run for researching the topics
+ * @param write    share of the run for writing the sections
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "workflow.deadline")
+public record DeadlineProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30m") Duration run,
+        @DefaultValue("0.05") double search,
+        @DefaultValue("0.15") double plan,
+        @DefaultValue("0.2") double research,
+        @DefaultValue("0.35") double write
+) {
+}
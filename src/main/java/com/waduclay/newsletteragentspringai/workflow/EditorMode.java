@@ -0,0 +1,17 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+/**
+ * How the edited newsletter is sent.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+public enum EditorMode {
+    /**
+     * The editor returns the subject and HTML body, and the orchestrator sends the email.
+     */
+    STRUCTURED,
+    /**
+     * The editor sends the email itself through the {@code sendEmail} tool.
+     */
+    TOOL
+}
@@ -0,0 +1,23 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * When and how {@link HierarchicalEditor} splits the editing of a large newsletter.
+ *
+ * @param enabled    whether large newsletters are edited hierarchically; when disabled, every newsletter is edited
+ *                   in a single call
+ * @param threshold  estimated tokens of all sections above which the newsletter is edited hierarchically
+ * @param partBudget estimated tokens of sections edited together in one part; a section larger than the budget
+ *                   forms a part of its own
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "workflow.editing")
+public record HierarchicalEditingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("4000") int threshold,
+        @DefaultValue("1500") int partBudget
+) {
+}
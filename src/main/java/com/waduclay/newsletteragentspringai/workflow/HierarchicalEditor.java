@@ -0,0 +1,219 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import com.waduclay.newsletteragentspringai.agent.editor.EditedNewsletter;
+import com.waduclay.newsletteragentspringai.agent.editor.EditorAgent;
+import com.waduclay.newsletteragentspringai.agent.editor.EditorialFrame;
+import com.waduclay.newsletteragentspringai.research.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Edits a newsletter in a single editor call, or hierarchically when its sections are too large for one.
+ * <p>
+ * A single call puts every section into one prompt, which with many topics becomes the slowest call of a run
+ * and can exceed the model's context. Once the sections exceed {@link HierarchicalEditingProperties#threshold()}
+ * estimated tokens, they are instead split into parts of consecutive sections of at most
+ * {@link HierarchicalEditingProperties#partBudget()} tokens, and the parts are edited concurrently on the
+ * {@link TopicPipeline} (map). A final call sees only an outline of the edited sections and writes the subject,
+ * introduction, section order, transitions and conclusion (reduce). The newsletter is then assembled from the
+ * frame and the edited sections, followed by a list of every source linked from the sections.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class HierarchicalEditor {
+
+    static final String SECTION_SEPARATOR = "\n\n\n";
+    private static final Pattern SECTION_START = Pattern.compile("(?i)(?=<h2[\\s>])");
+    private static final Pattern HEADING = Pattern.compile("(?is)<h2[^>]*>(.*?)</h2>");
+    private static final Pattern LINK = Pattern.compile("(?is)<a\\s[^>]*href\\s*=\\s*[\"']([^\"']+)[\"'][^>]*>(.*?)</a>");
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern CODE_FENCE = Pattern.compile("^```[a-z]*\\s*|\\s*```$");
+    private static final int OUTLINE_OPENING_CHARS = 280;
+
+    private final EditorAgent editorAgent;
+    private final TopicPipeline topicPipeline;
+    private final HierarchicalEditingProperties properties;
+
+    public HierarchicalEditor(EditorAgent editorAgent, TopicPipeline topicPipeline,
+                              HierarchicalEditingProperties properties) {
+        this.editorAgent = editorAgent;
+        this.topicPipeline = topicPipeline;
+        this.properties = properties;
+    }
+
+    /**
+     * @param sections the written sections
+     * @return whether the sections are edited hierarchically
+     */
+    public boolean isLarge(List<String> sections) {
+        return properties.enabled()
+                && sections.stream().mapToInt(TokenEstimator::estimate).sum() > properties.threshold();
+    }
+
+    /**
+     * Edits the sections into a finished newsletter without sending it.
+     *
+     * @param sections the written sections, in planned topic order
+     * @param title    the newsletter title
+     * @return the subject and HTML body of the finished newsletter
+     */
+    public EditedNewsletter compose(List<String> sections, String title) {
+        return compose(sections, title, List.of());
+    }
+
+    /**
+     * Edits the sections into a finished newsletter without sending it, telling the editor which planned topics
+     * were dropped.
+     *
+     * @param sections      the written sections, in planned topic order
+     * @param title         the newsletter title
+     * @param droppedTopics planned topics that could not be researched or written
+     * @return the subject and HTML body of the finished newsletter
+     */
+    public EditedNewsletter compose(List<String> sections, String title, List<String> droppedTopics) {
+        String note = editorAgent.droppedTopicsNote(droppedTopics);
+        if (!isLarge(sections)) {
+            return editorAgent.compose(String.join(SECTION_SEPARATOR, sections) + note, title);
+        }
+        List<String> parts = parts(sections, properties.partBudget());
+        log.info("Editing newsletter '{}' hierarchically: {} sections in {} parts", title, sections.size(), parts.size());
+        List<String> edited = topicPipeline.writeEach(IntStream.range(0, parts.size()).boxed().toList(),
+                part -> editorAgent.editPart(parts.get(part), title, part + 1, parts.size()));
+        List<String> blocks = blocks(edited);
+        EditorialFrame frame = editorAgent.frame(outline(blocks) + note, title);
+        String subject = frame.subject() == null || frame.subject().isBlank() ? title : frame.subject().strip();
+        return new EditedNewsletter(subject, assemble(frame, blocks));
+    }
+
+    /**
+     * Groups consecutive sections into parts of at most {@code budget} estimated tokens.
+     */
+    static List<String> parts(List<String> sections, int budget) {
+        List<String> parts = new ArrayList<>();
+        List<String> part = new ArrayList<>();
+        int used = 0;
+        for (String section : sections) {
+            int tokens = TokenEstimator.estimate(section);
+            if (!part.isEmpty() && used + tokens > budget) {
+                parts.add(String.join(SECTION_SEPARATOR, part));
+                part = new ArrayList<>();
+                used = 0;
+            }
+            part.add(section);
+            used += tokens;
+        }
+        if (!part.isEmpty()) {
+            parts.add(String.join(SECTION_SEPARATOR, part));
+        }
+        return parts;
+    }
+
+    /**
+     * Splits the edited parts into sections, each starting at an {@code <h2>} heading.
+     */
+    static List<String> blocks(List<String> editedParts) {
+        List<String> blocks = new ArrayList<>();
+        for (String part : editedParts) {
+            for (String block : SECTION_START.split(CODE_FENCE.matcher(part.strip()).replaceAll(""))) {
+                if (!block.isBlank()) {
+                    blocks.add(block.strip());
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Lists every section by number with its heading and the opening of its text.
+     */
+    static String outline(List<String> blocks) {
+        StringBuilder outline = new StringBuilder();
+        for (int i = 0; i < blocks.size(); i++) {
+            String block = blocks.get(i);
+            Matcher heading = HEADING.matcher(block);
+            boolean headed = heading.find();
+            String title = headed ? text(heading.group(1)) : "(untitled)";
+            String opening = text(headed ? block.substring(heading.end()) : block);
+            if (opening.length() > OUTLINE_OPENING_CHARS) {
+                opening = opening.substring(0, OUTLINE_OPENING_CHARS) + "...";
+            }
+            outline.append(i + 1).append(". ").append(title).append('\n')
+                    .append("   ").append(opening).append('\n');
+        }
+        return outline.toString();
+    }
+
+    /**
+     * Assembles the newsletter from the frame and the edited sections. Sections missing from the frame's order
+     * are appended in their original order, and invalid or repeated numbers are ignored.
+     */
+    static String assemble(EditorialFrame frame, List<String> blocks) {
+        Map<Integer, String> transitions = new HashMap<>();
+        Set<Integer> order = new LinkedHashSet<>();
+        List<Integer> proposed = frame.sectionOrder() == null ? List.of() : frame.sectionOrder();
+        for (int position = 0; position < proposed.size(); position++) {
+            Integer number = proposed.get(position);
+            if (number == null || number < 1 || number > blocks.size() || !order.add(number - 1)) {
+                continue;
+            }
+            if (frame.transitions() != null && position < frame.transitions().size()) {
+                transitions.put(number - 1, frame.transitions().get(position));
+            }
+        }
+        IntStream.range(0, blocks.size()).forEach(order::add);
+
+        StringBuilder html = new StringBuilder();
+        appendParagraph(html, frame.introduction());
+        for (int section : order) {
+            appendParagraph(html, transitions.get(section));
+            html.append(blocks.get(section)).append("\n\n");
+        }
+        appendParagraph(html, frame.conclusion());
+        appendSources(html, blocks);
+        return html.toString().strip();
+    }
+
+    private static void appendParagraph(StringBuilder html, String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String paragraph = text.strip();
+        html.append(paragraph.startsWith("<") ? paragraph : "<p>" + paragraph + "</p>").append("\n\n");
+    }
+
+    private static void appendSources(StringBuilder html, List<String> blocks) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (String block : blocks) {
+            Matcher link = LINK.matcher(block);
+            while (link.find()) {
+                String name = text(link.group(2));
+                sources.putIfAbsent(link.group(1), name.isEmpty() ? link.group(1) : name);
+            }
+        }
+        if (sources.isEmpty()) {
+            return;
+        }
+        html.append("<h3>Sources</h3>\n<ul>\n");
+        sources.forEach((url, name) -> html.append("<li><a href=\"").append(url).append("\">").append(name)
+                .append("</a></li>\n"));
+        html.append("</ul>\n");
+    }
+
+    private static String text(String html) {
+        return TAG.matcher(html).replaceAll("").replaceAll("\\s+", " ").strip();
+    }
+}
@@ -0,0 +1,26 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Whether topics are researched and written on the {@link ReactiveTopicPipeline}, and its per-topic timeouts.
+ * Its search and write concurrency are configured via {@link WorkflowProperties}.
+ *
+ * @param enabled       whether topics are researched and written on the reactive pipeline instead of the
+ *                      blocking {@link TopicPipeline}
+ * @param searchTimeout longest time the search of one topic may take, including waiting for the upstream limiter
+ * @param writeTimeout  longest time the writing of one section may take, including waiting for the upstream
+ *                      limiter
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "workflow.reactive")
+public record ReactivePipelineProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2m") Duration searchTimeout,
+        @DefaultValue("5m") Duration writeTimeout
+) {
+}
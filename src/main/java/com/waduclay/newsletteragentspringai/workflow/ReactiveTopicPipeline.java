@@ -0,0 +1,177 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.workflow.RunDeadlines.RunBudget;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link TopicPipeline}, researching and writing the topics of a newsletter as one
+ * Reactor pipeline.
+ * <p>
+ * Topics flow through a search stage and a write stage, each a {@code flatMapSequential} bounded by the
+ * concurrency of {@link WorkflowProperties}. Stages return publishers backed by non-blocking HTTP clients, so
+ * in-flight searches and model calls do not hold a thread each: only the calling thread blocks, waiting for the
+ * sections. The write stage requests research only as it has room for another section, so searches run at
+ * most {@link WorkflowProperties#searchConcurrency()} topics ahead of writing. Every search and write is subject
+ * to the timeouts of {@link ReactivePipelineProperties}, shortened to the research deadline of the run and to each
+ * write's {@link Deadline#share(int, int) share} of the write deadline.
+ * A search or write that fails or times out is handed to a {@link Recovery}, which either fails the run or
+ * replaces the output of the topic. Sections are returned in the order the topics were planned.
+ * <p>
+ * The current tenant ({@link TenantContext}) is passed to the stages in the Reactor context, where the upstream
+ * limiters read it. Stages must not block; blocking work such as journal writes belongs on the bounded elastic
+ * scheduler.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class ReactiveTopicPipeline {
+
+    private final WorkflowProperties workflowProperties;
+    private final ReactivePipelineProperties properties;
+
+    public ReactiveTopicPipeline(WorkflowProperties workflowProperties, ReactivePipelineProperties properties) {
+        this.workflowProperties = workflowProperties;
+        this.properties = properties;
+    }
+
+    /**
+     * @return whether topics are researched and written on this pipeline
+     */
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Searches and writes a section for every topic, writing each section as soon as its research arrives.
+     * <p>
+     * If a topic fails or times out and {@code recovery} rethrows, the remaining topics are cancelled and the
+     * failure is rethrown.
+     *
+     * @param topics   the planned topics
+     * @param search   stage researching a single topic
+     * @param write    stage writing a section from the research of a single topic
+     * @param budget   deadlines of the run; searches must complete by its research deadline and writes by its
+     *                 write deadline
+     * @param recovery handles a failed or timed out search or write
+     * @param <Q>      the type of research produced by the search stage
+     * @return the written sections, in the same order as {@code topics}
+     */
+    public <Q> List<String> run(List<String> topics, Function<String, Mono<Q>> search,
+                                Function<Q, Mono<String>> write, RunBudget budget, Recovery<Q> recovery) {
+        return await(write(search(topics, search, budget.research(), recovery), topics.size(), write, budget.write(),
+                recovery));
+    }
+
+    /**
+     * Searches every topic, reconciles the research of all topics at once and then writes a section per topic.
+     * <p>
+     * The reconciling stage, for example deduplicating sources across topics, runs on the bounded elastic
+     * scheduler and may block. If a topic fails or times out and {@code recovery} rethrows, the remaining topics
+     * are cancelled and the failure is rethrown.
+     *
+     * @param topics    the planned topics
+     * @param search    stage researching a single topic
+     * @param reconcile stage reconciling the research of all topics; must return one element per topic in the
+     *                  same order
+     * @param write     stage writing a section from the research of a single topic
+     * @param budget    deadlines of the run; searches must complete by its research deadline and writes by its
+     *                  write deadline
+     * @param recovery  handles a failed or timed out search or write
+     * @param <Q>       the type of research produced by the search stage
+     * @return the written sections, in the same order as {@code topics}
+     */
+    public <Q> List<String> researchThenWrite(List<String> topics, Function<String, Mono<Q>> search,
+                                              Function<List<Q>, List<Q>> reconcile, Function<Q, Mono<String>> write,
+                                              RunBudget budget, Recovery<Q> recovery) {
+        Flux<Q> reconciled = search(topics, search, budget.research(), recovery)
+                .collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(reconcile)
+                .flatMapMany(Flux::fromIterable);
+        return await(write(reconciled, topics.size(), write, budget.write(), recovery));
+    }
+
+    private <Q> Flux<Q> search(List<String> topics, Function<String, Mono<Q>> search, Deadline deadline,
+                               Recovery<Q> recovery) {
+        return Flux.fromIterable(topics)
+                .flatMapSequential(topic -> Mono.defer(() -> withTimeout(search.apply(topic),
+                                        deadline.remainingOr(properties.searchTimeout()),
+                                        "Search of topic '" + topic + "'"))
+                                .onErrorResume(error -> recovery.search(topic, error)),
+                        workflowProperties.searchConcurrency());
+    }
+
+    private <Q> Flux<String> write(Flux<Q> research, int topics, Function<Q, Mono<String>> write,
+                                   Deadline deadline, Recovery<Q> recovery) {
+        AtomicInteger unwritten = new AtomicInteger(topics);
+        return research.flatMapSequential(topicResearch -> Mono.defer(() -> withTimeout(write.apply(topicResearch),
+                                deadline.share(workflowProperties.writeConcurrency(), unwritten.get())
+                                        .remainingOr(properties.writeTimeout()), "Writing of a section"))
+                        .onErrorResume(error -> recovery.write(topicResearch, error))
+                        .doFinally(signal -> unwritten.decrementAndGet()),
+                workflowProperties.writeConcurrency(), 1);
+    }
+
+    private static <T> Mono<T> withTimeout(Mono<T> stage, Duration timeout, String description) {
+        return stage.timeout(timeout, Mono.error(() -> new TimeoutException(
+                description + " did not complete within " + timeout)));
+    }
+
+    private static List<String> await(Flux<String> sections) {
+        return sections.collectList()
+                .contextWrite(Context.of(TenantContext.REACTOR_KEY, TenantContext.current()))
+                .block();
+    }
+
+    /**
+     * Handles a search or write of a single topic that failed or timed out.
+     *
+     * @param <Q> the type of research produced by the search stage
+     */
+    public interface Recovery<Q> {
+
+        /**
+         * @param topic the topic whose search failed
+         * @param error the failure, a {@link TimeoutException} if the search timed out
+         * @return the research to continue with, or the error to fail the run with
+         */
+        Mono<Q> search(String topic, Throwable error);
+
+        /**
+         * @param research the research of the topic whose section could not be written
+         * @param error    the failure, a {@link TimeoutException} if the write timed out
+         * @return the section to use instead, or the error to fail the run with
+         */
+        Mono<String> write(Q research, Throwable error);
+
+        /**
+         * @param <Q> the type of research produced by the search stage
+         * @return a recovery rethrowing every failure
+         */
+        static <Q> Recovery<Q> failFast() {
+            return new Recovery<>() {
+                @Override
+                public Mono<Q> search(String topic, Throwable error) {
+                    return Mono.error(error);
+                }
+
+                @Override
+                public Mono<String> write(Q research, Throwable error) {
+                    return Mono.error(error);
+                }
+            };
+        }
+    }
+}
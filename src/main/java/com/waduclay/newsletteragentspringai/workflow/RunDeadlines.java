@@ -0,0 +1,76 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Splits the deadline of a run into the deadlines of its stages, as configured by {@link DeadlineProperties}.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class RunDeadlines implements DisposableBean {
+
+    private final DeadlineProperties properties;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "run-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RunDeadlines(DeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return whether runs have a deadline, and failed topics are dropped instead of failing the run
+     */
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Starts the deadlines of a run that starts now.
+     *
+     * @return the deadlines of the stages of the run, or unbounded deadlines when disabled
+     */
+    public RunBudget start() {
+        if (!properties.enabled()) {
+            Deadline none = Deadline.none();
+            return new RunBudget(none, none, none, none, none);
+        }
+        long start = System.nanoTime();
+        long run = properties.run().toNanos();
+        double search = properties.search();
+        double plan = search + properties.plan();
+        double research = plan + properties.research();
+        double write = research + properties.write();
+        return new RunBudget(
+                Deadline.at(start + (long) (run * search), timer),
+                Deadline.at(start + (long) (run * plan), timer),
+                Deadline.at(start + (long) (run * research), timer),
+                Deadline.at(start + (long) (run * write), timer),
+                Deadline.at(start + run, timer));
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * The deadlines of the stages of one run.
+     *
+     * @param search   deadline of the initial search
+     * @param plan     deadline of planning
+     * @param research deadline of researching every topic
+     * @param write    deadline of writing every section
+     * @param edit     deadline of editing, which is the deadline of the run
+     */
+    public record RunBudget(Deadline search, Deadline plan, Deadline research, Deadline write, Deadline edit) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import com.waduclay.newsletteragentspringai.tenant.FairSemaphore;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the per-topic writing stages of a newsletter on a dedicated, bounded executor.
+ * <p>
+ * The research of all topics is gathered in one batch on the calling thread, so searches can be coalesced and
+ * sources deduplicated across topics; the number of concurrent searches is bounded by the search API itself.
+ * Each section is then written on a pipeline thread, with the number of concurrent writes capped by
+ * {@link WorkflowProperties#writeConcurrency()}. Because the writes block on LLM calls, they are kept off the
+ * common {@link java.util.concurrent.ForkJoinPool} so a slow topic cannot stall unrelated work in the JVM.
+ * Sections are returned in the order the topics were planned.
+ * <p>
+ * The pipeline is shared by all newsletters. Stage permits are handed out round-robin across tenants
+ * ({@link TenantContext}), and a stage is only submitted to the executor once it holds its permit, so a newsletter
+ * with many topics cannot starve the others.
+ * <p>
+ * Stages run with the tenant and the {@link Deadline#current()} deadline of the calling thread, so the upstream
+ * calls they make time out at the caller's deadline. The calling thread waits interruptibly: when it is
+ * interrupted, for example because its deadline passed, the stages that have not completed are cancelled.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Component
+public class TopicPipeline implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final FairSemaphore writePermits;
+
+    public TopicPipeline(WorkflowProperties properties) {
+        this.writePermits = new FairSemaphore(properties.writeConcurrency());
+        this.executor = Executors.newFixedThreadPool(properties.writeConcurrency(), new PipelineThreadFactory());
+    }
+
+    /**
+     * Researches all topics in one batch and then writes a section per topic, returning the sections in topic
+     * order.
+     * <p>
+     * The research stage runs on the calling thread and is expected to fan out on its own, for example through
+     * a batched search API; it sees the research of all topics at once, so it can reconcile them before the
+     * first section is written. If any topic fails to be written, the remaining topics are cancelled and the
+     * failure is rethrown.
+     *
+     * @param topics   the planned topics
+     * @param research stage researching all topics; must return one element per topic in the same order
+     * @param write    stage writing a section from the research of a single topic
+     * @param <Q>      the type of research produced by the research stage
+     * @return the written sections, in the same order as {@code topics}
+     */
+    public <Q> List<String> researchThenWrite(List<String> topics, Stage<List<String>, List<Q>> research,
+                                              Stage<Q, String> write) {
+        List<Q> researched;
+        try {
+            researched = research.apply(topics);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Topic research failed", e);
+        }
+
+        List<CompletableFuture<String>> sections = new ArrayList<>(researched.size());
+        for (Q topicResearch : researched) {
+            CompletableFuture<String> section = new CompletableFuture<>();
+            forward(submit(writePermits, write, topicResearch, section), section);
+            sections.add(section);
+        }
+        return await(sections);
+    }
+
+    /**
+     * Runs a writing stage, such as editing a part of the newsletter, for every input under the write
+     * concurrency limit, returning the outputs in input order.
+     * <p>
+     * If any input fails, or the calling thread is interrupted, the remaining inputs are cancelled and the
+     * failure is rethrown.
+     *
+     * @param inputs the inputs
+     * @param write  stage run for a single input
+     * @param <I>    the input type
+     * @param <O>    the output type
+     * @return the outputs, in the same order as {@code inputs}
+     */
+    public <I, O> List<O> writeEach(List<I> inputs, Stage<I, O> write) {
+        List<CompletableFuture<O>> outputs = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            CompletableFuture<O> output = new CompletableFuture<>();
+            forward(submit(writePermits, write, input, output), output);
+            outputs.add(output);
+        }
+        return await(outputs);
+    }
+
+    /**
+     * Runs a stage on the executor once a permit is granted to the current tenant.
+     *
+     * @param guard the future of the whole topic; once it is done, for example because it was cancelled, the stage
+     *              gives up its place in the queue or is skipped
+     */
+    private <I, O> CompletableFuture<O> submit(FairSemaphore permits, Stage<I, O> stage, I input,
+                                               CompletableFuture<?> guard) {
+        CompletableFuture<O> output = new CompletableFuture<>();
+        CompletableFuture<Void> permit = permits.acquireAsync(TenantContext.current());
+        guard.whenComplete((ignored, error) -> permit.cancel(false));
+        permit.thenRunAsync(Deadline.wrap(TenantContext.wrap(() -> {
+            try {
+                if (guard.isDone()) {
+                    output.cancel(false);
+                } else {
+                    output.complete(stage.apply(input));
+                }
+            } catch (Exception e) {
+                output.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        })), executor).whenComplete((ignored, error) -> {
+            if (error != null) {
+                output.completeExceptionally(error);
+            }
+        });
+        return output;
+    }
+
+    private static <T> void forward(CompletableFuture<T> source, CompletableFuture<T> target) {
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                target.completeExceptionally(error);
+            } else {
+                target.complete(value);
+            }
+        });
+    }
+
+    private static <T> List<T> await(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Topic pipeline was interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                Throwable cause = e.getCause() instanceof CompletionException nested ? nested.getCause() : e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Topic pipeline failed", cause);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A single, possibly blocking, step of the topic pipeline.
+     *
+     * @param <I> input type
+     * @param <O> output type
+     */
+    @FunctionalInterface
+    public interface Stage<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    private static final class PipelineThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "topic-pipeline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import com.waduclay.newsletteragentspringai.tavily.TavilyResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Timers and distribution summaries of the stages of a newsletter run.
+ * <p>
+ * Metrics, all tagged with {@code newsletter}:
+ * <ul>
+ *   <li>{@code workflow.stage} - latency of each run-level stage such as {@code search}, {@code plan},
+ *   {@code research} or {@code edit}, tagged with {@code stage} and {@code outcome}</li>
+ *   <li>{@code workflow.topic} - latency of a per-topic stage, tagged with {@code stage} and {@code outcome}.
+ *   Topics are free text written by the model, so they are not used as a tag; the slowest topic of a run is
+ *   found through the {@code max} of the timer and the log line written for every topic</li>
+ *   <li>{@code workflow.topic.results} and {@code workflow.topic.raw.content.bytes} - size of the research of each
+ *   topic after deduplication</li>
+ * </ul>
+ * Stages served from the run journal are not timed.
+ *
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@Slf4j
+@Component
+public class WorkflowMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public WorkflowMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs and times a run-level stage.
+     *
+     * @param newsletter id of the newsletter
+     * @param stage      name of the stage
+     * @param task       the stage
+     * @param <T>        type of the stage output
+     * @return the stage output
+     * @throws Exception if the stage fails
+     */
+    public <T> T stage(String newsletter, String stage, Callable<T> task) throws Exception {
+        return time("workflow.stage", newsletter, stage, task);
+    }
+
+    /**
+     * Runs and times a per-topic stage, logging its duration with the topic.
+     *
+     * @param newsletter id of the newsletter
+     * @param stage      name of the stage
+     * @param topic      the topic
+     * @param task       the stage
+     * @param <T>        type of the stage output
+     * @return the stage output
+     * @throws Exception if the stage fails
+     */
+    public <T> T topic(String newsletter, String stage, String topic, Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return time("workflow.topic", newsletter, stage, task);
+        } finally {
+            log.info("Newsletter {}: {} of topic '{}' took {} ms", newsletter, stage, topic,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+    }
+
+    /**
+     * Times a per-topic stage of the {@link ReactiveTopicPipeline} from subscription until it completes, fails or
+     * is cancelled, logging its duration with the topic. A cancelled stage is timed with outcome {@code error}.
+     *
+     * @param newsletter id of the newsletter
+     * @param stage      name of the stage
+     * @param topic      the topic
+     * @param task       the stage
+     * @param <T>        type of the stage output
+     * @return the timed stage
+     */
+    public <T> Mono<T> topic(String newsletter, String stage, String topic, Mono<T> task) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return task.doFinally(signal -> {
+                String outcome = signal == SignalType.ON_COMPLETE ? "success" : "error";
+                stop(sample, "workflow.topic", newsletter, stage, outcome);
+                log.info("Newsletter {}: {} of topic '{}' took {} ms", newsletter, stage, topic,
+                        Duration.ofNanos(System.nanoTime() - start).toMillis());
+            });
+        });
+    }
+
+    /**
+     * Records the size of the research of one topic.
+     *
+     * @param newsletter id of the newsletter
+     * @param research   the deduplicated search response of the topic
+     */
+    public void research(String newsletter, TavilyResponse research) {
+        DistributionSummary.builder("workflow.topic.results")
+                .tag("newsletter", newsletter)
+                .description("Search results kept for a topic after deduplication")
+                .register(meterRegistry)
+                .record(research.getResults() == null ? 0 : research.getResults().size());
+        DistributionSummary.builder("workflow.topic.raw.content.bytes")
+                .tag("newsletter", newsletter)
+                .baseUnit("bytes")
+                .description("UTF-8 size of the raw content kept for a topic after deduplication")
+                .register(meterRegistry)
+                .record(research.rawContentBytes());
+    }
+
+    private <T> T time(String name, String newsletter, String stage, Callable<T> task) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T output = task.call();
+            outcome = "success";
+            return output;
+        } finally {
+            stop(sample, name, newsletter, stage, outcome);
+        }
+    }
+
+    private void stop(Timer.Sample sample, String name, String newsletter, String stage, String outcome) {
+        sample.stop(Timer.builder(name)
+                .tag("newsletter", newsletter)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
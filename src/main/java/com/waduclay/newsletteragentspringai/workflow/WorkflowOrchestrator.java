@@ -1,18 +1,45 @@
 package com.waduclay.newsletteragentspringai.workflow;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.waduclay.newsletteragentspringai.agent.CallOptions;
+import com.waduclay.newsletteragentspringai.agent.editor.EditedNewsletter;
 import com.waduclay.newsletteragentspringai.agent.editor.EditorAgent;
 import com.waduclay.newsletteragentspringai.agent.planning.PlanningAgent;
 import com.waduclay.newsletteragentspringai.agent.planning.TopicFormat;
 import com.waduclay.newsletteragentspringai.agent.writer.SectionWriterAgent;
+import com.waduclay.newsletteragentspringai.email.EmailService;
+import com.waduclay.newsletteragentspringai.journal.RunJournal;
+import com.waduclay.newsletteragentspringai.journal.RunJournal.Run;
+import com.waduclay.newsletteragentspringai.llm.LlmCacheMode;
+import com.waduclay.newsletteragentspringai.newsletter.NewsletterDefinition;
+import com.waduclay.newsletteragentspringai.newsletter.NewsletterRegistry;
+import com.waduclay.newsletteragentspringai.research.DeduplicationProperties;
+import com.waduclay.newsletteragentspringai.research.ResultDeduplicator;
+import com.waduclay.newsletteragentspringai.research.ResultDeduplicator.DeduplicationResult;
 import com.waduclay.newsletteragentspringai.tavily.*;
+import com.waduclay.newsletteragentspringai.tenant.TenantContext;
+import com.waduclay.newsletteragentspringai.workflow.ReactiveTopicPipeline.Recovery;
+import com.waduclay.newsletteragentspringai.workflow.RunDeadlines.RunBudget;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,14 +54,21 @@ import java.util.stream.Collectors;
  * 
  * <p>The workflow operates in the following sequence:
  * <ol>
- *   <li>Performs initial web search for AI-related topics using {@link TavilyService}</li>
+ *   <li>Performs the initial web search of a {@link NewsletterDefinition} using {@link TavilyService}</li>
  *   <li>Uses {@link PlanningAgent} to analyze search results and plan newsletter structure</li>
- *   <li>For each planned topic, performs targeted searches and generates content sections</li>
- *   <li>Aggregates all sections and uses {@link EditorAgent} for final editing and email delivery</li>
+ *   <li>For each planned topic, performs targeted searches, removes sources duplicated across topics and
+ *   generates content sections</li>
+ *   <li>Aggregates all sections and uses {@link EditorAgent} for final editing, then hands the edited newsletter
+ *   to {@link EmailService} for delivery, or lets the editor send it through its email tool</li>
  * </ol>
  * 
- * <p>The orchestrator supports both scheduled execution (weekly via cron) and manual invocation.
- * Content generation leverages parallel processing for improved performance when writing multiple sections.
+ * <p>The orchestrator supports both scheduled execution by the
+ * {@link com.waduclay.newsletteragentspringai.newsletter.NewsletterScheduler} and manual invocation. Each run
+ * executes as the tenant of its newsletter, so concurrent newsletters share the topic pipeline and upstream
+ * limiters fairly.
+ * Sections are written concurrently on the bounded {@link TopicPipeline}, or topics are researched and written
+ * without blocking a thread per call on the {@link ReactiveTopicPipeline}. The output of every stage is
+ * checkpointed in the {@link RunJournal}, so a retried run resumes where the failed one stopped.
  *
  * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
  * @since 1.0.0
@@ -42,10 +76,23 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 public class WorkflowOrchestrator {
+    private static final int FALLBACK_SOURCES = 3;
+
     private final TavilyService tavilyService;
     private final PlanningAgent planningAgent;
     private final SectionWriterAgent sectionWriterAgent;
     private final EditorAgent editorAgent;
+    private final TopicPipeline topicPipeline;
+    private final WorkflowProperties workflowProperties;
+    private final ResultDeduplicator resultDeduplicator;
+    private final DeduplicationProperties deduplicationProperties;
+    private final RunJournal runJournal;
+    private final NewsletterRegistry newsletterRegistry;
+    private final EmailService emailService;
+    private final WorkflowMetrics workflowMetrics;
+    private final HierarchicalEditor hierarchicalEditor;
+    private final ReactiveTopicPipeline reactiveTopicPipeline;
+    private final RunDeadlines runDeadlines;
 
     /**
      * Constructs a new WorkflowOrchestrator with the required AI agents and services.
@@ -56,12 +103,50 @@ public class WorkflowOrchestrator {
      * @param planningAgent the AI agent responsible for planning newsletter topics
      * @param sectionWriterAgent the AI agent responsible for writing newsletter sections
      * @param editorAgent the AI agent responsible for editing and finalizing newsletter content
+     * @param topicPipeline the bounded executor running topic research and section writing
+     * @param workflowProperties workflow configuration, including whether model output is streamed
+     * @param resultDeduplicator removes sources duplicated across the research of different topics
+     * @param deduplicationProperties whether cross-topic deduplication is enabled
+     * @param runJournal journal checkpointing the output of every stage of a run
+     * @param newsletterRegistry registry of the configured newsletters
+     * @param emailService service queueing the edited newsletter for delivery in structured editor mode
+     * @param workflowMetrics timers of the stages of a run
+     * @param hierarchicalEditor editor of the newsletter in structured editor mode, splitting large newsletters
+     * @param reactiveTopicPipeline non-blocking pipeline researching and writing topics, when enabled
+     * @param runDeadlines splits the deadline of a run into the deadlines of its stages
      */
-    public WorkflowOrchestrator(TavilyService tavilyService, PlanningAgent planningAgent, SectionWriterAgent sectionWriterAgent, EditorAgent editorAgent) {
+    public WorkflowOrchestrator(TavilyService tavilyService, PlanningAgent planningAgent, SectionWriterAgent sectionWriterAgent,
+                                EditorAgent editorAgent, TopicPipeline topicPipeline, WorkflowProperties workflowProperties,
+                                ResultDeduplicator resultDeduplicator, DeduplicationProperties deduplicationProperties,
+                                RunJournal runJournal, NewsletterRegistry newsletterRegistry,
+                                EmailService emailService, WorkflowMetrics workflowMetrics,
+                                HierarchicalEditor hierarchicalEditor, ReactiveTopicPipeline reactiveTopicPipeline,
+                                RunDeadlines runDeadlines) {
         this.tavilyService = tavilyService;
         this.planningAgent = planningAgent;
         this.sectionWriterAgent = sectionWriterAgent;
         this.editorAgent = editorAgent;
+        this.topicPipeline = topicPipeline;
+        this.workflowProperties = workflowProperties;
+        this.resultDeduplicator = resultDeduplicator;
+        this.deduplicationProperties = deduplicationProperties;
+        this.runJournal = runJournal;
+        this.newsletterRegistry = newsletterRegistry;
+        this.emailService = emailService;
+        this.workflowMetrics = workflowMetrics;
+        this.hierarchicalEditor = hierarchicalEditor;
+        this.reactiveTopicPipeline = reactiveTopicPipeline;
+        this.runDeadlines = runDeadlines;
+    }
+
+    /**
+     * Creates the primary newsletter of the {@link NewsletterRegistry}.
+     *
+     * @throws RuntimeException if newsletter creation fails due to search, planning, or writing errors
+     * @see #createNewsletter(NewsletterDefinition)
+     */
+    public void createNewsletter() {
+        createNewsletter(newsletterRegistry.primary());
     }
 
     /**
@@ -69,45 +154,141 @@ public class WorkflowOrchestrator {
      * <p>
      * This method orchestrates the entire newsletter creation process:
      * <ol>
-     *   <li>Performs initial search for "AI agent workflows project ideas" within the past week</li>
+     *   <li>Performs the initial search of the newsletter's seed query</li>
      *   <li>Uses {@link PlanningAgent} to analyze results and generate a structured topic plan</li>
      *   <li>For each planned topic, performs targeted searches and generates content sections in parallel</li>
      *   <li>Aggregates all sections and uses {@link EditorAgent} for final editing and distribution</li>
      * </ol>
+     *
+     * <p><strong>Delivery:</strong> In {@link EditorMode#STRUCTURED} mode the editor only returns the subject and
+     * HTML body, and the newsletter is queued for delivery by this method; the queued message is checkpointed, so a
+     * resumed run does not send it twice. In {@link EditorMode#TOOL} mode the editor sends it through its email
+     * tool. Newsletters large enough to be edited by the {@link HierarchicalEditor} are always delivered as in
+     * structured mode, since no single editor call sees the whole newsletter.
      * 
-     * <p><strong>Scheduling:</strong> This method is automatically executed every Sunday at 1:00 AM
-     * as configured by the {@code @Scheduled} annotation.
+     * <p><strong>Scheduling:</strong> This method is executed by the
+     * {@link com.waduclay.newsletteragentspringai.newsletter.NewsletterScheduler} on the newsletter's cron
+     * schedule.
      * 
      * <p><strong>Error Handling:</strong> Uses {@code @SneakyThrows} to handle checked exceptions.
-     * Any {@link IOException} during section writing is wrapped in a {@link RuntimeException}.
+     * With {@link DeadlineProperties#enabled()}, the run has a deadline split across its stages by
+     * {@link RunDeadlines}. A topic whose search fails or misses the research deadline is dropped, and a topic
+     * whose section cannot be written by the write deadline is replaced with a short blurb listing its sources;
+     * the editor is told which topics were dropped. Each section gets an equal share of the time left until the
+     * write deadline as its writing starts. The run only fails if the initial search, planning or editing
+     * fails or misses its deadline, or if no topic is left. With deadlines disabled, a failure while researching
+     * or writing any topic aborts the run. Stages that completed before the failure are kept in the
+     * {@link RunJournal}, and the next invocation within the resume window continues the unfinished run, redoing
+     * only the missing stages and topics; dropped topics and fallback blurbs are not checkpointed.
      * 
-     * <p><strong>Performance:</strong> Section writing is performed in parallel using parallel streams
-     * to optimize processing time for multiple topics.
+     * <p><strong>Performance:</strong> All topics are searched in one {@link TavilyService#searchAll(List)} batch,
+     * so identical searches are coalesced and, unless disabled via {@link DeduplicationProperties}, each source
+     * is kept only for the topic it is most relevant to. With {@link WorkflowProperties#streamPlanning()} enabled,
+     * the search of each topic starts as soon as the planner has generated it. Sections are then written on the
+     * {@link TopicPipeline}, whose write concurrency is configured via {@link WorkflowProperties}, and keep the
+     * planned topic order. With {@link ReactivePipelineProperties#enabled()}, topics are researched and written on
+     * the {@link ReactiveTopicPipeline} instead, streaming the sections from the model.
      *
+     * @param newsletter the newsletter to create
      * @throws RuntimeException if newsletter creation fails due to search, planning, or writing errors
      */
     @SneakyThrows
-    @Scheduled(cron = "0 0 1 * * SUN")
-    public void createNewsletter() {
-        TavilySearch searchQuery = new TavilySearch("AI agent workflows project ideas");
-        searchQuery.setTimeRange(TimeRange.week);
-        TavilyResponse tavilyResponse = tavilyService.search(searchQuery);
-        TopicFormat plannedTopics = planningAgent.plan(tavilyResponse);
-        log.info("Planned topics: {}", plannedTopics);
-        String newsletterSections = plannedTopics.topics().parallelStream()
-                .map(this::searchForTopic)
-                .map(query -> {
-                    try {
-                        return sectionWriterAgent.write(query.tavilyResponse, query.topic());
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                })
-                .collect(Collectors.joining("\n\n\n"));
+    public void createNewsletter(NewsletterDefinition newsletter) {
+        createNewsletter(newsletter, runJournal.resumeOrStart(newsletter.id()), CallOptions.DEFAULT);
+    }
 
-        String response = editorAgent.edit(newsletterSections, plannedTopics.title());
-        log.info("Editor response: {}", response);
+    /**
+     * Creates a newsletter as part of the given run, reusing every stage the run already completed.
+     *
+     * @param newsletter the newsletter to create
+     * @param runId id of the run to create or resume
+     * @throws RuntimeException if newsletter creation fails due to search, planning, or writing errors
+     */
+    public void createNewsletter(NewsletterDefinition newsletter, String runId) {
+        createNewsletter(newsletter, runId, LlmCacheMode.USE);
+    }
+
+    /**
+     * Creates a newsletter as part of the given run, choosing how planning and section writing use the LLM
+     * response cache. {@link LlmCacheMode#BYPASS} forces fresh model calls for this run only, while
+     * {@link LlmCacheMode#REFRESH} also replaces the cached responses.
+     *
+     * @param newsletter the newsletter to create
+     * @param runId id of the run to create or resume
+     * @param cacheMode how the agents of this run use the LLM response cache
+     * @throws RuntimeException if newsletter creation fails due to search, planning, or writing errors
+     */
+    @SneakyThrows
+    public void createNewsletter(NewsletterDefinition newsletter, String runId, LlmCacheMode cacheMode) {
+        createNewsletter(newsletter, runJournal.open(newsletter.id(), runId), new CallOptions(cacheMode));
+    }
+
+    private void createNewsletter(NewsletterDefinition newsletter, Run run, CallOptions options) throws Exception {
+        TenantContext.callAs(newsletter.id(), () -> workflowMetrics.stage(newsletter.id(), "run", () -> {
+            createNewsletterAsTenant(newsletter, run, options);
+            return null;
+        }));
+    }
+
+    private void createNewsletterAsTenant(NewsletterDefinition newsletter, Run run, CallOptions options)
+            throws Exception {
+        log.info("Creating newsletter {} in run {}", newsletter.id(), run.id());
+        TavilySearch searchQuery = new TavilySearch(newsletter.seedQuery());
+        searchQuery.setTimeRange(newsletter.seedTimeRange());
+        restrictDomains(searchQuery, newsletter);
+        String id = newsletter.id();
+        RunBudget budget = runDeadlines.start();
+        TavilyResponse tavilyResponse = run.stage("search", TavilyResponse.class,
+                () -> budget.search().call("Search", () -> workflowMetrics.stage(id, "search",
+                        () -> budget.search().isBounded()
+                                ? tavilyService.search(searchQuery, budget.search().remaining())
+                                : tavilyService.search(searchQuery))));
+        Map<String, CompletableFuture<TavilyResponse>> prefetched = new ConcurrentHashMap<>();
+        TopicFormat plannedTopics = run.stage("plan", TopicFormat.class,
+                () -> budget.plan().call("Planning", () -> workflowMetrics.stage(id, "plan",
+                        () -> workflowProperties.streamPlanning()
+                                ? planningAgent.plan(tavilyResponse, options, topic -> prefetched.computeIfAbsent(
+                                topic, planned -> tavilyService.searchAsync(createTopicSearch(newsletter, planned))))
+                                : planningAgent.plan(tavilyResponse, options))));
+        log.info("Planned topics for newsletter {}: {}", newsletter.id(), plannedTopics);
+        Map<String, String> dropped = new ConcurrentHashMap<>();
+        List<String> written;
+        if (reactiveTopicPipeline.isEnabled()) {
+            written = workflowMetrics.stage(id, "topics", () -> researchAndWriteReactively(newsletter, run,
+                    plannedTopics.topics(), prefetched, options, budget, dropped));
+        } else {
+            AtomicInteger unwritten = new AtomicInteger(plannedTopics.topics().size());
+            written = topicPipeline.researchThenWrite(plannedTopics.topics(),
+                    topics -> workflowMetrics.stage(id, "research",
+                            () -> researchTopics(newsletter, run, topics, prefetched, budget.research(), dropped)),
+                    query -> writeTopic(id, run, query, options, budget.write(), unwritten, dropped));
+        }
+        List<String> sections = written.stream().filter(section -> !section.isBlank()).toList();
+        List<String> droppedTopics = plannedTopics.topics().stream().filter(dropped::containsKey).toList();
+        if (!droppedTopics.isEmpty()) {
+            log.warn("Dropped topics of newsletter {}: {}", newsletter.id(), dropped);
+        }
+        if (sections.isEmpty()) {
+            throw new RuntimeException("No topic of newsletter " + newsletter.id() + " could be researched or written: "
+                    + dropped);
+        }
 
+        if (workflowProperties.editorMode() == EditorMode.STRUCTURED || hierarchicalEditor.isLarge(sections)) {
+            EditedNewsletter edited = run.stage("edited", EditedNewsletter.class, () -> budget.edit().call("Editing",
+                    () -> workflowMetrics.stage(id, "edit",
+                            () -> hierarchicalEditor.compose(sections, plannedTopics.title(), droppedTopics))));
+            String messageId = run.stage("delivery", String.class, () -> workflowMetrics.stage(id, "delivery",
+                    () -> emailService.send(edited.subject(), edited.html(), newsletter.recipients()).id()));
+            log.info("Newsletter {} '{}' queued for delivery as {}", newsletter.id(), edited.subject(), messageId);
+        } else {
+            String newsletterSections = String.join(HierarchicalEditor.SECTION_SEPARATOR, sections)
+                    + editorAgent.droppedTopicsNote(droppedTopics);
+            String response = run.stage("newsletter", String.class, () -> budget.edit().call("Editing",
+                    () -> workflowMetrics.stage(id, "edit", () -> editorAgent.edit(newsletterSections,
+                            plannedTopics.title(), newsletter.recipients()))));
+            log.info("Editor response for newsletter {}: {}", newsletter.id(), response);
+        }
+        run.complete();
     }
 
     /**
@@ -115,42 +296,347 @@ public class WorkflowOrchestrator {
      * <p>
      * The search is configured with:
      * <ul>
-     *   <li>Time range: Past month ({@link TimeRange#month})</li>
+     *   <li>Time range: the newsletter's topic time range, by default the past month</li>
      *   <li>Include raw content: Text only ({@link RawContent#text})</li>
+     *   <li>Included domains: the newsletter's domains, if configured</li>
      * </ul>
      * 
      * <p>This configuration ensures comprehensive coverage for topic research
      * while focusing on textual content suitable for newsletter writing.
      *
+     * @param newsletter the newsletter the topic belongs to
      * @param topic the topic to search for
      * @return configured TavilySearch instance ready for execution
      */
-    private TavilySearch createTopicSearch(String topic) {
+    private TavilySearch createTopicSearch(NewsletterDefinition newsletter, String topic) {
         TavilySearch tavilySearch = new TavilySearch(topic);
-        tavilySearch.setTimeRange(TimeRange.month);
+        tavilySearch.setTimeRange(newsletter.topicTimeRange());
         tavilySearch.setIncludeRawContent(RawContent.text);
+        restrictDomains(tavilySearch, newsletter);
         return tavilySearch;
     }
 
     /**
-     * Performs a web search for a specific topic and returns the results wrapped in a Query record.
+     * Applies the newsletter's domains to a search, keeping the default domains when none are configured. An
+     * empty list removes the restriction.
+     */
+    private static void restrictDomains(TavilySearch search, NewsletterDefinition newsletter) {
+        if (newsletter.includeDomains() != null) {
+            search.setIncludeDomains(newsletter.includeDomains().isEmpty() ? null : newsletter.includeDomains());
+        }
+    }
+
+    /**
+     * Searches all planned topics in one batch and pairs each search response with its topic.
+     * <p>
+     * Topics whose research the run already checkpointed are not searched again, and topics whose search was
+     * started while the plan was streamed reuse it. Identical topic searches are coalesced by
+     * {@link TavilyService#searchAll(List)}. Unless disabled, sources returned for several topics are then
+     * deduplicated, and the research of every newly searched topic is checkpointed.
      * <p>
-     * This method creates a topic-specific search configuration and executes it via {@link TavilyService}.
-     * The search results are then paired with the original topic for downstream processing.
+     * When the run has a deadline, searches still running at the deadline are given up on, and a topic whose
+     * search failed or timed out is dropped: its query has no search response and is not checkpointed.
      *
-     * @param topic the topic to search for
-     * @return Query record containing the search response and original topic
-     * @throws RuntimeException if the search operation fails due to JSON processing errors
+     * @param newsletter the newsletter being researched
+     * @param run the run the research belongs to
+     * @param topics the planned topics
+     * @param prefetched searches started while the plan was streamed, by topic
+     * @param deadline deadline of the research
+     * @param dropped collects the dropped topics with the reason they were dropped
+     * @return Query records containing the search response and original topic, in topic order
+     * @throws RuntimeException if the search for any topic fails and the run has no deadline
+     */
+    private List<Query> researchTopics(NewsletterDefinition newsletter, Run run, List<String> topics,
+                                       Map<String, CompletableFuture<TavilyResponse>> prefetched, Deadline deadline,
+                                       Map<String, String> dropped) {
+        List<Query> queries = new ArrayList<>(Collections.nCopies(topics.size(), null));
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < topics.size(); i++) {
+            int topic = i;
+            run.read(RunJournal.topicEntry(topics.get(i), "query"), Query.class)
+                    .ifPresentOrElse(query -> queries.set(topic, query), () -> missing.add(topic));
+        }
+        cancelUnplanned(topics, prefetched);
+        if (missing.isEmpty()) {
+            prefetched.values().forEach(search -> search.cancel(false));
+            return queries;
+        }
+
+        List<Integer> unsearched = missing.stream().filter(i -> !prefetched.containsKey(topics.get(i))).toList();
+        List<TavilySearch> requests = unsearched.stream()
+                .map(i -> createTopicSearch(newsletter, topics.get(i)))
+                .toList();
+        List<TavilySearchResult> searched = deadline.isBounded()
+                ? tavilyService.searchAll(requests, deadline.remaining())
+                : tavilyService.searchAll(requests);
+        List<TavilySearchResult> results = new ArrayList<>(missing.size());
+        for (int topic : missing) {
+            CompletableFuture<TavilyResponse> search = prefetched.get(topics.get(topic));
+            TavilySearch request = createTopicSearch(newsletter, topics.get(topic));
+            results.add(search == null ? searched.get(unsearched.indexOf(topic))
+                    : deadline.isBounded()
+                    ? tavilyService.await(request, search, deadline.remaining())
+                    : awaitPrefetched(request, search));
+        }
+        List<Query> researched = new ArrayList<>(queries);
+        for (int i = 0; i < missing.size(); i++) {
+            int topic = missing.get(i);
+            TavilySearchResult result = results.get(i);
+            if (!result.isSuccess()) {
+                if (!runDeadlines.isEnabled()) {
+                    throw new RuntimeException("Failed to search for topic: " + topics.get(topic), result.error());
+                }
+                dropped.put(topics.get(topic), "search failed: " + result.error());
+            }
+            researched.set(topic, new Query(result.isSuccess() ? result.response() : null, topics.get(topic)));
+        }
+        if (deduplicationProperties.enabled()) {
+            researched = deduplicate(researched);
+        }
+        for (int topic : missing) {
+            queries.set(topic, researched.get(topic));
+            checkpoint(newsletter.id(), run, researched.get(topic));
+        }
+        return queries;
+    }
+
+    /**
+     * Researches and writes the planned topics on the {@link ReactiveTopicPipeline}.
+     * <p>
+     * Research and sections the run already checkpointed are reused, and searches started while the plan was
+     * streamed are joined. When cross-topic deduplication is enabled, sections are written once all topics are
+     * researched and deduplicated; otherwise each section is written as soon as its research arrives. Research
+     * and sections are checkpointed on the bounded elastic scheduler.
+     * <p>
+     * When the run has a deadline, topics are dropped and sections replaced as by {@link #researchTopics} and
+     * {@link #writeTopic}.
+     *
+     * @param newsletter the newsletter being created
+     * @param run the run the topics belong to
+     * @param topics the planned topics
+     * @param prefetched searches started while the plan was streamed, by topic
+     * @param options per-call options of the run
+     * @param budget deadlines of the run
+     * @param dropped collects the dropped topics with the reason they were dropped
+     * @return the written sections, in topic order, with an empty string for every topic dropped entirely
+     */
+    private List<String> researchAndWriteReactively(NewsletterDefinition newsletter, Run run, List<String> topics,
+                                                    Map<String, CompletableFuture<TavilyResponse>> prefetched,
+                                                    CallOptions options, RunBudget budget,
+                                                    Map<String, String> dropped) {
+        String id = newsletter.id();
+        Map<String, Query> checkpointed = new HashMap<>();
+        for (String topic : topics) {
+            run.read(RunJournal.topicEntry(topic, "query"), Query.class)
+                    .ifPresent(query -> checkpointed.put(topic, query));
+        }
+        cancelUnplanned(topics, prefetched);
+        checkpointed.keySet().stream()
+                .map(prefetched::remove)
+                .filter(Objects::nonNull)
+                .forEach(search -> search.cancel(false));
+
+        Function<String, Mono<Research>> search = topic -> checkpointed.containsKey(topic)
+                ? Mono.just(new Research(checkpointed.get(topic), true))
+                : workflowMetrics.topic(id, "search", topic, searchTopic(newsletter, topic, prefetched))
+                .map(response -> new Research(new Query(response, topic), false));
+        Function<Research, Mono<String>> write = research -> research.query().tavilyResponse() == null
+                ? Mono.just("") : writeSectionReactively(id, run, research.query(), options);
+        Recovery<Research> recovery = runDeadlines.isEnabled() ? new Recovery<>() {
+            @Override
+            public Mono<Research> search(String topic, Throwable error) {
+                dropped.put(topic, "search failed: " + error);
+                return Mono.just(new Research(new Query(null, topic), false));
+            }
+
+            @Override
+            public Mono<String> write(Research research, Throwable error) {
+                dropped.put(research.query().topic(), "writing failed: " + error);
+                return Mono.just(fallbackSection(research.query()));
+            }
+        } : Recovery.failFast();
+        if (deduplicationProperties.enabled()) {
+            return reactiveTopicPipeline.researchThenWrite(topics, search,
+                    researched -> checkpointDeduplicated(id, run, researched), write, budget, recovery);
+        }
+        return reactiveTopicPipeline.run(topics, search.andThen(research -> research.flatMap(topicResearch ->
+                topicResearch.checkpointed() ? Mono.just(topicResearch) : Mono.fromCallable(() -> {
+                    checkpoint(id, run, topicResearch.query());
+                    return topicResearch;
+                }).subscribeOn(Schedulers.boundedElastic()))), write, budget, recovery);
+    }
+
+    /**
+     * Joins the search of a topic started while the plan was streamed, or starts a non-blocking one.
+     */
+    private Mono<TavilyResponse> searchTopic(NewsletterDefinition newsletter, String topic,
+                                             Map<String, CompletableFuture<TavilyResponse>> prefetched) {
+        CompletableFuture<TavilyResponse> search = prefetched.get(topic);
+        return search != null ? Mono.fromFuture(search)
+                : tavilyService.searchReactive(createTopicSearch(newsletter, topic));
+    }
+
+    /**
+     * Deduplicates the research of all topics and checkpoints the newly searched topics, keeping checkpointed
+     * research unchanged as {@link #researchTopics} does.
+     */
+    private List<Research> checkpointDeduplicated(String newsletter, Run run, List<Research> researched) {
+        List<Query> deduplicated = deduplicate(researched.stream().map(Research::query).toList());
+        List<Research> reconciled = new ArrayList<>(researched.size());
+        for (int i = 0; i < researched.size(); i++) {
+            if (researched.get(i).checkpointed()) {
+                reconciled.add(researched.get(i));
+            } else {
+                checkpoint(newsletter, run, deduplicated.get(i));
+                reconciled.add(new Research(deduplicated.get(i), false));
+            }
+        }
+        return reconciled;
+    }
+
+    /**
+     * Records and checkpoints the research of a topic, unless the topic was dropped.
+     */
+    private void checkpoint(String newsletter, Run run, Query query) {
+        if (query.tavilyResponse() == null) {
+            return;
+        }
+        workflowMetrics.research(newsletter, query.tavilyResponse());
+        run.write(RunJournal.topicEntry(query.topic(), "query"), query);
+    }
+
+    /**
+     * Streams the section of a researched topic, unless the run already checkpointed it, and checkpoints it.
+     */
+    private Mono<String> writeSectionReactively(String newsletter, Run run, Query query, CallOptions options) {
+        String entry = RunJournal.topicEntry(query.topic(), "section");
+        return Mono.fromCallable(() -> run.read(entry, String.class))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(checkpointed -> checkpointed.map(Mono::just).orElseGet(() -> workflowMetrics.topic(
+                                newsletter, "section", query.topic(), Flux.defer(() -> sectionWriterAgent.stream(
+                                                query.tavilyResponse(), query.topic(), options))
+                                        .collect(StringBuilder::new, StringBuilder::append)
+                                        .map(StringBuilder::toString))
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(section -> run.write(entry, section))));
+    }
+
+    /**
+     * Cancels searches started while the plan was streamed for topics that did not make it into the final plan.
+     */
+    private static void cancelUnplanned(List<String> topics,
+                                        Map<String, CompletableFuture<TavilyResponse>> prefetched) {
+        prefetched.forEach((topic, search) -> {
+            if (!topics.contains(topic)) {
+                search.cancel(false);
+            }
+        });
+    }
+
+    /**
+     * Waits for a search started while the plan was streamed.
      */
-    private Query searchForTopic(String topic) {
-        TavilySearch topicSearch = createTopicSearch(topic);
+    private static TavilySearchResult awaitPrefetched(TavilySearch request, CompletableFuture<TavilyResponse> search) {
         try {
-            return new Query(tavilyService.search(topicSearch), topic);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to search for topic: " + topic, e);
+            return TavilySearchResult.success(request, search.join());
+        } catch (CompletionException e) {
+            return TavilySearchResult.failure(request, e.getCause());
+        } catch (CancellationException e) {
+            return TavilySearchResult.failure(request, e);
         }
     }
 
+    /**
+     * Removes sources that were found for several topics, keeping each for the topic it is most relevant to.
+     * <p>
+     * The searched responses may be shared with the Tavily cache, so new responses are built instead of
+     * modifying them. Dropped topics have no sources and stay dropped.
+     *
+     * @param queries the research of every topic, in topic order
+     * @return the deduplicated research, in topic order
+     */
+    private List<Query> deduplicate(List<Query> queries) {
+        List<String> topics = queries.stream().map(Query::topic).toList();
+        List<List<ResultsItem>> results = queries.stream()
+                .map(query -> query.tavilyResponse() == null || query.tavilyResponse().getResults() == null
+                        ? List.<ResultsItem>of() : query.tavilyResponse().getResults())
+                .toList();
+        DeduplicationResult deduplication = resultDeduplicator.deduplicate(topics, results);
+
+        List<Query> deduplicated = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).tavilyResponse() == null) {
+                deduplicated.add(queries.get(i));
+                continue;
+            }
+            TavilyResponse response = new TavilyResponse();
+            response.setQuery(queries.get(i).tavilyResponse().getQuery());
+            response.setResults(deduplication.resultsFor(i));
+            deduplicated.add(new Query(response, queries.get(i).topic()));
+        }
+        return deduplicated;
+    }
+
+    /**
+     * Writes and checkpoints the section of a researched topic on the {@link TopicPipeline}, unless the run
+     * already checkpointed it.
+     * <p>
+     * A dropped topic gets no section. When the run has a deadline, each topic gets its
+     * {@link Deadline#share(int, int) share} of the time left until the write deadline as it starts, so topics
+     * queued behind others are not left with whatever time remains. A section that cannot be written by its
+     * deadline is replaced with {@link #fallbackSection(Query)}, which is not checkpointed.
+     *
+     * @param unwritten number of topics of the run whose section is not written yet; decremented once this one is
+     * @return the section, or an empty string if the topic was dropped
+     */
+    private String writeTopic(String newsletter, Run run, Query query, CallOptions options, Deadline deadline,
+                              AtomicInteger unwritten, Map<String, String> dropped) throws Exception {
+        try {
+            if (query.tavilyResponse() == null) {
+                return "";
+            }
+            Deadline topicDeadline = deadline.share(workflowProperties.writeConcurrency(), unwritten.get());
+            return run.stage(RunJournal.topicEntry(query.topic(), "section"), String.class,
+                    () -> topicDeadline.call("Writing of topic '" + query.topic() + "'",
+                            () -> workflowMetrics.topic(newsletter, "section", query.topic(),
+                                    () -> sectionWriterAgent.write(query.tavilyResponse(), query.topic(), options))));
+        } catch (Exception e) {
+            if (!runDeadlines.isEnabled()) {
+                throw e;
+            }
+            log.warn("Writing of topic '{}' failed, using a fallback section", query.topic(), e);
+            dropped.put(query.topic(), "writing failed: " + e);
+            return fallbackSection(query);
+        } finally {
+            unwritten.decrementAndGet();
+        }
+    }
+
+    /**
+     * Builds a short section for a topic whose section could not be written, linking its top sources.
+     *
+     * @return the section, or an empty string if the topic has no sources to link
+     */
+    private static String fallbackSection(Query query) {
+        List<ResultsItem> sources = query.tavilyResponse().getResults() == null ? List.of()
+                : query.tavilyResponse().getResults().stream()
+                .filter(source -> source.getUrl() != null)
+                .limit(FALLBACK_SOURCES)
+                .toList();
+        if (sources.isEmpty()) {
+            return "";
+        }
+        String links = sources.stream()
+                .map(source -> "<li><a href=\"" + HtmlUtils.htmlEscape(source.getUrl()) + "\">"
+                        + HtmlUtils.htmlEscape(source.getTitle() == null ? source.getUrl() : source.getTitle())
+                        + "</a></li>")
+                .collect(Collectors.joining("\n"));
+        return "<h2>" + HtmlUtils.htmlEscape(query.topic()) + "</h2>\n"
+                + "<p>We could not cover this topic in full for this issue. "
+                + "These sources are a good place to start:</p>\n"
+                + "<ul>\n" + links + "\n</ul>";
+    }
+
     /**
      * Data transfer object that pairs a Tavily search response with its corresponding topic.
      * <p>
@@ -163,4 +649,13 @@ public class WorkflowOrchestrator {
     public record Query(TavilyResponse tavilyResponse, String topic) {
     }
 
+    /**
+     * Research of a topic on the {@link ReactiveTopicPipeline}.
+     *
+     * @param query the topic together with its search results
+     * @param checkpointed whether the research was read from the run journal rather than searched in this run
+     */
+    private record Research(Query query, boolean checkpointed) {
+    }
+
 }
@@ -0,0 +1,27 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration for the newsletter workflow.
+ *
+ * @param searchConcurrency maximum number of topic searches running at the same time on the
+ *                          {@link ReactiveTopicPipeline}. The blocking {@link TopicPipeline} searches all topics
+ *                          in one batch, bounded by {@code tavily.max-concurrency} instead
+ * @param writeConcurrency  maximum number of sections being written at the same time
+ * @param editorMode        whether the editor returns the newsletter for the orchestrator to send, or sends it
+ *                          itself through the email tool
+ * @param streamPlanning    whether the plan is streamed from the model and each topic's search starts as soon as the
+ *                          topic is generated, instead of after the whole plan
+ * @author <a href="mailto:developer.wadu@gmail.com">Willdom Kahari</a>
+ */
+@ConfigurationProperties(prefix = "workflow")
+public record WorkflowProperties(
+        @DefaultValue("4") int searchConcurrency,
+        @DefaultValue("2") int writeConcurrency,
+        @DefaultValue("structured") EditorMode editorMode,
+        @DefaultValue("true") boolean streamPlanning
+) {
+}
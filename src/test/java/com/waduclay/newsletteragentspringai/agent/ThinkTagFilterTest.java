@@ -0,0 +1,81 @@
+package com.waduclay.newsletteragentspringai.agent;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThinkTagFilterTest {
+
+    @Test
+    void removesBlocksFromCompleteOutput() {
+        assertThat(ThinkTagFilter.strip("<think>plan</think><h2>Agents</h2>")).isEqualTo("<h2>Agents</h2>");
+        assertThat(ThinkTagFilter.strip("a<think>x</think>b<think>y</think>c")).isEqualTo("abc");
+    }
+
+    @Test
+    void handlesOpeningTagSplitAcrossChunks() {
+        assertThat(feed("<thi", "nk>hidden</think>visible")).isEqualTo("visible");
+    }
+
+    @Test
+    void handlesClosingTagSplitAcrossChunks() {
+        assertThat(feed("<think>hidden</thi", "nk>visible")).isEqualTo("visible");
+    }
+
+    @Test
+    void handlesTagsSplitIntoSingleCharacters() {
+        String output = "before<think>hidden</think>after";
+        assertThat(feed(output.split(""))).isEqualTo("beforeafter");
+    }
+
+    @Test
+    void removesNestedBlocksUpToTheOutermostClosingTag() {
+        assertThat(ThinkTagFilter.strip("a<think>x<think>y</think>z</think>b")).isEqualTo("ab");
+        assertThat(feed("a<think>x<thi", "nk>y</think>z</th", "ink>b")).isEqualTo("ab");
+    }
+
+    @Test
+    void dropsUnterminatedBlock() {
+        assertThat(ThinkTagFilter.strip("visible<think>never closed")).isEqualTo("visible");
+        assertThat(feed("visible<think>never ", "closed</thi")).isEqualTo("visible");
+    }
+
+    @Test
+    void keepsStrayClosingTag() {
+        assertThat(ThinkTagFilter.strip("a</think>b")).isEqualTo("a</think>b");
+    }
+
+    @Test
+    void keepsLiteralAngleBrackets() {
+        assertThat(feed("1 <", " 2 and <b>bold</b> <th", "ead>")).isEqualTo("1 < 2 and <b>bold</b> <thead>");
+        assertThat(feed("ends with <")).isEqualTo("ends with <");
+        assertThat(feed("ends with <thin")).isEqualTo("ends with <thin");
+    }
+
+    @Test
+    void holdsBackOnlyWhatCouldStillBecomeATag() {
+        ThinkTagFilter filter = new ThinkTagFilter();
+
+        assertThat(filter.accept("text <thi")).isEqualTo("text ");
+        assertThat(filter.accept("s is not a tag")).isEqualTo("<this is not a tag");
+        assertThat(filter.finish()).isEmpty();
+    }
+
+    @Test
+    void stripsStreamedChunksWithoutEmittingEmptyChunks() {
+        assertThat(ThinkTagFilter.strip(Flux.just("<think>", "plan", "</think>", "<h2>", "Agents</h2>"))
+                .collectList()
+                .block())
+                .containsExactly("<h2>", "Agents</h2>");
+    }
+
+    private static String feed(String... chunks) {
+        ThinkTagFilter filter = new ThinkTagFilter();
+        StringBuilder visible = new StringBuilder();
+        for (String chunk : chunks) {
+            visible.append(filter.accept(chunk));
+        }
+        return visible.append(filter.finish()).toString();
+    }
+}
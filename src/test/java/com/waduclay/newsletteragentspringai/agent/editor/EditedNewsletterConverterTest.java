@@ -0,0 +1,94 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EditedNewsletterConverterTest {
+
+    private final EditedNewsletterConverter converter = new EditedNewsletterConverter();
+
+    @Test
+    void parsesTheSubjectAndTheBody() {
+        EditedNewsletter newsletter = converter.convert("""
+                **Subject:** Agents everywhere
+
+                Content:
+                <h1>Agents</h1>
+                <p>Hello</p>""");
+
+        assertThat(newsletter.subject()).isEqualTo("Agents everywhere");
+        assertThat(newsletter.html()).isEqualTo("<h1>Agents</h1>\n<p>Hello</p>");
+    }
+
+    @Test
+    void keepsHeaderLikeLinesOfTheBodyInTheBody() {
+        EditedNewsletter newsletter = converter.convert("""
+                <h1>Agents</h1>
+                Subject: not a header
+                Content:
+                <p>Hello</p>""");
+
+        assertThat(newsletter.subject()).isNull();
+        assertThat(newsletter.html()).isEqualTo("<h1>Agents</h1>\nSubject: not a header\nContent:\n<p>Hello</p>");
+    }
+
+    @Test
+    void leavesAMissingSubjectEmpty() {
+        EditedNewsletter newsletter = converter.convert("""
+                Content:
+                <h1>Agents</h1>
+                <p>Subject: agents</p>""");
+
+        assertThat(newsletter.subject()).isNull();
+        assertThat(newsletter.html()).isEqualTo("<h1>Agents</h1>\n<p>Subject: agents</p>");
+    }
+
+    @Test
+    void takesEverythingAfterTheSubjectWithoutAContentLine() {
+        EditedNewsletter newsletter = converter.convert("""
+                Subject: Agents everywhere
+                <h1>Agents</h1>
+                Content:
+                <p>Hello</p>""");
+
+        assertThat(newsletter.subject()).isEqualTo("Agents everywhere");
+        assertThat(newsletter.html()).isEqualTo("<h1>Agents</h1>\nContent:\n<p>Hello</p>");
+    }
+
+    @Test
+    void removesCodeFences() {
+        EditedNewsletter aroundResponse = converter.convert("""
+                ```markdown
+                Subject: Agents everywhere
+
+                Content:
+                <h1>Agents</h1>
+                ```""");
+        EditedNewsletter aroundBody = converter.convert("""
+                Subject: Agents everywhere
+                Content:
+                ```html
+                <h1>Agents</h1>
+                ```""");
+
+        assertThat(aroundResponse.subject()).isEqualTo("Agents everywhere");
+        assertThat(aroundResponse.html()).isEqualTo("<h1>Agents</h1>");
+        assertThat(aroundBody.subject()).isEqualTo("Agents everywhere");
+        assertThat(aroundBody.html()).isEqualTo("<h1>Agents</h1>");
+    }
+
+    @Test
+    void removesReasoningBeforeTheSubject() {
+        EditedNewsletter newsletter = converter.convert("""
+                <think>
+                Subject: a draft subject
+                </think>
+                Subject: Agents everywhere
+                Content:
+                <h1>Agents</h1>""");
+
+        assertThat(newsletter.subject()).isEqualTo("Agents everywhere");
+        assertThat(newsletter.html()).isEqualTo("<h1>Agents</h1>");
+    }
+}
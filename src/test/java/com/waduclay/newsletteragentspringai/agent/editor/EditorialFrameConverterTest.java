@@ -0,0 +1,48 @@
+package com.waduclay.newsletteragentspringai.agent.editor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EditorialFrameConverterTest {
+
+    private static final String FRAME = """
+            {"subject": "Agents everywhere", "introduction": "<p>Hello</p>", "sectionOrder": [2, 1],
+             "transitions": ["First up", "Then"], "conclusion": "<p>Bye</p>"}""";
+
+    private final EditorialFrameConverter converter = new EditorialFrameConverter();
+
+    @Test
+    void parsesTheFrame() {
+        EditorialFrame frame = converter.convert(FRAME);
+
+        assertThat(frame.subject()).isEqualTo("Agents everywhere");
+        assertThat(frame.introduction()).isEqualTo("<p>Hello</p>");
+        assertThat(frame.sectionOrder()).containsExactly(2, 1);
+        assertThat(frame.transitions()).containsExactly("First up", "Then");
+        assertThat(frame.conclusion()).isEqualTo("<p>Bye</p>");
+    }
+
+    @Test
+    void removesReasoningBeforeTheJson() {
+        EditorialFrame frame = converter.convert("<think>Order by {importance}</think>\n" + FRAME);
+
+        assertThat(frame.subject()).isEqualTo("Agents everywhere");
+    }
+
+    @Test
+    void removesCodeFencesAroundTheJson() {
+        EditorialFrame frame = converter.convert("<think>plan</think>\n```json\n" + FRAME + "\n```");
+
+        assertThat(frame.sectionOrder()).containsExactly(2, 1);
+    }
+
+    @Test
+    void leavesMissingFieldsEmpty() {
+        EditorialFrame frame = converter.convert("{\"subject\": \"Agents everywhere\"}");
+
+        assertThat(frame.subject()).isEqualTo("Agents everywhere");
+        assertThat(frame.sectionOrder()).isNull();
+        assertThat(frame.transitions()).isNull();
+    }
+}
@@ -0,0 +1,148 @@
+package com.waduclay.newsletteragentspringai.agent.planning;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopicStreamParserTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final List<String> topics = new ArrayList<>();
+
+    @Test
+    void handsOutEachTopicAsSoonAsItIsComplete() throws IOException {
+        TopicStreamParser parser = new TopicStreamParser(jsonFactory, topics::add);
+
+        parser.accept("{\"title\": \"Weekly\", \"topics\": [\"AI agents\", \"Tool ca");
+        assertThat(topics).containsExactly("AI agents");
+        assertThat(parser.isComplete()).isFalse();
+
+        parser.accept("lling\"]}");
+        assertThat(topics).containsExactly("AI agents", "Tool calling");
+        assertThat(parser.result()).isEqualTo(new TopicFormat("Weekly", List.of("AI agents", "Tool calling")));
+    }
+
+    @Test
+    void parsesTopicsSplitMidEscape() throws IOException {
+        TopicFormat plan = feed("{\"title\": \"Weekly\", \"topics\": [\"The \\", "\"agent\\", "\" era\", \"Caf\\u00",
+                "e9 \\\\ bar\\", "n\"]}");
+
+        assertThat(plan.topics()).containsExactly("The \"agent\" era", "Café \\ bar\n");
+        assertThat(topics).isEqualTo(plan.topics());
+    }
+
+    @Test
+    void parsesSurrogatePairSplitAcrossChunks() throws IOException {
+        String robot = "🤖";
+        TopicFormat plan = feed("{\"title\": \"Robots " + robot.charAt(0), robot.charAt(1) + "\", \"topics\": [\"",
+                robot.charAt(0) + "", robot.charAt(1) + " agents\"]}");
+
+        assertThat(plan.title()).isEqualTo("Robots " + robot);
+        assertThat(plan.topics()).containsExactly(robot + " agents");
+    }
+
+    @Test
+    void parsesEveryCharacterInItsOwnChunk() throws IOException {
+        String json = "{\"title\": \"Weekly 🤖\", \"topics\": [\"A \\\"quoted\\\" topic\", \"Second\"]}";
+
+        TopicFormat plan = feed(json.split(""));
+
+        assertThat(plan).isEqualTo(new TopicFormat("Weekly 🤖", List.of("A \"quoted\" topic", "Second")));
+    }
+
+    @Test
+    void ignoresCodeFenceAroundTheObject() throws IOException {
+        TopicFormat plan = feed("```js", "on\n{\"title\": \"Weekly\", ", "\"topics\": [\"AI\"]}\n``", "`\nDone.");
+
+        assertThat(plan).isEqualTo(new TopicFormat("Weekly", List.of("AI")));
+    }
+
+    @Test
+    void readsTitleAfterTopics() throws IOException {
+        TopicFormat plan = feed("{\"topics\": [\"AI\", \"Robotics\"], \"title\": \"Weekly\"}");
+
+        assertThat(plan).isEqualTo(new TopicFormat("Weekly", List.of("AI", "Robotics")));
+    }
+
+    @Test
+    void ignoresNestedValuesUnderOtherFields() throws IOException {
+        TopicFormat plan = feed("{\"meta\": {\"title\": \"Wrong\", \"topics\": [\"Nested\"]}, ",
+                "\"related\": [[\"Inner\"], \"Outer\", {\"topics\": [\"Deep\"]}], ",
+                "\"topics\": [\"AI\", [\"Sub\"], {\"name\": \"Obj\"}, \"Robotics\"], \"title\": \"Weekly\"}");
+
+        assertThat(plan).isEqualTo(new TopicFormat("Weekly", List.of("AI", "Robotics")));
+        assertThat(topics).containsExactly("AI", "Robotics");
+    }
+
+    @Test
+    void rejectsResultBeforeTheObjectIsClosed() throws IOException {
+        TopicStreamParser parser = new TopicStreamParser(jsonFactory, topics::add);
+        parser.accept("{\"title\": \"Weekly\", \"topics\": [\"AI\"");
+
+        assertThatThrownBy(parser::result).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void fallsBackToTheCompleteResponseWhenJsonIsMalformed() throws IOException {
+        List<String> fallbackInputs = new ArrayList<>();
+        TopicFormat fallbackPlan = new TopicFormat("Fallback", List.of("AI"));
+
+        TopicFormat plan = TopicStreamParser.parse(List.of("{\"title\": \"Weekly\", ", "topics: ['AI']}"),
+                jsonFactory, topics::add, response -> {
+                    fallbackInputs.add(response);
+                    return fallbackPlan;
+                });
+
+        assertThat(plan).isSameAs(fallbackPlan);
+        assertThat(fallbackInputs).containsExactly("{\"title\": \"Weekly\", topics: ['AI']}");
+    }
+
+    @Test
+    void fallsBackWhenTheStreamEndsBeforeTheObjectIsClosed() throws IOException {
+        List<String> fallbackInputs = new ArrayList<>();
+
+        TopicStreamParser.parse(List.of("{\"title\": \"Weekly\", ", "\"topics\": [\"AI\""), jsonFactory, topics::add,
+                response -> {
+                    fallbackInputs.add(response);
+                    return null;
+                });
+
+        assertThat(topics).containsExactly("AI");
+        assertThat(fallbackInputs).containsExactly("{\"title\": \"Weekly\", \"topics\": [\"AI\"");
+    }
+
+    @Test
+    void fallsBackToTopicFormatConverter() throws IOException {
+        TopicFormatConverter converter = new TopicFormatConverter();
+        String response = "Plan {draft}:\n{\"title\": \"Weekly\", \"topics\": [\"AI\"]}";
+
+        assertThatThrownBy(() -> TopicStreamParser.parse(List.of(response), jsonFactory, topics::add,
+                converter::convert)).isInstanceOf(RuntimeException.class);
+        assertThat(TopicStreamParser.parse(List.of("<think>{plan}</think>", "{\"title\": \"Weekly\", \"topics\": []}"),
+                jsonFactory, topics::add, converter::convert)).isEqualTo(new TopicFormat("Weekly", List.of()));
+    }
+
+    @Test
+    void usesTheIncrementalResultWithoutCallingTheFallback() throws IOException {
+        TopicFormat plan = TopicStreamParser.parse(List.of("{\"title\": \"Weekly\", \"topics\": [\"AI\"]}"),
+                jsonFactory, topics::add, response -> {
+                    throw new AssertionError("fallback called");
+                });
+
+        assertThat(plan).isEqualTo(new TopicFormat("Weekly", List.of("AI")));
+    }
+
+    private TopicFormat feed(String... chunks) throws IOException {
+        TopicStreamParser parser = new TopicStreamParser(jsonFactory, topics::add);
+        for (String chunk : chunks) {
+            parser.accept(chunk);
+        }
+        return parser.result();
+    }
+}
@@ -0,0 +1,163 @@
+package com.waduclay.newsletteragentspringai.email;
+
+import com.icegreen.greenmail.Managers;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.mail.MailAddress;
+import com.icegreen.greenmail.smtp.SmtpManager;
+import com.icegreen.greenmail.smtp.SmtpServer;
+import com.icegreen.greenmail.smtp.SmtpState;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.waduclay.newsletteragentspringai.email.BulkMailer.DeliveryReport;
+import com.waduclay.newsletteragentspringai.email.BulkMailer.DeliveryStatus;
+import jakarta.mail.Message;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkMailerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private BulkMailer bulkMailer;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (bulkMailer != null) {
+            bulkMailer.destroy();
+        }
+    }
+
+    @Test
+    void deliversToEveryRecipientOverPooledConnections() throws Exception {
+        bulkMailer = new BulkMailer(mailSender(greenMail.getSmtp().getPort()),
+                new BulkMailProperties(2, 25, 100, 1000, 3));
+        List<String> recipients = recipients(120);
+
+        DeliveryReport first = bulkMailer.send("news@example.com", "Weekly", "<h1>Hello</h1>", recipients);
+        DeliveryReport second = bulkMailer.send("news@example.com", "Weekly", "<h1>Hello</h1>", recipients);
+
+        assertThat(first.count(DeliveryStatus.SENT)).isEqualTo(120);
+        assertThat(second.count(DeliveryStatus.SENT)).isEqualTo(120);
+        assertThat(greenMail.waitForIncomingEmail(5000, 240)).isTrue();
+        assertThat(Arrays.stream(greenMail.getReceivedMessages()).map(BulkMailerTest::subject))
+                .hasSize(240)
+                .containsOnly("Weekly");
+        assertThat(bulkMailer.connectionsOpened()).isBetween(1, 2);
+    }
+
+    @Test
+    void rejectsInvalidAddressesAndSendsDuplicatesOnce() throws Exception {
+        bulkMailer = new BulkMailer(mailSender(greenMail.getSmtp().getPort()),
+                new BulkMailProperties(1, 50, 100, 1000, 3));
+
+        DeliveryReport report = bulkMailer.send("news@example.com", "Weekly", "<p>Hi</p>",
+                List.of("reader@example.com", "READER@example.com", "not an address"));
+
+        assertThat(report.results()).hasSize(2);
+        assertThat(report.withStatus(DeliveryStatus.SENT))
+                .extracting(BulkMailer.RecipientResult::address)
+                .containsExactly("reader@example.com");
+        assertThat(report.withStatus(DeliveryStatus.REJECTED))
+                .extracting(BulkMailer.RecipientResult::address)
+                .containsExactly("not an address");
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getRecipients(Message.RecipientType.TO)[0].toString()).isEqualTo("reader@example.com");
+    }
+
+    @Test
+    void deliversTheRestOfABatchWhenTheServerRejectsOneRecipient() throws Exception {
+        Queue<String> offered = new ConcurrentLinkedQueue<>();
+        Managers managers = new Managers() {
+            private final SmtpManager smtpManager = new SmtpManager(getImapHostManager(), getUserManager()) {
+                @Override
+                public String checkRecipient(SmtpState state, MailAddress address) {
+                    offered.add(address.getEmail());
+                    return address.getUser().equals("gone") ? "550 No such user" : null;
+                }
+            };
+
+            @Override
+            public SmtpManager getSmtpManager() {
+                return smtpManager;
+            }
+        };
+        SmtpServer server = new SmtpServer(ServerSetupTest.SMTP.dynamicPort(), managers);
+        server.startService();
+        try {
+            assertThat(server.waitTillRunning(5000)).isTrue();
+            bulkMailer = new BulkMailer(mailSender(server.getPort()), new BulkMailProperties(1, 10, 100, 1000, 3));
+
+            DeliveryReport report = bulkMailer.send("news@example.com", "Weekly", "<p>Hi</p>",
+                    List.of("first@example.com", "gone@example.com", "second@example.com"));
+
+            assertThat(report.withStatus(DeliveryStatus.SENT))
+                    .extracting(BulkMailer.RecipientResult::address)
+                    .containsExactlyInAnyOrder("first@example.com", "second@example.com");
+            assertThat(report.withStatus(DeliveryStatus.REJECTED))
+                    .extracting(BulkMailer.RecipientResult::address)
+                    .containsExactly("gone@example.com");
+            assertThat(offered).containsExactly("first@example.com", "gone@example.com", "second@example.com");
+        } finally {
+            server.stopService();
+        }
+    }
+
+    @Test
+    void capsMessagesPerSecond() {
+        bulkMailer = new BulkMailer(mailSender(greenMail.getSmtp().getPort()),
+                new BulkMailProperties(2, 1, 100, 10, 3));
+
+        DeliveryReport report = bulkMailer.send("news@example.com", "Weekly", "<p>Hi</p>", recipients(6));
+
+        assertThat(report.count(DeliveryStatus.SENT)).isEqualTo(6);
+        assertThat(report.elapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(450));
+    }
+
+    @Test
+    void reportsRecipientsAsFailedWhenTheServerIsUnreachable() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        bulkMailer = new BulkMailer(mailSender(closedPort), new BulkMailProperties(2, 10, 100, 1000, 2));
+
+        DeliveryReport report = bulkMailer.send("news@example.com", "Weekly", "<p>Hi</p>", recipients(15));
+
+        assertThat(report.count(DeliveryStatus.FAILED)).isEqualTo(15);
+        assertThat(report.withStatus(DeliveryStatus.FAILED)).allSatisfy(result -> assertThat(result.detail()).isNotBlank());
+    }
+
+    private static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return mailSender;
+    }
+
+    private static List<String> recipients(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "reader" + i + "@example.com").toList();
+    }
+
+    private static String subject(MimeMessage message) {
+        try {
+            return message.getSubject();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
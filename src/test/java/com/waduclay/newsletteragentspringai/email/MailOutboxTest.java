@@ -0,0 +1,147 @@
+package com.waduclay.newsletteragentspringai.email;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waduclay.newsletteragentspringai.email.MailOutbox.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<MailOutbox> opened = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        for (MailOutbox outbox : opened) {
+            outbox.destroy();
+        }
+    }
+
+    @Test
+    void replaysPendingMessagesAfterRestart() throws Exception {
+        MailOutbox outbox = open(1000);
+        OutboxMessage delivered = outbox.enqueue("news@example.com", "First", "<p>1</p>", List.of("a@example.com"));
+        OutboxMessage retried = outbox.enqueue("news@example.com", "Second", "<p>2</p>",
+                List.of("a@example.com", "b@example.com"));
+        outbox.delivered(delivered.id());
+        Instant next = Instant.now().plus(Duration.ofMinutes(5));
+        outbox.retryLater(retried.id(), List.of("b@example.com"), next, "421 try again");
+
+        MailOutbox reopened = open(1000);
+
+        assertThat(reopened.depth()).isEqualTo(1);
+        assertThat(reopened.nextAttemptAt()).contains(next);
+        assertThat(reopened.due(next)).singleElement().satisfies(message -> {
+            assertThat(message.id()).isEqualTo(retried.id());
+            assertThat(message.recipients()).containsExactly("b@example.com");
+            assertThat(message.attempts()).isEqualTo(1);
+            assertThat(message.html()).isEqualTo("<p>2</p>");
+        });
+    }
+
+    @Test
+    void skipsLineTornByACrash() throws Exception {
+        MailOutbox outbox = open(1000);
+        OutboxMessage message = outbox.enqueue("news@example.com", "Weekly", "<p>Hi</p>", List.of("a@example.com"));
+        String line = Files.readAllLines(log()).get(0);
+        Files.writeString(log(), line.substring(0, line.length() / 2), StandardOpenOption.APPEND);
+
+        MailOutbox reopened = open(1000);
+
+        assertThat(reopened.due(Instant.now())).extracting(OutboxMessage::id).containsExactly(message.id());
+        assertThat(Files.readAllLines(log())).hasSize(1);
+        reopened.enqueue("news@example.com", "Next", "<p>Next</p>", List.of("b@example.com"));
+        assertThat(open(1000).depth()).isEqualTo(2);
+    }
+
+    @Test
+    void compactsTheLogToPendingMessages() throws Exception {
+        MailOutbox outbox = open(3);
+        OutboxMessage first = outbox.enqueue("news@example.com", "First", "<p>1</p>", List.of("a@example.com"));
+        OutboxMessage second = outbox.enqueue("news@example.com", "Second", "<p>2</p>", List.of("a@example.com"));
+        assertThat(Files.readAllLines(log())).hasSize(2);
+
+        outbox.delivered(first.id());
+
+        List<String> lines = Files.readAllLines(log(), StandardCharsets.UTF_8);
+        assertThat(lines).singleElement().asString().contains(second.id()).contains("ENQUEUED");
+        outbox.dead(second.id(), "550 no such user");
+        assertThat(open(3).depth()).isZero();
+    }
+
+    @Test
+    void schedulesRetriesAndRemovesDeadMessages() throws Exception {
+        MailOutbox outbox = open(1000);
+        OutboxMessage message = outbox.enqueue("news@example.com", "Weekly", "<p>Hi</p>",
+                List.of("a@example.com", "b@example.com"));
+        Instant now = Instant.now();
+
+        OutboxMessage retried = outbox.retryLater(message.id(), List.of("b@example.com"), now.plusSeconds(60), "busy");
+
+        assertThat(retried.attempts()).isEqualTo(1);
+        assertThat(retried.enqueuedAt()).isEqualTo(message.enqueuedAt());
+        assertThat(outbox.due(now)).isEmpty();
+        assertThat(outbox.due(now.plusSeconds(60))).containsExactly(retried);
+
+        outbox.dead(message.id(), "still busy");
+
+        assertThat(outbox.depth()).isZero();
+        assertThat(outbox.nextAttemptAt()).isEmpty();
+        assertThatThrownBy(() -> outbox.retryLater(message.id(), List.of(), now, "late"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(open(1000).depth()).isZero();
+    }
+
+    @Test
+    void returnsDueMessagesEarliestFirst() throws Exception {
+        MailOutbox outbox = open(1000);
+        OutboxMessage later = outbox.enqueue("news@example.com", "Later", "<p>1</p>", List.of("a@example.com"));
+        OutboxMessage sooner = outbox.enqueue("news@example.com", "Sooner", "<p>2</p>", List.of("a@example.com"));
+        Instant now = Instant.now();
+        outbox.retryLater(later.id(), later.recipients(), now.plusSeconds(20), "busy");
+        outbox.retryLater(sooner.id(), sooner.recipients(), now.plusSeconds(10), "busy");
+
+        assertThat(outbox.due(now.plusSeconds(30))).extracting(OutboxMessage::id)
+                .containsExactly(sooner.id(), later.id());
+    }
+
+    @Test
+    void keepsQueueingAfterAnEnqueueOnAnInterruptedThread() throws Exception {
+        MailOutbox outbox = open(1000);
+
+        Thread.currentThread().interrupt();
+        outbox.enqueue("news@example.com", "Interrupted", "<p>1</p>", List.of("a@example.com"));
+        assertThat(Thread.interrupted()).isTrue();
+        outbox.enqueue("news@example.com", "Next", "<p>2</p>", List.of("a@example.com"));
+
+        assertThat(open(1000).depth()).isEqualTo(2);
+    }
+
+    private MailOutbox open(int compactAfter) throws IOException {
+        MailOutbox outbox = new MailOutbox(new MailOutboxProperties(directory.toString(), Duration.ofSeconds(5), 8,
+                Duration.ofSeconds(30), Duration.ofMinutes(30), compactAfter), objectMapper);
+        opened.add(outbox);
+        return outbox;
+    }
+
+    private Path log() {
+        return directory.resolve("outbox.jsonl");
+    }
+}
@@ -0,0 +1,70 @@
+package com.waduclay.newsletteragentspringai.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsRunsWithDistinctIdsWithinTheSameSecond() {
+        RunJournal journal = journal(Duration.ofDays(1));
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            RunJournal.Run run = journal.resumeOrStart("weekly");
+            run.complete();
+            ids.add(run.id());
+        }
+
+        assertThat(ids).hasSize(20).allMatch(id -> id.matches("\\d{8}-\\d{6}-[0-9a-f]{8}"));
+    }
+
+    @Test
+    void recordsTheStartOnceAndResumesTheLatestUnfinishedRun() throws Exception {
+        RunJournal journal = journal(Duration.ofDays(1));
+        journal.open("weekly", "older");
+        Thread.sleep(5);
+        RunJournal.Run latest = journal.open("weekly", "latest");
+        String started = Files.readString(directory.resolve("weekly/latest/STARTED"));
+        journal.open("weekly", "done").complete();
+
+        assertThat(journal.resumeOrStart("weekly").id()).isEqualTo(latest.id());
+        assertThat(Files.readString(directory.resolve("weekly/latest/STARTED"))).isEqualTo(started);
+    }
+
+    @Test
+    void doesNotResumeRunsStartedBeforeTheWindowOrWithoutARecordedStart() throws Exception {
+        RunJournal journal = journal(Duration.ofHours(1));
+        journal.open("weekly", "stale");
+        Files.writeString(directory.resolve("weekly/stale/STARTED"), Instant.now().minus(Duration.ofHours(2)).toString());
+        Files.createDirectories(directory.resolve("weekly/legacy"));
+
+        assertThat(journal.resumeOrStart("weekly").id()).isNotIn("stale", "legacy");
+    }
+
+    @Test
+    void readsBackCheckpointedStages() throws Exception {
+        RunJournal.Run run = journal(Duration.ofDays(1)).open("weekly", "run");
+        run.write("plan", "topics");
+
+        assertThat(run.stage("plan", String.class, () -> "recomputed")).isEqualTo("topics");
+        assertThat(run.stage("edit", String.class, () -> "computed")).isEqualTo("computed");
+        assertThat(run.read("edit", String.class)).contains("computed");
+    }
+
+    private RunJournal journal(Duration resumeWindow) {
+        return new RunJournal(new RunJournalProperties(true, directory.toString(), resumeWindow), new ObjectMapper());
+    }
+}
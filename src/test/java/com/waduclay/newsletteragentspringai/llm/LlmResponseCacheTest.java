@@ -0,0 +1,47 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keysPromptsOnTheChainOfModels() {
+        LlmResponseCache cache = cache();
+        Prompt prompt = new Prompt("Plan a newsletter on agents");
+
+        String primaryOnly = cache.keyOf(prompt, List.of("primary"));
+        String withFallback = cache.keyOf(prompt, List.of("primary", "fallback"));
+
+        assertThat(primaryOnly).isNotEqualTo(withFallback);
+        assertThat(cache.keyOf(prompt, List.of("fallback", "primary"))).isNotEqualTo(withFallback);
+        assertThat(cache.keyOf(prompt, List.of("primary", "fallback"))).isEqualTo(withFallback);
+        assertThat(cache.keyOf(prompt, List.of())).isEqualTo(cache.keyOf(prompt));
+    }
+
+    @Test
+    void servesResponsesOnlyForTheChainTheyWereStoredUnder() {
+        LlmResponseCache cache = cache();
+        Prompt prompt = new Prompt("Plan a newsletter on agents");
+        cache.put(cache.keyOf(prompt, List.of("primary", "fallback")), "fallback", "Agents");
+
+        assertThat(cache.get("planning", cache.keyOf(prompt, List.of("primary", "fallback")))).contains("Agents");
+        assertThat(cache.get("planning", cache.keyOf(prompt, List.of("primary")))).isEmpty();
+    }
+
+    private LlmResponseCache cache() {
+        LlmCacheProperties properties = new LlmCacheProperties(true, directory.toString(), DataSize.ofMegabytes(1));
+        return new LlmResponseCache(properties, new ObjectMapper().findAndRegisterModules(), prompt -> null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmUsageAdvisorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LlmUsageAdvisor advisor = new LlmUsageAdvisor("writer", meterRegistry);
+    private final ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("Write")).build();
+
+    @Test
+    void timesACompletedStream() {
+        advisor.adviseStream(request, chain(Flux.just(chunk("Hello"), chunk(" world")))).blockLast();
+
+        assertThat(calls("success")).isEqualTo(1);
+        assertThat(calls("cancelled")).isZero();
+    }
+
+    @Test
+    void timesAFailedStream() {
+        advisor.adviseStream(request, chain(Flux.concat(Flux.just(chunk("Hello")),
+                        Flux.error(new IllegalStateException("Model failed")))))
+                .onErrorComplete()
+                .blockLast();
+
+        assertThat(calls("error")).isEqualTo(1);
+        assertThat(calls("success")).isZero();
+    }
+
+    @Test
+    void timesAStreamCancelledByItsSubscriber() {
+        advisor.adviseStream(request, chain(Flux.just(chunk("Hello")).concatWith(Flux.never())))
+                .take(1)
+                .blockLast();
+
+        assertThat(calls("cancelled")).isEqualTo(1);
+        assertThat(calls("success") + calls("error")).isZero();
+    }
+
+    private long calls(String outcome) {
+        Timer timer = meterRegistry.find("llm.call").tags("agent", "writer", "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static StreamAdvisorChain chain(Flux<ChatClientResponse> responses) {
+        return new StreamAdvisorChain() {
+            @Override
+            public Flux<ChatClientResponse> nextStream(ChatClientRequest chatClientRequest) {
+                return responses;
+            }
+
+            @Override
+            public List<StreamAdvisor> getStreamAdvisors() {
+                return List.of();
+            }
+        };
+    }
+
+    private static ChatClientResponse chunk(String text) {
+        return new ChatClientResponse(new ChatResponse(List.of(new Generation(new AssistantMessage(text)))), Map.of());
+    }
+}
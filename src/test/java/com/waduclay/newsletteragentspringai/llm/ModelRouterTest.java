@@ -0,0 +1,107 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelRouterTest {
+
+    static final Duration MAX_LATENCY = Duration.ofSeconds(1);
+    static final Duration PROBE_INTERVAL = Duration.ofMillis(200);
+    private static final Duration SLOW = MAX_LATENCY.multipliedBy(2);
+    private static final Duration FAST = Duration.ofMillis(10);
+
+    private final ModelRouter router = router(null, new SimpleMeterRegistry());
+
+    @Test
+    void triesTheChainInOrderWhileEveryModelIsHealthy() {
+        ModelRouter.Candidates candidates = router.candidates("writer");
+
+        assertThat(candidates.models()).containsExactly("primary", "backup");
+        assertThat(candidates.probes()).isEmpty();
+    }
+
+    @Test
+    void usesTheDefaultModelForAnAgentWithoutChain() {
+        assertThat(router.candidates("planning").models()).containsExactly((String) null);
+    }
+
+    @Test
+    void triesADegradedModelLast() {
+        router.record("primary", FAST, false, false);
+        router.record("primary", FAST, false, false);
+
+        assertThat(router.candidates("writer").models()).containsExactly("backup", "primary");
+    }
+
+    @Test
+    void probesADegradedModelOncePerInterval() throws InterruptedException {
+        degrade("primary");
+        Thread.sleep(PROBE_INTERVAL.multipliedBy(2).toMillis());
+
+        ModelRouter.Candidates probing = router.candidates("writer");
+        assertThat(probing.models()).containsExactly("primary", "backup");
+        assertThat(probing.probes()).containsExactly("primary");
+        assertThat(router.candidates("writer").models()).containsExactly("backup", "primary");
+    }
+
+    @Test
+    void staysDegradedWhenCallsInFlightSucceed() {
+        degrade("primary");
+
+        router.record("primary", SLOW, true, false);
+        router.record("primary", FAST, true, false);
+
+        assertThat(router.candidates("writer").models()).containsExactly("backup", "primary");
+    }
+
+    @Test
+    void recoversOnlyWhenTheProbeSucceedsInTime() throws InterruptedException {
+        degrade("primary");
+
+        Thread.sleep(PROBE_INTERVAL.multipliedBy(2).toMillis());
+        assertThat(router.candidates("writer").probes()).containsExactly("primary");
+        router.record("primary", SLOW, true, true);
+        assertThat(router.candidates("writer").models()).containsExactly("backup", "primary");
+
+        Thread.sleep(PROBE_INTERVAL.multipliedBy(2).toMillis());
+        assertThat(router.candidates("writer").probes()).containsExactly("primary");
+        router.record("primary", FAST, true, true);
+        assertThat(router.candidates("writer").models()).containsExactly("primary", "backup");
+    }
+
+    /**
+     * Degrades a model for its latency with slow but successful calls.
+     */
+    void degrade(String model) {
+        router.record(model, SLOW, true, false);
+        router.record(model, SLOW, true, false);
+    }
+
+    /**
+     * Creates a router sending the {@code writer} agent's calls to {@code primary} and then {@code backup},
+     * degrading a model after two calls, without hedging.
+     */
+    static ModelRouter router(ChatModel chatModel, MeterRegistry meterRegistry) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        ModelRoutingProperties properties = new ModelRoutingProperties(
+                Map.of("writer", List.of("primary", "backup")), 10, 2, MAX_LATENCY, 0.5, PROBE_INTERVAL);
+        return new ModelRouter(chatModel, beans.getBeanProvider(ObservationRegistry.class),
+                beans.getBeanProvider(ChatClientCustomizer.class), properties, meterRegistry, hedger(meterRegistry));
+    }
+
+    static RequestHedger hedger(MeterRegistry meterRegistry) {
+        return new RequestHedger(new HedgingProperties(false, List.of(), 0.9, Duration.ofSeconds(2), 20, 100, 0.1,
+                2, true), meterRegistry);
+    }
+}
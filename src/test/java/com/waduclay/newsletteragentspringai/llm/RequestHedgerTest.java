@@ -0,0 +1,82 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(300);
+
+    private final RequestHedger hedger = hedger();
+    private final AtomicInteger hedgesSent = new AtomicInteger();
+
+    @Test
+    void failsAtOnceWhenTheCallFailsBeforeTheHedgeIsDue() {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> hedger.hedge("writer", Flux.<String>error(new IllegalStateException("down")),
+                () -> hedge(Duration.ZERO)).blockLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(HEDGE_DELAY);
+        assertThat(hedgesSent).hasValue(0);
+    }
+
+    @Test
+    void hedgesASlowCall() {
+        assertThat(hedger.hedge("writer", Flux.<String>never(), () -> hedge(Duration.ZERO)).blockLast())
+                .isEqualTo("hedge");
+        assertThat(hedgesSent).hasValue(1);
+    }
+
+    @Test
+    void waitsForTheHedgeInFlightWhenTheCallFails() {
+        Flux<String> primary = Mono.delay(HEDGE_DELAY.multipliedBy(2))
+                .then(Mono.<String>error(new IllegalStateException("down")))
+                .flux();
+
+        assertThat(hedger.hedge("writer", primary, () -> hedge(HEDGE_DELAY.multipliedBy(2))).blockLast())
+                .isEqualTo("hedge");
+    }
+
+    @Test
+    void failsWithTheErrorOfTheCallWhenTheHedgeFailsToo() {
+        Flux<String> primary = Mono.delay(HEDGE_DELAY.multipliedBy(2))
+                .then(Mono.<String>error(new IllegalStateException("down")))
+                .flux();
+
+        assertThatThrownBy(() -> hedger.hedge("writer", primary,
+                () -> Flux.<String>error(new IllegalArgumentException("hedge down"))).blockLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down");
+    }
+
+    @Test
+    void keepsAFastCallWithoutHedging() {
+        assertThat(hedger.hedge("writer", Flux.just("call"), () -> hedge(Duration.ZERO)).blockLast())
+                .isEqualTo("call");
+        assertThat(hedgesSent).hasValue(0);
+    }
+
+    private Flux<String> hedge(Duration latency) {
+        hedgesSent.incrementAndGet();
+        return Mono.delay(latency).thenReturn("hedge").flux();
+    }
+
+    private static RequestHedger hedger() {
+        HedgingProperties properties = new HedgingProperties(true, List.of("writer"), 0.9, HEDGE_DELAY, 1, 10,
+                1, 2, false);
+        RequestHedger hedger = new RequestHedger(properties, new SimpleMeterRegistry());
+        hedger.record("writer", Duration.ofMillis(1));
+        return hedger;
+    }
+}
@@ -0,0 +1,129 @@
+package com.waduclay.newsletteragentspringai.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoutingChatModelTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubModel stub = new StubModel();
+    private final ModelRouter router = ModelRouterTest.router(stub, meterRegistry);
+    private final RoutingChatModel model = new RoutingChatModel("writer", stub, router,
+            ModelRouterTest.hedger(meterRegistry));
+
+    @Test
+    void fallsBackToTheNextModelWhenACallFails() {
+        stub.calls.put("primary", () -> {
+            throw new IllegalStateException("down");
+        });
+        stub.calls.put("backup", () -> response("backup"));
+
+        assertThat(text(model.call(new Prompt("Write a section")))).isEqualTo("backup");
+        assertThat(stub.called).containsExactly("primary", "backup");
+        assertThat(meterRegistry.get("llm.fallbacks").tag("model", "primary").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryACallOfferingTools() {
+        stub.calls.put("primary", () -> {
+            throw new IllegalStateException("down");
+        });
+        stub.calls.put("backup", () -> response("backup"));
+        OpenAiChatOptions options = new OpenAiChatOptions();
+        options.setToolNames(Set.of("sendEmail"));
+
+        assertThatThrownBy(() -> model.call(new Prompt("Edit and send", options)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down");
+        assertThat(stub.called).containsExactly("primary");
+    }
+
+    @Test
+    void fallsBackAStreamThatFailsBeforeItsFirstChunk() {
+        stub.streams.put("primary", Flux.error(new IllegalStateException("down")));
+        stub.streams.put("backup", Flux.just(response("back"), response("up")));
+
+        assertThat(model.stream(new Prompt("Write a section")).map(RoutingChatModelTest::text).collectList().block())
+                .containsExactly("back", "up");
+        assertThat(stub.called).containsExactly("primary", "backup");
+    }
+
+    @Test
+    void doesNotFallBackAStreamThatFailsAfterItsFirstChunk() {
+        stub.streams.put("primary", Flux.concat(Flux.just(response("partial")),
+                Flux.error(new IllegalStateException("down"))));
+        stub.streams.put("backup", Flux.just(response("backup")));
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> model.stream(new Prompt("Write a section"))
+                .doOnNext(response -> received.add(text(response)))
+                .blockLast())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down");
+        assertThat(received).containsExactly("partial");
+        assertThat(stub.called).containsExactly("primary");
+    }
+
+    @Test
+    void usesADegradedModelAgainOnceItsProbeSucceeds() throws InterruptedException {
+        stub.calls.put("primary", () -> response("primary"));
+        stub.calls.put("backup", () -> response("backup"));
+        router.record("primary", ModelRouterTest.MAX_LATENCY.multipliedBy(2), true, false);
+        router.record("primary", ModelRouterTest.MAX_LATENCY.multipliedBy(2), true, false);
+
+        assertThat(text(model.call(new Prompt("Write a section")))).isEqualTo("backup");
+
+        Thread.sleep(ModelRouterTest.PROBE_INTERVAL.multipliedBy(2).toMillis());
+        assertThat(text(model.call(new Prompt("Write a section")))).isEqualTo("primary");
+        assertThat(text(model.call(new Prompt("Write a section")))).isEqualTo("primary");
+        assertThat(stub.called).containsExactly("backup", "primary", "primary");
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static String text(ChatResponse response) {
+        return response.getResult().getOutput().getText();
+    }
+
+    /**
+     * Chat model answering each model with a configured response, recording which models were called.
+     */
+    private static final class StubModel implements ChatModel {
+        private final Map<String, Supplier<ChatResponse>> calls = new ConcurrentHashMap<>();
+        private final Map<String, Flux<ChatResponse>> streams = new ConcurrentHashMap<>();
+        private final List<String> called = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            String model = prompt.getOptions().getModel();
+            called.add(model);
+            return calls.get(model).get();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            String model = prompt.getOptions().getModel();
+            called.add(model);
+            return streams.get(model);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measurements of one {@link LoadScenario}.
+ *
+ * @param scenario        the scenario
+ * @param succeeded       runs that completed
+ * @param failed          runs that threw
+ * @param elapsed         wall-clock time of all runs
+ * @param runLatencies    latency of every completed run, sorted ascending
+ * @param peakHeapBytes   sum of the peak usage of the heap memory pools
+ * @param peakThreads     peak number of live threads
+ * @param emailsDelivered newsletters received by the SMTP sink
+ * @param llmRequests     requests served by the stub chat model, including throttled and failed ones
+ * @param tavilyRequests  requests served by the stub Tavily API, including throttled and failed ones
+ */
+record LoadResult(LoadScenario scenario, int succeeded, int failed, Duration elapsed, List<Duration> runLatencies,
+                  long peakHeapBytes, int peakThreads, int emailsDelivered, long llmRequests, long tavilyRequests) {
+
+    static final String CSV_HEADER = "topics,concurrent_runs,tavily_max_concurrency,write_concurrency,succeeded,failed,"
+            + "runs_per_minute,p50_ms,p99_ms,peak_heap_mb,peak_threads,emails,llm_requests,tavily_requests";
+
+    double runsPerMinute() {
+        return elapsed.isZero() ? 0 : succeeded * 60_000.0 / elapsed.toMillis();
+    }
+
+    Duration percentile(double percentile) {
+        if (runLatencies.isEmpty()) {
+            return Duration.ZERO;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * runLatencies.size());
+        return runLatencies.get(Math.max(0, rank - 1));
+    }
+
+    String toCsv() {
+        return String.join(",",
+                String.valueOf(scenario.topics()),
+                String.valueOf(scenario.concurrentRuns()),
+                String.valueOf(scenario.tavilyMaxConcurrency()),
+                String.valueOf(scenario.writeConcurrency()),
+                String.valueOf(succeeded),
+                String.valueOf(failed),
+                String.format("%.2f", runsPerMinute()),
+                String.valueOf(percentile(50).toMillis()),
+                String.valueOf(percentile(99).toMillis()),
+                String.valueOf(peakHeapBytes / (1024 * 1024)),
+                String.valueOf(peakThreads),
+                String.valueOf(emailsDelivered),
+                String.valueOf(llmRequests),
+                String.valueOf(tavilyRequests));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("topics=%d runs=%d/%d tavily-max=%d write=%d | ok=%d failed=%d | %.2f runs/min | "
+                        + "p50=%dms p99=%dms | heap=%dMB threads=%d | emails=%d llm=%d tavily=%d",
+                scenario.topics(), scenario.concurrentRuns(), succeeded + failed, scenario.tavilyMaxConcurrency(),
+                scenario.writeConcurrency(), succeeded, failed, runsPerMinute(), percentile(50).toMillis(),
+                percentile(99).toMillis(), peakHeapBytes / (1024 * 1024), peakThreads, emailsDelivered,
+                llmRequests, tavilyRequests);
+    }
+}
@@ -0,0 +1,41 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One combination of the settings varied by the load harness.
+ *
+ * @param topics               topics planned per newsletter
+ * @param concurrentRuns       newsletters created at the same time, each as its own tenant
+ * @param tavilyMaxConcurrency value of {@code tavily.max-concurrency}, which bounds the batched topic searches
+ * @param writeConcurrency     value of {@code workflow.write-concurrency}
+ */
+record LoadScenario(int topics, int concurrentRuns, int tavilyMaxConcurrency, int writeConcurrency) {
+
+    /**
+     * Builds every combination of the comma-separated values of the system properties {@code load.topics},
+     * {@code load.concurrent-runs}, {@code load.tavily-max-concurrency} and {@code load.write-concurrency}.
+     */
+    static List<LoadScenario> fromSystemProperties() {
+        List<LoadScenario> scenarios = new ArrayList<>();
+        for (int topics : values("load.topics", "3,6,12")) {
+            for (int concurrentRuns : values("load.concurrent-runs", "1,4")) {
+                for (int tavilyMaxConcurrency : values("load.tavily-max-concurrency", "4")) {
+                    for (int writeConcurrency : values("load.write-concurrency", "2,4")) {
+                        scenarios.add(new LoadScenario(topics, concurrentRuns, tavilyMaxConcurrency, writeConcurrency));
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static int[] values(String property, String defaultValues) {
+        return Arrays.stream(System.getProperty(property, defaultValues).split(","))
+                .map(String::strip)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
@@ -0,0 +1,193 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.waduclay.newsletteragentspringai.NewsletterAgentSpringAiApplication;
+import com.waduclay.newsletteragentspringai.newsletter.NewsletterDefinition;
+import com.waduclay.newsletteragentspringai.tavily.TimeRange;
+import com.waduclay.newsletteragentspringai.workflow.WorkflowOrchestrator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load harness creating newsletters against a stub chat model API, a stub Tavily API and a local SMTP
+ * sink, for every {@link LoadScenario} configured through system properties.
+ * <p>
+ * Excluded from {@code test}; run it with {@code ./gradlew loadTest}. Each scenario starts a fresh application
+ * context, runs {@code load.runs-per-tenant} newsletters on each of {@code concurrentRuns} tenants at the same
+ * time, and reports throughput, run latency percentiles, peak heap and peak thread count. Results are printed and
+ * written as CSV to {@code load.report}. Application properties can be overridden with {@code load.app.<property>}.
+ */
+@Tag("load")
+class NewsletterLoadTest {
+
+    private static final String APP_PROPERTY_PREFIX = "load.app.";
+    private static final List<String> RECIPIENTS = List.of("reader1@example.com", "reader2@example.com");
+    private static final String SENDER = "newsletter@example.com";
+
+    @TempDir
+    Path outboxes;
+
+    @Test
+    void createsNewslettersUnderLoad() throws Exception {
+        UpstreamProfile llmProfile = UpstreamProfile.fromSystemProperties("llm", "300,1500");
+        UpstreamProfile tavilyProfile = UpstreamProfile.fromSystemProperties("tavily", "150,800");
+        int runsPerTenant = Integer.getInteger("load.runs-per-tenant", 2);
+        System.out.println("Stub chat model: " + llmProfile + ", stub Tavily: " + tavilyProfile);
+
+        List<LoadResult> results = new ArrayList<>();
+        for (LoadScenario scenario : LoadScenario.fromSystemProperties()) {
+            LoadResult result = run(scenario, runsPerTenant, llmProfile, tavilyProfile);
+            System.out.println(result);
+            results.add(result);
+        }
+        writeReport(results);
+
+        if (llmProfile.errorRate() == 0 && llmProfile.throttleRate() == 0
+                && tavilyProfile.errorRate() == 0 && tavilyProfile.throttleRate() == 0) {
+            assertThat(results).allSatisfy(result -> {
+                assertThat(result.failed()).isZero();
+                assertThat(result.emailsDelivered()).isEqualTo(result.succeeded());
+            });
+        }
+    }
+
+    private LoadResult run(LoadScenario scenario, int runsPerTenant, UpstreamProfile llmProfile,
+                           UpstreamProfile tavilyProfile) throws Exception {
+        GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort())
+                .withConfiguration(GreenMailConfiguration.aConfig().withUser(SENDER, SENDER, "stub"));
+        smtp.start();
+        int sectionBytes = Integer.getInteger("load.section-bytes", 3000);
+        try (StubChatModelServer llm = new StubChatModelServer(llmProfile, scenario.topics(), sectionBytes);
+             StubTavilyServer tavily = new StubTavilyServer(tavilyProfile, Integer.getInteger("load.results", 5),
+                     Integer.getInteger("load.raw-content-kb", 8));
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                     NewsletterAgentSpringAiApplication.class)
+                     .web(WebApplicationType.NONE)
+                     .logStartupInfo(false)
+                     .run(arguments(scenario, llm, tavily, smtp.getSmtp().getPort()))) {
+            WorkflowOrchestrator orchestrator = context.getBean(WorkflowOrchestrator.class);
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            threads.resetPeakThreadCount();
+
+            List<Duration> latencies = Collections.synchronizedList(new ArrayList<>());
+            List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+            ExecutorService tenants = Executors.newFixedThreadPool(scenario.concurrentRuns());
+            long start = System.nanoTime();
+            List<Future<?>> runs = new ArrayList<>();
+            for (int tenant = 0; tenant < scenario.concurrentRuns(); tenant++) {
+                NewsletterDefinition newsletter = newsletter("load-" + tenant);
+                runs.add(tenants.submit(() -> {
+                    for (int run = 0; run < runsPerTenant; run++) {
+                        long runStart = System.nanoTime();
+                        try {
+                            orchestrator.createNewsletter(newsletter);
+                            latencies.add(Duration.ofNanos(System.nanoTime() - runStart));
+                        } catch (Exception e) {
+                            failures.add(e);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            tenants.shutdown();
+
+            long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            int peakThreads = threads.getPeakThreadCount();
+            smtp.waitForIncomingEmail(TimeUnit.SECONDS.toMillis(60), latencies.size() * RECIPIENTS.size());
+            int emails = smtp.getReceivedMessages().length / RECIPIENTS.size();
+            failures.stream().limit(3).forEach(failure -> System.out.println("Run failed: " + failure));
+
+            List<Duration> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return new LoadResult(scenario, latencies.size(), failures.size(), elapsed, List.copyOf(sorted),
+                    peakHeap, peakThreads, emails, llm.requests(), tavily.requests());
+        } finally {
+            smtp.stop();
+        }
+    }
+
+    private String[] arguments(LoadScenario scenario, StubChatModelServer llm, StubTavilyServer tavily, int smtpPort)
+            throws IOException {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.ai.openai.base-url", llm.baseUrl());
+        properties.put("spring.ai.openai.api-key", "stub");
+        properties.put("spring.ai.openai.chat.options.model", "stub");
+        properties.put("tavily.base-url", tavily.baseUrl() + "/search");
+        properties.put("tavily.api-key", "stub");
+        properties.put("tavily.cache.enabled", "false");
+        properties.put("llm.cache.enabled", "false");
+        properties.put("workflow.journal.enabled", "false");
+        properties.put("workflow.editor-mode", "structured");
+        properties.put("tavily.max-concurrency", String.valueOf(scenario.tavilyMaxConcurrency()));
+        properties.put("workflow.write-concurrency", String.valueOf(scenario.writeConcurrency()));
+        properties.put("upstream.llm.permits-per-second", "1000");
+        properties.put("upstream.llm.burst", "1000");
+        properties.put("upstream.tavily.permits-per-second", "1000");
+        properties.put("upstream.tavily.burst", "1000");
+        properties.put("spring.mail.host", "localhost");
+        properties.put("spring.mail.port", String.valueOf(smtpPort));
+        properties.put("spring.mail.username", SENDER);
+        properties.put("spring.mail.password", "stub");
+        properties.put("spring.mail.recipient", RECIPIENTS.get(0));
+        properties.put("spring.mail.properties.mail.smtp.starttls.enable", "false");
+        properties.put("spring.mail.properties.mail.smtp.starttls.required", "false");
+        properties.put("mail.outbox.directory", Files.createTempDirectory(outboxes, "outbox").toString());
+        properties.put("mail.outbox.poll-interval", "100ms");
+        properties.put("mail.bulk.max-messages-per-second", "1000");
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PROPERTY_PREFIX))
+                .forEach(name -> properties.put(name.substring(APP_PROPERTY_PREFIX.length()),
+                        System.getProperty(name)));
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static NewsletterDefinition newsletter(String id) {
+        return new NewsletterDefinition(id, "latest developments in AI agents", TimeRange.week, TimeRange.month,
+                null, RECIPIENTS, "-", false);
+    }
+
+    private static void writeReport(List<LoadResult> results) throws IOException {
+        Path report = Path.of(System.getProperty("load.report", "build/reports/load/newsletter-load.csv"));
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add(LoadResult.CSV_HEADER);
+        results.forEach(result -> lines.add(result.toCsv()));
+        Files.write(report, lines);
+        System.out.println("Load report written to " + report.toAbsolutePath());
+    }
+}
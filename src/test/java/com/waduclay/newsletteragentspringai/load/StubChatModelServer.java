@@ -0,0 +1,141 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stub of an OpenAI-compatible chat completions API returning canned output for each agent.
+ * <p>
+ * The agent is recognized from its prompt: the planner gets a title and {@code topicCount} topics, the editor a
+ * subject and HTML body or, for a hierarchically edited newsletter, a frame in section order, and every other
+ * call, including the editing of a part, a section. Topic names are unique per plan, so concurrent runs do
+ * not share searches. Streaming requests are answered with server-sent chunks once the sampled latency has passed.
+ * Tool calls are not supported, so the workflow must use the structured editor mode.
+ */
+class StubChatModelServer extends StubUpstreamServer {
+
+    private static final int STREAM_CHUNK_LENGTH = 24;
+    private static final String PARAGRAPH = "<p>Agents now call tools in loops with explicit budgets, and teams "
+            + "report that tracing every step made evaluation practical. "
+            + "<a href=\"https://example.com/source\">Source</a></p>\n";
+
+    private final int topicCount;
+    private final int sectionBytes;
+    private final AtomicLong plans = new AtomicLong();
+
+    StubChatModelServer(UpstreamProfile profile, int topicCount, int sectionBytes) throws IOException {
+        super("llm", profile);
+        this.topicCount = topicCount;
+        this.sectionBytes = sectionBytes;
+    }
+
+    @Override
+    protected void respond(HttpExchange exchange, JsonNode request) throws IOException {
+        StringBuilder prompt = new StringBuilder();
+        request.path("messages").forEach(message -> prompt.append(message.path("content").asText("")).append('\n'));
+        String content = contentFor(prompt.toString());
+        int promptTokens = prompt.length() / 4;
+        int completionTokens = content.length() / 4;
+        if (request.path("stream").asBoolean(false)) {
+            stream(exchange, content, promptTokens, completionTokens);
+            return;
+        }
+        ObjectNode response = completion("chat.completion");
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        usage(response, promptTokens, completionTokens);
+        sendJson(exchange, 200, OBJECT_MAPPER.writeValueAsString(response));
+    }
+
+    private String contentFor(String prompt) throws IOException {
+        if (prompt.contains("VALID JSON OBJECT")) {
+            long plan = plans.incrementAndGet();
+            List<String> topics = new ArrayList<>();
+            for (int i = 0; i < topicCount; i++) {
+                topics.add("Topic " + (i + 1) + " of plan " + plan);
+            }
+            ObjectNode topicFormat = OBJECT_MAPPER.createObjectNode();
+            topicFormat.put("title", "Load Test Digest " + plan);
+            topicFormat.set("topics", OBJECT_MAPPER.valueToTree(topics));
+            return "<think>Picking the most relevant topics.</think>" + OBJECT_MAPPER.writeValueAsString(topicFormat);
+        }
+        if (prompt.contains("Newsletter Frame Editor")) {
+            ObjectNode frame = OBJECT_MAPPER.createObjectNode();
+            frame.put("subject", "Load Test Digest");
+            frame.put("introduction", "<p>This week in AI agents.</p>");
+            frame.putArray("sectionOrder");
+            frame.putArray("transitions");
+            frame.put("conclusion", "<p>See you next week.</p>");
+            return OBJECT_MAPPER.writeValueAsString(frame);
+        }
+        if (prompt.contains("Newsletter Editor")) {
+            return "Subject: Load Test Digest\n\nContent:\n<h1>Load Test Digest</h1>\n"
+                    + html(sectionBytes * topicCount);
+        }
+        return "<think>Summarizing the research.</think><h2>Section</h2>\n" + html(sectionBytes);
+    }
+
+    private void stream(HttpExchange exchange, String content, int promptTokens, int completionTokens)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int start = 0; start < content.length(); start += STREAM_CHUNK_LENGTH) {
+                String chunk = content.substring(start, Math.min(content.length(), start + STREAM_CHUNK_LENGTH));
+                ObjectNode event = completion("chat.completion.chunk");
+                ObjectNode choice = event.putArray("choices").addObject();
+                choice.put("index", 0);
+                choice.putObject("delta").put("content", chunk);
+                choice.putNull("finish_reason");
+                writeEvent(out, OBJECT_MAPPER.writeValueAsString(event));
+            }
+            ObjectNode last = completion("chat.completion.chunk");
+            ObjectNode choice = last.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta");
+            choice.put("finish_reason", "stop");
+            usage(last, promptTokens, completionTokens);
+            writeEvent(out, OBJECT_MAPPER.writeValueAsString(last));
+            writeEvent(out, "[DONE]");
+        }
+    }
+
+    private static ObjectNode completion(String object) {
+        ObjectNode completion = OBJECT_MAPPER.createObjectNode();
+        completion.put("id", "chatcmpl-stub");
+        completion.put("object", object);
+        completion.put("created", System.currentTimeMillis() / 1000);
+        completion.put("model", "stub");
+        return completion;
+    }
+
+    private static void usage(ObjectNode response, int promptTokens, int completionTokens) {
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static String html(int size) {
+        StringBuilder builder = new StringBuilder(size + PARAGRAPH.length());
+        while (builder.length() < size) {
+            builder.append(PARAGRAPH);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Stub of the Tavily search API answering every search with generated results.
+ * <p>
+ * The text of each result is drawn from a fixed vocabulary with a seed derived from the query and the result's
+ * position, so searches are repeatable while different results do not look like near-duplicates to the
+ * deduplication.
+ */
+class StubTavilyServer extends StubUpstreamServer {
+
+    private static final String[] WORDS = ("agent agents tool tools calling planner workflow workflows model models "
+            + "evaluation benchmark latency budget tokens context retrieval memory orchestration pipeline open "
+            + "source release framework protocol server gateway security sandbox runtime inference fine tuning "
+            + "dataset traces reasoning step steps graph task tasks developer developers production deploy monitor "
+            + "observability cost throughput concurrency streaming response prompt prompts review pull request "
+            + "repository github python java typescript library sdk api endpoint cache failure retry").split(" ");
+
+    private final int resultsPerSearch;
+    private final int rawContentBytes;
+
+    StubTavilyServer(UpstreamProfile profile, int resultsPerSearch, int rawContentKb) throws IOException {
+        super("tavily", profile);
+        this.resultsPerSearch = resultsPerSearch;
+        this.rawContentBytes = rawContentKb * 1024;
+    }
+
+    @Override
+    protected void respond(HttpExchange exchange, JsonNode request) throws IOException {
+        String query = request.path("query").asText("");
+        ObjectNode response = OBJECT_MAPPER.createObjectNode();
+        response.put("query", query);
+        ArrayNode results = response.putArray("results");
+        for (int i = 0; i < resultsPerSearch; i++) {
+            Random random = new Random(31L * query.hashCode() + i);
+            ObjectNode result = results.addObject();
+            result.put("url", "https://example.com/" + Integer.toHexString(query.hashCode()) + "/" + i);
+            result.put("title", text(random, 8));
+            result.put("content", text(random, 40));
+            result.put("score", 0.9 - i * 0.05);
+            if (rawContentBytes > 0) {
+                result.put("raw_content", textOfSize(random, rawContentBytes));
+            }
+        }
+        sendJson(exchange, 200, OBJECT_MAPPER.writeValueAsString(response));
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            builder.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String textOfSize(Random random, int size) {
+        StringBuilder builder = new StringBuilder(size + 256);
+        while (builder.length() < size) {
+            builder.append(text(random, 12 + random.nextInt(12))).append(". ");
+        }
+        return builder.toString();
+    }
+}
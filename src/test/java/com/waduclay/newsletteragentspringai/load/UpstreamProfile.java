@@ -0,0 +1,51 @@
+package com.waduclay.newsletteragentspringai.load;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Behavior of a stubbed upstream: a log-normal latency distribution given by its median and 99th percentile, and
+ * the share of requests answered with {@code 500} or {@code 429}.
+ *
+ * @param median       median latency
+ * @param p99          99th percentile latency; equal to {@code median} for a constant latency
+ * @param errorRate    share of requests answered with {@code 500}, from 0 to 1
+ * @param throttleRate share of requests answered with {@code 429} and {@code Retry-After: 1}, from 0 to 1
+ */
+record UpstreamProfile(Duration median, Duration p99, double errorRate, double throttleRate) {
+
+    private static final double Z_99 = 2.3263;
+
+    UpstreamProfile {
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 latency " + p99 + " is below the median " + median);
+        }
+        if (errorRate < 0 || throttleRate < 0 || errorRate + throttleRate > 1) {
+            throw new IllegalArgumentException("Invalid error rate " + errorRate + " or throttle rate " + throttleRate);
+        }
+    }
+
+    /**
+     * Reads a profile from the system properties {@code load.<name>.latency} ({@code median,p99} in
+     * milliseconds), {@code load.<name>.error-rate} and {@code load.<name>.throttle-rate}.
+     */
+    static UpstreamProfile fromSystemProperties(String name, String defaultLatency) {
+        String[] latency = System.getProperty("load." + name + ".latency", defaultLatency).split(",");
+        Duration median = Duration.ofMillis(Long.parseLong(latency[0].strip()));
+        Duration p99 = latency.length > 1 ? Duration.ofMillis(Long.parseLong(latency[1].strip())) : median;
+        return new UpstreamProfile(median, p99,
+                Double.parseDouble(System.getProperty("load." + name + ".error-rate", "0")),
+                Double.parseDouble(System.getProperty("load." + name + ".throttle-rate", "0")));
+    }
+
+    Duration sampleLatency(Random random) {
+        double sigma = Math.log((double) p99.toNanos() / Math.max(1, median.toNanos())) / Z_99;
+        return Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * random.nextGaussian())));
+    }
+
+    @Override
+    public String toString() {
+        return "p50=" + median.toMillis() + "ms p99=" + p99.toMillis() + "ms errors=" + errorRate
+                + " throttled=" + throttleRate;
+    }
+}
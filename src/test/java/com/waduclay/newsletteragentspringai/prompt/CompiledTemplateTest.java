@@ -0,0 +1,84 @@
+package com.waduclay.newsletteragentspringai.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    @Test
+    void substitutesPlaceholdersInOrder() {
+        CompiledTemplate template = CompiledTemplate.compile("writer", "Topic: {topic}\nResearch: {research}");
+
+        assertThat(template.placeholders()).containsExactly("topic", "research");
+        assertThat(template.render(Map.of("topic", "Agents", "research", "[]")))
+                .isEqualTo("Topic: Agents\nResearch: []");
+    }
+
+    @Test
+    void acceptsDigitsDashesAndUnderscoresAfterTheFirstLetter() {
+        CompiledTemplate template = CompiledTemplate.compile("names", "{a1}{b-c}{d_e}");
+
+        assertThat(template.placeholders()).containsExactly("a1", "b-c", "d_e");
+        assertThat(template.render(Map.of("a1", "1", "b-c", "2", "d_e", "3"))).isEqualTo("123");
+    }
+
+    @Test
+    void rendersRepeatedPlaceholderEverywhere() {
+        CompiledTemplate template = CompiledTemplate.compile("repeat", "{title} - {title}");
+
+        assertThat(template.placeholders()).containsExactly("title");
+        assertThat(template.render(Map.of("title", "Weekly"))).isEqualTo("Weekly - Weekly");
+    }
+
+    @Test
+    void keepsBracesThatAreNotPlaceholdersAsLiteralText() {
+        String source = "Answer as {\"title\": \"...\", \"topics\": []} or {} or { spaced } or {1st} or {open";
+        CompiledTemplate template = CompiledTemplate.compile("json", source);
+
+        assertThat(template.placeholders()).isEmpty();
+        assertThat(template.render()).isEqualTo(source);
+    }
+
+    @Test
+    void keepsLiteralBracesAroundAPlaceholder() {
+        CompiledTemplate template = CompiledTemplate.compile("nested", "{{name}} {\"key\": \"{value}\"}");
+
+        assertThat(template.placeholders()).containsExactly("name", "value");
+        assertThat(template.render(Map.of("name", "n", "value", "v"))).isEqualTo("{n} {\"key\": \"v\"}");
+    }
+
+    @Test
+    void rejectsUnboundPlaceholdersNamingEachOnce() {
+        CompiledTemplate template = CompiledTemplate.compile("editor", "{title} {sections} {title}");
+
+        assertThatThrownBy(() -> template.render(Map.of("sections", "s")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unbound placeholders [title] in template: editor");
+        assertThatThrownBy(template::render)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unbound placeholders [title, sections] in template: editor");
+    }
+
+    @Test
+    void ignoresBindingsWithoutPlaceholder() {
+        CompiledTemplate template = CompiledTemplate.compile("date", "Date: {date}");
+
+        assertThat(template.render(Map.of("date", "May 1", "unused", "x"))).isEqualTo("Date: May 1");
+    }
+
+    @Test
+    void doesNotInterpretPlaceholderSyntaxInBoundValues() {
+        CompiledTemplate template = CompiledTemplate.compile("writer", "{research}|{topic}");
+
+        assertThat(template.render(Map.of("research", "{topic}", "topic", "Agents"))).isEqualTo("{topic}|Agents");
+    }
+
+    @Test
+    void rendersEmptyTemplate() {
+        assertThat(CompiledTemplate.compile("empty", "").render()).isEmpty();
+    }
+}
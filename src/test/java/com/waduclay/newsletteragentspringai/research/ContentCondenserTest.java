@@ -0,0 +1,90 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.waduclay.newsletteragentspringai.research.ResultsItems.page;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentCondenserTest {
+
+    private static final int GAP_TOKENS = TokenEstimator.estimate(" [...] ");
+
+    private static final String WEATHER = "The weather was mild across the region this week.";
+    private static final String RECALL = "Agent memory lets assistants recall earlier conversations.";
+    private static final String HARVEST = "Local farmers reported a strong harvest of apples.";
+    private static final String DESIGNS = "Researchers compared agent memory designs in production.";
+    private static final String COUNCIL = "The city council approved a new cycling lane.";
+    private static final String FESTIVAL = "Tickets for the summer festival sold out quickly.";
+    private static final String PAGE = String.join("\n", WEATHER, RECALL, HARVEST, DESIGNS, COUNCIL, FESTIVAL);
+
+    @Test
+    void stripsCodeFencesIncludingAnUnterminatedOne() {
+        String rawContent = String.join("\n",
+                RECALL,
+                "```",
+                "this plain line would survive without the fence",
+                "```",
+                DESIGNS,
+                "```python",
+                "and so would this line that is never closed",
+                "nor is this one");
+
+        assertThat(condense(1000, rawContent, "agent memory")).isEqualTo(RECALL + "\n" + DESIGNS);
+    }
+
+    @Test
+    void keepsSentencesInPageOrderWithGapMarkers() {
+        int maxTokens = TokenEstimator.estimate(RECALL) + TokenEstimator.estimate(DESIGNS) + 3 * GAP_TOKENS;
+
+        assertThat(condense(maxTokens, PAGE, "agent memory"))
+                .isEqualTo("[...] " + RECALL + " [...] " + DESIGNS + " [...]");
+    }
+
+    @Test
+    void keepsThePageOpeningWhenNoSentenceMatches() {
+        int maxTokens = TokenEstimator.estimate(WEATHER) + TokenEstimator.estimate(RECALL) + 3 * GAP_TOKENS;
+
+        assertThat(condense(maxTokens, PAGE, "quantum cryptography")).isEqualTo(WEATHER + " " + RECALL + " [...]");
+    }
+
+    @Test
+    void honoursTheBudget() {
+        String rawContent = IntStream.range(1, 10)
+                .mapToObj(i -> "Weather report number " + i + " was fairly calm.\n"
+                        + "Agent memory study number " + i + " shows gains.")
+                .collect(Collectors.joining("\n"));
+        int maxTokens = 3 * (TokenEstimator.estimate("Agent memory study number 1 shows gains.") + GAP_TOKENS);
+
+        String condensed = condense(maxTokens, rawContent, "agent memory");
+
+        assertThat(condensed).startsWith("[...] Agent memory study number 1").endsWith(" [...]");
+        assertThat(TokenEstimator.estimate(condensed)).isLessThanOrEqualTo(maxTokens);
+    }
+
+    @Test
+    void keepsContentWithinTheBudgetWhole() {
+        assertThat(condense(1000, PAGE, "agent memory")).isEqualTo(PAGE);
+    }
+
+    @Test
+    void doesNotModifyTheInputItems() {
+        ResultsItem item = page(PAGE);
+        ContentCondenser condenser = new ContentCondenser(new CondensingProperties(true, 10, 5));
+
+        List<ResultsItem> condensed = condenser.condense(List.of(item), "agent memory");
+
+        assertThat(item.getRawContent()).isEqualTo(PAGE);
+        assertThat(condensed.get(0)).isNotSameAs(item);
+        assertThat(condensed.get(0).getRawContent()).isNotEqualTo(PAGE);
+    }
+
+    private static String condense(int maxTokens, String rawContent, String topic) {
+        ContentCondenser condenser = new ContentCondenser(new CondensingProperties(true, maxTokens, 5));
+        return condenser.condense(List.of(page(rawContent)), topic).get(0).getRawContent();
+    }
+}
@@ -0,0 +1,40 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import org.junit.jupiter.api.Test;
+
+import static com.waduclay.newsletteragentspringai.research.ResultsItems.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RelevanceTest {
+
+    @Test
+    void combinesScoreWithShareOfTopicTermsMentioned() {
+        ResultsItem item = item("0.5", "Agent frameworks", "Tracing tool calls");
+
+        assertThat(Relevance.of(item, Relevance.terms("agent tracing memory")))
+                .isCloseTo(0.7 * 0.5 + 0.3 * 2 / 3, within(1e-9));
+    }
+
+    @Test
+    void usesScoreAloneWithoutTopicTerms() {
+        assertThat(Relevance.of(item("0.8", "Agents", "Tools"), Relevance.terms(null))).isEqualTo(0.8);
+    }
+
+    @Test
+    void doesNotMatchMissingFieldsAsTheWordNull() {
+        ResultsItem item = item(null, null, "Safety of agent memory");
+
+        assertThat(Relevance.of(item, Relevance.terms("null safety"))).isCloseTo(0.3 / 2, within(1e-9));
+        assertThat(Relevance.of(item(null, null, null), Relevance.terms("null"))).isZero();
+    }
+
+    @Test
+    void splitsTermsOnNonAlphanumericsAndDropsShortOnes() {
+        assertThat(Relevance.words("AI agents: tool-use, at scale! Agents")).containsExactly(
+                "agents", "tool", "use", "scale", "agents");
+        assertThat(Relevance.terms("AI agents: tool-use, at scale! Agents"))
+                .containsExactlyInAnyOrder("agents", "tool", "use", "scale");
+    }
+}
@@ -0,0 +1,113 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.waduclay.newsletteragentspringai.research.ResultsItems.item;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResearchPackerTest {
+
+    private static final int RAW_CONTENT_FIELD_TOKENS = 8;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResearchPacker packer = new ResearchPacker(objectMapper, new ResearchPackingProperties(6000, 8000, 50));
+
+    @Test
+    void includesEverythingThatFitsMostRelevantFirst() {
+        ResultsItem low = item("0.1", "Low", null);
+        ResultsItem high = item("0.9", "High", "Agents in production.");
+        ResultsItem middle = item("0.5", "Middle", null);
+
+        PackedResearch packed = packer.pack(List.of(low, high, middle), null, 10_000);
+
+        assertThat(packed.isCut()).isFalse();
+        assertThat(packed.included()).isEqualTo(3);
+        assertThat(packed.text()).doesNotContain("[Research note");
+        assertThat(packed.text().indexOf("High")).isLessThan(packed.text().indexOf("Middle"));
+        assertThat(packed.text().indexOf("Middle")).isLessThan(packed.text().indexOf("Low"));
+        assertThat(packed.text()).contains("Agents in production.");
+    }
+
+    @Test
+    void omitsLeastRelevantResultsThatDoNotFitAndSaysSo() throws Exception {
+        ResultsItem high = item("0.9", "High", null);
+        List<ResultsItem> results = List.of(item("0.1", "Low", null), high, item("0.5", "Middle", null));
+        int budget = metadataTokens(high) + 1;
+
+        PackedResearch packed = packer.pack(results, null, budget);
+
+        assertThat(packed.included()).isEqualTo(1);
+        assertThat(packed.dropped()).isEqualTo(2);
+        assertThat(packed.text()).contains("High").doesNotContain("Middle").doesNotContain("\"Low\"");
+        assertThat(packed.text()).endsWith("[Research note: to fit a budget of ~" + budget
+                + " tokens, 2 of 3 results were omitted. Results are ordered by relevance.]");
+    }
+
+    @Test
+    void truncatesRawContentToTheRemainingBudget() throws Exception {
+        ResultsItem item = item("0.9", "Long", null);
+        item.setRawContent(words(2000));
+        int budget = metadataTokens(item) + RAW_CONTENT_FIELD_TOKENS + 300;
+
+        PackedResearch packed = packer.pack(List.of(item), null, budget);
+
+        assertThat(packed.truncated()).isEqualTo(1);
+        assertThat(packed.text()).contains(" [truncated]")
+                .contains("1 raw_content fields were truncated (marked [truncated])");
+        String note = packed.text().substring(packed.text().indexOf("[Research note"));
+        assertThat(packed.estimatedTokens() - TokenEstimator.estimate(note)).isLessThanOrEqualTo(budget);
+        assertThat(item.getRawContent()).isEqualTo(words(2000));
+    }
+
+    @Test
+    void removesRawContentWhenLessThanTheMinimumExcerptIsLeft() throws Exception {
+        ResultsItem item = item("0.9", "Long", null);
+        item.setRawContent(words(2000));
+        int budget = metadataTokens(item) + RAW_CONTENT_FIELD_TOKENS + 20;
+
+        PackedResearch packed = packer.pack(List.of(item), null, budget);
+
+        assertThat(packed.rawContentRemoved()).isEqualTo(1);
+        assertThat(packed.truncated()).isZero();
+        assertThat(packed.text()).doesNotContain("word1 ").contains("1 raw_content fields were removed");
+    }
+
+    @Test
+    void keepsRawContentThatFitsWhole() {
+        ResultsItem item = item("0.9", "Short", null);
+        item.setRawContent(words(20));
+
+        PackedResearch packed = packer.pack(List.of(item), null, 10_000);
+
+        assertThat(packed.isCut()).isFalse();
+        assertThat(packed.text()).contains(words(20));
+    }
+
+    @Test
+    void ranksByTopicTermsWhenScoresTie() {
+        ResultsItem unrelated = item("0.5", "Gardening tips", null);
+        ResultsItem related = item("0.5", "Agent memory", null);
+
+        PackedResearch packed = packer.pack(Arrays.asList(unrelated, null, related), "agent memory", 10_000);
+
+        assertThat(packed.included()).isEqualTo(2);
+        assertThat(packed.text().indexOf("Agent memory")).isLessThan(packed.text().indexOf("Gardening tips"));
+    }
+
+    private int metadataTokens(ResultsItem item) throws Exception {
+        return TokenEstimator.estimate(objectMapper.writeValueAsString(ResearchPacker.copy(item, null)));
+    }
+
+    private static String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            words.append("word").append(i).append(' ');
+        }
+        return words.toString().strip();
+    }
+}
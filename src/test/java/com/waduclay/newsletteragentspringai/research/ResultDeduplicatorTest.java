@@ -0,0 +1,109 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import com.waduclay.newsletteragentspringai.research.ResultDeduplicator.DeduplicationResult;
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.waduclay.newsletteragentspringai.research.ResultsItems.item;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultDeduplicatorTest {
+
+    private static final String ARTICLE = "Autonomous agents plan their work, call external tools and keep a memory "
+            + "of earlier steps so that long running tasks can be resumed after failures without starting again. "
+            + "Teams that deploy them report fewer manual handoffs and faster turnaround on routine research work";
+    private static final String EDITED = ARTICLE.replace("failures", "crashes");
+
+    private final ResultDeduplicator deduplicator = deduplicator(6, 10);
+
+    @Test
+    void normalizesUrls() {
+        assertThat(ResultDeduplicator.normalizeUrl("https://WWW.Example.com/post/?utm_source=x&b=2&a=1#top"))
+                .isEqualTo("example.com/post?a=1&b=2");
+        assertThat(ResultDeduplicator.normalizeUrl("http://m.example.com/post?fbclid=1&ref=feed"))
+                .isEqualTo("example.com/post");
+        assertThat(ResultDeduplicator.normalizeUrl("https://example.com/Post")).isEqualTo("example.com/Post");
+        assertThat(ResultDeduplicator.normalizeUrl("not a url")).isEqualTo("not a url");
+        assertThat(ResultDeduplicator.normalizeUrl(" ")).isNull();
+        assertThat(ResultDeduplicator.normalizeUrl(null)).isNull();
+    }
+
+    @Test
+    void keepsOneCopyOfTheSameUrl() {
+        ResultsItem original = item("https://www.example.com/agents/", "0.9", "Agents", "short");
+        ResultsItem tracked = item("https://example.com/agents?utm_medium=email", "0.5", "Agents", "short");
+
+        DeduplicationResult result = deduplicator.deduplicate(List.of("agents"), List.of(List.of(original, tracked)));
+
+        assertThat(result.resultsFor(0)).containsExactly(original);
+        assertThat(result.removed()).isEqualTo(1);
+        assertThat(result.tokensRemoved()).isEqualTo(TokenEstimator.estimate("short"));
+        assertThat(result.bytesRemoved()).isEqualTo("short".length());
+    }
+
+    @Test
+    void groupsNearDuplicatesUpToTheMaximumHammingDistance() {
+        int distance = SimHash.distance(SimHash.fingerprint(Relevance.words(ARTICLE)),
+                SimHash.fingerprint(Relevance.words(EDITED)));
+        assertThat(distance).isPositive();
+        List<List<ResultsItem>> research = List.of(List.of(
+                item("https://a.example/post", "0.9", "Agents", ARTICLE),
+                item("https://b.example/mirror", "0.4", "Agents", EDITED)));
+
+        assertThat(deduplicator(distance, 10).deduplicate(List.of("agents"), research).resultsFor(0)).hasSize(1);
+        assertThat(deduplicator(distance - 1, 10).deduplicate(List.of("agents"), research).resultsFor(0)).hasSize(2);
+    }
+
+    @Test
+    void comparesFingerprintsOnlyOfLongEnoughResults() {
+        List<List<ResultsItem>> research = List.of(List.of(
+                item("https://a.example/post", "0.9", "Agents", ARTICLE),
+                item("https://b.example/mirror", "0.4", "Agents", ARTICLE)));
+
+        assertThat(deduplicator(6, 1000).deduplicate(List.of("agents"), research).resultsFor(0)).hasSize(2);
+    }
+
+    @Test
+    void keepsDuplicateInTheTopicItIsMostRelevantTo() {
+        ResultsItem shared = item("https://example.com/memory", "0.6", "Agent memory stores", "short");
+        ResultsItem sharedCopy = item("https://example.com/memory", "0.6", "Agent memory stores", "short");
+        ResultsItem pricing = item("https://example.com/pricing", "0.8", "Model pricing", "short");
+
+        DeduplicationResult result = deduplicator.deduplicate(List.of("model pricing", "agent memory"),
+                List.of(List.of(pricing, shared), List.of(sharedCopy)));
+
+        assertThat(result.resultsFor(0)).containsExactly(pricing);
+        assertThat(result.resultsFor(1)).containsExactly(sharedCopy);
+    }
+
+    @Test
+    void topicWhoseResultsWereAllClaimedElsewhereKeepsItsBestResult() {
+        ResultsItem memory = item("https://example.com/memory", "0.9", "Agent memory", "short");
+        ResultsItem tools = item("https://example.com/tools", "0.9", "Agent tools", "short");
+        ResultsItem memoryCopy = item("https://example.com/memory", "0.2", "Agent memory", "short");
+        ResultsItem toolsCopy = item("https://example.com/tools", "0.5", "Agent tools", "short");
+
+        DeduplicationResult result = deduplicator.deduplicate(List.of("agent memory", "agent tools"),
+                List.of(List.of(memory, tools), List.of(memoryCopy, toolsCopy)));
+
+        assertThat(result.resultsFor(0)).containsExactly(memory, tools);
+        assertThat(result.resultsFor(1)).containsExactly(toolsCopy);
+        assertThat(result.removed()).isEqualTo(1);
+    }
+
+    @Test
+    void countsRemovedResultsSinceStartup() {
+        ResultsItem item = item("https://example.com/a", "0.9", "A", "short");
+
+        deduplicator.deduplicate(List.of("a"), List.of(List.of(item, item("https://example.com/a", "0.1", "A", "x"))));
+        deduplicator.deduplicate(List.of("a"), List.of(List.of(item, item("https://example.com/a", "0.1", "A", "y"))));
+
+        assertThat(deduplicator.resultsRemoved()).isEqualTo(2);
+    }
+
+    private static ResultDeduplicator deduplicator(int maxHammingDistance, int minWords) {
+        return new ResultDeduplicator(new DeduplicationProperties(true, maxHammingDistance, minWords));
+    }
+}
@@ -0,0 +1,44 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import com.waduclay.newsletteragentspringai.tavily.ResultsItem;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Search results for the research tests.
+ */
+final class ResultsItems {
+
+    private ResultsItems() {
+    }
+
+    /**
+     * A result whose URL is derived from its title.
+     */
+    static ResultsItem item(String score, String title, String content) {
+        String url = title == null ? null
+                : "https://example.com/" + title.toLowerCase(Locale.ROOT).replace(' ', '-');
+        return item(url, score, title, content);
+    }
+
+    static ResultsItem item(String url, String score, String title, String content) {
+        ResultsItem item = new ResultsItem();
+        item.setUrl(url);
+        item.setScore(score == null ? null : new BigDecimal(score));
+        item.setTitle(title);
+        item.setContent(content);
+        return item;
+    }
+
+    /**
+     * A page carrying only raw content.
+     */
+    static ResultsItem page(String rawContent) {
+        ResultsItem item = new ResultsItem();
+        item.setTitle("Page");
+        item.setUrl("https://example.com/page");
+        item.setRawContent(rawContent);
+        return item;
+    }
+}
@@ -0,0 +1,41 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimHashTest {
+
+    private static final String ARTICLE = "Autonomous agents plan their work, call external tools and keep a memory "
+            + "of earlier steps so that long running tasks can be resumed after failures without starting again";
+
+    @Test
+    void fingerprintsEqualWordsEqually() {
+        assertThat(SimHash.fingerprint(Relevance.words(ARTICLE)))
+                .isEqualTo(SimHash.fingerprint(Relevance.words(ARTICLE.toUpperCase() + "!")));
+    }
+
+    @Test
+    void fingerprintsSimilarTextsCloserThanUnrelatedTexts() {
+        long article = SimHash.fingerprint(Relevance.words(ARTICLE));
+        long edited = SimHash.fingerprint(Relevance.words(ARTICLE.replace("failures", "crashes")));
+        long unrelated = SimHash.fingerprint(Relevance.words("Quarterly earnings of regional banks rose sharply as "
+                + "interest margins widened while deposit costs stayed flat across most markets this season"));
+
+        assertThat(SimHash.distance(article, edited)).isLessThan(SimHash.distance(article, unrelated));
+    }
+
+    @Test
+    void fingerprintsTextsShorterThanOneShingle() {
+        assertThat(SimHash.fingerprint(List.of("agents"))).isEqualTo(SimHash.fingerprint(List.of("agents")));
+        assertThat(SimHash.fingerprint(List.of("agents"))).isNotEqualTo(SimHash.fingerprint(List.of("tools")));
+    }
+
+    @Test
+    void countsDifferingBits() {
+        assertThat(SimHash.distance(0b1011L, 0b0001L)).isEqualTo(2);
+        assertThat(SimHash.distance(-1L, 0L)).isEqualTo(64);
+    }
+}
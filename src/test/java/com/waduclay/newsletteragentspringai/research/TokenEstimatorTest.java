@@ -0,0 +1,44 @@
+package com.waduclay.newsletteragentspringai.research;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenEstimatorTest {
+
+    @Test
+    void countsShortWordsAsOneTokenAndIgnoresWhitespace() {
+        assertThat(TokenEstimator.estimate("ants call bees")).isEqualTo(3);
+        assertThat(TokenEstimator.estimate("  ants \n\n bees  ")).isEqualTo(2);
+        assertThat(TokenEstimator.estimate("\n\n")).isZero();
+    }
+
+    @Test
+    void splitsLongWordsEveryFourCharacters() {
+        assertThat(TokenEstimator.estimate("abcd")).isEqualTo(1);
+        assertThat(TokenEstimator.estimate("abcde")).isEqualTo(2);
+        assertThat(TokenEstimator.estimate("internationalization")).isEqualTo(5);
+    }
+
+    @Test
+    void countsEverySymbolAsAToken() {
+        assertThat(TokenEstimator.estimate("{\"a\":1}")).isEqualTo(7);
+        assertThat(TokenEstimator.estimate("a, b.")).isEqualTo(4);
+    }
+
+    @Test
+    void treatsNullAsEmpty() {
+        assertThat(TokenEstimator.estimate(null)).isZero();
+        assertThat(TokenEstimator.estimate("")).isZero();
+    }
+
+    @Test
+    void keepsTextThatFitsAndCutsProportionallyOtherwise() {
+        String text = "one two six ten four five nine zero fig oak";
+
+        assertThat(TokenEstimator.charsFor(text, 10)).isEqualTo(text.length());
+        assertThat(TokenEstimator.charsFor(text, 100)).isEqualTo(text.length());
+        assertThat(TokenEstimator.charsFor(text, 5)).isEqualTo(text.length() / 2);
+        assertThat(TokenEstimator.charsFor(text, 0)).isZero();
+    }
+}
@@ -0,0 +1,117 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TavilySearchCacheTest {
+
+    private static final Duration SHORT_TTL = Duration.ofMillis(100);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void expiresEntriesAfterTheTtlOfTheirTimeRange() throws Exception {
+        TavilySearchCache cache = cache(256);
+        cache.put(search("agents", TimeRange.day), response("agents"), Duration.ofMillis(10));
+        cache.put(search("agents", TimeRange.week), response("agents"), Duration.ofMillis(10));
+        cache.put(search("agents", null), response("agents"), Duration.ofMillis(10));
+
+        Thread.sleep(SHORT_TTL.multipliedBy(2).toMillis());
+
+        assertThat(cache.get(search("agents", TimeRange.day))).isEmpty();
+        assertThat(cache.get(search("agents", TimeRange.week))).isPresent();
+        assertThat(cache.get(search("agents", null))).isEmpty();
+        assertThat(jsonFiles()).hasSize(1);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryFromMemory() {
+        TavilySearchCache cache = cache(2);
+        cache.put(search("first", TimeRange.week), response("first"), Duration.ofMillis(10));
+        cache.put(search("second", TimeRange.week), response("second"), Duration.ofMillis(10));
+        cache.get(search("first", TimeRange.week));
+
+        cache.put(search("third", TimeRange.week), response("third"), Duration.ofMillis(10));
+
+        assertThat(cache.get(search("first", TimeRange.week))).isPresent();
+        assertThat(cache.get(search("third", TimeRange.week))).isPresent();
+        assertThat(cache.stats().diskHits()).isZero();
+        assertThat(cache.get(search("second", TimeRange.week))).map(TavilyResponse::getQuery).contains("second");
+        assertThat(cache.stats().memoryHits()).isEqualTo(3);
+        assertThat(cache.stats().diskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void servesEntriesFromDiskAfterARestart() {
+        cache(256).put(search("agents", TimeRange.week), response("agents"), Duration.ofMillis(10));
+
+        TavilySearchCache restarted = cache(256);
+
+        assertThat(restarted.get(search("  agents ", TimeRange.week))).map(TavilyResponse::getQuery)
+                .contains("agents");
+        assertThat(restarted.stats().diskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsAnUnreadableEntry() throws IOException {
+        TavilySearchCache reader = cache(256);
+        cache(256).put(search("agents", TimeRange.week), response("agents"), Duration.ofMillis(10));
+        Files.writeString(jsonFiles().get(0), "{\"key\": ");
+
+        assertThat(reader.get(search("agents", TimeRange.week))).isEmpty();
+        assertThat(reader.stats().misses()).isEqualTo(1);
+        assertThat(jsonFiles()).isEmpty();
+    }
+
+    @Test
+    void removesExpiredUnreadableAndTemporaryFilesAtStartup() throws Exception {
+        TavilySearchCache cache = cache(256);
+        cache.put(search("agents", TimeRange.day), response("agents"), Duration.ofMillis(10));
+        cache.put(search("agents", TimeRange.week), response("agents"), Duration.ofMillis(10));
+        Files.writeString(directory.resolve("broken.json"), "not json");
+        Files.writeString(directory.resolve("entry123.tmp"), "{\"key\": ");
+        Thread.sleep(SHORT_TTL.multipliedBy(2).toMillis());
+
+        TavilySearchCache restarted = cache(256);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+        assertThat(restarted.get(search("agents", TimeRange.week))).isPresent();
+    }
+
+    private TavilySearchCache cache(int maxEntries) {
+        return new TavilySearchCache(new TavilyCacheProperties(true, maxEntries, directory.toString(), SHORT_TTL,
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), SHORT_TTL), objectMapper);
+    }
+
+    private List<Path> jsonFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".json")).toList();
+        }
+    }
+
+    private static TavilySearch search(String query, TimeRange timeRange) {
+        return TavilySearch.builder().query(query).timeRange(timeRange).build();
+    }
+
+    private static TavilyResponse response(String query) {
+        TavilyResponse response = new TavilyResponse();
+        response.setQuery(query);
+        response.setResults(List.of());
+        return response;
+    }
+}
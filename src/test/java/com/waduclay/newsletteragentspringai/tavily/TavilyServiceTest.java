@@ -0,0 +1,162 @@
+package com.waduclay.newsletteragentspringai.tavily;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimitProperties;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimiters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TavilyServiceTest {
+
+    private static final String RESPONSE = "{\"query\": \"agents\", \"results\": [{\"title\": \"Agents\", "
+            + "\"url\": \"https://example.com/agents\", \"content\": \"About agents\", \"score\": 0.9, "
+            + "\"raw_content\": \"%s\"}]}";
+
+    @TempDir
+    Path cacheDirectory;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Semaphore received = new Semaphore(0);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpServer server;
+    private TavilyService tavilyService;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        tavilyService = service();
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        tavilyService.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void joinedCallerGetsTheResponseWhenTheFirstCallerCancels() throws Exception {
+        Disposable first = tavilyService.searchReactive(new TavilySearch("agents")).subscribe();
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<TavilyResponse> joined = tavilyService.searchReactive(new TavilySearch("agents")).toFuture();
+        CompletableFuture<TavilyResponse> blocking = tavilyService.searchAsync(new TavilySearch("agents"));
+        awaitCallers(new TavilySearch("agents"), 3);
+
+        first.dispose();
+        release.countDown();
+
+        assertThat(joined.get(5, TimeUnit.SECONDS).getResults()).hasSize(1);
+        assertThat(blocking.get(5, TimeUnit.SECONDS).getResults()).hasSize(1);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void searchIsCancelledUpstreamOnceEveryCallerCancelled() throws Exception {
+        Disposable first = tavilyService.searchReactive(new TavilySearch("agents")).subscribe();
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        Disposable second = tavilyService.searchReactive(new TavilySearch("agents")).subscribe();
+        awaitCallers(new TavilySearch("agents"), 2);
+
+        first.dispose();
+        second.dispose();
+        CompletableFuture<TavilyResponse> next = tavilyService.searchReactive(new TavilySearch("agents")).toFuture();
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        assertThat(next.get(5, TimeUnit.SECONDS).getResults()).hasSize(1);
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void stuckSearchIsAbandonedAtItsTimeout() throws Exception {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> tavilyService.search(new TavilySearch("agents"), Duration.ofSeconds(1)))
+                .isInstanceOf(TimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<TavilyResponse> next = tavilyService.searchAsync(new TavilySearch("agents"));
+        assertThat(received.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        assertThat(next.get(5, TimeUnit.SECONDS).getResults()).hasSize(1);
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void capsRawContentOfStreamedResponses() throws Exception {
+        release.countDown();
+
+        TavilyResponse response = tavilyService.searchReactive(new TavilySearch("agents")).block(Duration.ofSeconds(5));
+
+        assertThat(response.getResults().get(0).getRawContent()).hasSize(100).isEqualTo("x".repeat(100));
+        assertThat(response.getResults().get(0).getTitle()).isEqualTo("Agents");
+    }
+
+    private void awaitCallers(TavilySearch search, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tavilyService.inFlightCallers(search) < callers && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(tavilyService.inFlightCallers(search)).isEqualTo(callers);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            received.release();
+            release.await();
+            byte[] body = RESPONSE.formatted("x".repeat(1_000_000)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TavilyService service() {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        TavilyProperties properties = new TavilyProperties("key", baseUrl, 4, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), 100);
+        TavilyCacheProperties cacheProperties = new TavilyCacheProperties(false, 16, cacheDirectory.toString(),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1));
+        UpstreamLimitProperties.Limit limit = new UpstreamLimitProperties.Limit(100, 100, 8, 1, 8,
+                Duration.ofSeconds(60), 0, Duration.ofMillis(10), Duration.ofSeconds(1));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new TavilyService(properties, objectMapper, new TavilySearchCache(cacheProperties, objectMapper),
+                new UpstreamLimiters(new UpstreamLimitProperties(limit, limit), meterRegistry), meterRegistry);
+    }
+}
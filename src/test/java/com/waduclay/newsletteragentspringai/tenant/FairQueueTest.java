@@ -0,0 +1,64 @@
+package com.waduclay.newsletteragentspringai.tenant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueueTest {
+
+    @Test
+    void servesTenantsRoundRobinAndEachTenantInOrder() {
+        FairQueue<String> queue = new FairQueue<>();
+        for (int i = 1; i <= 4; i++) {
+            queue.add("busy", "busy-" + i);
+        }
+        queue.add("quiet", "quiet-1");
+        queue.add("other", "other-1");
+        queue.add("quiet", "quiet-2");
+
+        assertThat(queue.size()).isEqualTo(7);
+        assertThat(drain(queue))
+                .containsExactly("busy-1", "quiet-1", "other-1", "busy-2", "quiet-2", "busy-3", "busy-4");
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void tenantArrivingLateIsServedAfterAtMostOneElementOfEachOtherTenant() {
+        FairQueue<String> queue = new FairQueue<>();
+        for (int i = 1; i <= 100; i++) {
+            queue.add("busy", "busy-" + i);
+        }
+        assertThat(queue.poll()).isEqualTo("busy-1");
+
+        queue.add("late", "late-1");
+
+        assertThat(queue.poll()).isEqualTo("busy-2");
+        assertThat(queue.poll()).isEqualTo("late-1");
+    }
+
+    @Test
+    void peeksAtWhatPollReturns() {
+        FairQueue<String> queue = new FairQueue<>();
+        assertThat(queue.peek()).isNull();
+        assertThat(queue.poll()).isNull();
+
+        queue.add("a", "a-1");
+        queue.add("a", "a-2");
+        queue.add("b", "b-1");
+
+        assertThat(queue.peek()).isEqualTo("a-1");
+        queue.poll();
+        assertThat(queue.peek()).isEqualTo("b-1");
+    }
+
+    private static List<String> drain(FairQueue<String> queue) {
+        List<String> elements = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            elements.add(queue.poll());
+        }
+        return elements;
+    }
+}
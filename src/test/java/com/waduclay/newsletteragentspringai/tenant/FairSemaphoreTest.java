@@ -0,0 +1,69 @@
+package com.waduclay.newsletteragentspringai.tenant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairSemaphoreTest {
+
+    @Test
+    void grantsFreePermitsImmediately() {
+        FairSemaphore semaphore = new FairSemaphore(2);
+
+        assertThat(semaphore.acquireAsync("a")).isDone();
+        assertThat(semaphore.acquireAsync("a")).isDone();
+        assertThat(semaphore.acquireAsync("a")).isNotDone();
+        assertThat(semaphore.queued()).isEqualTo(1);
+    }
+
+    @Test
+    void tenantWithManyWaitersCannotStarveAnother() {
+        FairSemaphore semaphore = new FairSemaphore(1);
+        semaphore.acquireAsync("busy");
+        List<CompletableFuture<Void>> busy = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            busy.add(semaphore.acquireAsync("busy"));
+        }
+        CompletableFuture<Void> quiet = semaphore.acquireAsync("quiet");
+
+        semaphore.release();
+        assertThat(busy.get(0)).isDone();
+        assertThat(quiet).isNotDone();
+
+        semaphore.release();
+        assertThat(quiet).isDone();
+        assertThat(busy.subList(1, busy.size())).noneMatch(CompletableFuture::isDone);
+    }
+
+    @Test
+    void cancelledWaiterDoesNotTakeThePermit() {
+        FairSemaphore semaphore = new FairSemaphore(1);
+        semaphore.acquireAsync("a");
+        CompletableFuture<Void> cancelled = semaphore.acquireAsync("a");
+        CompletableFuture<Void> waiting = semaphore.acquireAsync("b");
+        cancelled.cancel(false);
+
+        semaphore.release();
+
+        assertThat(waiting).isDone().isNotCancelled();
+        assertThat(semaphore.queued()).isZero();
+    }
+
+    @Test
+    void permitOfCancelledWaiterReturnsToThePool() {
+        FairSemaphore semaphore = new FairSemaphore(1);
+        semaphore.acquireAsync("a");
+        semaphore.acquireAsync("a").cancel(false);
+        semaphore.acquireAsync("b").cancel(false);
+
+        semaphore.release();
+
+        assertThat(semaphore.queued()).isZero();
+        assertThat(semaphore.acquireAsync("c")).isDone();
+        assertThat(semaphore.acquireAsync("c")).isNotDone();
+    }
+}
@@ -0,0 +1,251 @@
+package com.waduclay.newsletteragentspringai.upstream;
+
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimitProperties.Limit;
+import com.waduclay.newsletteragentspringai.upstream.UpstreamLimiter.Permit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class UpstreamLimiterTest {
+
+    private static final Duration LATENCY_THRESHOLD = Duration.ofSeconds(10);
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(2);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+
+    private final AtomicLong now = new AtomicLong();
+    private UpstreamLimiter limiter;
+
+    @AfterEach
+    void stop() {
+        if (limiter != null) {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void raisesTheConcurrencyLimitByOneOverTheLimitForFastResponses() {
+        limiter = limiter(100, 100, 2, 1, 3);
+
+        respond(HttpStatus.OK, Duration.ofSeconds(1));
+        assertThat(limiter.concurrencyLimit()).isCloseTo(2.5, within(1e-9));
+        respond(HttpStatus.OK, Duration.ofSeconds(1));
+        assertThat(limiter.concurrencyLimit()).isCloseTo(2.9, within(1e-9));
+        respond(HttpStatus.OK, Duration.ofSeconds(1));
+        assertThat(limiter.concurrencyLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void lowersTheConcurrencyLimitByTenPercentOnALatencySpike() {
+        limiter = limiter(100, 100, 8, 1, 8);
+
+        respond(HttpStatus.OK, LATENCY_THRESHOLD.plusSeconds(1));
+
+        assertThat(limiter.concurrencyLimit()).isCloseTo(7.2, within(1e-9));
+    }
+
+    @Test
+    void lowersTheConcurrencyLimitByTenPercentOnATransportFailure() {
+        limiter = limiter(100, 100, 8, 1, 8);
+        Permit permit = grant();
+
+        permit.onFailure();
+        permit.release();
+
+        assertThat(limiter.concurrencyLimit()).isCloseTo(7.2, within(1e-9));
+        assertThat(limiter.transportFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void halvesTheConcurrencyLimitOnThrottledResponsesDownToTheMinimum() {
+        limiter = limiter(100, 100, 8, 3, 8);
+
+        respond(HttpStatus.TOO_MANY_REQUESTS, Duration.ofSeconds(1));
+        assertThat(limiter.concurrencyLimit()).isEqualTo(4);
+        respond(HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1));
+        assertThat(limiter.concurrencyLimit()).isEqualTo(3);
+        assertThat(limiter.throttled()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesTheConcurrencyLimitUnchangedOnClientErrors() {
+        limiter = limiter(100, 100, 2, 1, 8);
+
+        respond(HttpStatus.UNAUTHORIZED, Duration.ofSeconds(1));
+        respond(HttpStatus.BAD_REQUEST, Duration.ofSeconds(1));
+        respond(HttpStatus.FORBIDDEN, Duration.ofSeconds(1));
+
+        assertThat(limiter.concurrencyLimit()).isEqualTo(2);
+        assertThat(limiter.errorResponses()).isEqualTo(3);
+        assertThat(limiter.throttled()).isZero();
+    }
+
+    @Test
+    void grantsNoMorePermitsThanTheConcurrencyLimit() {
+        limiter = limiter(100, 100, 2, 1, 8);
+        Permit first = grant();
+        grant();
+
+        CompletableFuture<Permit> third = limiter.acquireAsync("a");
+        assertThat(third).isNotDone();
+        assertThat(limiter.queued()).isEqualTo(1);
+
+        first.release();
+        assertThat(third).isDone();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void returnsAPermitGrantedWhileTheWaitingThreadIsInterrupted() throws InterruptedException {
+        limiter = limiter(1_000_000, 1_000_000, 1, 1, 1);
+
+        for (int i = 0; i < 500; i++) {
+            Permit held = grant();
+            Thread waiting = new Thread(() -> {
+                try {
+                    limiter.acquire().release();
+                } catch (InterruptedException ignored) {
+                    // the permit, if it was granted anyway, must have been returned
+                }
+            });
+            waiting.start();
+            while (limiter.queued() == 0) {
+                Thread.onSpinWait();
+            }
+            waiting.interrupt();
+            held.release();
+            waiting.join();
+
+            assertThat(limiter.inFlight()).isZero();
+            assertThat(limiter.queued()).isZero();
+        }
+    }
+
+    @Test
+    void startsRequestsAtTheConfiguredRateOnceTheBurstIsSpent() {
+        limiter = limiter(2, 2, 8, 1, 8);
+        grant();
+        grant();
+
+        CompletableFuture<Permit> third = limiter.acquireAsync("a");
+        now.addAndGet(Duration.ofMillis(400).toNanos());
+        CompletableFuture<Permit> fourth = limiter.acquireAsync("a");
+        assertThat(third).isNotDone();
+
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        CompletableFuture<Permit> fifth = limiter.acquireAsync("a");
+        assertThat(third).isDone();
+        assertThat(fourth).isNotDone();
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        limiter.acquireAsync("a");
+        assertThat(fourth).isDone();
+        assertThat(fifth).isNotDone();
+    }
+
+    @Test
+    void pausesAllPermitsForTheRetryAfterOfAThrottledResponse() {
+        limiter = limiter(100, 100, 8, 1, 8);
+        Permit permit = grant();
+        permit.onResponse(HttpStatus.TOO_MANY_REQUESTS, retryAfter("5"));
+        permit.release();
+
+        CompletableFuture<Permit> waiting = limiter.acquireAsync("a");
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        limiter.acquireAsync("b");
+        assertThat(waiting).isNotDone();
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        limiter.acquireAsync("c");
+        assertThat(waiting).isDone();
+    }
+
+    @Test
+    void ignoresARetryAfterLongerThanTheMaximumBackoff() {
+        limiter = limiter(100, 100, 8, 1, 8);
+        Permit permit = grant();
+        permit.onResponse(HttpStatus.TOO_MANY_REQUESTS, retryAfter("3600"));
+        permit.release();
+
+        assertThat(limiter.acquireAsync("a")).isDone();
+    }
+
+    @Test
+    void retriesOnlyThrottledResponsesUpToTheMaximumRetries() {
+        limiter = limiter(100, 100, 8, 1, 8);
+
+        assertThat(limiter.retryDelay(HttpStatus.OK, new HttpHeaders(), 0)).isEmpty();
+        assertThat(limiter.retryDelay(HttpStatus.UNAUTHORIZED, new HttpHeaders(), 0)).isEmpty();
+        assertThat(limiter.retryDelay(HttpStatus.TOO_MANY_REQUESTS, new HttpHeaders(), 2)).isPresent();
+        assertThat(limiter.retryDelay(HttpStatus.TOO_MANY_REQUESTS, new HttpHeaders(), 3)).isEmpty();
+    }
+
+    @Test
+    void waitsForTheRetryAfterWhenItIsWithinTheMaximumBackoff() {
+        limiter = limiter(100, 100, 8, 1, 8);
+
+        assertThat(limiter.retryDelay(HttpStatus.TOO_MANY_REQUESTS, retryAfter("7"), 0))
+                .contains(Duration.ofSeconds(7));
+        assertThat(limiter.retryDelay(HttpStatus.BAD_GATEWAY, retryAfter("61"), 0)).isEmpty();
+    }
+
+    @Test
+    void backsOffExponentiallyWithJitterUpToTheMaximumBackoff() {
+        limiter = limiter(100, 100, 8, 1, 8);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.retryDelay(HttpStatus.TOO_MANY_REQUESTS, new HttpHeaders(), 0).orElseThrow())
+                    .isBetween(INITIAL_BACKOFF.dividedBy(2), INITIAL_BACKOFF);
+            assertThat(limiter.retryDelay(HttpStatus.TOO_MANY_REQUESTS, new HttpHeaders(), 2).orElseThrow())
+                    .isBetween(INITIAL_BACKOFF.multipliedBy(2), INITIAL_BACKOFF.multipliedBy(4));
+        }
+        UpstreamLimiter patient = new UpstreamLimiter("patient", new Limit(100, 100, 8, 1, 8, LATENCY_THRESHOLD,
+                20, INITIAL_BACKOFF, MAX_BACKOFF), now::get);
+        try {
+            assertThat(patient.retryDelay(HttpStatus.TOO_MANY_REQUESTS, new HttpHeaders(), 10).orElseThrow())
+                    .isBetween(MAX_BACKOFF.dividedBy(2), MAX_BACKOFF);
+        } finally {
+            patient.shutdown();
+        }
+    }
+
+    @Test
+    void parsesRetryAfterInSecondsOrAsAnHttpDate() {
+        assertThat(UpstreamLimiter.retryAfter(retryAfter("12"))).contains(Duration.ofSeconds(12));
+        assertThat(UpstreamLimiter.retryAfter(retryAfter("Wed, 21 Oct 2015 07:28:00 GMT"))).contains(Duration.ZERO);
+        assertThat(UpstreamLimiter.retryAfter(retryAfter("soon"))).isEmpty();
+        assertThat(UpstreamLimiter.retryAfter(new HttpHeaders())).isEmpty();
+    }
+
+    private void respond(HttpStatus status, Duration latency) {
+        Permit permit = grant();
+        now.addAndGet(latency.toNanos());
+        permit.onResponse(status, new HttpHeaders());
+        permit.release();
+    }
+
+    private Permit grant() {
+        CompletableFuture<Permit> permit = limiter.acquireAsync("a");
+        assertThat(permit).isDone();
+        return permit.join();
+    }
+
+    private UpstreamLimiter limiter(double permitsPerSecond, int burst, int initialConcurrency, int minConcurrency,
+                                    int maxConcurrency) {
+        return new UpstreamLimiter("test", new Limit(permitsPerSecond, burst, initialConcurrency, minConcurrency,
+                maxConcurrency, LATENCY_THRESHOLD, 3, INITIAL_BACKOFF, MAX_BACKOFF), now::get);
+    }
+
+    private static HttpHeaders retryAfter(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, value);
+        return headers;
+    }
+}
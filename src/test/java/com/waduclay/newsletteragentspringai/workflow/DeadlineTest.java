@@ -0,0 +1,111 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        timer.shutdownNow();
+    }
+
+    @Test
+    void abandonsAStuckUpstreamAtTheDeadline() {
+        Deadline deadline = Deadline.at(System.nanoTime() + TIMEOUT.toNanos(), timer);
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> deadline.call("Search",
+                () -> Deadline.current().timeout(stuckUpstream()).blockLast()))
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessage("Search did not complete before its deadline");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TIMEOUT.multipliedBy(10));
+    }
+
+    @Test
+    void timesOutAReactiveCallWithoutInterruptingTheCaller() {
+        Deadline deadline = Deadline.at(System.nanoTime() + TIMEOUT.toNanos(), timer);
+
+        assertThatThrownBy(() -> deadline.timeout(stuckUpstream()).blockLast())
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(Thread.interrupted()).isFalse();
+    }
+
+    @Test
+    void boundsTheWholeCallRatherThanEachValue() {
+        Deadline deadline = Deadline.at(System.nanoTime() + TIMEOUT.toNanos(), timer);
+        Flux<Long> ticks = Flux.interval(TIMEOUT.dividedBy(3));
+
+        assertThatThrownBy(() -> deadline.timeout(ticks).blockLast())
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void isTheCurrentDeadlineOnlyWhileItsTaskRuns() throws Exception {
+        Deadline deadline = Deadline.at(System.nanoTime() + Duration.ofMinutes(1).toNanos(), timer);
+
+        assertThat(deadline.call("Planning", Deadline::current)).isSameAs(deadline);
+        assertThat(Deadline.current().isBounded()).isFalse();
+        assertThat(Deadline.none().timeout(Flux.just("call")).blockLast()).isEqualTo("call");
+    }
+
+    @Test
+    void carriesTheDeadlineToWorkOnAnotherThread() throws Exception {
+        Deadline deadline = Deadline.at(System.nanoTime() + Duration.ofMinutes(1).toNanos(), timer);
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+
+        Thread worker = new Thread(deadline.call("Editing", () -> Deadline.wrap(() -> seen.set(Deadline.current()))));
+        worker.start();
+        worker.join();
+
+        assertThat(seen.get()).isSameAs(deadline);
+    }
+
+    @Test
+    void sharesTheRemainingTimeAmongThePendingTasks() {
+        Deadline deadline = Deadline.at(System.nanoTime() + Duration.ofMinutes(10).toNanos(), timer);
+
+        assertThat(deadline.share(2, 10).remaining())
+                .isGreaterThan(Duration.ofMinutes(1))
+                .isLessThanOrEqualTo(Duration.ofMinutes(2));
+        assertThat(deadline.share(2, 2)).isSameAs(deadline);
+        assertThat(Deadline.none().share(2, 10).isBounded()).isFalse();
+    }
+
+    /**
+     * An upstream call that ignores interrupts, like a blocked socket read, until the test ends.
+     */
+    private Flux<String> stuckUpstream() {
+        return Mono.fromCallable(() -> {
+                    while (true) {
+                        try {
+                            release.await();
+                            return "response";
+                        } catch (InterruptedException ignored) {
+                            // keep waiting, as a blocked socket read would
+                        }
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flux();
+    }
+}
@@ -0,0 +1,146 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+import com.waduclay.newsletteragentspringai.agent.editor.EditorialFrame;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalEditorTest {
+
+    private static final List<String> BLOCKS = List.of(
+            "<h2>One</h2><p>First</p>",
+            "<h2>Two</h2><p>Second</p>",
+            "<h2>Three</h2><p>Third</p>");
+
+    @Test
+    void groupsConsecutiveSectionsWithinTheBudget() {
+        List<String> parts = HierarchicalEditor.parts(List.of("one two", "six ten", "red"), 4);
+
+        assertThat(parts).containsExactly("one two" + HierarchicalEditor.SECTION_SEPARATOR + "six ten", "red");
+    }
+
+    @Test
+    void putsASectionLargerThanTheBudgetIntoAPartOfItsOwn() {
+        String large = "word ".repeat(50);
+
+        assertThat(HierarchicalEditor.parts(List.of("one", large, "two"), 10)).containsExactly("one", large, "two");
+        assertThat(HierarchicalEditor.parts(List.of(large), 10)).containsExactly(large);
+    }
+
+    @Test
+    void splitsEditedPartsIntoSectionsAtEachHeading() {
+        List<String> blocks = HierarchicalEditor.blocks(List.of(
+                "<h2>One</h2><p>First</p>\n<H2 class=\"title\">Two</H2><p>Second</p>",
+                "<h2>Three</h2><p>Third</p>"));
+
+        assertThat(blocks).containsExactly("<h2>One</h2><p>First</p>", "<H2 class=\"title\">Two</H2><p>Second</p>",
+                "<h2>Three</h2><p>Third</p>");
+    }
+
+    @Test
+    void keepsAPartWithoutHeadingAsOneSection() {
+        List<String> blocks = HierarchicalEditor.blocks(List.of("<p>Intro without heading</p>", "<h2>One</h2>"));
+
+        assertThat(blocks).containsExactly("<p>Intro without heading</p>", "<h2>One</h2>");
+        assertThat(HierarchicalEditor.outline(blocks)).startsWith("1. (untitled)\n   Intro without heading\n");
+    }
+
+    @Test
+    void removesCodeFencesAroundAnEditedPart() {
+        List<String> blocks = HierarchicalEditor.blocks(List.of("```html\n<h2>One</h2><p>First</p>\n```"));
+
+        assertThat(blocks).containsExactly("<h2>One</h2><p>First</p>");
+    }
+
+    @Test
+    void outlinesEachSectionWithItsHeadingAndOpening() {
+        String outline = HierarchicalEditor.outline(List.of("<h2>One <em>big</em></h2>\n<p>First   text</p>",
+                "<h2>Two</h2><p>" + "x".repeat(300) + "</p>"));
+
+        assertThat(outline).isEqualTo("1. One big\n   First text\n"
+                + "2. Two\n   " + "x".repeat(280) + "...\n");
+    }
+
+    @Test
+    void assemblesTheSectionsInTheOrderOfTheFrame() {
+        EditorialFrame frame = new EditorialFrame("Subject", "Welcome", List.of(3, 1, 2),
+                List.of("Lead into three", "Lead into one", "Lead into two"), "<p>Goodbye</p>");
+
+        assertThat(HierarchicalEditor.assemble(frame, BLOCKS)).isEqualTo("""
+                <p>Welcome</p>
+
+                <p>Lead into three</p>
+
+                <h2>Three</h2><p>Third</p>
+
+                <p>Lead into one</p>
+
+                <h2>One</h2><p>First</p>
+
+                <p>Lead into two</p>
+
+                <h2>Two</h2><p>Second</p>
+
+                <p>Goodbye</p>""");
+    }
+
+    @Test
+    void ignoresInvalidAndRepeatedNumbersAndAppendsMissingSections() {
+        EditorialFrame frame = new EditorialFrame("Subject", null, Arrays.asList(2, 9, null, 0, 2),
+                List.of(), null);
+
+        assertThat(HierarchicalEditor.assemble(frame, BLOCKS)).isEqualTo("""
+                <h2>Two</h2><p>Second</p>
+
+                <h2>One</h2><p>First</p>
+
+                <h2>Three</h2><p>Third</p>""");
+    }
+
+    @Test
+    void keepsTheOriginalOrderWithoutSectionOrder() {
+        EditorialFrame frame = new EditorialFrame("Subject", null, null, null, null);
+
+        assertThat(HierarchicalEditor.assemble(frame, BLOCKS)).isEqualTo("""
+                <h2>One</h2><p>First</p>
+
+                <h2>Two</h2><p>Second</p>
+
+                <h2>Three</h2><p>Third</p>""");
+    }
+
+    @Test
+    void matchesTransitionsToTheirPositionEvenWhenNumbersAreSkipped() {
+        EditorialFrame frame = new EditorialFrame("Subject", null, Arrays.asList(2, 9, 2, 1),
+                List.of("Lead into two", "Lead into nine", "Lead into two again", "Lead into one"), null);
+
+        assertThat(HierarchicalEditor.assemble(frame, BLOCKS)).isEqualTo("""
+                <p>Lead into two</p>
+
+                <h2>Two</h2><p>Second</p>
+
+                <p>Lead into one</p>
+
+                <h2>One</h2><p>First</p>
+
+                <h2>Three</h2><p>Third</p>""");
+    }
+
+    @Test
+    void listsEverySourceOnceAfterTheSections() {
+        List<String> blocks = List.of(
+                "<h2>One</h2><p><a href=\"https://a.example\">Source A</a></p>",
+                "<h2>Two</h2><p><a href='https://a.example'>A again</a> <a href=\"https://b.example\"></a></p>");
+        EditorialFrame frame = new EditorialFrame("Subject", null, List.of(2, 1), null, null);
+
+        assertThat(HierarchicalEditor.assemble(frame, blocks)).endsWith("""
+                <h3>Sources</h3>
+                <ul>
+                <li><a href="https://a.example">Source A</a></li>
+                <li><a href="https://b.example">https://b.example</a></li>
+                </ul>""");
+    }
+}
@@ -0,0 +1,94 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+import com.waduclay.newsletteragentspringai.workflow.ReactiveTopicPipeline.Recovery;
+import com.waduclay.newsletteragentspringai.workflow.RunDeadlines.RunBudget;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveTopicPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+    private static final RunBudget UNBOUNDED = new RunBudget(Deadline.none(), Deadline.none(), Deadline.none(),
+            Deadline.none(), Deadline.none());
+
+    private final ReactiveTopicPipeline pipeline = new ReactiveTopicPipeline(
+            new WorkflowProperties(2, 1, EditorMode.STRUCTURED, true),
+            new ReactivePipelineProperties(true, TIMEOUT, TIMEOUT));
+
+    @Test
+    void returnsSectionsInTopicOrder() {
+        List<String> sections = pipeline.run(List.of("a", "b", "c"),
+                topic -> Mono.just(topic).delayElement(Duration.ofMillis(topic.equals("a") ? 60 : 0)),
+                research -> Mono.just(research.toUpperCase(Locale.ROOT))
+                        .delayElement(Duration.ofMillis(research.equals("b") ? 30 : 0)),
+                UNBOUNDED, Recovery.failFast());
+
+        assertThat(sections).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void researchesAtMostTheSearchConcurrencyAheadOfWriting() {
+        AtomicInteger searching = new AtomicInteger();
+        AtomicInteger maxSearching = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        List<String> topics = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+
+        List<String> sections = pipeline.run(topics, topic -> Mono.defer(() -> {
+                    maxSearching.accumulateAndGet(searching.incrementAndGet(), Math::max);
+                    return Mono.just(topic).delayElement(Duration.ofMillis(5))
+                            .doOnNext(research -> searching.decrementAndGet());
+                }).doOnSubscribe(subscription -> maxAhead.accumulateAndGet(
+                        topics.indexOf(topic) - written.get(), Math::max)),
+                research -> Mono.just(research).delayElement(Duration.ofMillis(20))
+                        .doOnNext(section -> written.incrementAndGet()),
+                UNBOUNDED, Recovery.failFast());
+
+        assertThat(sections).isEqualTo(topics);
+        assertThat(maxSearching).hasValue(2);
+        assertThat(maxAhead.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void recoversTopicsWhoseSearchOrWriteTimedOut() {
+        List<String> sections = pipeline.run(List.of("a", "b", "c"),
+                topic -> topic.equals("b") ? Mono.never() : Mono.just(topic),
+                research -> research.equals("c") ? Mono.never() : Mono.just(research.toUpperCase(Locale.ROOT)),
+                UNBOUNDED, new Recovery<>() {
+                    @Override
+                    public Mono<String> search(String topic, Throwable error) {
+                        return error instanceof TimeoutException ? Mono.just("dropped " + topic) : Mono.error(error);
+                    }
+
+                    @Override
+                    public Mono<String> write(String research, Throwable error) {
+                        return error instanceof TimeoutException ? Mono.just("fallback " + research)
+                                : Mono.error(error);
+                    }
+                });
+
+        assertThat(sections).containsExactly("A", "DROPPED B", "fallback c");
+    }
+
+    @Test
+    void failsTheRunWhenRecoveryRethrowsATimeout() {
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> pipeline.run(List.of("a", "b"),
+                topic -> topic.equals("b") ? Mono.<String>never() : Mono.just(topic),
+                Mono::just, UNBOUNDED, Recovery.failFast()))
+                .hasCauseInstanceOf(TimeoutException.class)
+                .hasMessageContaining("Search of topic 'b' did not complete within " + TIMEOUT);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TIMEOUT.multipliedBy(10));
+    }
+}
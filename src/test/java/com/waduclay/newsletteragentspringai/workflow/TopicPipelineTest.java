@@ -0,0 +1,122 @@
+package com.waduclay.newsletteragentspringai.workflow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopicPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final TopicPipeline pipeline = new TopicPipeline(
+            new WorkflowProperties(2, 1, EditorMode.STRUCTURED, true));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        pipeline.destroy();
+        timer.shutdownNow();
+    }
+
+    @Test
+    void runsStagesWithTheDeadlineOfTheCaller() throws Exception {
+        Deadline deadline = Deadline.at(System.nanoTime() + Duration.ofMinutes(1).toNanos(), timer);
+
+        List<Deadline> seen = deadline.call("Editing",
+                () -> pipeline.writeEach(List.of("part 1", "part 2"), part -> Deadline.current()));
+
+        assertThat(seen).containsExactly(deadline, deadline);
+    }
+
+    @Test
+    void stopsWaitingAndCancelsPendingStagesAtTheDeadline() throws Exception {
+        Deadline deadline = Deadline.at(System.nanoTime() + TIMEOUT.toNanos(), timer);
+        AtomicInteger started = new AtomicInteger();
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> deadline.call("Editing", () -> pipeline.writeEach(List.of(1, 2, 3), part -> {
+            started.incrementAndGet();
+            release.await();
+            return part;
+        }))).isInstanceOf(DeadlineExceededException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TIMEOUT.multipliedBy(10));
+        assertThat(Thread.interrupted()).isFalse();
+
+        release.countDown();
+        assertThat(pipeline.writeEach(List.of(4), part -> part)).containsExactly(4);
+        assertThat(started).hasValue(1);
+    }
+
+    @Test
+    void returnsSectionsInTopicOrder() {
+        List<String> sections = pipeline.writeEach(List.of("a", "b", "c"), topic -> {
+            Thread.sleep(topic.equals("a") ? 60 : topic.equals("b") ? 30 : 0);
+            return topic.toUpperCase(Locale.ROOT);
+        });
+
+        assertThat(sections).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void researchesAllTopicsAtOnceAndWritesThemInTopicOrder() {
+        ConcurrentLinkedQueue<List<String>> batches = new ConcurrentLinkedQueue<>();
+
+        List<String> sections = pipeline.researchThenWrite(List.of("a", "b", "c"), topics -> {
+            batches.add(topics);
+            return topics.stream().map(topic -> topic.toUpperCase(Locale.ROOT)).toList();
+        }, research -> {
+            Thread.sleep(research.equals("A") ? 30 : 0);
+            return "<h2>" + research + "</h2>";
+        });
+
+        assertThat(batches).containsExactly(List.of("a", "b", "c"));
+        assertThat(sections).containsExactly("<h2>A</h2>", "<h2>B</h2>", "<h2>C</h2>");
+    }
+
+    @Test
+    void cancelsTheRemainingTopicsWhenOneFails() throws Exception {
+        ConcurrentLinkedQueue<String> started = new ConcurrentLinkedQueue<>();
+
+        assertThatThrownBy(() -> pipeline.researchThenWrite(List.of("a", "b", "c"), topics -> topics, research -> {
+            started.add(research);
+            if (research.equals("a")) {
+                throw new IllegalStateException("Writing of a failed");
+            }
+            release.await();
+            return research;
+        })).isInstanceOf(IllegalStateException.class).hasMessage("Writing of a failed");
+
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(started).doesNotContain("c");
+    }
+
+    @Test
+    void capsConcurrentWrites() {
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger maxWriting = new AtomicInteger();
+
+        List<String> sections = pipeline.researchThenWrite(List.of("a", "b", "c", "d"), topics -> topics, research -> {
+            maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            writing.decrementAndGet();
+            return research;
+        });
+
+        assertThat(sections).containsExactly("a", "b", "c", "d");
+        assertThat(maxWriting).hasValue(1);
+    }
+}